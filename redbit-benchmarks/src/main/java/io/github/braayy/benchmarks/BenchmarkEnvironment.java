@@ -0,0 +1,64 @@
+package io.github.braayy.benchmarks;
+
+import io.github.braayy.Redbit;
+import io.github.braayy.RedbitConfig;
+import io.github.braayy.struct.RedbitStructInfo;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+
+public class BenchmarkEnvironment {
+
+    public static final String STRUCT_NAME = "benchmark_player";
+
+    private static RedisServer redisServer;
+
+    public static synchronized RedbitStructInfo registerStruct() {
+        RedbitStructInfo structInfo = Redbit.getStructRegistry().getStructInfo(BenchmarkPlayer.class);
+        if (structInfo != null) return structInfo;
+
+        Redbit.getStructRegistry().registerStruct(STRUCT_NAME, BenchmarkPlayer.class);
+        return Redbit.getStructRegistry().getStructInfo(BenchmarkPlayer.class);
+    }
+
+    // Starts an embedded Redis and an in-memory H2 database in MySQL mode, once per forked JVM
+    public static synchronized void start() throws IOException {
+        if (redisServer != null) return;
+
+        registerStruct();
+
+        int redisPort;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            redisPort = socket.getLocalPort();
+        }
+
+        redisServer = new RedisServer(redisPort);
+        redisServer.start();
+
+        RedbitConfig config = new RedbitConfig();
+        config.setRedisHost("localhost");
+        config.setRedisPort(redisPort);
+        config.setJdbcUrl("jdbc:h2:mem:redbit;MODE=MySQL;DB_CLOSE_DELAY=-1");
+        config.setSyncDelay(1000);
+        config.setParallelTasks(4);
+
+        Redbit.init(config);
+
+        Runtime.getRuntime().addShutdownHook(new Thread(BenchmarkEnvironment::stop));
+    }
+
+    public static synchronized void stop() {
+        if (redisServer == null) return;
+
+        Redbit.stop();
+
+        try {
+            redisServer.stop();
+        } catch (IOException ignored) {
+        }
+
+        redisServer = null;
+    }
+
+}
@@ -0,0 +1,34 @@
+package io.github.braayy.benchmarks;
+
+import io.github.braayy.column.RedbitColumn;
+import io.github.braayy.struct.RedbitVolatileStruct;
+
+public class BenchmarkPlayer extends RedbitVolatileStruct {
+
+    @RedbitColumn(sqlType = "INT", idColumn = true)
+    Integer id;
+
+    @RedbitColumn(sqlType = "VARCHAR", length = 16)
+    String name;
+
+    @RedbitColumn(sqlType = "BIGINT")
+    Long coins;
+
+    @RedbitColumn(sqlType = "SMALLINT")
+    Short level;
+
+    @RedbitColumn(sqlType = "VARCHAR", length = 32, nullable = true)
+    String guild;
+
+    public BenchmarkPlayer() {
+    }
+
+    public BenchmarkPlayer(int id) {
+        this.id = id;
+        this.name = "player" + id;
+        this.coins = id * 100L;
+        this.level = (short) (id % 100);
+        this.guild = id % 3 == 0 ? null : "guild" + (id % 50);
+    }
+
+}
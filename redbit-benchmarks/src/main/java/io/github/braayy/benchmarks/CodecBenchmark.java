@@ -0,0 +1,40 @@
+package io.github.braayy.benchmarks;
+
+import io.github.braayy.struct.RedbitStructInfo;
+import io.github.braayy.utils.RedbitUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CodecBenchmark {
+
+    private RedbitStructInfo structInfo;
+    private BenchmarkPlayer player;
+    private Map<String, String> valueMap;
+
+    @Setup
+    public void setup() {
+        structInfo = BenchmarkEnvironment.registerStruct();
+        player = new BenchmarkPlayer(42);
+        valueMap = RedbitUtils.getStructValues(structInfo, player, false);
+    }
+
+    @Benchmark
+    public Map<String, String> getStructValues() {
+        return RedbitUtils.getStructValues(structInfo, player, false);
+    }
+
+    @Benchmark
+    public BenchmarkPlayer setFieldsValueFromRedis() {
+        RedbitUtils.setFieldsValueFromRedis(structInfo, player, valueMap);
+        return player;
+    }
+
+}
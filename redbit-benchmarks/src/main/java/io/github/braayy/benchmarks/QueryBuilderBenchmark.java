@@ -0,0 +1,37 @@
+package io.github.braayy.benchmarks;
+
+import io.github.braayy.struct.RedbitStructInfo;
+import io.github.braayy.utils.RedbitQueryBuilders;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueryBuilderBenchmark {
+
+    @Param({"1", "500"})
+    public int rowCount;
+
+    private RedbitStructInfo structInfo;
+
+    @Setup
+    public void setup() {
+        structInfo = BenchmarkEnvironment.registerStruct();
+    }
+
+    @Benchmark
+    public String buildUpsertQuery() {
+        return RedbitQueryBuilders.buildBatchUpsertQuery(structInfo, rowCount);
+    }
+
+    @Benchmark
+    public String cachedUpsertQuery() {
+        return structInfo.getQueries().getBatchUpsertQuery(rowCount);
+    }
+
+}
@@ -0,0 +1,44 @@
+package io.github.braayy.benchmarks;
+
+import io.github.braayy.Redbit;
+import io.github.braayy.struct.RedbitStructInfo;
+import io.github.braayy.synchronization.RedbitSynchronizationEntry.Operation;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class SynchronizerBenchmark {
+
+    @Param({"100000"})
+    public int keySpace;
+
+    private RedbitStructInfo structInfo;
+    private String[] idValues;
+
+    @Setup
+    public void setup() throws IOException {
+        BenchmarkEnvironment.start();
+        structInfo = BenchmarkEnvironment.registerStruct();
+
+        idValues = new String[keySpace];
+        for (int i = 0; i < keySpace; i++) {
+            idValues[i] = Integer.toString(i);
+        }
+    }
+
+    @Benchmark
+    public void addModifiedKey() {
+        String idValue = idValues[ThreadLocalRandom.current().nextInt(keySpace)];
+        Redbit.getSynchronizer().addModifiedKey(structInfo, idValue, Operation.UPSERT);
+    }
+
+}
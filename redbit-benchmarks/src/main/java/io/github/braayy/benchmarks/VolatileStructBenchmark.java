@@ -0,0 +1,59 @@
+package io.github.braayy.benchmarks;
+
+import io.github.braayy.fetch.RedbitFetch;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class VolatileStructBenchmark {
+
+    @Param({"10000"})
+    public int playerCount;
+
+    @Setup
+    public void setup() throws IOException {
+        BenchmarkEnvironment.start();
+
+        for (int i = 0; i < playerCount; i++) {
+            new BenchmarkPlayer(i).insert(false);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class PlayerState {
+
+        private final BenchmarkPlayer player = new BenchmarkPlayer();
+
+    }
+
+    @Benchmark
+    public boolean update(PlayerState state) {
+        BenchmarkPlayer player = state.player;
+        int id = ThreadLocalRandom.current().nextInt(playerCount);
+        player.id = id;
+        player.name = "player" + id;
+        player.coins = ThreadLocalRandom.current().nextLong(1_000_000);
+        player.level = null;
+        player.guild = null;
+
+        return player.update();
+    }
+
+    @Benchmark
+    public RedbitFetch.Result fetchById(PlayerState state) {
+        BenchmarkPlayer player = state.player;
+        player.id = ThreadLocalRandom.current().nextInt(playerCount);
+
+        return player.fetchById();
+    }
+
+}
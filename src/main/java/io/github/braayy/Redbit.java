@@ -1,23 +1,48 @@
 package io.github.braayy;
 
 import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import io.github.braayy.cache.RedbitEvictionSweeper;
+import io.github.braayy.cache.RedbitExpiry;
+import io.github.braayy.cache.RedbitNearCacheInvalidator;
+import io.github.braayy.metrics.RedbitMetrics;
 import io.github.braayy.struct.RedbitStructInfo;
-import io.github.braayy.synchronization.RedbitSynchronizationTimer;
+import io.github.braayy.synchronization.RedbitJournal;
 import io.github.braayy.synchronization.RedbitSynchronizer;
-import io.github.braayy.utils.RedbitQueryBuilders;
+import io.github.braayy.utils.RedbitClusterPipeline;
+import io.github.braayy.utils.RedbitNodePipeline;
+import io.github.braayy.utils.RedbitPipeline;
+import io.github.braayy.utils.RedbitRedisBatcher;
 import org.jetbrains.annotations.Nullable;
+import redis.clients.jedis.ConnectionPool;
+import redis.clients.jedis.DefaultJedisClientConfig;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.JedisCluster;
 import redis.clients.jedis.JedisPooled;
+import redis.clients.jedis.UnifiedJedis;
+import redis.clients.jedis.providers.ClusterConnectionProvider;
+import redis.clients.jedis.util.JedisClusterCRC16;
+import redis.clients.jedis.util.Pool;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
-import java.util.Objects;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
 
 public class Redbit {
 
     public static final String KEY_FORMAT = "%s:%s";
+    public static final String SCHEMA_KEY_FORMAT = "redbit:schema:%s";
+    private static final int CLUSTER_SLOTS = 16384;
     private static final Redbit instance = new Redbit();
 
     public static Redbit getInstance() {
@@ -28,44 +53,141 @@ public class Redbit {
 
     private final RedbitStructRegistry structRegistry = new RedbitStructRegistry();
     private final Logger logger = Logger.getLogger("Redbit Logger");
-    private RedbitSynchronizationTimer synchronizationTimer;
     private RedbitSynchronizer synchronizer;
-    private JedisPooled jedis;
+    private RedbitJournal journal;
+    private RedbitNearCacheInvalidator nearCacheInvalidator;
+    private RedbitEvictionSweeper evictionSweeper;
+    private RedbitRedisBatcher redisBatcher;
+    private ExecutorService asyncExecutor;
+    private UnifiedJedis jedis;
+    private ClusterConnectionProvider clusterProvider;
     private HikariDataSource dataSource;
+    private final List<HikariDataSource> replicaDataSources = new ArrayList<>();
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    // Nano time until which a replica that could not be reached is skipped
+    private final Map<HikariDataSource, Long> replicaRetryAt = new ConcurrentHashMap<>();
     private RedbitConfig config;
+    private RedbitMetrics metrics = RedbitMetrics.NOOP;
 
     public static void init(RedbitConfig config) {
         instance.config = config;
+        instance.metrics = config.getMetrics() != null ? config.getMetrics() : RedbitMetrics.NOOP;
 
-        instance.synchronizationTimer = new RedbitSynchronizationTimer();
         instance.synchronizer = new RedbitSynchronizer();
 
-        instance.jedis = new JedisPooled(config.getRedisHost(), config.getRedisPort());
+        if (config.getRedisClusterNodes().isEmpty()) {
+            instance.jedis = new JedisPooled(config.getRedisHost(), config.getRedisPort());
+        } else {
+            Set<HostAndPort> nodes = config.getRedisClusterNodes().stream().map(HostAndPort::from).collect(Collectors.toSet());
+            instance.clusterProvider = new ClusterConnectionProvider(nodes, DefaultJedisClientConfig.builder().build());
+            instance.jedis = new UnifiedJedis(instance.clusterProvider, JedisCluster.DEFAULT_MAX_ATTEMPTS, Duration.ofMillis((long) JedisCluster.DEFAULT_TIMEOUT * JedisCluster.DEFAULT_MAX_ATTEMPTS));
+        }
 
-        instance.dataSource = new HikariDataSource();
-        instance.dataSource.setJdbcUrl(String.format("jdbc:mysql://%s:%d/%s", config.getMysqlHost(), config.getMysqlPort(), config.getMysqlDatabase()));
-        instance.dataSource.setUsername(config.getMysqlUser());
-        instance.dataSource.setPassword(config.getMysqlPassword());
-        instance.dataSource.addDataSourceProperty("CachePrepStmts", "true");
-        instance.dataSource.addDataSourceProperty("PrepStmtCacheSize", "250");
-        instance.dataSource.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
+        String jdbcUrl = config.getJdbcUrl() != null ? config.getJdbcUrl() : String.format("jdbc:mysql://%s:%d/%s", config.getMysqlHost(), config.getMysqlPort(), config.getMysqlDatabase());
+        instance.dataSource = createDataSource(config, "Redbit Primary Pool", jdbcUrl, config.getMysqlPoolSize());
+        List<String> replicaJdbcUrls = config.getReplicaJdbcUrls();
+        for (int i = 0; i < replicaJdbcUrls.size(); i++) {
+            HikariDataSource replicaDataSource = createDataSource(config, "Redbit Replica Pool #" + (i + 1), replicaJdbcUrls.get(i), config.getReplicaPoolSize());
+            // Reads fall back to the primary when a replica is down, so they should not wait long for it, nor should init
+            replicaDataSource.setConnectionTimeout(config.getReplicaConnectionTimeout());
+            replicaDataSource.setInitializationFailTimeout(-1);
+            instance.replicaDataSources.add(replicaDataSource);
+        }
 
         instance.createTablesForStructs();
+        instance.checkCompactSchemas();
+        instance.checkIndexedStructs();
 
-        instance.synchronizationTimer.start();
+        // Sharded synchronization always goes through the journal, other nodes pull the keys from it
+        instance.journal = config.isJournal() || config.getSyncShards() > 0 ? new RedbitJournal(config.getSyncShards()) : null;
         instance.synchronizer.start();
+
+        // Keys a previous run wrote but never synchronized are queued again before anything new is written, shard owners pull them on their own
+        if (instance.journal != null && config.getSyncShards() == 0)
+            instance.journal.replay(instance.synchronizer);
+
+        instance.asyncExecutor = createAsyncExecutor(config);
+        instance.redisBatcher = new RedbitRedisBatcher();
+        instance.redisBatcher.start();
+
+        if (instance.structRegistry.getStructs().stream().anyMatch(structInfo -> structInfo.getNearCache() != null)) {
+            instance.nearCacheInvalidator = new RedbitNearCacheInvalidator(config.getNearCacheChannel());
+            instance.nearCacheInvalidator.start();
+        }
+
+        if (instance.structRegistry.getStructs().stream().anyMatch(structInfo -> structInfo.getExpiry() != null && structInfo.getExpiry().getMaxKeys() > 0)) {
+            instance.evictionSweeper = new RedbitEvictionSweeper();
+            instance.evictionSweeper.start();
+        }
     }
 
     public static void stop() {
+        // Pending async writes must reach redis before the final synchronization
+        instance.asyncExecutor.shutdown();
+        try {
+            if (!instance.asyncExecutor.awaitTermination(instance.config.getSyncShutdownTimeout(), TimeUnit.MILLISECONDS))
+                Redbit.getLogger().warning("Async operations did not finish in time, some of them may be lost");
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+        instance.redisBatcher.stop();
         instance.synchronizer.shutdown();
-        instance.synchronizationTimer.interrupt();
+        if (instance.nearCacheInvalidator != null)
+            instance.nearCacheInvalidator.stop();
+        if (instance.evictionSweeper != null)
+            instance.evictionSweeper.stop();
         instance.dataSource.close();
+        for (HikariDataSource replicaDataSource : instance.replicaDataSources) {
+            replicaDataSource.close();
+        }
+        instance.replicaDataSources.clear();
+        instance.replicaRetryAt.clear();
+    }
+
+    private static HikariDataSource createDataSource(RedbitConfig config, String poolName, String jdbcUrl, int poolSize) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName(poolName);
+        dataSource.setJdbcUrl(jdbcUrl);
+        dataSource.setUsername(config.getMysqlUser());
+        dataSource.setPassword(config.getMysqlPassword());
+        dataSource.setMaximumPoolSize(poolSize);
+        dataSource.addDataSourceProperty("CachePrepStmts", "true");
+        dataSource.addDataSourceProperty("PrepStmtCacheSize", "250");
+        dataSource.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
+
+        RedbitMetrics metrics = instance.metrics;
+        if (metrics != RedbitMetrics.NOOP) {
+            dataSource.setMetricsTrackerFactory((name, poolStats) -> new IMetricsTracker() {
+                @Override
+                public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                    metrics.connectionAcquired(name, elapsedAcquiredNanos);
+                }
+            });
+        }
+
+        return dataSource;
+    }
+
+    private static ExecutorService createAsyncExecutor(RedbitConfig config) {
+        if (config.isAsyncVirtualThreads()) {
+            // Virtual threads are only available on JDK 21+, and we still target Java 11
+            try {
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException ignored) {
+            }
+        }
+
+        AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newFixedThreadPool(config.getAsyncThreads(), runnable -> {
+            Thread thread = new Thread(runnable, "Redbit Async Thread #" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
     private void createTablesForStructs() {
         for (RedbitStructInfo structInfo : structRegistry.getStructs()) {
-            String stringQuery = RedbitQueryBuilders.buildCreateTableQuery(structInfo);
-            try (RedbitQuery query = sqlQuery(stringQuery)) {
+            try (RedbitQuery query = sqlQuery(structInfo.getQueries().getCreateTableQuery())) {
                 query.executeUpdate();
             } catch (Exception exception) {
                 Redbit.getLogger().log(Level.SEVERE, "Something went wrong while creating table " + structInfo.getName(), exception);
@@ -73,6 +195,32 @@ public class Redbit {
         }
     }
 
+    private void checkCompactSchemas() {
+        for (RedbitStructInfo structInfo : structRegistry.getStructs()) {
+            if (!structInfo.isCompact()) continue;
+
+            String schemaKey = String.format(SCHEMA_KEY_FORMAT, structInfo.getName());
+            String schema = structInfo.getCodec().getBinarySchema();
+            String storedSchema = jedis.get(schemaKey);
+
+            // Compact hashes identify columns by position, so existing hashes only stay readable when columns are appended
+            if (storedSchema != null && !schema.equals(storedSchema) && !schema.startsWith(storedSchema + ','))
+                throw new IllegalStateException("Compact layout of struct " + structInfo.getName() + " changed from [" + storedSchema + "] to [" + schema + "], its cached hashes and " + schemaKey + " must be flushed from redis before starting");
+
+            jedis.set(schemaKey, schema);
+        }
+    }
+
+    // Rows and their index entries are written by the same script, which a cluster only runs on keys of a single slot
+    private void checkIndexedStructs() {
+        if (clusterProvider == null) return;
+
+        for (RedbitStructInfo structInfo : structRegistry.getStructs()) {
+            if (!structInfo.getIndexes().isEmpty() && !structInfo.isColocated())
+                throw new IllegalStateException("Struct " + structInfo.getName() + " has indexed columns, so it must be annotated with @RedbitColocated to run on a redis cluster");
+        }
+    }
+
     public static RedbitStructRegistry getStructRegistry() {
         return instance.structRegistry;
     }
@@ -81,28 +229,171 @@ public class Redbit {
         return instance.synchronizer;
     }
 
+    @Nullable
+    public static RedbitJournal getJournal() {
+        return instance.journal;
+    }
+
+    @Nullable
+    public static RedbitNearCacheInvalidator getNearCacheInvalidator() {
+        return instance.nearCacheInvalidator;
+    }
+
+    public static ExecutorService getAsyncExecutor() {
+        Objects.requireNonNull(instance.asyncExecutor, "Async executor was not initialized yet! Redbit#init(RedbitConfig) should do it");
+
+        return instance.asyncExecutor;
+    }
+
+    public static RedbitRedisBatcher getRedisBatcher() {
+        Objects.requireNonNull(instance.redisBatcher, "Redis batcher was not initialized yet! Redbit#init(RedbitConfig) should do it");
+
+        return instance.redisBatcher;
+    }
+
+    public static RedbitMetrics getMetrics() {
+        return instance.metrics;
+    }
+
     public static Logger getLogger() {
         return instance.logger;
     }
 
     @Nullable
-    public static JedisPooled getJedis() {
+    public static UnifiedJedis getJedis() {
         return instance.jedis;
     }
 
+    public static boolean isCluster() {
+        return instance.clusterProvider != null;
+    }
+
+    public static RedbitPipeline pipelined() {
+        Objects.requireNonNull(instance.jedis, "Jedis was not initialized yet! Redbit#init(RedbitConfig) should do it");
+
+        if (instance.clusterProvider != null)
+            return new RedbitClusterPipeline(instance.clusterProvider);
+
+        return new RedbitNodePipeline(((JedisPooled) instance.jedis).getPool().getResource());
+    }
+
+    // Commands without a key, like SCAN, only see the keys of the node they are sent to
+    public static List<Pool<redis.clients.jedis.Connection>> getRedisPrimaries() {
+        Objects.requireNonNull(instance.jedis, "Jedis was not initialized yet! Redbit#init(RedbitConfig) should do it");
+
+        if (instance.clusterProvider == null)
+            return Collections.singletonList(((JedisPooled) instance.jedis).getPool());
+
+        Map<String, ConnectionPool> nodes = instance.clusterProvider.getNodes();
+        Map<String, Pool<redis.clients.jedis.Connection>> primaries = new LinkedHashMap<>();
+        for (int slot = 0; slot < CLUSTER_SLOTS; slot++) {
+            HostAndPort node = instance.clusterProvider.getNode(slot);
+            if (node == null) continue;
+
+            String nodeKey = node.toString();
+            if (!primaries.containsKey(nodeKey) && nodes.containsKey(nodeKey))
+                primaries.put(nodeKey, nodes.get(nodeKey));
+        }
+
+        return new ArrayList<>(primaries.values());
+    }
+
+    public static Pool<redis.clients.jedis.Connection> getRedisPrimary(String key) {
+        Objects.requireNonNull(instance.jedis, "Jedis was not initialized yet! Redbit#init(RedbitConfig) should do it");
+
+        if (instance.clusterProvider == null)
+            return ((JedisPooled) instance.jedis).getPool();
+
+        HostAndPort node = instance.clusterProvider.getNode(JedisClusterCRC16.getSlot(key));
+        Objects.requireNonNull(node, "No redis node is serving the slot of key " + key);
+
+        Pool<redis.clients.jedis.Connection> pool = instance.clusterProvider.getNodes().get(node.toString());
+        Objects.requireNonNull(pool, "Redis node " + node + " is not known yet");
+
+        return pool;
+    }
+
     public static RedbitConfig getConfig() {
         return instance.config;
     }
 
     public static RedbitQuery sqlQuery(String query) throws SQLException {
+        Connection connection = sqlConnection();
+        PreparedStatement stmt = prepareStatement(connection, query);
+
+        return new RedbitQuery(connection, stmt);
+    }
+
+    public static Connection sqlConnection() throws SQLException {
         Objects.requireNonNull(instance.dataSource, "Hikari was not initialized yet! Redbit#init(RedbitConfig) should do it");
 
-        if (Redbit.getConfig().isDebug())
-            Redbit.getLogger().info("[Redbit SQL] " + query);
+        return instance.dataSource.getConnection();
+    }
 
-        Connection connection = instance.dataSource.getConnection();
-        PreparedStatement stmt = connection.prepareStatement(query);
+    public static boolean hasReadReplicas() {
+        return !instance.replicaDataSources.isEmpty();
+    }
+
+    public static RedbitQuery sqlReadQuery(String query) throws SQLException {
+        Connection connection = sqlReadConnection();
+        PreparedStatement stmt = prepareStatement(connection, query);
+
+        return new RedbitQuery(connection, stmt);
+    }
+
+    public static RedbitQuery sqlReadQuery(String query, RedbitStructInfo structInfo, String idValue) throws SQLException {
+        Connection connection = sqlReadConnection(structInfo, Collections.singletonList(idValue));
+        PreparedStatement stmt = prepareStatement(connection, query);
 
         return new RedbitQuery(connection, stmt);
     }
+
+    // Replicas may not have the ids that are still being synchronized yet, so those reads stay on the primary
+    public static Connection sqlReadConnection(RedbitStructInfo structInfo, Collection<String> idValues) throws SQLException {
+        if (instance.replicaDataSources.isEmpty())
+            return sqlConnection();
+
+        for (String idValue : idValues) {
+            if (instance.synchronizer.isPending(structInfo, idValue))
+                return sqlConnection();
+        }
+
+        return sqlReadConnection();
+    }
+
+    public static Connection sqlReadConnection() throws SQLException {
+        List<HikariDataSource> replicas = instance.replicaDataSources;
+        if (replicas.isEmpty())
+            return sqlConnection();
+
+        // A replica that could not be reached is skipped until its cooldown ends, the next one or the primary is read meanwhile
+        int first = instance.nextReplica.getAndIncrement();
+        long now = System.nanoTime();
+        for (int i = 0; i < replicas.size(); i++) {
+            HikariDataSource replica = replicas.get(Math.floorMod(first + i, replicas.size()));
+            Long retryAt = instance.replicaRetryAt.get(replica);
+            if (retryAt != null && retryAt - now > 0) continue;
+
+            try {
+                Connection connection = replica.getConnection();
+                if (retryAt != null)
+                    instance.replicaRetryAt.remove(replica);
+
+                return connection;
+            } catch (SQLException exception) {
+                long cooldown = instance.config.getReplicaCooldown();
+                instance.replicaRetryAt.put(replica, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(cooldown));
+                Redbit.getLogger().log(Level.WARNING, "Could not reach replica " + replica.getJdbcUrl() + ", it is skipped for " + cooldown + "ms", exception);
+            }
+        }
+
+        return sqlConnection();
+    }
+
+    public static PreparedStatement prepareStatement(Connection connection, String query) throws SQLException {
+        if (Redbit.getConfig().isDebug())
+            Redbit.getLogger().info("[Redbit SQL] " + query);
+
+        return connection.prepareStatement(query);
+    }
 }
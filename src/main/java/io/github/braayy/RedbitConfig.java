@@ -1,5 +1,11 @@
 package io.github.braayy;
 
+import io.github.braayy.metrics.RedbitMetrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
 public class RedbitConfig {
 
     private String redisHost, mysqlHost, mysqlDatabase, mysqlUser, mysqlPassword;
@@ -7,6 +13,28 @@ public class RedbitConfig {
     private boolean debug;
     private long syncDelay;
     private int parallelTasks;
+    private int syncBatchSize = 500, syncTransactionSize = 5000, syncHighWaterMark = 50000;
+    private long syncShutdownTimeout = 30000;
+    private int scanCount = 1000;
+    private String jdbcUrl;
+    private String nearCacheChannel = "redbit:invalidation";
+    private long negativeCacheTtl = 0;
+    private int negativeCacheSize = 100000;
+    private int asyncThreads = 16;
+    private boolean asyncVirtualThreads = true;
+    private List<String> redisClusterNodes = new ArrayList<>();
+    private int mysqlPoolSize = 10;
+    private List<String> replicaJdbcUrls = new ArrayList<>();
+    private int replicaPoolSize = 10;
+    private long replicaLagTolerance = 1000;
+    private long replicaConnectionTimeout = 1000;
+    private long replicaCooldown = 30000;
+    private RedbitMetrics metrics = RedbitMetrics.NOOP;
+    private long evictionSweepInterval = 60000;
+    private boolean journal;
+    private int syncShards = 0;
+    private long syncLeaseTime = 10000;
+    private String syncNodeId = UUID.randomUUID().toString();
 
     public RedbitConfig() {
     }
@@ -103,4 +131,197 @@ public class RedbitConfig {
     public void setParallelTasks(int parallelTasks) {
         this.parallelTasks = parallelTasks;
     }
+
+    public int getSyncBatchSize() {
+        return syncBatchSize;
+    }
+
+    public void setSyncBatchSize(int syncBatchSize) {
+        this.syncBatchSize = syncBatchSize;
+    }
+
+    public int getSyncTransactionSize() {
+        return syncTransactionSize;
+    }
+
+    public void setSyncTransactionSize(int syncTransactionSize) {
+        this.syncTransactionSize = syncTransactionSize;
+    }
+
+    public int getSyncHighWaterMark() {
+        return syncHighWaterMark;
+    }
+
+    public void setSyncHighWaterMark(int syncHighWaterMark) {
+        this.syncHighWaterMark = syncHighWaterMark;
+    }
+
+    public long getSyncShutdownTimeout() {
+        return syncShutdownTimeout;
+    }
+
+    public void setSyncShutdownTimeout(long syncShutdownTimeout) {
+        this.syncShutdownTimeout = syncShutdownTimeout;
+    }
+
+    public int getScanCount() {
+        return scanCount;
+    }
+
+    public void setScanCount(int scanCount) {
+        this.scanCount = scanCount;
+    }
+
+    public String getNearCacheChannel() {
+        return nearCacheChannel;
+    }
+
+    public void setNearCacheChannel(String nearCacheChannel) {
+        this.nearCacheChannel = nearCacheChannel;
+    }
+
+    public long getNegativeCacheTtl() {
+        return negativeCacheTtl;
+    }
+
+    public void setNegativeCacheTtl(long negativeCacheTtl) {
+        this.negativeCacheTtl = negativeCacheTtl;
+    }
+
+    public int getNegativeCacheSize() {
+        return negativeCacheSize;
+    }
+
+    public void setNegativeCacheSize(int negativeCacheSize) {
+        this.negativeCacheSize = negativeCacheSize;
+    }
+
+    public String getJdbcUrl() {
+        return jdbcUrl;
+    }
+
+    public void setJdbcUrl(String jdbcUrl) {
+        this.jdbcUrl = jdbcUrl;
+    }
+
+    public int getAsyncThreads() {
+        return asyncThreads;
+    }
+
+    public void setAsyncThreads(int asyncThreads) {
+        this.asyncThreads = asyncThreads;
+    }
+
+    public boolean isAsyncVirtualThreads() {
+        return asyncVirtualThreads;
+    }
+
+    public void setAsyncVirtualThreads(boolean asyncVirtualThreads) {
+        this.asyncVirtualThreads = asyncVirtualThreads;
+    }
+
+    public List<String> getRedisClusterNodes() {
+        return redisClusterNodes;
+    }
+
+    public void setRedisClusterNodes(List<String> redisClusterNodes) {
+        this.redisClusterNodes = redisClusterNodes;
+    }
+
+    public int getMysqlPoolSize() {
+        return mysqlPoolSize;
+    }
+
+    public void setMysqlPoolSize(int mysqlPoolSize) {
+        this.mysqlPoolSize = mysqlPoolSize;
+    }
+
+    public List<String> getReplicaJdbcUrls() {
+        return replicaJdbcUrls;
+    }
+
+    public void setReplicaJdbcUrls(List<String> replicaJdbcUrls) {
+        this.replicaJdbcUrls = replicaJdbcUrls;
+    }
+
+    public int getReplicaPoolSize() {
+        return replicaPoolSize;
+    }
+
+    public void setReplicaPoolSize(int replicaPoolSize) {
+        this.replicaPoolSize = replicaPoolSize;
+    }
+
+    public long getReplicaLagTolerance() {
+        return replicaLagTolerance;
+    }
+
+    public void setReplicaLagTolerance(long replicaLagTolerance) {
+        this.replicaLagTolerance = replicaLagTolerance;
+    }
+
+    public long getReplicaConnectionTimeout() {
+        return replicaConnectionTimeout;
+    }
+
+    public void setReplicaConnectionTimeout(long replicaConnectionTimeout) {
+        this.replicaConnectionTimeout = replicaConnectionTimeout;
+    }
+
+    public long getReplicaCooldown() {
+        return replicaCooldown;
+    }
+
+    public void setReplicaCooldown(long replicaCooldown) {
+        this.replicaCooldown = replicaCooldown;
+    }
+
+    public RedbitMetrics getMetrics() {
+        return metrics;
+    }
+
+    public void setMetrics(RedbitMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public long getEvictionSweepInterval() {
+        return evictionSweepInterval;
+    }
+
+    public void setEvictionSweepInterval(long evictionSweepInterval) {
+        this.evictionSweepInterval = evictionSweepInterval;
+    }
+
+    public boolean isJournal() {
+        return journal;
+    }
+
+    public void setJournal(boolean journal) {
+        this.journal = journal;
+    }
+
+    public int getSyncShards() {
+        return syncShards;
+    }
+
+    public void setSyncShards(int syncShards) {
+        this.syncShards = syncShards;
+    }
+
+    public long getSyncLeaseTime() {
+        return syncLeaseTime;
+    }
+
+    public void setSyncLeaseTime(long syncLeaseTime) {
+        this.syncLeaseTime = syncLeaseTime;
+    }
+
+    public String getSyncNodeId() {
+        return syncNodeId;
+    }
+
+    public void setSyncNodeId(String syncNodeId) {
+        this.syncNodeId = syncNodeId;
+    }
+
 }
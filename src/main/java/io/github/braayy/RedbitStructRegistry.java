@@ -1,11 +1,26 @@
 package io.github.braayy;
 
+import io.github.braayy.cache.RedbitExpiry;
+import io.github.braayy.cache.RedbitNearCache;
 import io.github.braayy.column.RedbitColumn;
+import io.github.braayy.column.RedbitColumnCodec;
 import io.github.braayy.column.RedbitColumnInfo;
+import io.github.braayy.index.RedbitIndex;
+import io.github.braayy.struct.RedbitColocated;
+import io.github.braayy.struct.RedbitCompact;
+import io.github.braayy.struct.RedbitExpiring;
 import io.github.braayy.struct.RedbitStruct;
+import io.github.braayy.struct.RedbitStructCodec;
 import io.github.braayy.struct.RedbitStructInfo;
+import io.github.braayy.struct.RedbitSyncPolicy;
+import io.github.braayy.struct.RedbitVolatileStruct;
+import io.github.braayy.struct.RedbitNearCached;
 import org.jetbrains.annotations.Nullable;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.util.*;
 
@@ -19,9 +34,17 @@ public class RedbitStructRegistry {
 
     public <T extends RedbitStruct> void registerStruct(String structName, Class<T> structClass) {
         RedbitColumnInfo structIdColumn = null;
+        RedbitColumnCodec structIdCodec = null;
         List<RedbitColumnInfo> columns = new ArrayList<>();
+        List<RedbitColumnCodec> columnCodecs = new ArrayList<>();
 
-        for (Field field : structClass.getDeclaredFields()) {
+        // Compact hashes identify columns by position, and the order of getDeclaredFields is not guaranteed by the JVM
+        boolean compact = structClass.isAnnotationPresent(RedbitCompact.class);
+        Field[] fields = structClass.getDeclaredFields();
+        if (compact)
+            Arrays.sort(fields, Comparator.comparing(Field::getName));
+
+        for (Field field : fields) {
             RedbitColumn redbitColumn = field.getAnnotation(RedbitColumn.class);
             if (redbitColumn == null) continue;
 
@@ -33,6 +56,7 @@ public class RedbitStructRegistry {
             boolean idColumn = redbitColumn.idColumn();
             boolean autoIncrement = redbitColumn.autoIncrement();
             boolean nullable = redbitColumn.nullable();
+            boolean indexed = redbitColumn.indexed();
 
             if (idColumn && nullable)
                 throw new IllegalArgumentException("Id column cannot be nullable in struct " + structName);
@@ -40,6 +64,12 @@ public class RedbitStructRegistry {
             if (autoIncrement && !idColumn)
                 throw new IllegalArgumentException("Only a id column can have a auto increment in struct " + structName);
 
+            if (indexed && idColumn)
+                throw new IllegalArgumentException("Id column cannot be indexed in struct " + structName);
+
+            if (indexed && !RedbitVolatileStruct.class.isAssignableFrom(structClass))
+                throw new IllegalArgumentException("Only volatile structs can have indexed columns in struct " + structName);
+
             if (field.getType().isPrimitive())
                 throw new IllegalArgumentException("Use boxed version of primitive types for nullability in struct " + structName);
 
@@ -56,33 +86,82 @@ public class RedbitStructRegistry {
             if (!Objects.equals(defaultValue, ""))
                 sqlCreation.append(" DEFAULT '").append(defaultValue).append('\'');
 
-            RedbitColumnInfo columnInfo = new RedbitColumnInfo(fieldName, name, sqlCreation.toString(), defaultValue, idColumn, autoIncrement, nullable);
+            RedbitColumnInfo columnInfo = new RedbitColumnInfo(fieldName, name, sqlCreation.toString(), defaultValue, idColumn, autoIncrement, nullable, indexed);
+            RedbitColumnCodec columnCodec;
+            try {
+                columnCodec = RedbitColumnCodec.of(field, columnInfo);
+            } catch (IllegalAccessException exception) {
+                throw new IllegalArgumentException("Could not access field " + fieldName + " in struct " + structName, exception);
+            }
 
             if (idColumn) {
                 if (structIdColumn != null)
                     throw new IllegalArgumentException("Two or more id columns detected in struct " + structName);
 
                 structIdColumn = columnInfo;
+                structIdCodec = columnCodec;
 
                 continue;
             }
 
             columns.add(columnInfo);
+            columnCodecs.add(columnCodec);
         }
 
         if (structIdColumn == null)
             throw new IllegalArgumentException("No id column found in struct " + structName);
 
-        RedbitStructInfo structInfo = new RedbitStructInfo(structName, structIdColumn, columns);
+        RedbitStructCodec codec = new RedbitStructCodec(findConstructor(structClass), structIdCodec, columnCodecs);
+        RedbitNearCached nearCached = structClass.getAnnotation(RedbitNearCached.class);
+        RedbitNearCache nearCache = nearCached != null ? new RedbitNearCache(nearCached.maximumSize(), nearCached.expireAfterWrite()) : null;
+
+        RedbitExpiring expiring = structClass.getAnnotation(RedbitExpiring.class);
+        RedbitExpiry expiry = expiring != null ? new RedbitExpiry(expiring.ttl(), expiring.maxKeys()) : null;
+
+        // Field ids are a single unsigned byte and 0 is the id column
+        if (compact && columns.size() > 255)
+            throw new IllegalArgumentException("Compact structs cannot have more than 255 columns in struct " + structName);
+
+        boolean colocated = structClass.isAnnotationPresent(RedbitColocated.class);
+
+        List<RedbitIndex> indexes = new ArrayList<>();
+        for (int i = 1; i < codec.getCodecs().length; i++) {
+            RedbitColumnCodec columnCodec = codec.getCodecs()[i];
+            if (columnCodec.getColumnInfo().isIndexed())
+                indexes.add(new RedbitIndex(structName, i, columnCodec.getColumnInfo().getName(), columnCodec.getType()));
+        }
+
+        RedbitStructInfo structInfo = new RedbitStructInfo(structName, structIdColumn, columns, codec, nearCache, expiry, structClass.getAnnotation(RedbitSyncPolicy.class), indexes, compact, colocated);
 
         structMap.put(structClass, structInfo);
     }
 
+    @Nullable
+    private MethodHandle findConstructor(Class<? extends RedbitStruct> structClass) {
+        try {
+            Constructor<? extends RedbitStruct> constructor = structClass.getDeclaredConstructor();
+            constructor.setAccessible(true);
+
+            return MethodHandles.lookup().unreflectConstructor(constructor).asType(MethodType.methodType(RedbitStruct.class));
+        } catch (NoSuchMethodException | IllegalAccessException exception) {
+            return null;
+        }
+    }
+
     @Nullable
     public RedbitStructInfo getStructInfo(Class<? extends RedbitStruct> tableClass) {
         return structMap.get(tableClass);
     }
 
+    @Nullable
+    public RedbitStructInfo getStructInfo(String structName) {
+        for (RedbitStructInfo structInfo : structMap.values()) {
+            if (structInfo.getName().equals(structName)) return structInfo;
+        }
+
+        return null;
+    }
+
     public Collection<RedbitStructInfo> getStructs() {
         return structMap.values();
     }
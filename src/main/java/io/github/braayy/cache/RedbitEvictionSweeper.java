@@ -0,0 +1,153 @@
+package io.github.braayy.cache;
+
+import io.github.braayy.Redbit;
+import io.github.braayy.struct.RedbitStructInfo;
+import io.github.braayy.utils.RedbitPipeline;
+import io.github.braayy.utils.RedbitRedisScanner;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.UnifiedJedis;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.params.ScanParams;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+// Evicts the least used keys of structs above their maxKeys. Only keys with a ttl are evicted, so pending writes are never lost
+public class RedbitEvictionSweeper implements Runnable {
+
+    // Scores go from the first key to evict to the last one, LFU counters are 0-255 and idle times are bucketed by powers of two
+    private static final int SCORES = 256;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Redbit Eviction Sweeper Thread");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public void start() {
+        long interval = Redbit.getConfig().getEvictionSweepInterval();
+        scheduler.scheduleWithFixedDelay(this, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    @Override
+    public void run() {
+        for (RedbitStructInfo structInfo : Redbit.getStructRegistry().getStructs()) {
+            RedbitExpiry expiry = structInfo.getExpiry();
+            if (expiry == null || expiry.getMaxKeys() <= 0) continue;
+
+            try {
+                sweep(structInfo, expiry);
+            } catch (Exception exception) {
+                Redbit.getLogger().log(Level.SEVERE, "Something went wrong while evicting keys of struct " + structInfo.getName(), exception);
+            }
+        }
+    }
+
+    // Two passes keep the memory flat: the first one builds a histogram of scores, the second one evicts the keys below the threshold
+    private void sweep(RedbitStructInfo structInfo, RedbitExpiry expiry) {
+        boolean frequency = supportsFrequency(structInfo);
+
+        long[] histogram = new long[SCORES];
+        long total = 0;
+        RedbitRedisScanner scanner = newScanner(structInfo);
+        List<String> keys;
+        while ((keys = scanner.nextPage()) != null) {
+            for (int score : scores(keys, frequency)) {
+                if (score < 0) continue;
+
+                histogram[score]++;
+                total++;
+            }
+        }
+
+        long excess = total - expiry.getMaxKeys();
+        if (excess <= 0) return;
+
+        int threshold = 0;
+        long below = 0;
+        while (below + histogram[threshold] < excess) {
+            below += histogram[threshold++];
+        }
+        long atThreshold = excess - below;
+
+        long evicted = 0;
+        scanner = newScanner(structInfo);
+        while ((keys = scanner.nextPage()) != null) {
+            int[] scores = scores(keys, frequency);
+
+            try (RedbitPipeline pipeline = Redbit.pipelined()) {
+                for (int i = 0; i < keys.size(); i++) {
+                    int score = scores[i];
+                    if (score < 0 || score > threshold) continue;
+                    if (score == threshold && atThreshold-- <= 0) continue;
+
+                    expiry.evict(pipeline, keys.get(i));
+                    evicted++;
+                }
+            }
+        }
+
+        if (Redbit.getConfig().isDebug())
+            Redbit.getLogger().info("[Redbit Eviction] Evicted up to " + evicted + " of " + total + " keys of struct " + structInfo.getName());
+    }
+
+    private int[] scores(List<String> keys, boolean frequency) {
+        List<Response<Long>> responses = new ArrayList<>(keys.size());
+        try (RedbitPipeline pipeline = Redbit.pipelined()) {
+            for (String key : keys) {
+                responses.add(frequency ? pipeline.objectFreq(key) : pipeline.objectIdletime(key));
+            }
+        }
+
+        int[] scores = new int[keys.size()];
+        for (int i = 0; i < scores.length; i++) {
+            Long value;
+            try {
+                value = responses.get(i).get();
+            } catch (JedisDataException exception) {
+                // The key is gone already
+                value = null;
+            }
+
+            if (value == null)
+                scores[i] = -1;
+            else if (frequency)
+                scores[i] = (int) Math.min(value, SCORES - 1);
+            else
+                scores[i] = Long.numberOfLeadingZeros(value);
+        }
+
+        return scores;
+    }
+
+    // OBJECT FREQ needs an LFU maxmemory policy, without it keys are ranked by idle time
+    private boolean supportsFrequency(RedbitStructInfo structInfo) {
+        UnifiedJedis jedis = Redbit.getJedis();
+        Objects.requireNonNull(jedis, "Jedis was not initialized yet! Redbit#init(RedbitConfig) should do it");
+
+        String key = newScanner(structInfo).next();
+        if (key == null) return false;
+
+        try {
+            jedis.objectFreq(key);
+            return true;
+        } catch (JedisDataException exception) {
+            return false;
+        }
+    }
+
+    private RedbitRedisScanner newScanner(RedbitStructInfo structInfo) {
+        ScanParams scanParams = new ScanParams().match(structInfo.getKeyPattern()).count(Redbit.getConfig().getScanCount());
+        return new RedbitRedisScanner(scanParams, structInfo);
+    }
+
+}
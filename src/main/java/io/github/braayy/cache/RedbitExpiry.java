@@ -0,0 +1,94 @@
+package io.github.braayy.cache;
+
+import io.github.braayy.Redbit;
+import io.github.braayy.utils.RedbitPipeline;
+import io.github.braayy.utils.RedbitScript;
+import org.jetbrains.annotations.Nullable;
+import redis.clients.jedis.util.SafeEncoder;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+// Keys waiting for a synchronization are persisted, so a key with a ttl is always one the database already has
+public class RedbitExpiry {
+
+    // Bumped by every synchronized write, a key only gets its ttl back when the version the database got is still the current one
+    public static final String VERSION_FIELD = "\0v";
+    // Ends every write script, ARGV[1] comes from scriptArgument and ttl holds the PTTL the key had before the write
+    public static final String WRITTEN_LUA =
+            "if ARGV[1] == '-1' then\n" +
+            "  redis.call('HINCRBY', KEYS[1], '\\0v', 1)\n" +
+            "  redis.call('PERSIST', KEYS[1])\n" +
+            "elseif ARGV[1] ~= '' and ttl ~= -1 then\n" +
+            "  redis.call('PEXPIRE', KEYS[1], ARGV[1])\n" +
+            "end\n";
+
+    private static final byte[] VERSION_FIELD_BYTES = SafeEncoder.encode(VERSION_FIELD);
+    private static final RedbitScript REFRESH_SCRIPT = new RedbitScript(
+            "if redis.call('PTTL', KEYS[1]) > 0 then return redis.call('PEXPIRE', KEYS[1], ARGV[1]) end\n" +
+            "return 0"
+    );
+    private static final RedbitScript EVICT_SCRIPT = new RedbitScript(
+            "if redis.call('PTTL', KEYS[1]) > 0 then return redis.call('DEL', KEYS[1]) end\n" +
+            "return 0"
+    );
+    private static final RedbitScript SYNCHRONIZED_SCRIPT = new RedbitScript(
+            "if (redis.call('HGET', KEYS[1], '\\0v') or '') ~= ARGV[1] then return 0 end\n" +
+            "return redis.call('PEXPIRE', KEYS[1], ARGV[2])"
+    );
+
+    private final long ttl;
+    private final int maxKeys;
+    private final byte[] ttlArgument;
+
+    public RedbitExpiry(long ttl, int maxKeys) {
+        if (ttl <= 0)
+            throw new IllegalArgumentException("Expiring structs need a positive ttl");
+
+        this.ttl = ttl;
+        this.maxKeys = maxKeys;
+        this.ttlArgument = SafeEncoder.encode(Long.toString(ttl));
+    }
+
+    // Writes that wait for a synchronization persist the key, the others only give a ttl to keys that are not waiting for one
+    public static byte[] scriptArgument(@Nullable RedbitExpiry expiry, boolean dirty) {
+        if (expiry == null) return new byte[0];
+
+        return SafeEncoder.encode(dirty ? "-1" : Long.toString(expiry.ttl));
+    }
+
+    // The ttl is only restored when no write happened since the synchronization read the key
+    public void synchronizedWrite(RedbitPipeline pipeline, String key, @Nullable String version) {
+        SYNCHRONIZED_SCRIPT.eval(pipeline, Collections.singletonList(SafeEncoder.encode(key)), Arrays.asList(SafeEncoder.encode(version != null ? version : ""), ttlArgument));
+    }
+
+    @Nullable
+    public static String getVersion(Map<byte[], byte[]> hash) {
+        for (Map.Entry<byte[], byte[]> field : hash.entrySet()) {
+            if (Arrays.equals(field.getKey(), VERSION_FIELD_BYTES))
+                return SafeEncoder.encode(field.getValue());
+        }
+
+        return null;
+    }
+
+    // Sliding ttl, sent through the batcher so reads do not wait for it
+    public void touch(String key) {
+        byte[] keyBytes = SafeEncoder.encode(key);
+        Redbit.getRedisBatcher().submit(pipeline -> REFRESH_SCRIPT.eval(pipeline, Collections.singletonList(keyBytes), Collections.singletonList(ttlArgument)));
+    }
+
+    public void evict(RedbitPipeline pipeline, String key) {
+        EVICT_SCRIPT.eval(pipeline, Collections.singletonList(SafeEncoder.encode(key)), Collections.emptyList());
+    }
+
+    public long getTtl() {
+        return ttl;
+    }
+
+    public int getMaxKeys() {
+        return maxKeys;
+    }
+
+}
@@ -0,0 +1,146 @@
+package io.github.braayy.cache;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+public class RedbitNearCache {
+
+    private static final int SEGMENT_COUNT = 16;
+
+    private final Segment[] segments = new Segment[SEGMENT_COUNT];
+    private final long expireAfterWriteNanos;
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
+    public RedbitNearCache(int maximumSize, long expireAfterWriteMillis) {
+        this.expireAfterWriteNanos = expireAfterWriteMillis * 1_000_000L;
+
+        int segmentSize = Math.max(1, maximumSize / SEGMENT_COUNT);
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            segments[i] = new Segment(segmentSize);
+        }
+    }
+
+    @Nullable
+    public Map<String, String> get(String idValue) {
+        Segment segment = segmentFor(idValue);
+        synchronized (segment) {
+            CacheEntry entry = segment.entries.get(idValue);
+
+            if (entry == null) {
+                missCount.increment();
+                return null;
+            }
+
+            if (System.nanoTime() - entry.writtenAt >= expireAfterWriteNanos) {
+                segment.entries.remove(idValue);
+                evictionCount.increment();
+                missCount.increment();
+                return null;
+            }
+
+            hitCount.increment();
+            return entry.valueMap;
+        }
+    }
+
+    // The stamp must be taken before reading the source, so a put racing with an invalidation is dropped
+    public long stamp(String idValue) {
+        Segment segment = segmentFor(idValue);
+        synchronized (segment) {
+            return segment.version;
+        }
+    }
+
+    public void put(String idValue, Map<String, String> valueMap, long stamp) {
+        Segment segment = segmentFor(idValue);
+        synchronized (segment) {
+            if (segment.version != stamp) return;
+
+            segment.entries.put(idValue, new CacheEntry(Collections.unmodifiableMap(valueMap), System.nanoTime()));
+        }
+    }
+
+    public void invalidate(String idValue) {
+        Segment segment = segmentFor(idValue);
+        synchronized (segment) {
+            segment.version++;
+            segment.entries.remove(idValue);
+        }
+    }
+
+    public void invalidateAll() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.version++;
+                segment.entries.clear();
+            }
+        }
+    }
+
+    public long size() {
+        long size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.entries.size();
+            }
+        }
+
+        return size;
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    private Segment segmentFor(String idValue) {
+        int hash = idValue.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & (SEGMENT_COUNT - 1)];
+    }
+
+    private class Segment {
+
+        private final Map<String, CacheEntry> entries;
+        private long version;
+
+        private Segment(int maximumSize) {
+            this.entries = new LinkedHashMap<String, CacheEntry>(16, 0.75F, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+                    if (size() <= maximumSize) return false;
+
+                    evictionCount.increment();
+                    return true;
+                }
+            };
+        }
+
+    }
+
+    private static class CacheEntry {
+
+        private final Map<String, String> valueMap;
+        private final long writtenAt;
+
+        private CacheEntry(Map<String, String> valueMap, long writtenAt) {
+            this.valueMap = valueMap;
+            this.writtenAt = writtenAt;
+        }
+
+    }
+
+}
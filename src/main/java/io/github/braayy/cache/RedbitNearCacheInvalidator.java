@@ -0,0 +1,103 @@
+package io.github.braayy.cache;
+
+import io.github.braayy.Redbit;
+import io.github.braayy.RedbitConfig;
+import io.github.braayy.struct.RedbitStructInfo;
+import io.github.braayy.utils.RedbitPipeline;
+import org.jetbrains.annotations.Nullable;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPubSub;
+
+import java.util.UUID;
+import java.util.logging.Level;
+
+public class RedbitNearCacheInvalidator extends JedisPubSub implements Runnable {
+
+    private static final String ALL_KEYS = "*";
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final String channel;
+    private final Thread thread;
+    private volatile boolean running;
+
+    public RedbitNearCacheInvalidator(String channel) {
+        this.channel = channel;
+        this.thread = new Thread(this, "Redbit Near Cache Invalidator Thread");
+        this.thread.setDaemon(true);
+    }
+
+    public void start() {
+        running = true;
+        thread.start();
+    }
+
+    public void stop() {
+        running = false;
+
+        if (isSubscribed())
+            unsubscribe();
+    }
+
+    @Override
+    public void run() {
+        RedbitConfig config = Redbit.getConfig();
+        int attempt = 0;
+
+        while (running) {
+            try (Jedis jedis = new Jedis(subscriptionNode(config, attempt++))) {
+                jedis.subscribe(this, channel);
+            } catch (Exception exception) {
+                if (!running) return;
+
+                Redbit.getLogger().log(Level.WARNING, "Near cache invalidation subscription was lost, retrying", exception);
+
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException interruptedException) {
+                    return;
+                }
+            }
+        }
+    }
+
+    // Messages published on a cluster reach every node, so any of them can be subscribed to
+    private HostAndPort subscriptionNode(RedbitConfig config, int attempt) {
+        if (config.getRedisClusterNodes().isEmpty())
+            return new HostAndPort(config.getRedisHost(), config.getRedisPort());
+
+        return HostAndPort.from(config.getRedisClusterNodes().get(Math.floorMod(attempt, config.getRedisClusterNodes().size())));
+    }
+
+    public void publish(RedbitPipeline pipeline, RedbitStructInfo structInfo, @Nullable String idValue) {
+        String target = idValue != null ? idValue : ALL_KEYS;
+        pipeline.publish(channel, nodeId + ' ' + structInfo.getName() + ' ' + target);
+    }
+
+    @Override
+    public void onSubscribe(String channel, int subscribedChannels) {
+        // Anything published while we were not subscribed was missed
+        for (RedbitStructInfo structInfo : Redbit.getStructRegistry().getStructs()) {
+            RedbitNearCache nearCache = structInfo.getNearCache();
+            if (nearCache != null) nearCache.invalidateAll();
+        }
+    }
+
+    @Override
+    public void onMessage(String channel, String message) {
+        String[] parts = message.split(" ", 3);
+        if (parts.length != 3 || parts[0].equals(nodeId)) return;
+
+        RedbitStructInfo structInfo = Redbit.getStructRegistry().getStructInfo(parts[1]);
+        if (structInfo == null) return;
+
+        RedbitNearCache nearCache = structInfo.getNearCache();
+        if (nearCache == null) return;
+
+        if (parts[2].equals(ALL_KEYS))
+            nearCache.invalidateAll();
+        else
+            nearCache.invalidate(parts[2]);
+    }
+
+}
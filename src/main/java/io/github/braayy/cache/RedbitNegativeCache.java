@@ -0,0 +1,48 @@
+package io.github.braayy.cache;
+
+import io.github.braayy.Redbit;
+import io.github.braayy.RedbitConfig;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class RedbitNegativeCache {
+
+    private final Map<String, Long> tombstones = new ConcurrentHashMap<>();
+
+    public boolean contains(String idValue) {
+        Long expiresAt = tombstones.get(idValue);
+        if (expiresAt == null) return false;
+
+        if (System.nanoTime() - expiresAt >= 0) {
+            tombstones.remove(idValue, expiresAt);
+            return false;
+        }
+
+        return true;
+    }
+
+    public void add(String idValue) {
+        RedbitConfig config = Redbit.getConfig();
+        long ttl = config.getNegativeCacheTtl();
+        if (ttl <= 0) return;
+
+        long now = System.nanoTime();
+        if (tombstones.size() >= config.getNegativeCacheSize()) {
+            tombstones.values().removeIf(expiresAt -> now - expiresAt >= 0);
+
+            if (tombstones.size() >= config.getNegativeCacheSize()) return;
+        }
+
+        tombstones.put(idValue, now + ttl * 1_000_000L);
+    }
+
+    public void remove(String idValue) {
+        tombstones.remove(idValue);
+    }
+
+    public void clear() {
+        tombstones.clear();
+    }
+
+}
@@ -0,0 +1,42 @@
+package io.github.braayy.cache;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+public class RedbitSingleFlight<K, V> {
+
+    private final Map<K, CompletableFuture<V>> calls = new ConcurrentHashMap<>();
+
+    public V execute(K key, Callable<V> loader) throws Exception {
+        CompletableFuture<V> call = new CompletableFuture<>();
+        CompletableFuture<V> runningCall = calls.putIfAbsent(key, call);
+
+        if (runningCall != null) {
+            try {
+                return runningCall.get();
+            } catch (ExecutionException exception) {
+                Throwable cause = exception.getCause();
+                if (cause instanceof Exception) throw (Exception) cause;
+                if (cause instanceof Error) throw (Error) cause;
+
+                throw exception;
+            }
+        }
+
+        try {
+            V value = loader.call();
+            call.complete(value);
+
+            return value;
+        } catch (Throwable throwable) {
+            call.completeExceptionally(throwable);
+            throw throwable;
+        } finally {
+            calls.remove(key, call);
+        }
+    }
+
+}
@@ -16,5 +16,6 @@ public @interface RedbitColumn {
     boolean idColumn() default false;
     boolean autoIncrement() default false;
     boolean nullable() default false;
+    boolean indexed() default false;
 
 }
@@ -0,0 +1,105 @@
+package io.github.braayy.column;
+
+import io.github.braayy.struct.RedbitStruct;
+import io.github.braayy.utils.RedbitUtils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+
+public class RedbitColumnCodec {
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, RedbitStruct.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, RedbitStruct.class, Object.class);
+    public static final byte[] NULL_BINARY = new byte[0];
+
+    private final RedbitColumnInfo columnInfo;
+    private final RedbitColumnType type;
+    private final MethodHandle getter, setter;
+
+    private RedbitColumnCodec(RedbitColumnInfo columnInfo, RedbitColumnType type, MethodHandle getter, MethodHandle setter) {
+        this.columnInfo = columnInfo;
+        this.type = type;
+        this.getter = getter;
+        this.setter = setter;
+    }
+
+    public static RedbitColumnCodec of(Field field, RedbitColumnInfo columnInfo) throws IllegalAccessException {
+        RedbitColumnType type = RedbitColumnType.fromClass(field.getType());
+
+        field.setAccessible(true);
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        MethodHandle getter = lookup.unreflectGetter(field).asType(GETTER_TYPE);
+        MethodHandle setter = lookup.unreflectSetter(field).asType(SETTER_TYPE);
+
+        return new RedbitColumnCodec(columnInfo, type, getter, setter);
+    }
+
+    public RedbitColumnInfo getColumnInfo() {
+        return columnInfo;
+    }
+
+    public RedbitColumnType getType() {
+        return type;
+    }
+
+    public Object get(RedbitStruct struct) {
+        try {
+            return (Object) getter.invokeExact(struct);
+        } catch (RuntimeException | Error exception) {
+            throw exception;
+        } catch (Throwable throwable) {
+            throw new IllegalStateException(throwable);
+        }
+    }
+
+    public void set(RedbitStruct struct, Object value) {
+        try {
+            setter.invokeExact(struct, value);
+        } catch (RuntimeException | Error exception) {
+            throw exception;
+        } catch (Throwable throwable) {
+            throw new IllegalStateException(throwable);
+        }
+    }
+
+    public String encode(RedbitStruct struct) {
+        Object value = get(struct);
+        return value != null ? type.toString(value) : null;
+    }
+
+    public Object decode(String value) {
+        return type.fromString(value);
+    }
+
+    public byte[] encodeBinary(Object value) {
+        return value != null ? type.toBytes(value) : NULL_BINARY;
+    }
+
+    public Object decodeBinary(byte[] value) {
+        return type.fromBytes(value);
+    }
+
+    public Object read(ResultSet set, int columnIndex) throws SQLException {
+        return type.fromResultSet(set, columnIndex);
+    }
+
+    public void bind(PreparedStatement statement, int parameterIndex, Object value) throws SQLException {
+        if (value == null)
+            statement.setNull(parameterIndex, Types.NULL);
+        else
+            type.bind(statement, parameterIndex, value);
+    }
+
+    public void bindString(PreparedStatement statement, int parameterIndex, String value) throws SQLException {
+        if (RedbitUtils.isNullString(value))
+            value = columnInfo.getDefaultValue();
+
+        bind(statement, parameterIndex, RedbitUtils.isNullString(value) ? null : decode(value));
+    }
+}
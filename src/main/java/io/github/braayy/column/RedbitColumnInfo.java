@@ -3,9 +3,13 @@ package io.github.braayy.column;
 public class RedbitColumnInfo {
 
     private final String fieldName, name, sqlCreation, defaultValue;
-    private final boolean idColumn, autoIncrement, nullable;
+    private final boolean idColumn, autoIncrement, nullable, indexed;
 
     public RedbitColumnInfo(String fieldName, String name, String sqlCreation, String defaultValue, boolean idColumn, boolean autoIncrement, boolean nullable) {
+        this(fieldName, name, sqlCreation, defaultValue, idColumn, autoIncrement, nullable, false);
+    }
+
+    public RedbitColumnInfo(String fieldName, String name, String sqlCreation, String defaultValue, boolean idColumn, boolean autoIncrement, boolean nullable, boolean indexed) {
         this.fieldName = fieldName;
         this.name = name;
         this.sqlCreation = sqlCreation;
@@ -13,6 +17,7 @@ public class RedbitColumnInfo {
         this.idColumn = idColumn;
         this.autoIncrement = autoIncrement;
         this.nullable = nullable;
+        this.indexed = indexed;
     }
 
     public String getFieldName() {
@@ -42,4 +47,8 @@ public class RedbitColumnInfo {
     public boolean isNullable() {
         return nullable;
     }
+
+    public boolean isIndexed() {
+        return indexed;
+    }
 }
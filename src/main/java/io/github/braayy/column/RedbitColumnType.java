@@ -0,0 +1,200 @@
+package io.github.braayy.column;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+public enum RedbitColumnType {
+
+    BYTE(Byte.class) {
+        @Override
+        public Object fromString(String value) {
+            return Byte.parseByte(value);
+        }
+
+        @Override
+        public Object fromResultSet(ResultSet set, int columnIndex) throws SQLException {
+            return set.getByte(columnIndex);
+        }
+
+        @Override
+        public void bind(PreparedStatement statement, int parameterIndex, Object value) throws SQLException {
+            statement.setByte(parameterIndex, (Byte) value);
+        }
+
+        @Override
+        public byte[] toBytes(Object value) {
+            return new byte[] { (Byte) value };
+        }
+
+        @Override
+        public Object fromBytes(byte[] value) {
+            return value[0];
+        }
+    },
+    CHARACTER(Character.class) {
+        @Override
+        public Object fromString(String value) {
+            return value.charAt(0);
+        }
+
+        @Override
+        public Object fromResultSet(ResultSet set, int columnIndex) throws SQLException {
+            String value = set.getString(columnIndex);
+            return value != null ? value.charAt(0) : null;
+        }
+
+        @Override
+        public void bind(PreparedStatement statement, int parameterIndex, Object value) throws SQLException {
+            statement.setString(parameterIndex, value.toString());
+        }
+
+        @Override
+        public byte[] toBytes(Object value) {
+            return ByteBuffer.allocate(Character.BYTES).putChar((Character) value).array();
+        }
+
+        @Override
+        public Object fromBytes(byte[] value) {
+            return ByteBuffer.wrap(value).getChar();
+        }
+    },
+    SHORT(Short.class) {
+        @Override
+        public Object fromString(String value) {
+            return Short.parseShort(value);
+        }
+
+        @Override
+        public Object fromResultSet(ResultSet set, int columnIndex) throws SQLException {
+            return set.getShort(columnIndex);
+        }
+
+        @Override
+        public void bind(PreparedStatement statement, int parameterIndex, Object value) throws SQLException {
+            statement.setShort(parameterIndex, (Short) value);
+        }
+
+        @Override
+        public byte[] toBytes(Object value) {
+            return ByteBuffer.allocate(Short.BYTES).putShort((Short) value).array();
+        }
+
+        @Override
+        public Object fromBytes(byte[] value) {
+            return ByteBuffer.wrap(value).getShort();
+        }
+    },
+    INTEGER(Integer.class) {
+        @Override
+        public Object fromString(String value) {
+            return Integer.parseInt(value);
+        }
+
+        @Override
+        public Object fromResultSet(ResultSet set, int columnIndex) throws SQLException {
+            return set.getInt(columnIndex);
+        }
+
+        @Override
+        public void bind(PreparedStatement statement, int parameterIndex, Object value) throws SQLException {
+            statement.setInt(parameterIndex, (Integer) value);
+        }
+
+        @Override
+        public byte[] toBytes(Object value) {
+            return ByteBuffer.allocate(Integer.BYTES).putInt((Integer) value).array();
+        }
+
+        @Override
+        public Object fromBytes(byte[] value) {
+            return ByteBuffer.wrap(value).getInt();
+        }
+    },
+    LONG(Long.class) {
+        @Override
+        public Object fromString(String value) {
+            return Long.parseLong(value);
+        }
+
+        @Override
+        public Object fromResultSet(ResultSet set, int columnIndex) throws SQLException {
+            return set.getLong(columnIndex);
+        }
+
+        @Override
+        public void bind(PreparedStatement statement, int parameterIndex, Object value) throws SQLException {
+            statement.setLong(parameterIndex, (Long) value);
+        }
+
+        @Override
+        public byte[] toBytes(Object value) {
+            return ByteBuffer.allocate(Long.BYTES).putLong((Long) value).array();
+        }
+
+        @Override
+        public Object fromBytes(byte[] value) {
+            return ByteBuffer.wrap(value).getLong();
+        }
+    },
+    STRING(String.class) {
+        @Override
+        public Object fromString(String value) {
+            return value;
+        }
+
+        @Override
+        public Object fromResultSet(ResultSet set, int columnIndex) throws SQLException {
+            return set.getString(columnIndex);
+        }
+
+        @Override
+        public void bind(PreparedStatement statement, int parameterIndex, Object value) throws SQLException {
+            statement.setString(parameterIndex, (String) value);
+        }
+
+        @Override
+        public byte[] toBytes(Object value) {
+            return ((String) value).getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public Object fromBytes(byte[] value) {
+            return new String(value, StandardCharsets.UTF_8);
+        }
+    };
+
+    private final Class<?> javaType;
+
+    RedbitColumnType(Class<?> javaType) {
+        this.javaType = javaType;
+    }
+
+    public abstract Object fromString(String value);
+
+    public abstract Object fromResultSet(ResultSet set, int columnIndex) throws SQLException;
+
+    public abstract void bind(PreparedStatement statement, int parameterIndex, Object value) throws SQLException;
+
+    public abstract byte[] toBytes(Object value);
+
+    public abstract Object fromBytes(byte[] value);
+
+    public String toString(Object value) {
+        return value.toString();
+    }
+
+    public Class<?> getJavaType() {
+        return javaType;
+    }
+
+    public static RedbitColumnType fromClass(Class<?> type) {
+        for (RedbitColumnType columnType : values()) {
+            if (columnType.javaType.equals(type)) return columnType;
+        }
+
+        throw new IllegalArgumentException(type.getName() + " type is not supported by redbit");
+    }
+}
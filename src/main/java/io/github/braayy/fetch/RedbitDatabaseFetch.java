@@ -3,9 +3,13 @@ package io.github.braayy.fetch;
 import io.github.braayy.Redbit;
 import io.github.braayy.RedbitQuery;
 import io.github.braayy.struct.RedbitStruct;
+import io.github.braayy.struct.RedbitStructCodec;
 import io.github.braayy.struct.RedbitStructInfo;
+import io.github.braayy.struct.RedbitVolatileStruct;
+import io.github.braayy.struct.RedbitVolatileStruct.WriteMode;
+import io.github.braayy.utils.RedbitPipeline;
 import io.github.braayy.utils.RedbitUtils;
-import redis.clients.jedis.JedisPooled;
+import redis.clients.jedis.UnifiedJedis;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -16,10 +20,17 @@ import java.util.logging.Level;
 public class RedbitDatabaseFetch extends RedbitFetch {
 
     private final RedbitQuery query;
+    private final boolean projected;
+    private int[] columnIndexes;
 
     public RedbitDatabaseFetch(RedbitStruct struct, RedbitQuery query) {
+        this(struct, query, false);
+    }
+
+    public RedbitDatabaseFetch(RedbitStruct struct, RedbitQuery query, boolean projected) {
         super(struct);
         this.query = query;
+        this.projected = projected;
     }
 
     @Override
@@ -46,7 +57,11 @@ public class RedbitDatabaseFetch extends RedbitFetch {
                 return Result.COMPLETE;
             }
 
-            RedbitUtils.setFieldsValueFromResultSet(structInfo, struct, resultSet, true);
+            RedbitStructCodec codec = structInfo.getCodec();
+            if (this.columnIndexes == null)
+                this.columnIndexes = codec.resolveColumns(resultSet);
+
+            codec.decode(struct, resultSet, this.columnIndexes, true);
 
             return Result.FOUND;
         } catch (Exception exception) {
@@ -61,7 +76,11 @@ public class RedbitDatabaseFetch extends RedbitFetch {
             RedbitStructInfo structInfo = Redbit.getStructRegistry().getStructInfo(struct.getClass());
             Objects.requireNonNull(structInfo, "Struct " + struct.getClass().getSimpleName() + " was not registered!");
 
-            JedisPooled jedis = Redbit.getJedis();
+            // The columns that were not selected would overwrite the cached row with defaults
+            if (projected)
+                throw new IllegalStateException("Rows fetched with a projection can not be cached in struct " + structInfo.getName());
+
+            UnifiedJedis jedis = Redbit.getJedis();
             Objects.requireNonNull(jedis, "Jedis was not initialized yet! Redbit#init(RedbitConfig) should do it");
 
             Map<String, String> valueMap = RedbitUtils.getStructValues(structInfo, struct, false);
@@ -70,11 +89,12 @@ public class RedbitDatabaseFetch extends RedbitFetch {
             if (RedbitUtils.isNullString(idValue))
                 throw new IllegalArgumentException("Invalid id value for struct " + structInfo.getName());
 
-            String key = String.format(Redbit.KEY_FORMAT, structInfo.getName(), idValue);
-
-            if (jedis.exists(key) && !overwrite) return true;
+            Map<byte[], byte[]> hash = structInfo.isCompact() ? structInfo.getCodec().encodeBinary(struct, false) : RedbitVolatileStruct.encodeHash(valueMap);
+            WriteMode mode = overwrite ? WriteMode.ANY : WriteMode.MISSING;
 
-            jedis.hset(key, valueMap);
+            try (RedbitPipeline pipeline = Redbit.pipelined()) {
+                RedbitVolatileStruct.writeHash(pipeline, structInfo, idValue, hash, valueMap, false, mode, null);
+            }
             return true;
         } catch (Exception exception) {
             Redbit.getLogger().log(Level.SEVERE, exception.getMessage(), exception);
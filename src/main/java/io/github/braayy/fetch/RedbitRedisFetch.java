@@ -6,8 +6,9 @@ import io.github.braayy.struct.RedbitStruct;
 import io.github.braayy.struct.RedbitStructInfo;
 import io.github.braayy.utils.RedbitRedisScanner;
 import io.github.braayy.utils.RedbitUtils;
-import redis.clients.jedis.JedisPooled;
+import redis.clients.jedis.UnifiedJedis;
 import redis.clients.jedis.params.ScanParams;
+import redis.clients.jedis.util.SafeEncoder;
 
 import java.util.*;
 import java.util.logging.Level;
@@ -18,13 +19,15 @@ public class RedbitRedisFetch extends RedbitFetch {
 
     public RedbitRedisFetch(RedbitStruct struct, ScanParams scanParams) {
         super(struct);
-        this.scanner = new RedbitRedisScanner(scanParams);
+
+        RedbitStructInfo structInfo = Redbit.getStructRegistry().getStructInfo(struct.getClass());
+        this.scanner = structInfo != null ? new RedbitRedisScanner(scanParams, structInfo) : new RedbitRedisScanner(scanParams);
     }
 
     @Override
     public Result next() {
         try {
-            JedisPooled jedis = Redbit.getJedis();
+            UnifiedJedis jedis = Redbit.getJedis();
             Objects.requireNonNull(jedis, "Jedis was not initialized yet! Redbit#init(RedbitConfig) should do it");
 
             String nextKey = this.scanner.next();
@@ -32,15 +35,26 @@ public class RedbitRedisFetch extends RedbitFetch {
             if (nextKey == null)
                 return Result.COMPLETE;
 
+            RedbitStructInfo structInfo = Redbit.getStructRegistry().getStructInfo(struct.getClass());
+            Objects.requireNonNull(structInfo, "Struct " + struct.getClass().getSimpleName() + " was not registered!");
+
+            String idValue = nextKey.split(":", 2)[1];
+            if (structInfo.isCompact()) {
+                Map<byte[], byte[]> binaryValueMap = jedis.hgetAll(SafeEncoder.encode(nextKey));
+
+                if (binaryValueMap.isEmpty())
+                    return Result.NOT_FOUND;
+
+                structInfo.getCodec().decodeBinary(struct, idValue, binaryValueMap);
+
+                return Result.FOUND;
+            }
+
             Map<String, String> valueMap = jedis.hgetAll(nextKey);
 
             if (valueMap.isEmpty())
                 return Result.NOT_FOUND;
 
-            RedbitStructInfo structInfo = Redbit.getStructRegistry().getStructInfo(struct.getClass());
-            Objects.requireNonNull(structInfo, "Struct " + struct.getClass().getSimpleName() + " was not registered!");
-
-            String idValue = nextKey.split(":", 2)[1];
             RedbitColumnInfo idColumn = structInfo.getIdColumn();
             valueMap.put(idColumn.getName(), idValue);
 
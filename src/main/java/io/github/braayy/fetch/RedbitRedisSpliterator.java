@@ -0,0 +1,146 @@
+package io.github.braayy.fetch;
+
+import io.github.braayy.Redbit;
+import io.github.braayy.struct.RedbitStruct;
+import io.github.braayy.struct.RedbitStructCodec;
+import io.github.braayy.struct.RedbitStructInfo;
+import io.github.braayy.utils.RedbitPipeline;
+import io.github.braayy.utils.RedbitRedisScanner;
+import org.jetbrains.annotations.Nullable;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.params.ScanParams;
+import redis.clients.jedis.util.SafeEncoder;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+public class RedbitRedisSpliterator<T extends RedbitStruct> implements Spliterator<T> {
+
+    private static final ExecutorService PREFETCH_EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "Redbit Prefetch Thread");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Class<T> structClass;
+    private final RedbitStructInfo structInfo;
+    private final RedbitRedisScanner scanner;
+    private Iterator<T> currentPage = Collections.emptyIterator();
+    private CompletableFuture<List<T>> nextPage;
+
+    public RedbitRedisSpliterator(Class<T> structClass, RedbitStructInfo structInfo, ScanParams scanParams) {
+        this.structClass = structClass;
+        this.structInfo = structInfo;
+        this.scanner = new RedbitRedisScanner(scanParams, structInfo);
+        this.nextPage = prefetch();
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        while (!currentPage.hasNext()) {
+            List<T> page = takePage();
+            if (page == null) return false;
+
+            currentPage = page.iterator();
+        }
+
+        action.accept(currentPage.next());
+        return true;
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        List<T> page;
+        if (currentPage.hasNext()) {
+            page = new ArrayList<>();
+            currentPage.forEachRemaining(page::add);
+        } else {
+            page = takePage();
+        }
+
+        if (page == null || page.isEmpty()) return null;
+
+        return page.spliterator();
+    }
+
+    @Override
+    public long estimateSize() {
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return Spliterator.NONNULL;
+    }
+
+    public void cancel() {
+        if (nextPage != null) nextPage.cancel(false);
+    }
+
+    private List<T> takePage() {
+        if (nextPage == null) return null;
+
+        List<T> page = nextPage.join();
+        nextPage = page != null ? prefetch() : null;
+
+        return page;
+    }
+
+    private CompletableFuture<List<T>> prefetch() {
+        return CompletableFuture.supplyAsync(this::fetchPage, PREFETCH_EXECUTOR);
+    }
+
+    @Nullable
+    private List<T> fetchPage() {
+        List<String> keys = scanner.nextPage();
+        if (keys == null) return null;
+
+        List<T> values = new ArrayList<>(keys.size());
+
+        if (!keys.isEmpty()) {
+            List<Response<Map<String, String>>> responses = new ArrayList<>(keys.size());
+            List<Response<Map<byte[], byte[]>>> binaryResponses = new ArrayList<>(keys.size());
+            try (RedbitPipeline pipeline = Redbit.pipelined()) {
+                for (String key : keys) {
+                    if (structInfo.isCompact())
+                        binaryResponses.add(pipeline.hgetAll(SafeEncoder.encode(key)));
+                    else
+                        responses.add(pipeline.hgetAll(key));
+                }
+            }
+
+            // Structs are decoded here, so decoding a page overlaps with the consumer working on the previous one
+            RedbitStructCodec codec = structInfo.getCodec();
+            String idColumnName = structInfo.getIdColumn().getName();
+            for (int i = 0; i < keys.size(); i++) {
+                String idValue = keys.get(i).split(":", 2)[1];
+                T struct = structClass.cast(codec.newInstance());
+
+                if (structInfo.isCompact()) {
+                    Map<byte[], byte[]> binaryValueMap = binaryResponses.get(i).get();
+
+                    // The key was deleted between the scan and the read
+                    if (binaryValueMap.isEmpty()) continue;
+
+                    codec.decodeBinary(struct, idValue, binaryValueMap);
+                } else {
+                    Map<String, String> valueMap = responses.get(i).get();
+
+                    // The key was deleted between the scan and the read
+                    if (valueMap.isEmpty()) continue;
+
+                    valueMap.put(idColumnName, idValue);
+                    codec.decode(struct, valueMap);
+                }
+
+                values.add(struct);
+            }
+        }
+
+        return values;
+    }
+
+}
@@ -6,7 +6,8 @@ import io.github.braayy.struct.RedbitStruct;
 import io.github.braayy.struct.RedbitStructInfo;
 import io.github.braayy.utils.RedbitUtils;
 import org.jetbrains.annotations.NotNull;
-import redis.clients.jedis.JedisPooled;
+import redis.clients.jedis.UnifiedJedis;
+import redis.clients.jedis.util.SafeEncoder;
 
 import java.util.Map;
 import java.util.Objects;
@@ -26,18 +27,30 @@ public class RedbitSingleRedisFetch extends RedbitRedisFetch {
         try {
             if (this.key == null) return Result.COMPLETE;
 
-            JedisPooled jedis = Redbit.getJedis();
+            UnifiedJedis jedis = Redbit.getJedis();
             Objects.requireNonNull(jedis, "Jedis was not initialized yet! Redbit#init(RedbitConfig) should do it");
 
+            RedbitStructInfo structInfo = Redbit.getStructRegistry().getStructInfo(struct.getClass());
+            Objects.requireNonNull(structInfo, "Struct " + struct.getClass().getSimpleName() + " was not registered!");
+
+            String idValue = this.key.split(":", 2)[1];
+            if (structInfo.isCompact()) {
+                Map<byte[], byte[]> binaryValueMap = jedis.hgetAll(SafeEncoder.encode(this.key));
+
+                if (binaryValueMap.isEmpty())
+                    return Result.NOT_FOUND;
+
+                structInfo.getCodec().decodeBinary(struct, idValue, binaryValueMap);
+                this.key = null;
+
+                return Result.FOUND;
+            }
+
             Map<String, String> valueMap = jedis.hgetAll(this.key);
 
             if (valueMap.isEmpty())
                 return Result.NOT_FOUND;
 
-            RedbitStructInfo structInfo = Redbit.getStructRegistry().getStructInfo(struct.getClass());
-            Objects.requireNonNull(structInfo, "Struct " + struct.getClass().getSimpleName() + " was not registered!");
-
-            String idValue = this.key.split(":", 2)[1];
             RedbitColumnInfo idColumn = structInfo.getIdColumn();
             valueMap.put(idColumn.getName(), idValue);
 
@@ -0,0 +1,106 @@
+package io.github.braayy.index;
+
+import io.github.braayy.column.RedbitColumnType;
+import io.github.braayy.utils.RedbitPipeline;
+import io.github.braayy.utils.RedbitUtils;
+import org.jetbrains.annotations.Nullable;
+import redis.clients.jedis.UnifiedJedis;
+import redis.clients.jedis.util.SafeEncoder;
+
+import java.util.*;
+
+// Ids by value of an indexed column, integer columns are scored by their value and the others are kept in lexicographical order
+public class RedbitIndex {
+
+    // Tagged like the keys of colocated structs, so the index lives in the slot of every row it points to
+    private static final String INDEX_KEY_FORMAT = "redbit:index:{%s}:%s";
+    private static final String VALUES_SUFFIX = ":values";
+    private static final Set<RedbitColumnType> SCORED_TYPES = EnumSet.of(RedbitColumnType.BYTE, RedbitColumnType.SHORT, RedbitColumnType.INTEGER, RedbitColumnType.LONG);
+
+    // Included by every script that writes a row, right after RedbitJournal#WRITTEN_LUA which finds the last index key, so the index changes
+    // atomically with the row. Each index passes its sorted set and values hash as two keys after the row key and a flag and a value as two
+    // arguments after ARGV[first], a given value overrides them.
+    // Lexicographical entries are value and id joined by a NUL, the last value of every id is kept aside to find its old entry
+    public static final String WRITTEN_LUA =
+            "local function indexWritten(id, first, value)\n" +
+            "  for k = 2, lastIndexKey, 2 do\n" +
+            "    local current = value or ARGV[first + k]\n" +
+            "    if ARGV[first + k - 1] == 's' then\n" +
+            "      if current == '' then redis.call('ZREM', KEYS[k], id) else redis.call('ZADD', KEYS[k], current, id) end\n" +
+            "    else\n" +
+            "      local previous = redis.call('HGET', KEYS[k + 1], id)\n" +
+            "      if previous then redis.call('ZREM', KEYS[k], previous .. '\\0' .. id) end\n" +
+            "      if current == '' then\n" +
+            "        redis.call('HDEL', KEYS[k + 1], id)\n" +
+            "      else\n" +
+            "        redis.call('ZADD', KEYS[k], 0, current .. '\\0' .. id)\n" +
+            "        redis.call('HSET', KEYS[k + 1], id, current)\n" +
+            "      end\n" +
+            "    end\n" +
+            "  end\n" +
+            "end\n";
+
+    private final int columnIndex;
+    private final String columnName;
+    private final boolean scored;
+    private final String key;
+    private final String valuesKey;
+
+    public RedbitIndex(String structName, int columnIndex, String columnName, RedbitColumnType type) {
+        this.columnIndex = columnIndex;
+        this.columnName = columnName;
+        this.scored = SCORED_TYPES.contains(type);
+        this.key = String.format(INDEX_KEY_FORMAT, structName, columnName);
+        this.valuesKey = key + VALUES_SUFFIX;
+    }
+
+    public void addScriptArguments(List<byte[]> keys, List<byte[]> args, @Nullable String value) {
+        keys.add(SafeEncoder.encode(key));
+        keys.add(SafeEncoder.encode(valuesKey));
+        args.add(SafeEncoder.encode(scored ? "s" : "l"));
+        args.add(SafeEncoder.encode(RedbitUtils.isNullString(value) ? "" : value));
+    }
+
+    public void clear(RedbitPipeline pipeline) {
+        pipeline.unlink(key, valuesKey);
+    }
+
+    public List<String> find(UnifiedJedis jedis, String value) {
+        if (scored) {
+            long score = Long.parseLong(value);
+            return jedis.zrangeByScore(key, score, score);
+        }
+
+        List<String> entries = jedis.zrangeByLex(key, '[' + value + '\0', '(' + value + '\1');
+        List<String> idValues = new ArrayList<>(entries.size());
+        for (String entry : entries) {
+            idValues.add(entry.substring(value.length() + 1));
+        }
+
+        return idValues;
+    }
+
+    public List<String> range(UnifiedJedis jedis, double min, double max, int offset, int count, boolean descending) {
+        if (!scored)
+            throw new IllegalArgumentException("Column " + columnName + " is not an integer column, so it can not be queried by range");
+
+        return descending ? jedis.zrevrangeByScore(key, max, min, offset, count) : jedis.zrangeByScore(key, min, max, offset, count);
+    }
+
+    public int getColumnIndex() {
+        return columnIndex;
+    }
+
+    public String getColumnName() {
+        return columnName;
+    }
+
+    public boolean isScored() {
+        return scored;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+}
@@ -1,7 +1,7 @@
 package io.github.braayy.list;
 
 import io.github.braayy.Redbit;
-import redis.clients.jedis.JedisPooled;
+import redis.clients.jedis.UnifiedJedis;
 
 import org.jetbrains.annotations.NotNull;
 import java.util.*;
@@ -29,7 +29,7 @@ public abstract class RedbitList<T> {
         try {
             if (elements.size() == 0) return true;
 
-            JedisPooled jedis = Redbit.getJedis();
+            UnifiedJedis jedis = Redbit.getJedis();
             Objects.requireNonNull(jedis, "Jedis was not initialized yet! Redbit#init(RedbitConfig) should do it");
 
             String[] strings = elements.stream().map(this::toString).toArray(String[]::new);
@@ -46,7 +46,7 @@ public abstract class RedbitList<T> {
 
     public boolean remove(@NotNull T value) {
         try {
-            JedisPooled jedis = Redbit.getJedis();
+            UnifiedJedis jedis = Redbit.getJedis();
             Objects.requireNonNull(jedis, "Jedis was not initialized yet! Redbit#init(RedbitConfig) should do it");
 
             jedis.lrem(this.key, 1, toString(value));
@@ -62,7 +62,7 @@ public abstract class RedbitList<T> {
     @NotNull
     public List<T> range(int start, int end) {
         try {
-            JedisPooled jedis = Redbit.getJedis();
+            UnifiedJedis jedis = Redbit.getJedis();
             Objects.requireNonNull(jedis, "Jedis was not initialized yet! Redbit#init(RedbitConfig) should do it");
 
             List<String> range = jedis.lrange(this.key, start, end);
@@ -77,7 +77,7 @@ public abstract class RedbitList<T> {
 
     public long size() {
         try {
-            JedisPooled jedis = Redbit.getJedis();
+            UnifiedJedis jedis = Redbit.getJedis();
             Objects.requireNonNull(jedis, "Jedis was not initialized yet! Redbit#init(RedbitConfig) should do it");
 
             return jedis.llen(this.key);
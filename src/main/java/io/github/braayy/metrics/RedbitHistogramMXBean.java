@@ -0,0 +1,17 @@
+package io.github.braayy.metrics;
+
+public interface RedbitHistogramMXBean {
+
+    long getCount();
+
+    double getMean();
+
+    long getMax();
+
+    long getPercentile50();
+
+    long getPercentile99();
+
+    long getPercentile999();
+
+}
@@ -0,0 +1,147 @@
+package io.github.braayy.metrics;
+
+import io.github.braayy.Redbit;
+import io.github.braayy.struct.RedbitStructInfo;
+import io.github.braayy.synchronization.RedbitSynchronizationEntry.Operation;
+import io.github.braayy.synchronization.RedbitSynchronizer;
+import org.jetbrains.annotations.Nullable;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Level;
+
+// Latencies are published in microseconds, one mbean per struct and operation
+public class RedbitJmxMetrics implements RedbitMetrics {
+
+    private static final String DOMAIN = "io.github.braayy.redbit";
+    private static final String MIXED_STRUCTS = "mixed";
+
+    private final MBeanServer server;
+    private final List<ObjectName> registeredNames = new CopyOnWriteArrayList<>();
+    private final Map<String, Map<String, RedbitHistogram>> redisLatencies = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, RedbitHistogram>> sqlLatencies = new ConcurrentHashMap<>();
+    private final Map<String, RedbitHistogram> syncSizes = new ConcurrentHashMap<>();
+    private final Map<String, RedbitHistogram> syncLatencies = new ConcurrentHashMap<>();
+    private final Map<String, RedbitHistogram> poolWaits = new ConcurrentHashMap<>();
+    private final Map<String, RedbitStructStats> structStats = new ConcurrentHashMap<>();
+
+    public RedbitJmxMetrics() {
+        this(ManagementFactory.getPlatformMBeanServer());
+    }
+
+    public RedbitJmxMetrics(MBeanServer server) {
+        this.server = server;
+
+        register("type=Synchronizer", new StandardMBean(new RedbitSynchronizerStatsMXBean() {
+            @Override
+            public long getPendingCount() {
+                RedbitSynchronizer synchronizer = Redbit.getSynchronizer();
+                return synchronizer != null ? synchronizer.getPendingCount() : 0;
+            }
+
+            @Override
+            public long getPendingAgeMillis() {
+                RedbitSynchronizer synchronizer = Redbit.getSynchronizer();
+                return synchronizer != null ? synchronizer.getPendingAge() : 0;
+            }
+
+            @Override
+            public int getRemainingTasks() {
+                RedbitSynchronizer synchronizer = Redbit.getSynchronizer();
+                return synchronizer != null ? synchronizer.getRemainingTasks() : 0;
+            }
+        }, RedbitSynchronizerStatsMXBean.class, true));
+    }
+
+    @Override
+    public void redisCall(@Nullable RedbitStructInfo structInfo, String operation, long nanos) {
+        latency(redisLatencies, "Redis", structName(structInfo), operation).record(nanos / 1000);
+    }
+
+    @Override
+    public void sqlCall(@Nullable RedbitStructInfo structInfo, String operation, long nanos) {
+        latency(sqlLatencies, "Sql", structName(structInfo), operation).record(nanos / 1000);
+    }
+
+    @Override
+    public void fetched(RedbitStructInfo structInfo, FetchSource source) {
+        stats(structName(structInfo)).fetched(source);
+    }
+
+    @Override
+    public void synchronization(RedbitStructInfo structInfo, Operation operation, int size, long nanos) {
+        String structName = structName(structInfo);
+        histogram(syncSizes, structName, "type=SyncBatchSize,struct=" + structName).record(size);
+        histogram(syncLatencies, structName, "type=SyncLatency,struct=" + structName).record(nanos / 1000);
+    }
+
+    @Override
+    public void connectionAcquired(String poolName, long nanos) {
+        histogram(poolWaits, poolName, "type=PoolWait,pool=" + ObjectName.quote(poolName)).record(nanos / 1000);
+    }
+
+    @Override
+    public void error(@Nullable RedbitStructInfo structInfo, String operation) {
+        stats(structName(structInfo)).error(operation);
+    }
+
+    public void unregister() {
+        for (ObjectName name : registeredNames) {
+            try {
+                server.unregisterMBean(name);
+            } catch (Exception exception) {
+                Redbit.getLogger().log(Level.WARNING, "Could not unregister mbean " + name, exception);
+            }
+        }
+
+        registeredNames.clear();
+    }
+
+    private RedbitHistogram latency(Map<String, Map<String, RedbitHistogram>> latencies, String type, String structName, String operation) {
+        Map<String, RedbitHistogram> operations = latencies.computeIfAbsent(structName, key -> new ConcurrentHashMap<>());
+        return histogram(operations, operation, "type=" + type + ",struct=" + structName + ",operation=" + operation);
+    }
+
+    private RedbitHistogram histogram(Map<String, RedbitHistogram> histograms, String key, String properties) {
+        RedbitHistogram histogram = histograms.get(key);
+        if (histogram != null) return histogram;
+
+        return histograms.computeIfAbsent(key, ignored -> {
+            RedbitHistogram created = new RedbitHistogram();
+            register(properties, created);
+            return created;
+        });
+    }
+
+    private RedbitStructStats stats(String structName) {
+        RedbitStructStats stats = structStats.get(structName);
+        if (stats != null) return stats;
+
+        return structStats.computeIfAbsent(structName, ignored -> {
+            RedbitStructStats created = new RedbitStructStats();
+            register("type=Struct,struct=" + structName, created);
+            return created;
+        });
+    }
+
+    private void register(String properties, Object mbean) {
+        try {
+            ObjectName name = new ObjectName(DOMAIN + ":" + properties);
+            server.registerMBean(mbean, name);
+            registeredNames.add(name);
+        } catch (Exception exception) {
+            Redbit.getLogger().log(Level.WARNING, "Could not register mbean " + properties, exception);
+        }
+    }
+
+    private String structName(@Nullable RedbitStructInfo structInfo) {
+        return structInfo != null ? structInfo.getName() : MIXED_STRUCTS;
+    }
+
+}
@@ -0,0 +1,39 @@
+package io.github.braayy.metrics;
+
+import io.github.braayy.struct.RedbitStructInfo;
+import io.github.braayy.synchronization.RedbitSynchronizationEntry.Operation;
+import org.jetbrains.annotations.Nullable;
+
+// Every method is called inline on hot paths, so implementations must not block
+public interface RedbitMetrics {
+
+    RedbitMetrics NOOP = new RedbitMetrics() {};
+
+    // A null struct info means the call covered several structs at once
+    default void redisCall(@Nullable RedbitStructInfo structInfo, String operation, long nanos) {
+    }
+
+    default void sqlCall(@Nullable RedbitStructInfo structInfo, String operation, long nanos) {
+    }
+
+    default void fetched(RedbitStructInfo structInfo, FetchSource source) {
+    }
+
+    default void synchronization(RedbitStructInfo structInfo, Operation operation, int size, long nanos) {
+    }
+
+    default void connectionAcquired(String poolName, long nanos) {
+    }
+
+    default void error(@Nullable RedbitStructInfo structInfo, String operation) {
+    }
+
+    enum FetchSource {
+        NEAR_CACHE,
+        REDIS,
+        NEGATIVE_CACHE,
+        DATABASE,
+        MISSING
+    }
+
+}
@@ -0,0 +1,59 @@
+package io.github.braayy.metrics;
+
+import io.github.braayy.metrics.RedbitMetrics.FetchSource;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+public class RedbitStructStats implements RedbitStructStatsMXBean {
+
+    private final LongAdder[] fetches = new LongAdder[FetchSource.values().length];
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+    public RedbitStructStats() {
+        for (int i = 0; i < fetches.length; i++) {
+            fetches[i] = new LongAdder();
+        }
+    }
+
+    public void fetched(FetchSource source) {
+        fetches[source.ordinal()].increment();
+    }
+
+    public void error(String operation) {
+        errors.computeIfAbsent(operation, key -> new LongAdder()).increment();
+    }
+
+    @Override
+    public Map<String, Long> getFetches() {
+        Map<String, Long> fetches = new LinkedHashMap<>();
+        for (FetchSource source : FetchSource.values()) {
+            fetches.put(source.name(), this.fetches[source.ordinal()].sum());
+        }
+
+        return fetches;
+    }
+
+    // Near cache and redis hits over every fetchById
+    @Override
+    public double getHitRatio() {
+        long hits = fetches[FetchSource.NEAR_CACHE.ordinal()].sum() + fetches[FetchSource.REDIS.ordinal()].sum();
+        long total = 0;
+        for (LongAdder fetch : fetches) {
+            total += fetch.sum();
+        }
+
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    @Override
+    public Map<String, Long> getErrors() {
+        Map<String, Long> errors = new LinkedHashMap<>();
+        this.errors.forEach((operation, count) -> errors.put(operation, count.sum()));
+
+        return errors;
+    }
+
+}
@@ -0,0 +1,13 @@
+package io.github.braayy.metrics;
+
+import java.util.Map;
+
+public interface RedbitStructStatsMXBean {
+
+    Map<String, Long> getFetches();
+
+    double getHitRatio();
+
+    Map<String, Long> getErrors();
+
+}
@@ -0,0 +1,11 @@
+package io.github.braayy.metrics;
+
+public interface RedbitSynchronizerStatsMXBean {
+
+    long getPendingCount();
+
+    long getPendingAgeMillis();
+
+    int getRemainingTasks();
+
+}
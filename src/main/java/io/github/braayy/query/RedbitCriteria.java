@@ -0,0 +1,268 @@
+package io.github.braayy.query;
+
+import io.github.braayy.column.RedbitColumnCodec;
+import io.github.braayy.struct.RedbitStruct;
+import io.github.braayy.struct.RedbitStructCodec;
+import org.jetbrains.annotations.Nullable;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.*;
+
+// Conditions are joined by AND and every value is bound as a parameter, column names are checked against the struct when compiled
+public class RedbitCriteria {
+
+    private final List<Condition> conditions = new ArrayList<>();
+    private String orderColumn;
+    private boolean descending;
+    private int offset;
+    private int limit = -1;
+    private String[] projection;
+    private String shape;
+
+    public static RedbitCriteria where() {
+        return new RedbitCriteria();
+    }
+
+    public RedbitCriteria eq(String columnName, @Nullable Object value) {
+        return add(new Condition(Kind.EQ, columnName, value));
+    }
+
+    public RedbitCriteria in(String columnName, Collection<?> values) {
+        if (values.isEmpty())
+            throw new IllegalArgumentException("No values were given to column " + columnName);
+        if (values.contains(null))
+            throw new IllegalArgumentException("Null values can not be matched with in, use eq on column " + columnName);
+
+        return add(new Condition(Kind.IN, columnName, values.toArray()));
+    }
+
+    public RedbitCriteria between(String columnName, Object min, Object max) {
+        return add(new Condition(Kind.RANGE, columnName, Objects.requireNonNull(min, "min"), Objects.requireNonNull(max, "max")));
+    }
+
+    public RedbitCriteria atLeast(String columnName, Object min) {
+        return add(new Condition(Kind.RANGE, columnName, Objects.requireNonNull(min, "min"), null));
+    }
+
+    public RedbitCriteria atMost(String columnName, Object max) {
+        return add(new Condition(Kind.RANGE, columnName, null, Objects.requireNonNull(max, "max")));
+    }
+
+    public RedbitCriteria orderBy(String columnName, boolean descending) {
+        this.orderColumn = columnName;
+        this.descending = descending;
+        this.shape = null;
+        return this;
+    }
+
+    public RedbitCriteria limit(int limit) {
+        return limit(0, limit);
+    }
+
+    public RedbitCriteria limit(int offset, int limit) {
+        if (offset < 0 || limit < 0)
+            throw new IllegalArgumentException("Offset and limit can not be negative");
+
+        this.offset = offset;
+        this.limit = limit;
+        this.shape = null;
+        return this;
+    }
+
+    // The id column is always selected so rows can still be told apart
+    public RedbitCriteria select(String... columnNames) {
+        this.projection = columnNames.clone();
+        this.shape = null;
+        return this;
+    }
+
+    private RedbitCriteria add(Condition condition) {
+        conditions.add(condition);
+        shape = null;
+        return this;
+    }
+
+    // Criteria with the same shape compile to the same statement, only their bound values differ
+    public String getShape() {
+        if (shape != null) return shape;
+
+        StringBuilder builder = new StringBuilder();
+        for (Condition condition : conditions) {
+            builder.append(condition.columnName).append(' ').append(condition.kind);
+            if (condition.kind == Kind.EQ && condition.values[0] == null)
+                builder.append(" null");
+            else if (condition.kind == Kind.IN)
+                builder.append(' ').append(condition.values.length);
+            else if (condition.kind == Kind.RANGE)
+                builder.append(condition.values[0] != null ? " min" : "").append(condition.values[1] != null ? " max" : "");
+            builder.append(';');
+        }
+        if (orderColumn != null)
+            builder.append("order ").append(orderColumn).append(descending ? " desc;" : ";");
+        if (limit >= 0)
+            builder.append("limit;");
+        if (projection != null)
+            builder.append("select ").append(String.join(",", projection));
+
+        return (shape = builder.toString());
+    }
+
+    public String buildWhere(RedbitStructCodec codec) {
+        StringBuilder builder = new StringBuilder();
+        for (Condition condition : conditions) {
+            String column = '`' + codec.getCodecs()[condition.getColumnIndex(codec)].getColumnInfo().getName() + '`';
+            if (builder.length() > 0)
+                builder.append(" AND ");
+
+            switch (condition.kind) {
+                case EQ:
+                    builder.append(column).append(condition.values[0] != null ? "=?" : " IS NULL");
+                    break;
+                case IN:
+                    builder.append(column).append(" IN (");
+                    for (int i = 0; i < condition.values.length; i++) {
+                        builder.append(i > 0 ? ", " : "").append('?');
+                    }
+                    builder.append(')');
+                    break;
+                case RANGE:
+                    if (condition.values[0] != null)
+                        builder.append(column).append(">=?");
+                    if (condition.values[0] != null && condition.values[1] != null)
+                        builder.append(" AND ");
+                    if (condition.values[1] != null)
+                        builder.append(column).append("<=?");
+                    break;
+            }
+        }
+
+        return builder.toString();
+    }
+
+    // Parameters are bound in the order buildWhere placed them, followed by the limit and offset
+    public void bind(PreparedStatement statement, RedbitStructCodec codec) throws SQLException {
+        bind(statement, codec, offset, limit);
+    }
+
+    // The statement of a criteria without a limit has no parameters for it, so a negative limit binds none
+    public void bind(PreparedStatement statement, RedbitStructCodec codec, int offset, int limit) throws SQLException {
+        int parameterIndex = 1;
+        for (Condition condition : conditions) {
+            RedbitColumnCodec columnCodec = codec.getCodecs()[condition.getColumnIndex(codec)];
+            for (Object value : condition.values) {
+                if (value != null)
+                    columnCodec.bind(statement, parameterIndex++, normalize(columnCodec, value));
+            }
+        }
+
+        if (limit >= 0) {
+            statement.setInt(parameterIndex++, limit);
+            statement.setInt(parameterIndex, offset);
+        }
+    }
+
+    // Checks a loaded struct against the conditions, for rows found through redis that may have changed since
+    public boolean matches(RedbitStructCodec codec, RedbitStruct struct) {
+        for (Condition condition : conditions) {
+            RedbitColumnCodec columnCodec = codec.getCodecs()[condition.getColumnIndex(codec)];
+            Object value = columnCodec.get(struct);
+
+            switch (condition.kind) {
+                case EQ:
+                    if (!Objects.equals(value, normalize(columnCodec, condition.values[0]))) return false;
+                    break;
+                case IN:
+                    boolean found = false;
+                    for (Object candidate : condition.values) {
+                        if (Objects.equals(value, normalize(columnCodec, candidate))) {
+                            found = true;
+                            break;
+                        }
+                    }
+                    if (!found) return false;
+                    break;
+                case RANGE:
+                    if (value == null) return false;
+                    if (condition.values[0] != null && compare(value, normalize(columnCodec, condition.values[0])) < 0) return false;
+                    if (condition.values[1] != null && compare(value, normalize(columnCodec, condition.values[1])) > 0) return false;
+                    break;
+            }
+        }
+
+        return true;
+    }
+
+    @Nullable
+    public static Object normalize(RedbitColumnCodec columnCodec, @Nullable Object value) {
+        // Values are given as any type with the same text form, so an int works for a long column
+        return value != null ? columnCodec.decode(columnCodec.getType().toString(value)) : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int compare(Object value, Object bound) {
+        return ((Comparable<Object>) value).compareTo(bound);
+    }
+
+    public List<Condition> getConditions() {
+        return conditions;
+    }
+
+    @Nullable
+    public String getOrderColumn() {
+        return orderColumn;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    @Nullable
+    public String[] getProjection() {
+        return projection;
+    }
+
+    public enum Kind {
+        EQ, IN, RANGE
+    }
+
+    public static class Condition {
+
+        private final Kind kind;
+        private final String columnName;
+        private final Object[] values;
+
+        private Condition(Kind kind, String columnName, Object... values) {
+            this.kind = kind;
+            this.columnName = columnName;
+            this.values = values;
+        }
+
+        private int getColumnIndex(RedbitStructCodec codec) {
+            return codec.columnIndexes(columnName)[0];
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        public String getColumnName() {
+            return columnName;
+        }
+
+        // Range bounds are kept as min then max, either of them may be null
+        public Object[] getValues() {
+            return values;
+        }
+
+    }
+
+}
@@ -2,7 +2,7 @@ package io.github.braayy.set;
 
 import io.github.braayy.Redbit;
 import org.jetbrains.annotations.NotNull;
-import redis.clients.jedis.JedisPooled;
+import redis.clients.jedis.UnifiedJedis;
 
 import java.util.*;
 import java.util.logging.Level;
@@ -29,7 +29,7 @@ public abstract class RedbitSet<T> {
         try {
             if (elements.size() == 0) return true;
 
-            JedisPooled jedis = Redbit.getJedis();
+            UnifiedJedis jedis = Redbit.getJedis();
             Objects.requireNonNull(jedis, "Jedis was not initialized yet! Redbit#init(RedbitConfig) should do it");
 
             String[] strings = elements.stream().map(this::toString).toArray(String[]::new);
@@ -46,7 +46,7 @@ public abstract class RedbitSet<T> {
 
     public boolean remove(@NotNull T value) {
         try {
-            JedisPooled jedis = Redbit.getJedis();
+            UnifiedJedis jedis = Redbit.getJedis();
             Objects.requireNonNull(jedis, "Jedis was not initialized yet! Redbit#init(RedbitConfig) should do it");
 
             jedis.srem(this.key, toString(value));
@@ -62,7 +62,7 @@ public abstract class RedbitSet<T> {
     @NotNull
     public Set<T> fetch() {
         try {
-            JedisPooled jedis = Redbit.getJedis();
+            UnifiedJedis jedis = Redbit.getJedis();
             Objects.requireNonNull(jedis, "Jedis was not initialized yet! Redbit#init(RedbitConfig) should do it");
 
             Set<String> range = jedis.smembers(this.key);
@@ -77,7 +77,7 @@ public abstract class RedbitSet<T> {
 
     public long size() {
         try {
-            JedisPooled jedis = Redbit.getJedis();
+            UnifiedJedis jedis = Redbit.getJedis();
             Objects.requireNonNull(jedis, "Jedis was not initialized yet! Redbit#init(RedbitConfig) should do it");
 
             return jedis.scard(this.key);
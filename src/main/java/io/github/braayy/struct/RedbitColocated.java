@@ -0,0 +1,12 @@
+package io.github.braayy.struct;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Keys get the struct name as hash tag, so on a cluster every key of the struct lives in the same slot
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RedbitColocated {
+}
@@ -0,0 +1,16 @@
+package io.github.braayy.struct;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Synchronized keys expire after ttl milliseconds without access, keys waiting for a synchronization never expire
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RedbitExpiring {
+
+    long ttl() default 3600000;
+    int maxKeys() default 0;
+
+}
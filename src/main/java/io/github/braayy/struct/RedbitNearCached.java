@@ -0,0 +1,15 @@
+package io.github.braayy.struct;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RedbitNearCached {
+
+    int maximumSize() default 10000;
+    long expireAfterWrite() default 60000;
+
+}
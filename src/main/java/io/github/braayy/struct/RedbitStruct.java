@@ -2,39 +2,43 @@ package io.github.braayy.struct;
 
 import io.github.braayy.Redbit;
 import io.github.braayy.RedbitQuery;
-import io.github.braayy.column.RedbitColumnInfo;
 import io.github.braayy.fetch.RedbitDatabaseFetch;
 import io.github.braayy.fetch.RedbitFetch;
+import io.github.braayy.query.RedbitCriteria;
 import io.github.braayy.utils.RedbitQueryBuilders;
 import io.github.braayy.utils.RedbitUtils;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.lang.reflect.Field;
-import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 
 public class RedbitStruct {
 
+    // Column values as last read from or written to storage, used to find which columns changed
+    Object[] snapshot;
+
     public boolean insert() {
         try {
             RedbitStructInfo structInfo = Redbit.getStructRegistry().getStructInfo(getClass());
             if (structInfo == null)
                 throw new IllegalStateException("Struct " + getClass().getSimpleName() + " was not registered!");
 
-            Map<String, String> valueMap = RedbitUtils.getStructValues(structInfo, this, false);
-            String idValue = valueMap.remove(structInfo.getIdColumn().getName());
+            String idValue = getIdFieldValue(structInfo);
             if (RedbitUtils.isNullString(idValue))
                 throw new IllegalArgumentException("Invalid id value for struct " + structInfo.getName());
 
-            String strQuery = RedbitQueryBuilders.buildUpsertQuery(structInfo, valueMap, false);
-            try (RedbitQuery query = Redbit.sqlQuery(strQuery)) {
+            long start = System.nanoTime();
+            try (RedbitQuery query = Redbit.sqlQuery(structInfo.getQueries().getUpsertQuery())) {
+                structInfo.getCodec().bind(query.getStatement(), 1, this);
                 query.executeUpdate();
             }
+            Redbit.getMetrics().sqlCall(structInfo, "insert", System.nanoTime() - start);
 
             return true;
         } catch (Exception exception) {
-            Redbit.getLogger().log(Level.SEVERE, exception.getMessage(), exception);
+            failed("insert", exception);
 
             return false;
         }
@@ -50,20 +54,23 @@ public class RedbitStruct {
             if (RedbitUtils.isNullString(idValue))
                 throw new IllegalArgumentException("Invalid id value for struct " + structInfo.getName());
 
-            RedbitColumnInfo idColumn = structInfo.getIdColumn();
-
-            String whereClause = "`" + idColumn.getName() + "`='" + RedbitUtils.escapeToSql(idValue) + '\'';
+            long start = System.nanoTime();
+            try (RedbitQuery query = Redbit.sqlQuery(structInfo.getQueries().getDeleteByIdQuery())) {
+                structInfo.getCodec().getIdCodec().bindString(query.getStatement(), 1, idValue);
+                query.executeUpdate();
+            }
+            Redbit.getMetrics().sqlCall(structInfo, "deleteById", System.nanoTime() - start);
 
-            return deleteWhere(whereClause);
+            return true;
         } catch (Exception exception) {
-            Redbit.getLogger().log(Level.SEVERE, exception.getMessage(), exception);
+            failed("deleteById", exception);
 
             return false;
         }
     }
 
     public boolean deleteAll() {
-        return deleteWhere(null);
+        return deleteMatching(RedbitCriteria.where());
     }
 
     public boolean deleteWhere(String whereClause) {
@@ -72,14 +79,37 @@ public class RedbitStruct {
             if (structInfo == null)
                 throw new IllegalStateException("Struct " + getClass().getSimpleName() + " was not registered!");
 
-            String strQuery = RedbitQueryBuilders.buildDeleteQuery(structInfo, whereClause);
+            String strQuery = whereClause != null ? RedbitQueryBuilders.buildDeleteQuery(structInfo, whereClause) : structInfo.getQueries().getDeleteAllQuery();
+            long start = System.nanoTime();
             try (RedbitQuery query = Redbit.sqlQuery(strQuery)) {
                 query.executeUpdate();
             }
+            Redbit.getMetrics().sqlCall(structInfo, "deleteWhere", System.nanoTime() - start);
 
             return true;
         } catch (Exception exception) {
-            Redbit.getLogger().log(Level.SEVERE, exception.getMessage(), exception);
+            failed("deleteWhere", exception);
+
+            return false;
+        }
+    }
+
+    public boolean deleteMatching(RedbitCriteria criteria) {
+        try {
+            RedbitStructInfo structInfo = Redbit.getStructRegistry().getStructInfo(getClass());
+            if (structInfo == null)
+                throw new IllegalStateException("Struct " + getClass().getSimpleName() + " was not registered!");
+
+            long start = System.nanoTime();
+            try (RedbitQuery query = Redbit.sqlQuery(structInfo.getQueries().getDeleteByCriteriaQuery(criteria))) {
+                criteria.bind(query.getStatement(), structInfo.getCodec());
+                query.executeUpdate();
+            }
+            Redbit.getMetrics().sqlCall(structInfo, "deleteMatching", System.nanoTime() - start);
+
+            return true;
+        } catch (Exception exception) {
+            failed("deleteMatching", exception);
 
             return false;
         }
@@ -95,15 +125,19 @@ public class RedbitStruct {
             String idValue = getIdFieldValue(structInfo);
             if (RedbitUtils.isNullString(idValue))
                 throw new IllegalArgumentException("Invalid id value for struct " + structInfo.getName());
-            RedbitColumnInfo idColumn = structInfo.getIdColumn();
+            long start = System.nanoTime();
+            RedbitQuery query = Redbit.sqlReadQuery(structInfo.getQueries().getSelectByIdQuery(), structInfo, idValue);
+            try (RedbitFetch fetch = new RedbitDatabaseFetch(this, query)) {
+                structInfo.getCodec().getIdCodec().bindString(query.getStatement(), 1, idValue);
+                query.executeQuery();
 
-            String whereClause = "`" + idColumn.getName() + "`='" + RedbitUtils.escapeToSql(idValue) + "' LIMIT 1";
+                RedbitFetch.Result result = fetch.next();
+                Redbit.getMetrics().sqlCall(structInfo, "fetchById", System.nanoTime() - start);
 
-            try (RedbitFetch fetch = fetchWhere(whereClause)) {
-                return fetch != null ? fetch.next() : RedbitFetch.Result.ERROR;
+                return result;
             }
         } catch (Exception exception) {
-            Redbit.getLogger().log(Level.SEVERE, exception.getMessage(), exception);
+            failed("fetchById", exception);
 
             return RedbitFetch.Result.ERROR;
         }
@@ -111,7 +145,7 @@ public class RedbitStruct {
 
     @Nullable
     public RedbitFetch fetchAll() {
-        return fetchWhere(null);
+        return fetchMatching(RedbitCriteria.where());
     }
 
     @Nullable
@@ -121,14 +155,43 @@ public class RedbitStruct {
             if (structInfo == null)
                 throw new IllegalStateException("Struct " + getClass().getSimpleName() + " was not registered!");
 
-            String strQuery = RedbitQueryBuilders.buildSelectByCustomWhere(structInfo, whereClause);
+            String strQuery = whereClause != null ? RedbitQueryBuilders.buildSelectByCustomWhere(structInfo, whereClause) : structInfo.getQueries().getSelectAllQuery();
 
-            RedbitQuery query = Redbit.sqlQuery(strQuery);
+            long start = System.nanoTime();
+            RedbitQuery query = Redbit.sqlReadQuery(strQuery);
             query.executeQuery();
+            Redbit.getMetrics().sqlCall(structInfo, "fetchWhere", System.nanoTime() - start);
 
             return new RedbitDatabaseFetch(this, query);
         } catch (Exception exception) {
-            Redbit.getLogger().log(Level.SEVERE, exception.getMessage(), exception);
+            failed("fetchWhere", exception);
+
+            return null;
+        }
+    }
+
+    // Only the selected columns are read, so a projected fetch leaves the other fields untouched
+    @Nullable
+    public RedbitFetch fetchMatching(RedbitCriteria criteria) {
+        try {
+            RedbitStructInfo structInfo = Redbit.getStructRegistry().getStructInfo(getClass());
+            if (structInfo == null)
+                throw new IllegalStateException("Struct " + getClass().getSimpleName() + " was not registered!");
+
+            long start = System.nanoTime();
+            RedbitQuery query = Redbit.sqlReadQuery(structInfo.getQueries().getSelectByCriteriaQuery(criteria));
+            try {
+                criteria.bind(query.getStatement(), structInfo.getCodec());
+                query.executeQuery();
+            } catch (Exception exception) {
+                query.close();
+                throw exception;
+            }
+            Redbit.getMetrics().sqlCall(structInfo, "fetchMatching", System.nanoTime() - start);
+
+            return new RedbitDatabaseFetch(this, query, criteria.getProjection() != null);
+        } catch (Exception exception) {
+            failed("fetchMatching", exception);
 
             return null;
         }
@@ -143,27 +206,90 @@ public class RedbitStruct {
 
             String strQuery = prepareCustomQuery(structInfo, customQuery);
 
-            RedbitQuery query = Redbit.sqlQuery(strQuery);
+            long start = System.nanoTime();
+            RedbitQuery query = Redbit.sqlReadQuery(strQuery);
             query.executeQuery();
+            Redbit.getMetrics().sqlCall(structInfo, "fetchCustom", System.nanoTime() - start);
 
             return new RedbitDatabaseFetch(this, query);
         } catch (Exception exception) {
-            Redbit.getLogger().log(Level.SEVERE, exception.getMessage(), exception);
+            failed("fetchCustom", exception);
 
             return null;
         }
     }
 
+    @NotNull
+    public CompletableFuture<Boolean> insertAsync() {
+        return runAsync(this::insert);
+    }
+
+    @NotNull
+    public CompletableFuture<Boolean> deleteByIdAsync() {
+        return runAsync(this::deleteById);
+    }
+
+    @NotNull
+    public CompletableFuture<Boolean> deleteAllAsync() {
+        return runAsync(this::deleteAll);
+    }
+
+    @NotNull
+    public CompletableFuture<Boolean> deleteWhereAsync(String whereClause) {
+        return runAsync(() -> deleteWhere(whereClause));
+    }
+
+    @NotNull
+    public CompletableFuture<Boolean> deleteMatchingAsync(RedbitCriteria criteria) {
+        return runAsync(() -> deleteMatching(criteria));
+    }
+
+    @NotNull
+    public CompletableFuture<RedbitFetch.Result> fetchByIdAsync() {
+        return runAsync(this::fetchById);
+    }
+
+    @NotNull
+    public CompletableFuture<RedbitFetch> fetchAllAsync() {
+        return runAsync(this::fetchAll);
+    }
+
+    @NotNull
+    public CompletableFuture<RedbitFetch> fetchWhereAsync(String whereClause) {
+        return runAsync(() -> fetchWhere(whereClause));
+    }
+
+    @NotNull
+    public CompletableFuture<RedbitFetch> fetchMatchingAsync(RedbitCriteria criteria) {
+        return runAsync(() -> fetchMatching(criteria));
+    }
+
+    @NotNull
+    public CompletableFuture<RedbitFetch> fetchCustomAsync(String customQuery) {
+        return runAsync(() -> fetchCustom(customQuery));
+    }
+
+    // The struct is written by the operation, so callers must not touch it until the future completes
+    @NotNull
+    protected <T> CompletableFuture<T> runAsync(Supplier<T> operation) {
+        return CompletableFuture.supplyAsync(operation, Redbit.getAsyncExecutor());
+    }
+
+    // Failures are logged and counted per struct and operation
+    protected void failed(String operation, Throwable exception) {
+        failed(Redbit.getStructRegistry().getStructInfo(getClass()), operation, exception);
+    }
+
+    static void failed(@Nullable RedbitStructInfo structInfo, String operation, Throwable exception) {
+        Redbit.getLogger().log(Level.SEVERE, exception.getMessage(), exception);
+        Redbit.getMetrics().error(structInfo, operation);
+    }
+
     private String prepareCustomQuery(RedbitStructInfo structInfo, String customQuery) {
         return customQuery.replace("{table}", structInfo.getName());
     }
 
-    protected String getIdFieldValue(RedbitStructInfo structInfo) throws NoSuchFieldException, IllegalAccessException {
-        RedbitColumnInfo columnInfo = structInfo.getIdColumn();
-        Field field = getClass().getDeclaredField(columnInfo.getFieldName());
-        field.setAccessible(true);
-
-        Object value = field.get(this);
-        return value != null ? value.toString() : null;
+    protected String getIdFieldValue(RedbitStructInfo structInfo) {
+        return structInfo.getCodec().encodeId(this);
     }
 }
@@ -0,0 +1,397 @@
+package io.github.braayy.struct;
+
+import io.github.braayy.column.RedbitColumnCodec;
+import io.github.braayy.column.RedbitColumnInfo;
+import io.github.braayy.utils.RedbitUtils;
+import org.jetbrains.annotations.Nullable;
+import redis.clients.jedis.util.SafeEncoder;
+
+import java.lang.invoke.MethodHandle;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.*;
+
+public class RedbitStructCodec {
+
+    private static final Object NOT_LOADED = new Object();
+
+    private final MethodHandle constructor;
+    private final RedbitColumnCodec idCodec;
+    private final RedbitColumnCodec[] codecs;
+    private final byte[][] fieldIds;
+
+    public RedbitStructCodec(@Nullable MethodHandle constructor, RedbitColumnCodec idCodec, List<RedbitColumnCodec> columnCodecs) {
+        this.constructor = constructor;
+        this.idCodec = idCodec;
+        this.codecs = new RedbitColumnCodec[columnCodecs.size() + 1];
+        this.codecs[0] = idCodec;
+
+        for (int i = 0; i < columnCodecs.size(); i++) {
+            this.codecs[i + 1] = columnCodecs.get(i);
+        }
+
+        // Compact hashes identify columns by their position instead of their name
+        this.fieldIds = new byte[codecs.length][];
+        for (int i = 0; i < codecs.length; i++) {
+            this.fieldIds[i] = new byte[] { (byte) i };
+        }
+    }
+
+    public RedbitStruct newInstance() {
+        if (constructor == null)
+            throw new IllegalStateException("Struct has no accessible no-args constructor");
+
+        try {
+            return (RedbitStruct) constructor.invokeExact();
+        } catch (RuntimeException | Error exception) {
+            throw exception;
+        } catch (Throwable throwable) {
+            throw new IllegalStateException(throwable);
+        }
+    }
+
+    public RedbitColumnCodec getIdCodec() {
+        return idCodec;
+    }
+
+    public RedbitColumnCodec[] getCodecs() {
+        return codecs;
+    }
+
+    public String encodeId(RedbitStruct struct) {
+        return idCodec.encode(struct);
+    }
+
+    public Map<String, String> encode(RedbitStruct struct, boolean ignoreNullValues) {
+        Map<String, String> valueMap = new HashMap<>(codecs.length * 2);
+        for (RedbitColumnCodec codec : codecs) {
+            RedbitColumnInfo columnInfo = codec.getColumnInfo();
+            String strValue = codec.encode(struct);
+
+            if (RedbitUtils.isNullString(strValue)) {
+                if (ignoreNullValues) continue;
+
+                strValue = columnInfo.getDefaultValue();
+
+                if (RedbitUtils.isNullString(strValue) && !columnInfo.isNullable())
+                    throw new IllegalArgumentException(columnInfo.getName() + " value is null but it is not nullable");
+            }
+
+            valueMap.put(columnInfo.getName(), strValue);
+        }
+
+        return valueMap;
+    }
+
+    public Map<String, String> encode(RedbitStruct struct, BitSet columns) {
+        Map<String, String> valueMap = new HashMap<>(columns.cardinality() * 2);
+        for (int i = columns.nextSetBit(0); i >= 0; i = columns.nextSetBit(i + 1)) {
+            RedbitColumnCodec codec = codecs[i];
+            String strValue = codec.encode(struct);
+
+            if (strValue != null)
+                valueMap.put(codec.getColumnInfo().getName(), strValue);
+        }
+
+        return valueMap;
+    }
+
+    public void decode(RedbitStruct struct, Map<String, String> valueMap) {
+        for (int i = 0; i < codecs.length; i++) {
+            decodeColumn(struct, i, valueMap.get(codecs[i].getColumnInfo().getName()));
+        }
+    }
+
+    public void decodeColumn(RedbitStruct struct, int index, @Nullable String value) {
+        RedbitColumnCodec codec = codecs[index];
+        Object decoded = RedbitUtils.isNullString(value) && codec.getColumnInfo().isNullable() ? null : codec.decode(value);
+
+        codec.set(struct, decoded);
+        remember(struct, index, decoded);
+    }
+
+    public Map<byte[], byte[]> encodeBinary(RedbitStruct struct, boolean ignoreNullValues) {
+        Map<byte[], byte[]> hash = new HashMap<>(codecs.length * 2);
+        for (int i = 1; i < codecs.length; i++) {
+            RedbitColumnCodec codec = codecs[i];
+            RedbitColumnInfo columnInfo = codec.getColumnInfo();
+            Object value = codec.get(struct);
+
+            if (value == null) {
+                if (ignoreNullValues) continue;
+
+                String defaultValue = columnInfo.getDefaultValue();
+                if (RedbitUtils.isNullString(defaultValue) && !columnInfo.isNullable())
+                    throw new IllegalArgumentException(columnInfo.getName() + " value is null but it is not nullable");
+
+                value = RedbitUtils.isNullString(defaultValue) ? null : codec.decode(defaultValue);
+            }
+
+            hash.put(fieldIds[i], codec.encodeBinary(value));
+        }
+
+        return hash;
+    }
+
+    public Map<byte[], byte[]> encodeBinary(RedbitStruct struct, BitSet columns) {
+        Map<byte[], byte[]> hash = new HashMap<>(columns.cardinality() * 2);
+        for (int i = columns.nextSetBit(0); i >= 0; i = columns.nextSetBit(i + 1)) {
+            Object value = codecs[i].get(struct);
+
+            if (value != null)
+                hash.put(fieldIds[i], codecs[i].encodeBinary(value));
+        }
+
+        return hash;
+    }
+
+    public Map<byte[], byte[]> toBinary(Map<String, String> valueMap) {
+        Map<byte[], byte[]> hash = new HashMap<>(codecs.length * 2);
+        for (int i = 1; i < codecs.length; i++) {
+            RedbitColumnCodec codec = codecs[i];
+            String name = codec.getColumnInfo().getName();
+            if (!valueMap.containsKey(name)) continue;
+
+            String value = valueMap.get(name);
+            hash.put(fieldIds[i], codec.encodeBinary(RedbitUtils.isNullString(value) ? null : codec.decode(value)));
+        }
+
+        return hash;
+    }
+
+    public Map<String, String> fromBinary(Map<byte[], byte[]> hash) {
+        Map<String, String> valueMap = new HashMap<>(codecs.length * 2);
+        for (Map.Entry<byte[], byte[]> field : hash.entrySet()) {
+            int index = fieldIndex(field.getKey());
+            if (index == -1) continue;
+
+            valueMap.put(codecs[index].getColumnInfo().getName(), binaryToString(index, field.getValue()));
+        }
+
+        return valueMap;
+    }
+
+    public String binaryToString(int index, byte[] value) {
+        RedbitColumnCodec codec = codecs[index];
+        return value.length == 0 ? "" : codec.getType().toString(codec.decodeBinary(value));
+    }
+
+    public void decodeBinary(RedbitStruct struct, String idValue, Map<byte[], byte[]> hash) {
+        byte[][] values = new byte[codecs.length][];
+        for (Map.Entry<byte[], byte[]> field : hash.entrySet()) {
+            int index = fieldIndex(field.getKey());
+            if (index != -1) values[index] = field.getValue();
+        }
+
+        decodeColumn(struct, 0, idValue);
+
+        for (int i = 1; i < codecs.length; i++) {
+            decodeBinaryColumn(struct, i, values[i]);
+        }
+    }
+
+    public void decodeBinaryColumn(RedbitStruct struct, int index, @Nullable byte[] value) {
+        RedbitColumnCodec codec = codecs[index];
+        RedbitColumnInfo columnInfo = codec.getColumnInfo();
+
+        Object decoded;
+        if ((value == null || value.length == 0) && columnInfo.isNullable())
+            decoded = null;
+        else if (value == null)
+            throw new IllegalArgumentException(columnInfo.getName() + " value is null but it is not nullable");
+        else
+            decoded = codec.decodeBinary(value);
+
+        codec.set(struct, decoded);
+        remember(struct, index, decoded);
+    }
+
+    public int[] columnIndexes(String... columnNames) {
+        int[] indexes = new int[columnNames.length];
+        for (int n = 0; n < columnNames.length; n++) {
+            indexes[n] = -1;
+
+            for (int i = 0; i < codecs.length; i++) {
+                if (codecs[i].getColumnInfo().getName().equals(columnNames[n])) {
+                    indexes[n] = i;
+                    break;
+                }
+            }
+
+            if (indexes[n] == -1)
+                throw new IllegalArgumentException("Column " + columnNames[n] + " does not exist");
+        }
+
+        return indexes;
+    }
+
+    public byte[] getFieldId(int index) {
+        return fieldIds[index];
+    }
+
+    public byte[] getStoredField(int index, boolean compact) {
+        return compact ? fieldIds[index] : SafeEncoder.encode(codecs[index].getColumnInfo().getName());
+    }
+
+    // The exact bytes a value is kept as in redis, so scripts can compare them without decoding
+    public byte[] encodeStoredValue(int index, @Nullable Object value, boolean compact) {
+        RedbitColumnCodec codec = codecs[index];
+        String defaultValue = codec.getColumnInfo().getDefaultValue();
+        if (value == null && !RedbitUtils.isNullString(defaultValue))
+            value = codec.decode(defaultValue);
+
+        if (compact)
+            return codec.encodeBinary(value);
+
+        return SafeEncoder.encode(value != null ? codec.getType().toString(value) : "");
+    }
+
+    // Columns that are set and differ from the values last read from or written to redis
+    public BitSet dirtyColumns(RedbitStruct struct) {
+        BitSet columns = new BitSet(codecs.length);
+        Object[] snapshot = struct.snapshot;
+
+        // A snapshot taken under another id says nothing about what the current key holds
+        if (snapshot != null && !Objects.equals(snapshot[0], codecs[0].get(struct)))
+            snapshot = null;
+
+        for (int i = 1; i < codecs.length; i++) {
+            Object value = codecs[i].get(struct);
+            if (value == null) continue;
+
+            if (snapshot == null || !Objects.equals(snapshot[i], value))
+                columns.set(i);
+        }
+
+        return columns;
+    }
+
+    // Every column was read from or written to the current key, so writing all of them loses nothing
+    public boolean isLoaded(RedbitStruct struct) {
+        Object[] snapshot = struct.snapshot;
+        if (snapshot == null || !Objects.equals(snapshot[0], codecs[0].get(struct))) return false;
+
+        for (Object value : snapshot) {
+            if (value == NOT_LOADED) return false;
+        }
+
+        return true;
+    }
+
+    public void forget(RedbitStruct struct, int... indexes) {
+        Object[] snapshot = struct.snapshot;
+        if (snapshot == null) return;
+
+        for (int index : indexes) {
+            if (index != 0) snapshot[index] = NOT_LOADED;
+        }
+    }
+
+    public void remember(RedbitStruct struct, BitSet columns) {
+        remember(struct, 0, idCodec.get(struct));
+
+        for (int i = columns.nextSetBit(0); i >= 0; i = columns.nextSetBit(i + 1)) {
+            remember(struct, i, codecs[i].get(struct));
+        }
+    }
+
+    public void rememberAll(RedbitStruct struct) {
+        for (int i = 0; i < codecs.length; i++) {
+            remember(struct, i, codecs[i].get(struct));
+        }
+    }
+
+    private void remember(RedbitStruct struct, int index, @Nullable Object value) {
+        Object[] snapshot = struct.snapshot;
+        if (snapshot == null) {
+            snapshot = new Object[codecs.length];
+            Arrays.fill(snapshot, NOT_LOADED);
+            struct.snapshot = snapshot;
+        }
+
+        snapshot[index] = value;
+    }
+
+    public String getBinarySchema() {
+        StringJoiner schema = new StringJoiner(",");
+        for (int i = 1; i < codecs.length; i++) {
+            schema.add(codecs[i].getColumnInfo().getName() + ':' + codecs[i].getType());
+        }
+
+        return schema.toString();
+    }
+
+    private int fieldIndex(byte[] fieldId) {
+        if (fieldId.length != 1) return -1;
+
+        int index = fieldId[0] & 0xFF;
+        return index > 0 && index < codecs.length ? index : -1;
+    }
+
+    public void bind(PreparedStatement statement, int firstParameterIndex, RedbitStruct struct) throws SQLException {
+        for (int i = 0; i < codecs.length; i++) {
+            RedbitColumnCodec codec = codecs[i];
+            RedbitColumnInfo columnInfo = codec.getColumnInfo();
+            Object value = codec.get(struct);
+
+            if (value == null || "".equals(value)) {
+                if (RedbitUtils.isNullString(columnInfo.getDefaultValue()) && !columnInfo.isNullable())
+                    throw new IllegalArgumentException(columnInfo.getName() + " value is null but it is not nullable");
+
+                codec.bindString(statement, firstParameterIndex + i, null);
+                continue;
+            }
+
+            codec.bind(statement, firstParameterIndex + i, value);
+        }
+    }
+
+    public void bind(PreparedStatement statement, int firstParameterIndex, Map<String, String> valueMap) throws SQLException {
+        for (int i = 0; i < codecs.length; i++) {
+            RedbitColumnCodec codec = codecs[i];
+            codec.bindString(statement, firstParameterIndex + i, valueMap.get(codec.getColumnInfo().getName()));
+        }
+    }
+
+    public int[] resolveColumns(ResultSet set) throws SQLException {
+        ResultSetMetaData metaData = set.getMetaData();
+        int[] columnIndexes = new int[codecs.length];
+
+        for (int i = 0; i < codecs.length; i++) {
+            String name = codecs[i].getColumnInfo().getName();
+            columnIndexes[i] = -1;
+
+            for (int column = 1; column <= metaData.getColumnCount(); column++) {
+                if (name.equalsIgnoreCase(metaData.getColumnLabel(column))) {
+                    columnIndexes[i] = column;
+                    break;
+                }
+            }
+        }
+
+        return columnIndexes;
+    }
+
+    public void decode(RedbitStruct struct, ResultSet set, int[] columnIndexes, boolean ignoreNonSelectedColumns) throws SQLException {
+        for (int i = 0; i < codecs.length; i++) {
+            RedbitColumnCodec codec = codecs[i];
+            int columnIndex = columnIndexes[i];
+
+            if (columnIndex == -1) {
+                if (ignoreNonSelectedColumns) continue;
+
+                throw new SQLException("Column " + codec.getColumnInfo().getName() + " was not selected");
+            }
+
+            Object value = codec.read(set, columnIndex);
+
+            if (set.wasNull() && codec.getColumnInfo().isNullable())
+                value = null;
+
+            codec.set(struct, value);
+            remember(struct, i, value);
+        }
+    }
+}
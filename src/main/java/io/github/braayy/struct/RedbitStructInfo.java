@@ -1,22 +1,46 @@
 package io.github.braayy.struct;
 
+import io.github.braayy.cache.RedbitExpiry;
+import io.github.braayy.cache.RedbitNearCache;
+import io.github.braayy.cache.RedbitNegativeCache;
+import io.github.braayy.cache.RedbitSingleFlight;
 import io.github.braayy.column.RedbitColumnInfo;
+import io.github.braayy.index.RedbitIndex;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public class RedbitStructInfo {
 
     private final String name;
     private final RedbitColumnInfo idColumn;
     private final List<RedbitColumnInfo> columns;
+    private final RedbitStructCodec codec;
+    private final RedbitStructQueries queries;
+    private final RedbitNearCache nearCache;
+    private final RedbitExpiry expiry;
+    private final RedbitSyncPolicy syncPolicy;
+    private final List<RedbitIndex> indexes;
+    private final boolean compact;
+    private final String keyPrefix;
+    private final RedbitNegativeCache negativeCache = new RedbitNegativeCache();
+    private final RedbitSingleFlight<String, Map<String, String>> databaseLoads = new RedbitSingleFlight<>();
 
-    public RedbitStructInfo(String name, RedbitColumnInfo idColumn, List<RedbitColumnInfo> columns) {
+    public RedbitStructInfo(String name, RedbitColumnInfo idColumn, List<RedbitColumnInfo> columns, RedbitStructCodec codec, @Nullable RedbitNearCache nearCache, @Nullable RedbitExpiry expiry, @Nullable RedbitSyncPolicy syncPolicy, List<RedbitIndex> indexes, boolean compact, boolean colocated) {
         this.name = name;
         this.idColumn = idColumn;
         this.columns = columns;
+        this.codec = codec;
+        this.queries = new RedbitStructQueries(this);
+        this.nearCache = nearCache;
+        this.expiry = expiry;
+        this.syncPolicy = syncPolicy;
+        this.indexes = indexes;
+        this.compact = compact;
+        this.keyPrefix = colocated ? '{' + name + "}:" : name + ':';
     }
 
     public String getName() {
@@ -27,6 +51,66 @@ public class RedbitStructInfo {
         return idColumn;
     }
 
+    public RedbitStructCodec getCodec() {
+        return codec;
+    }
+
+    public RedbitStructQueries getQueries() {
+        return queries;
+    }
+
+    @Nullable
+    public RedbitNearCache getNearCache() {
+        return nearCache;
+    }
+
+    @Nullable
+    public RedbitExpiry getExpiry() {
+        return expiry;
+    }
+
+    @Nullable
+    public RedbitSyncPolicy getSyncPolicy() {
+        return syncPolicy;
+    }
+
+    public List<RedbitIndex> getIndexes() {
+        return indexes;
+    }
+
+    @Nullable
+    public RedbitIndex getIndex(String columnName) {
+        for (RedbitIndex index : indexes) {
+            if (index.getColumnName().equals(columnName)) return index;
+        }
+
+        return null;
+    }
+
+    public boolean isCompact() {
+        return compact;
+    }
+
+    public String getKey(String idValue) {
+        return keyPrefix + idValue;
+    }
+
+    public String getKeyPattern() {
+        return keyPrefix + '*';
+    }
+
+    public boolean isColocated() {
+        return keyPrefix.charAt(0) == '{';
+    }
+
+    public RedbitNegativeCache getNegativeCache() {
+        return negativeCache;
+    }
+
+    public RedbitSingleFlight<String, Map<String, String>> getDatabaseLoads() {
+        return databaseLoads;
+    }
+
     public Collection<RedbitColumnInfo> getColumns() {
         return columns;
     }
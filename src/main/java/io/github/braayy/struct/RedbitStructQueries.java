@@ -0,0 +1,91 @@
+package io.github.braayy.struct;
+
+import io.github.braayy.query.RedbitCriteria;
+import io.github.braayy.utils.RedbitQueryBuilders;
+
+import java.util.BitSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class RedbitStructQueries {
+
+    private final RedbitStructInfo structInfo;
+    private final String createTableQuery, upsertQuery, selectByIdQuery, selectAllQuery, deleteByIdQuery, deleteAllQuery;
+    private final Map<Integer, String> batchUpsertQueries = new ConcurrentHashMap<>();
+    private final Map<Integer, String> batchDeleteQueries = new ConcurrentHashMap<>();
+    private final Map<Integer, String> selectByIdsQueries = new ConcurrentHashMap<>();
+    private final Map<BitSet, String> updateQueries = new ConcurrentHashMap<>();
+    private final Map<String, String> selectByCriteriaQueries = new ConcurrentHashMap<>();
+    private final Map<String, String> selectIdsByCriteriaQueries = new ConcurrentHashMap<>();
+    private final Map<String, String> deleteByCriteriaQueries = new ConcurrentHashMap<>();
+
+    public RedbitStructQueries(RedbitStructInfo structInfo) {
+        this.structInfo = structInfo;
+        this.createTableQuery = RedbitQueryBuilders.buildCreateTableQuery(structInfo);
+        this.upsertQuery = RedbitQueryBuilders.buildUpsertQuery(structInfo);
+        this.selectByIdQuery = RedbitQueryBuilders.buildSelectByIdQuery(structInfo);
+        this.selectAllQuery = RedbitQueryBuilders.buildSelectByCustomWhere(structInfo, null);
+        this.deleteByIdQuery = RedbitQueryBuilders.buildDeleteByIdQuery(structInfo);
+        this.deleteAllQuery = RedbitQueryBuilders.buildDeleteQuery(structInfo, null);
+    }
+
+    public String getCreateTableQuery() {
+        return createTableQuery;
+    }
+
+    public String getUpsertQuery() {
+        return upsertQuery;
+    }
+
+    public String getSelectByIdQuery() {
+        return selectByIdQuery;
+    }
+
+    public String getSelectAllQuery() {
+        return selectAllQuery;
+    }
+
+    public String getDeleteByIdQuery() {
+        return deleteByIdQuery;
+    }
+
+    public String getDeleteAllQuery() {
+        return deleteAllQuery;
+    }
+
+    public String getBatchUpsertQuery(int rowCount) {
+        return batchUpsertQueries.computeIfAbsent(rowCount, count -> RedbitQueryBuilders.buildBatchUpsertQuery(structInfo, count));
+    }
+
+    public String getBatchDeleteQuery(int idCount) {
+        return batchDeleteQueries.computeIfAbsent(idCount, count -> RedbitQueryBuilders.buildBatchDeleteQuery(structInfo, count));
+    }
+
+    public String getSelectByIdsQuery(int idCount) {
+        return selectByIdsQueries.computeIfAbsent(idCount, count -> RedbitQueryBuilders.buildSelectByIdsQuery(structInfo, count));
+    }
+
+    public String getSelectByCriteriaQuery(RedbitCriteria criteria) {
+        return selectByCriteriaQueries.computeIfAbsent(criteria.getShape(), shape -> RedbitQueryBuilders.buildSelectByCriteria(structInfo, criteria, false));
+    }
+
+    public String getSelectIdsByCriteriaQuery(RedbitCriteria criteria) {
+        return selectIdsByCriteriaQueries.computeIfAbsent(criteria.getShape(), shape -> RedbitQueryBuilders.buildSelectByCriteria(structInfo, criteria, true));
+    }
+
+    public String getDeleteByCriteriaQuery(RedbitCriteria criteria) {
+        return deleteByCriteriaQueries.computeIfAbsent(criteria.getShape(), shape -> RedbitQueryBuilders.buildDeleteByCriteria(structInfo, criteria));
+    }
+
+    public String getUpdateQuery(BitSet columns) {
+        String query = updateQueries.get(columns);
+        if (query != null) return query;
+
+        // BitSets are mutable, so the cached key must be a private copy
+        query = RedbitQueryBuilders.buildUpdateQuery(structInfo, columns);
+        updateQueries.putIfAbsent((BitSet) columns.clone(), query);
+
+        return query;
+    }
+
+}
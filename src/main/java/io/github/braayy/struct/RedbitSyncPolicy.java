@@ -0,0 +1,19 @@
+package io.github.braayy.struct;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Overrides the synchronization settings of RedbitConfig for a single struct, zero keeps the global value
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RedbitSyncPolicy {
+
+    long interval() default 0;
+    long maxDirtyAge() default 0;
+    int batchSize() default 0;
+    int priority() default 0;
+    int concurrency() default 0;
+
+}
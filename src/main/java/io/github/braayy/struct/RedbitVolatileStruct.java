@@ -2,31 +2,144 @@ package io.github.braayy.struct;
 
 import io.github.braayy.Redbit;
 import io.github.braayy.RedbitQuery;
+import io.github.braayy.cache.RedbitExpiry;
+import io.github.braayy.cache.RedbitNearCache;
+import io.github.braayy.cache.RedbitNearCacheInvalidator;
+import io.github.braayy.column.RedbitColumnCodec;
+import io.github.braayy.column.RedbitColumnInfo;
+import io.github.braayy.column.RedbitColumnType;
 import io.github.braayy.fetch.RedbitDatabaseFetch;
 import io.github.braayy.fetch.RedbitFetch;
 import io.github.braayy.fetch.RedbitRedisFetch;
-import io.github.braayy.fetch.RedbitSingleRedisFetch;
+import io.github.braayy.fetch.RedbitRedisSpliterator;
+import io.github.braayy.index.RedbitIndex;
+import io.github.braayy.metrics.RedbitMetrics.FetchSource;
+import io.github.braayy.query.RedbitCriteria;
+import io.github.braayy.synchronization.RedbitJournal;
 import io.github.braayy.synchronization.RedbitSynchronizationEntry.Operation;
-import io.github.braayy.utils.RedbitQueryBuilders;
+import io.github.braayy.utils.RedbitPipeline;
 import io.github.braayy.utils.RedbitRedisScanner;
+import io.github.braayy.utils.RedbitScript;
 import io.github.braayy.utils.RedbitUtils;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
-import redis.clients.jedis.JedisPooled;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.UnifiedJedis;
 import redis.clients.jedis.params.ScanParams;
+import redis.clients.jedis.util.JedisClusterCRC16;
+import redis.clients.jedis.util.SafeEncoder;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.*;
-import java.util.logging.Level;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.LongConsumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class RedbitVolatileStruct extends RedbitStruct {
 
+    private static final int UNLINK_CHUNK_SIZE = 500;
+    private static final Set<RedbitColumnType> INCREMENTABLE_TYPES = EnumSet.of(RedbitColumnType.BYTE, RedbitColumnType.SHORT, RedbitColumnType.INTEGER, RedbitColumnType.LONG);
+
+    // Scripts never touch keys that are not in redis, so they can not leave partial hashes behind. ARGV[1] is the expiry argument,
+    // ARGV[2] the id and the index of the column follows, see RedbitIndex#WRITTEN_LUA. The journal goes last, see RedbitJournal#WRITTEN_LUA
+    private static final RedbitScript INCREMENT_SCRIPT = new RedbitScript(
+            RedbitJournal.WRITTEN_LUA +
+            RedbitIndex.WRITTEN_LUA +
+            "local ttl = redis.call('PTTL', KEYS[1])\n" +
+            "if ttl == -2 then return false end\n" +
+            "local current = redis.call('HGET', KEYS[1], ARGV[5])\n" +
+            "if current == '' then current = false end\n" +
+            "if ARGV[7] ~= '' then\n" +
+            "  local value = tonumber(current or '0') + tonumber(ARGV[6])\n" +
+            "  if value < tonumber(ARGV[7]) or value > tonumber(ARGV[8]) then return redis.error_reply('ERR increment would overflow') end\n" +
+            "end\n" +
+            "if not current then redis.call('HSET', KEYS[1], ARGV[5], '0') end\n" +
+            "redis.call('HINCRBY', KEYS[1], ARGV[5], ARGV[6])\n" +
+            "local value = redis.call('HGET', KEYS[1], ARGV[5])\n" +
+            RedbitExpiry.WRITTEN_LUA +
+            "indexWritten(ARGV[2], 2, value)\n" +
+            "journalWritten(ARGV[2])\n" +
+            "return value"
+    );
+    // Compact values are big-endian two's complement, so they are added byte by byte to stay exact for longs
+    private static final RedbitScript BINARY_INCREMENT_SCRIPT = new RedbitScript(
+            RedbitJournal.WRITTEN_LUA +
+            RedbitIndex.WRITTEN_LUA +
+            "local ttl = redis.call('PTTL', KEYS[1])\n" +
+            "if ttl == -2 then return false end\n" +
+            "local current = redis.call('HGET', KEYS[1], ARGV[5])\n" +
+            "local delta = ARGV[6]\n" +
+            "if not current or current == '' then current = string.rep('\\0', #delta) end\n" +
+            "if #current ~= #delta then return redis.error_reply('ERR hash value does not match the column size') end\n" +
+            "local bytes, carry = {}, 0\n" +
+            "for i = #delta, 1, -1 do\n" +
+            "  local sum = current:byte(i) + delta:byte(i) + carry\n" +
+            "  bytes[i] = string.char(sum % 256)\n" +
+            "  carry = math.floor(sum / 256)\n" +
+            "end\n" +
+            "local value = table.concat(bytes)\n" +
+            "local currentSign, deltaSign = current:byte(1) >= 128, delta:byte(1) >= 128\n" +
+            "if currentSign == deltaSign and (value:byte(1) >= 128) ~= currentSign then return redis.error_reply('ERR increment would overflow') end\n" +
+            "redis.call('HSET', KEYS[1], ARGV[5], value)\n" +
+            RedbitExpiry.WRITTEN_LUA +
+            "if lastIndexKey > 1 then\n" +
+            "  local negative, number = value:byte(1) >= 128, 0\n" +
+            "  for i = 1, #value do number = number * 256 + (negative and 255 - value:byte(i) or value:byte(i)) end\n" +
+            "  if negative then number = -number - 1 end\n" +
+            "  indexWritten(ARGV[2], 2, string.format('%.0f', number))\n" +
+            "end\n" +
+            "journalWritten(ARGV[2])\n" +
+            "return value"
+    );
+    private static final RedbitScript COMPARE_AND_SET_SCRIPT = new RedbitScript(
+            RedbitJournal.WRITTEN_LUA +
+            RedbitIndex.WRITTEN_LUA +
+            "local ttl = redis.call('PTTL', KEYS[1])\n" +
+            "if ttl == -2 then return false end\n" +
+            "if (redis.call('HGET', KEYS[1], ARGV[5]) or '') ~= ARGV[6] then return 0 end\n" +
+            "redis.call('HSET', KEYS[1], ARGV[5], ARGV[7])\n" +
+            RedbitExpiry.WRITTEN_LUA +
+            "indexWritten(ARGV[2], 2)\n" +
+            "journalWritten(ARGV[2])\n" +
+            "return 1"
+    );
+    // A partial write must not bring back a hash that was deleted, expired or evicted with only the columns it changed,
+    // and a database load must not overwrite a hash written since it found the key missing
+    private static final RedbitScript WRITE_SCRIPT = new RedbitScript(
+            RedbitJournal.WRITTEN_LUA +
+            RedbitIndex.WRITTEN_LUA +
+            "local ttl = redis.call('PTTL', KEYS[1])\n" +
+            "if (ARGV[2] == 'x' and ttl == -2) or (ARGV[2] == 'n' and ttl ~= -2) then return 0 end\n" +
+            "local last = 4 + 2 * tonumber(ARGV[4])\n" +
+            "if last > 4 then redis.call('HSET', KEYS[1], unpack(ARGV, 5, last)) end\n" +
+            RedbitExpiry.WRITTEN_LUA +
+            "indexWritten(ARGV[3], last)\n" +
+            "journalWritten(ARGV[3])\n" +
+            "return 1"
+    );
+    private static final RedbitScript DELETE_SCRIPT = new RedbitScript(
+            RedbitJournal.WRITTEN_LUA +
+            RedbitIndex.WRITTEN_LUA +
+            "indexWritten(ARGV[1], 1, '')\n" +
+            "journalWritten(ARGV[1])\n" +
+            "return redis.call('DEL', KEYS[1])"
+    );
+
+    private BitSet unsynchronizedColumns;
+    private String unsynchronizedId;
+
     @Override
     public boolean insert() {
         return insert(true);
     }
 
     public boolean insert(boolean synchronize) {
-        return upsert(false, synchronize);
+        return upsert(false, synchronize, false);
     }
 
     public boolean update() {
@@ -34,10 +147,25 @@ public class RedbitVolatileStruct extends RedbitStruct {
     }
 
     public boolean update(boolean synchronize) {
-        return upsert(true, synchronize);
+        return upsert(true, synchronize, false);
+    }
+
+    @NotNull
+    public CompletableFuture<Boolean> insertAsync(boolean synchronize) {
+        return runAsync(() -> insert(synchronize));
+    }
+
+    @NotNull
+    public CompletableFuture<Boolean> updateAsync() {
+        return updateAsync(true);
+    }
+
+    @NotNull
+    public CompletableFuture<Boolean> updateAsync(boolean synchronize) {
+        return runAsync(() -> update(synchronize));
     }
 
-    private boolean upsert(boolean ignoreNullValues, boolean synchronize) {
+    private boolean upsert(boolean ignoreNullValues, boolean synchronize, boolean loaded) {
         try {
             RedbitStructInfo structInfo = Redbit.getStructRegistry().getStructInfo(getClass());
             if (structInfo == null)
@@ -46,29 +174,576 @@ public class RedbitVolatileStruct extends RedbitStruct {
             if (synchronize && Redbit.getSynchronizer().isShuttingDown())
                 throw new IllegalStateException("Synchronized operation ran while synchronizer is shutting down");
 
-            Map<String, String> valueMap = RedbitUtils.getStructValues(structInfo, this, ignoreNullValues);
+            RedbitStructCodec codec = structInfo.getCodec();
+            String idValue = getIdFieldValue(structInfo);
+            if (RedbitUtils.isNullString(idValue))
+                throw new IllegalArgumentException("Invalid id value for struct " + structInfo.getName());
+
+            // Updates only write the columns that changed since the struct was last read or written
+            BitSet columns = ignoreNullValues ? codec.dirtyColumns(this) : null;
+            BitSet unsynchronized = synchronize ? getUnsynchronizedColumns(idValue) : null;
+            if (columns != null && columns.isEmpty()) {
+                if (unsynchronized == null) return true;
+
+                // Redis already has the columns of the unsynchronized writes, they only have to be marked now
+                RedbitJournal journal = Redbit.getJournal();
+                if (journal != null)
+                    journal.markOutside(structInfo, Collections.singletonList(idValue), false);
+                Redbit.getSynchronizer().addModifiedKey(structInfo, idValue, Operation.UPDATE, unsynchronized);
+                clearUnsynchronizedColumns();
+                return true;
+            }
+
+            long start = System.nanoTime();
+            WriteMode mode = loaded ? WriteMode.MISSING : columns != null ? WriteMode.EXISTING : WriteMode.ANY;
+            if (!write(structInfo, idValue, columns, synchronize, !loaded, mode) && !loaded) {
+                // The hash was deleted, expired or evicted, so the columns this write lacks come from the struct itself or from the database
+                if (codec.isLoaded(this)) {
+                    columns = null;
+                    write(structInfo, idValue, null, synchronize, true, WriteMode.ANY);
+                } else if (!loadIntoRedis(structInfo, idValue) || !write(structInfo, idValue, columns, synchronize, true, WriteMode.EXISTING)) {
+                    // Writing only the changed columns would leave a partial hash, and a partial row once synchronized
+                    throw new IllegalStateException("Struct " + structInfo.getName() + " with id " + idValue + " is neither in redis nor in the database, only a loaded struct can be updated");
+                }
+            }
+            Redbit.getMetrics().redisCall(structInfo, ignoreNullValues ? "update" : "insert", System.nanoTime() - start);
+
+            if (!loaded)
+                structInfo.getNegativeCache().remove(idValue);
+
+            if (columns != null)
+                codec.remember(this, columns);
+            else
+                codec.rememberAll(this);
+
+            if (synchronize) {
+                if (columns != null) {
+                    if (unsynchronized != null)
+                        columns.or(unsynchronized);
+
+                    Redbit.getSynchronizer().addModifiedKey(structInfo, idValue, Operation.UPDATE, columns);
+                } else {
+                    Redbit.getSynchronizer().addModifiedKey(structInfo, idValue, Operation.UPSERT);
+                }
+                clearUnsynchronizedColumns();
+            } else if (!loaded) {
+                unsynchronizedWrite(structInfo, idValue, columns);
+            }
+
+            return true;
+        } catch (Exception exception) {
+            failed(ignoreNullValues ? "update" : "insert", exception);
+
+            return false;
+        }
+    }
+
+    // Returns false when the mode did not allow the hash to be written
+    private boolean write(RedbitStructInfo structInfo, String idValue, @Nullable BitSet columns, boolean synchronize, boolean invalidate, WriteMode mode) {
+        RedbitStructCodec codec = structInfo.getCodec();
+        Map<String, String> valueMap;
+        Map<byte[], byte[]> hash;
+        if (structInfo.isCompact()) {
+            hash = columns != null ? codec.encodeBinary(this, columns) : codec.encodeBinary(this, false);
+            // Indexes are kept by the text form of their values
+            valueMap = structInfo.getIndexes().isEmpty() ? Collections.emptyMap() : columns != null ? codec.encode(this, columns) : codec.encode(this, false);
+        } else {
+            valueMap = columns != null ? codec.encode(this, columns) : codec.encode(this, false);
+            valueMap.remove(structInfo.getIdColumn().getName());
+            hash = encodeHash(valueMap);
+        }
+
+        UnifiedJedis jedis = Redbit.getJedis();
+        Objects.requireNonNull(jedis, "Jedis was not initialized yet! Redbit#init(RedbitConfig) should do it");
+
+        RedbitNearCache nearCache = structInfo.getNearCache();
+        RedbitJournal journal = synchronize ? Redbit.getJournal() : null;
+        boolean journaledOutside = journal != null && !journal.isScripted(structInfo, idValue);
+        if (journaledOutside)
+            journal.markOutside(structInfo, Collections.singletonList(idValue), false);
+
+        Response<Object> written;
+        try (RedbitPipeline pipeline = Redbit.pipelined()) {
+            written = writeHash(pipeline, structInfo, idValue, hash, valueMap, synchronize, mode, journaledOutside ? null : journal);
+            if (nearCache != null && invalidate)
+                publishInvalidation(pipeline, structInfo, idValue);
+        }
+
+        if (journaledOutside)
+            journal.markOutside(structInfo, Collections.singletonList(idValue), false);
+
+        if (nearCache != null && invalidate)
+            nearCache.invalidate(idValue);
+
+        return (Long) written.get() == 1;
+    }
+
+    // Loads the row like fetchById does, returns false when neither redis nor the database has it
+    private static boolean loadIntoRedis(RedbitStructInfo structInfo, String idValue) {
+        RedbitVolatileStruct struct = (RedbitVolatileStruct) structInfo.getCodec().newInstance();
+        structInfo.getCodec().decodeColumn(struct, 0, idValue);
+
+        RedbitFetch.Result result = struct.fetchById();
+        if (result == RedbitFetch.Result.ERROR)
+            throw new IllegalStateException("Could not load id " + idValue + " of struct " + structInfo.getName());
+
+        return result == RedbitFetch.Result.FOUND;
+    }
+
+    // The ttl of expiring structs, the indexes of the written columns and the journal change in the same script, so a synchronized write
+    // is never left with a ttl, an index never falls behind its row and a journaled id is never read before its write landed. The value
+    // map holds the written columns in their text form, a null journal leaves the write out of it
+    public static Response<Object> writeHash(RedbitPipeline pipeline, RedbitStructInfo structInfo, String idValue, Map<byte[], byte[]> hash, Map<String, String> valueMap, boolean synchronize, WriteMode mode, @Nullable RedbitJournal journal) {
+        List<byte[]> keys = new ArrayList<>();
+        keys.add(SafeEncoder.encode(structInfo.getKey(idValue)));
+
+        List<byte[]> args = new ArrayList<>(hash.size() * 2 + 4);
+        args.add(RedbitExpiry.scriptArgument(structInfo.getExpiry(), synchronize));
+        args.add(mode.argument);
+        args.add(SafeEncoder.encode(idValue));
+        args.add(SafeEncoder.encode(Integer.toString(hash.size())));
+        for (Map.Entry<byte[], byte[]> field : hash.entrySet()) {
+            args.add(field.getKey());
+            args.add(field.getValue());
+        }
+
+        for (RedbitIndex index : structInfo.getIndexes()) {
+            if (valueMap.containsKey(index.getColumnName()))
+                index.addScriptArguments(keys, args, valueMap.get(index.getColumnName()));
+        }
+        RedbitJournal.addScriptArguments(journal, structInfo, idValue, false, keys, args);
+
+        return WRITE_SCRIPT.eval(pipeline, keys, args);
+    }
+
+    public static Map<byte[], byte[]> encodeHash(Map<String, String> valueMap) {
+        Map<byte[], byte[]> hash = new HashMap<>(valueMap.size() * 2);
+        for (Map.Entry<String, String> value : valueMap.entrySet()) {
+            hash.put(SafeEncoder.encode(value.getKey()), SafeEncoder.encode(value.getValue()));
+        }
+
+        return hash;
+    }
+
+    // Columns written by this struct without synchronize, the next synchronized write of the same key marks them too
+    @Nullable
+    private BitSet getUnsynchronizedColumns(String idValue) {
+        return idValue.equals(unsynchronizedId) ? (BitSet) unsynchronizedColumns.clone() : null;
+    }
 
-            String idValue = valueMap.remove(structInfo.getIdColumn().getName());
+    private void unsynchronizedWrite(RedbitStructInfo structInfo, String idValue, @Nullable BitSet columns) {
+        if (!idValue.equals(unsynchronizedId)) {
+            unsynchronizedId = idValue;
+            unsynchronizedColumns = new BitSet();
+        }
+
+        if (columns != null)
+            unsynchronizedColumns.or(columns);
+        else
+            unsynchronizedColumns.set(1, structInfo.getCodec().getCodecs().length);
+    }
+
+    private void clearUnsynchronizedColumns() {
+        unsynchronizedId = null;
+        unsynchronizedColumns = null;
+    }
+
+    // The next update writes these columns even if they still hold the values last read, for values another writer may have changed since
+    public void markDirty(String... columnNames) {
+        RedbitStructInfo structInfo = Redbit.getStructRegistry().getStructInfo(getClass());
+        Objects.requireNonNull(structInfo, "Struct " + getClass().getSimpleName() + " was not registered!");
+
+        structInfo.getCodec().forget(this, structInfo.getCodec().columnIndexes(columnNames));
+    }
+
+    public static boolean insertAll(Collection<? extends RedbitVolatileStruct> structs) {
+        return insertAll(structs, true);
+    }
+
+    public static boolean insertAll(Collection<? extends RedbitVolatileStruct> structs, boolean synchronize) {
+        return upsertAll(structs, false, synchronize);
+    }
+
+    public static boolean updateAll(Collection<? extends RedbitVolatileStruct> structs) {
+        return updateAll(structs, true);
+    }
+
+    public static boolean updateAll(Collection<? extends RedbitVolatileStruct> structs, boolean synchronize) {
+        return upsertAll(structs, true, synchronize);
+    }
+
+    private static boolean upsertAll(Collection<? extends RedbitVolatileStruct> structs, boolean ignoreNullValues, boolean synchronize) {
+        try {
+            if (synchronize && Redbit.getSynchronizer().isShuttingDown())
+                throw new IllegalStateException("Synchronized operation ran while synchronizer is shutting down");
+
+            // Every struct is encoded before anything is written, so an invalid one does not leave a partial write behind
+            Map<RedbitStructInfo, Map<String, Map<String, String>>> valuesByStruct = new LinkedHashMap<>();
+            Map<RedbitStructInfo, Map<String, BitSet>> columnsByStruct = new HashMap<>();
+            Map<RedbitVolatileStruct, BitSet> writtenStructs = new IdentityHashMap<>();
+            for (RedbitVolatileStruct struct : structs) {
+                RedbitStructInfo structInfo = Redbit.getStructRegistry().getStructInfo(struct.getClass());
+                if (structInfo == null)
+                    throw new IllegalStateException("Struct " + struct.getClass().getSimpleName() + " was not registered!");
+
+                RedbitStructCodec codec = structInfo.getCodec();
+                String idValue = struct.getIdFieldValue(structInfo);
+                if (RedbitUtils.isNullString(idValue))
+                    throw new IllegalArgumentException("Invalid id value for struct " + structInfo.getName());
+
+                Map<String, String> valueMap;
+                if (ignoreNullValues) {
+                    BitSet columns = codec.dirtyColumns(struct);
+                    BitSet unsynchronized = synchronize ? struct.getUnsynchronizedColumns(idValue) : null;
+                    if (columns.isEmpty() && unsynchronized == null) continue;
+
+                    // Columns of unsynchronized writes are only marked, redis already has them
+                    valueMap = codec.encode(struct, columns);
+                    BitSet marked = (BitSet) columns.clone();
+                    if (unsynchronized != null)
+                        marked.or(unsynchronized);
+
+                    columnsByStruct.computeIfAbsent(structInfo, info -> new LinkedHashMap<>()).merge(idValue, marked, (previous, next) -> {
+                        BitSet union = (BitSet) previous.clone();
+                        union.or(next);
+                        return union;
+                    });
+                    writtenStructs.put(struct, columns);
+                } else {
+                    valueMap = codec.encode(struct, false);
+                    valueMap.remove(structInfo.getIdColumn().getName());
+                    writtenStructs.put(struct, null);
+                }
+
+                valuesByStruct.computeIfAbsent(structInfo, info -> new LinkedHashMap<>()).merge(idValue, valueMap, (previous, next) -> {
+                    previous.putAll(next);
+                    return previous;
+                });
+            }
+
+            if (valuesByStruct.isEmpty()) return true;
+
+            long start = System.nanoTime();
+            RedbitJournal journal = synchronize ? Redbit.getJournal() : null;
+            Map<RedbitStructInfo, Map<String, Response<Object>>> responsesByStruct = new HashMap<>();
+
+            // Ids their write script can not journal, and the ones that only mark columns redis already has, are journaled around the batch
+            Map<RedbitStructInfo, List<String>> journaledOutside = new HashMap<>();
+            if (journal != null) {
+                for (Map.Entry<RedbitStructInfo, Map<String, Map<String, String>>> entry : valuesByStruct.entrySet()) {
+                    for (Map.Entry<String, Map<String, String>> values : entry.getValue().entrySet()) {
+                        if (values.getValue().isEmpty() || !journal.isScripted(entry.getKey(), values.getKey()))
+                            journaledOutside.computeIfAbsent(entry.getKey(), info -> new ArrayList<>()).add(values.getKey());
+                    }
+                }
+                for (Map.Entry<RedbitStructInfo, List<String>> entry : journaledOutside.entrySet()) {
+                    journal.markOutside(entry.getKey(), entry.getValue(), false);
+                }
+            }
+
+            try (RedbitPipeline pipeline = Redbit.pipelined()) {
+                for (Map.Entry<RedbitStructInfo, Map<String, Map<String, String>>> entry : valuesByStruct.entrySet()) {
+                    RedbitStructInfo structInfo = entry.getKey();
+                    Map<String, Response<Object>> responses = responsesByStruct.computeIfAbsent(structInfo, info -> new HashMap<>());
+
+                    for (Map.Entry<String, Map<String, String>> values : entry.getValue().entrySet()) {
+                        String idValue = values.getKey();
+                        Map<String, String> valueMap = values.getValue();
+
+                        if (!valueMap.isEmpty()) {
+                            Map<byte[], byte[]> hash = structInfo.isCompact() ? structInfo.getCodec().toBinary(valueMap) : encodeHash(valueMap);
+                            RedbitJournal scriptJournal = journal != null && journal.isScripted(structInfo, idValue) ? journal : null;
+                            responses.put(idValue, writeHash(pipeline, structInfo, idValue, hash, valueMap, synchronize, ignoreNullValues ? WriteMode.EXISTING : WriteMode.ANY, scriptJournal));
+                        }
+
+                        if (structInfo.getNearCache() != null)
+                            publishInvalidation(pipeline, structInfo, idValue);
+                    }
+                }
+            }
+            for (Map.Entry<RedbitStructInfo, List<String>> entry : journaledOutside.entrySet()) {
+                journal.markOutside(entry.getKey(), entry.getValue(), false);
+            }
+            RedbitStructInfo writtenStruct = valuesByStruct.size() == 1 ? valuesByStruct.keySet().iterator().next() : null;
+            Redbit.getMetrics().redisCall(writtenStruct, ignoreNullValues ? "updateAll" : "insertAll", System.nanoTime() - start);
+
+            // Hashes that were gone are written again one struct at a time, the same way update does it
+            Map<RedbitStructInfo, Set<String>> missingByStruct = new HashMap<>();
+            for (Map.Entry<RedbitStructInfo, Map<String, Response<Object>>> entry : responsesByStruct.entrySet()) {
+                for (Map.Entry<String, Response<Object>> response : entry.getValue().entrySet()) {
+                    if ((Long) response.getValue().get() == 0)
+                        missingByStruct.computeIfAbsent(entry.getKey(), info -> new HashSet<>()).add(response.getKey());
+                }
+            }
+
+            for (Map.Entry<RedbitStructInfo, Map<String, Map<String, String>>> entry : valuesByStruct.entrySet()) {
+                RedbitStructInfo structInfo = entry.getKey();
+                Set<String> idValues = new LinkedHashSet<>(entry.getValue().keySet());
+                idValues.removeAll(missingByStruct.getOrDefault(structInfo, Collections.emptySet()));
+
+                RedbitNearCache nearCache = structInfo.getNearCache();
+                for (String idValue : idValues) {
+                    if (nearCache != null) nearCache.invalidate(idValue);
+                    structInfo.getNegativeCache().remove(idValue);
+                }
+
+                if (synchronize) {
+                    if (ignoreNullValues) {
+                        Map<String, BitSet> columns = new LinkedHashMap<>(columnsByStruct.get(structInfo));
+                        columns.keySet().retainAll(idValues);
+                        Redbit.getSynchronizer().addModifiedKeys(structInfo, columns, Operation.UPDATE);
+                    } else {
+                        Redbit.getSynchronizer().addModifiedKeys(structInfo, idValues, Operation.UPSERT);
+                    }
+                }
+            }
+
+            boolean allWritten = true;
+            for (Map.Entry<RedbitVolatileStruct, BitSet> written : writtenStructs.entrySet()) {
+                RedbitVolatileStruct struct = written.getKey();
+                RedbitStructInfo structInfo = Redbit.getStructRegistry().getStructInfo(struct.getClass());
+                String idValue = struct.getIdFieldValue(structInfo);
+                if (missingByStruct.getOrDefault(structInfo, Collections.emptySet()).contains(idValue)) {
+                    allWritten &= struct.upsert(ignoreNullValues, synchronize, false);
+                    continue;
+                }
+
+                RedbitStructCodec codec = structInfo.getCodec();
+                if (written.getValue() != null)
+                    codec.remember(struct, written.getValue());
+                else
+                    codec.rememberAll(struct);
+
+                if (synchronize)
+                    struct.clearUnsynchronizedColumns();
+                else
+                    struct.unsynchronizedWrite(structInfo, idValue, written.getValue());
+            }
+
+            return allWritten;
+        } catch (Exception exception) {
+            failed(null, ignoreNullValues ? "updateAll" : "insertAll", exception);
+
+            return false;
+        }
+    }
+
+    @Nullable
+    public Long increment(String columnName, long delta) {
+        return increment(columnName, delta, true);
+    }
+
+    @Nullable
+    public Long increment(String columnName, long delta, boolean synchronize) {
+        try {
+            RedbitStructInfo structInfo = Redbit.getStructRegistry().getStructInfo(getClass());
+            if (structInfo == null)
+                throw new IllegalStateException("Struct " + getClass().getSimpleName() + " was not registered!");
+
+            if (synchronize && Redbit.getSynchronizer().isShuttingDown())
+                throw new IllegalStateException("Synchronized operation ran while synchronizer is shutting down");
+
+            String idValue = getIdFieldValue(structInfo);
             if (RedbitUtils.isNullString(idValue))
                 throw new IllegalArgumentException("Invalid id value for struct " + structInfo.getName());
 
-            JedisPooled jedis = Redbit.getJedis();
-            Objects.requireNonNull(jedis, "Jedis was not initialized yet! Redbit#init(RedbitConfig) should do it");
+            RedbitStructCodec codec = structInfo.getCodec();
+            int index = codec.columnIndexes(columnName)[0];
+            RedbitColumnCodec columnCodec = codec.getCodecs()[index];
+            RedbitColumnType type = columnCodec.getType();
+            if (index == 0 || !INCREMENTABLE_TYPES.contains(type))
+                throw new IllegalArgumentException("Column " + columnName + " of struct " + structInfo.getName() + " can not be incremented");
 
-            String key = String.format(Redbit.KEY_FORMAT, structInfo.getName(), idValue);
-            jedis.hset(key, valueMap);
+            long[] bounds = integerBounds(type);
+            List<byte[]> keys = new ArrayList<>();
+            List<byte[]> args = new ArrayList<>();
+            scriptArguments(structInfo, idValue, index, null, synchronize, keys, args);
+            args.add(codec.getStoredField(index, structInfo.isCompact()));
 
-            if (synchronize)
-                Redbit.getSynchronizer().addModifiedKey(structInfo, idValue, Operation.UPSERT);
+            RedbitJournal journal = synchronize ? Redbit.getJournal() : null;
+            boolean journaledOutside = journal != null && !journal.isScripted(structInfo, idValue);
+            RedbitScript script;
+            if (structInfo.isCompact()) {
+                if (delta < bounds[0] || delta > bounds[1])
+                    throw new IllegalArgumentException("Delta " + delta + " does not fit in column " + columnName + " of struct " + structInfo.getName());
+
+                args.add(columnCodec.encodeBinary(type.fromString(Long.toString(delta))));
+                script = BINARY_INCREMENT_SCRIPT;
+            } else {
+                args.add(SafeEncoder.encode(Long.toString(delta)));
+                // HINCRBY already refuses to overflow a long
+                args.add(type != RedbitColumnType.LONG ? SafeEncoder.encode(Long.toString(bounds[0])) : new byte[0]);
+                args.add(type != RedbitColumnType.LONG ? SafeEncoder.encode(Long.toString(bounds[1])) : new byte[0]);
+                script = INCREMENT_SCRIPT;
+            }
+            RedbitJournal.addScriptArguments(journaledOutside ? null : journal, structInfo, idValue, false, keys, args);
+
+            if (journaledOutside)
+                journal.markOutside(structInfo, Collections.singletonList(idValue), false);
+            Object result = evalOnLoadedKey(structInfo, idValue, "increment", script, keys, args);
+            if (journaledOutside)
+                journal.markOutside(structInfo, Collections.singletonList(idValue), false);
+
+            if (result == null) return null;
+
+            Object value = structInfo.isCompact() ? columnCodec.decodeBinary((byte[]) result) : columnCodec.decode(SafeEncoder.encode((byte[]) result));
+            columnCodec.set(this, value);
+            columnWritten(structInfo, idValue, index, synchronize);
+
+            return ((Number) value).longValue();
+        } catch (Exception exception) {
+            failed("increment", exception);
+
+            return null;
+        }
+    }
+
+    public boolean compareAndSet(String columnName, @Nullable Object expectedValue, @Nullable Object newValue) {
+        return compareAndSet(columnName, expectedValue, newValue, true);
+    }
+
+    public boolean compareAndSet(String columnName, @Nullable Object expectedValue, @Nullable Object newValue, boolean synchronize) {
+        try {
+            RedbitStructInfo structInfo = Redbit.getStructRegistry().getStructInfo(getClass());
+            if (structInfo == null)
+                throw new IllegalStateException("Struct " + getClass().getSimpleName() + " was not registered!");
+
+            if (synchronize && Redbit.getSynchronizer().isShuttingDown())
+                throw new IllegalStateException("Synchronized operation ran while synchronizer is shutting down");
+
+            String idValue = getIdFieldValue(structInfo);
+            if (RedbitUtils.isNullString(idValue))
+                throw new IllegalArgumentException("Invalid id value for struct " + structInfo.getName());
+
+            RedbitStructCodec codec = structInfo.getCodec();
+            int index = codec.columnIndexes(columnName)[0];
+            if (index == 0)
+                throw new IllegalArgumentException("Id column of struct " + structInfo.getName() + " can not be changed");
+
+            RedbitColumnCodec columnCodec = codec.getCodecs()[index];
+            RedbitColumnInfo columnInfo = columnCodec.getColumnInfo();
+            Class<?> javaType = columnCodec.getType().getJavaType();
+            if ((expectedValue != null && !javaType.isInstance(expectedValue)) || (newValue != null && !javaType.isInstance(newValue)))
+                throw new IllegalArgumentException("Values of column " + columnName + " must be of type " + javaType.getSimpleName());
+
+            if (newValue == null && RedbitUtils.isNullString(columnInfo.getDefaultValue()) && !columnInfo.isNullable())
+                throw new IllegalArgumentException(columnName + " value is null but it is not nullable");
+
+            // The index is kept by the text form of the value the hash ends up with, which is the default for null
+            Object storedValue = newValue == null && !RedbitUtils.isNullString(columnInfo.getDefaultValue()) ? columnCodec.decode(columnInfo.getDefaultValue()) : newValue;
+            List<byte[]> keys = new ArrayList<>();
+            List<byte[]> args = new ArrayList<>();
+            scriptArguments(structInfo, idValue, index, storedValue != null ? columnCodec.getType().toString(storedValue) : null, synchronize, keys, args);
+            args.add(codec.getStoredField(index, structInfo.isCompact()));
+            args.add(codec.encodeStoredValue(index, expectedValue, structInfo.isCompact()));
+            args.add(codec.encodeStoredValue(index, newValue, structInfo.isCompact()));
+
+            RedbitJournal journal = synchronize ? Redbit.getJournal() : null;
+            boolean journaledOutside = journal != null && !journal.isScripted(structInfo, idValue);
+            RedbitJournal.addScriptArguments(journaledOutside ? null : journal, structInfo, idValue, false, keys, args);
+
+            if (journaledOutside)
+                journal.markOutside(structInfo, Collections.singletonList(idValue), false);
+            Object result = evalOnLoadedKey(structInfo, idValue, "compareAndSet", COMPARE_AND_SET_SCRIPT, keys, args);
+            if (journaledOutside)
+                journal.markOutside(structInfo, Collections.singletonList(idValue), false);
+
+            if (result == null || (Long) result == 0) return false;
+
+            columnCodec.set(this, newValue);
+            columnWritten(structInfo, idValue, index, synchronize);
 
             return true;
         } catch (Exception exception) {
-            Redbit.getLogger().log(Level.SEVERE, exception.getMessage(), exception);
+            failed("compareAndSet", exception);
 
             return false;
         }
     }
 
+    @NotNull
+    public CompletableFuture<Long> incrementAsync(String columnName, long delta) {
+        return runAsync(() -> increment(columnName, delta));
+    }
+
+    @NotNull
+    public CompletableFuture<Boolean> compareAndSetAsync(String columnName, @Nullable Object expectedValue, @Nullable Object newValue) {
+        return runAsync(() -> compareAndSet(columnName, expectedValue, newValue));
+    }
+
+    // Arguments shared by the scripts that write a single column, the index of the column is updated by the script itself
+    private static void scriptArguments(RedbitStructInfo structInfo, String idValue, int index, @Nullable String value, boolean synchronize, List<byte[]> keys, List<byte[]> args) {
+        keys.add(SafeEncoder.encode(structInfo.getKey(idValue)));
+        args.add(RedbitExpiry.scriptArgument(structInfo.getExpiry(), synchronize));
+        args.add(SafeEncoder.encode(idValue));
+
+        RedbitIndex columnIndex = structInfo.getIndex(structInfo.getCodec().getCodecs()[index].getColumnInfo().getName());
+        if (columnIndex != null) {
+            columnIndex.addScriptArguments(keys, args, value);
+        } else {
+            args.add(new byte[0]);
+            args.add(new byte[0]);
+        }
+    }
+
+    @Nullable
+    private Object evalOnLoadedKey(RedbitStructInfo structInfo, String idValue, String operation, RedbitScript script, List<byte[]> keys, List<byte[]> args) {
+        UnifiedJedis jedis = Redbit.getJedis();
+        Objects.requireNonNull(jedis, "Jedis was not initialized yet! Redbit#init(RedbitConfig) should do it");
+
+        long start = System.nanoTime();
+        Object result = script.eval(jedis, keys, args);
+        Redbit.getMetrics().redisCall(structInfo, operation, System.nanoTime() - start);
+        if (result != null) return result;
+
+        // The key is not in redis, so the row is loaded from the database first like fetchById does
+        if (!loadIntoRedis(structInfo, idValue))
+            return null;
+
+        return script.eval(jedis, keys, args);
+    }
+
+    private void columnWritten(RedbitStructInfo structInfo, String idValue, int index, boolean synchronize) {
+        BitSet columns = new BitSet();
+        columns.set(index);
+        structInfo.getCodec().remember(this, columns);
+
+        RedbitNearCache nearCache = structInfo.getNearCache();
+        if (nearCache != null) {
+            try (RedbitPipeline pipeline = Redbit.pipelined()) {
+                publishInvalidation(pipeline, structInfo, idValue);
+            }
+
+            nearCache.invalidate(idValue);
+        }
+
+        if (synchronize) {
+            BitSet unsynchronized = getUnsynchronizedColumns(idValue);
+            if (unsynchronized != null)
+                columns.or(unsynchronized);
+
+            Redbit.getSynchronizer().addModifiedKey(structInfo, idValue, Operation.UPDATE, columns);
+            clearUnsynchronizedColumns();
+        } else {
+            unsynchronizedWrite(structInfo, idValue, columns);
+        }
+    }
+
+    private static long[] integerBounds(RedbitColumnType type) {
+        switch (type) {
+            case BYTE:
+                return new long[] { Byte.MIN_VALUE, Byte.MAX_VALUE };
+            case SHORT:
+                return new long[] { Short.MIN_VALUE, Short.MAX_VALUE };
+            case INTEGER:
+                return new long[] { Integer.MIN_VALUE, Integer.MAX_VALUE };
+            case LONG:
+                return new long[] { Long.MIN_VALUE, Long.MAX_VALUE };
+            default:
+                throw new IllegalArgumentException(type + " is not an integer type");
+        }
+    }
+
     @Override
     public boolean deleteById() {
         return deleteById(true);
@@ -87,29 +762,84 @@ public class RedbitVolatileStruct extends RedbitStruct {
             if (RedbitUtils.isNullString(idValue))
                 throw new IllegalArgumentException("Invalid id value for struct " + structInfo.getName());
 
-            JedisPooled jedis = Redbit.getJedis();
+            UnifiedJedis jedis = Redbit.getJedis();
             Objects.requireNonNull(jedis, "Jedis was not initialized yet! Redbit#init(RedbitConfig) should do it");
 
-            String key = String.format(Redbit.KEY_FORMAT, structInfo.getName(), idValue);
-            jedis.del(key);
+            long start = System.nanoTime();
+            String key = structInfo.getKey(idValue);
+            RedbitNearCache nearCache = structInfo.getNearCache();
+            RedbitJournal journal = synchronize ? Redbit.getJournal() : null;
+            boolean journaledOutside = journal != null && !journal.isScripted(structInfo, idValue);
+            if (journaledOutside)
+                journal.markOutside(structInfo, Collections.singletonList(idValue), true);
+
+            RedbitJournal scriptJournal = journaledOutside ? null : journal;
+            if (nearCache != null || scriptJournal != null || !structInfo.getIndexes().isEmpty()) {
+                try (RedbitPipeline pipeline = Redbit.pipelined()) {
+                    if (scriptJournal == null && structInfo.getIndexes().isEmpty())
+                        pipeline.del(key);
+                    else
+                        deleteScripted(pipeline, structInfo, idValue, scriptJournal);
+                    if (nearCache != null)
+                        publishInvalidation(pipeline, structInfo, idValue);
+                }
+
+                if (nearCache != null)
+                    nearCache.invalidate(idValue);
+            } else {
+                jedis.del(key);
+            }
+
+            if (journaledOutside)
+                journal.markOutside(structInfo, Collections.singletonList(idValue), true);
+            Redbit.getMetrics().redisCall(structInfo, "deleteById", System.nanoTime() - start);
+
+            // Nothing read before the delete is in redis anymore, so later updates can not skip any column
+            snapshot = null;
+            clearUnsynchronizedColumns();
 
             if (synchronize)
                 Redbit.getSynchronizer().addModifiedKey(structInfo, idValue, Operation.DELETE);
 
             return true;
         } catch (Exception exception) {
-            Redbit.getLogger().log(Level.SEVERE, exception.getMessage(), exception);
+            failed("deleteById", exception);
 
             return false;
         }
     }
 
+    // The row, its index entries and its journal entry change in the same script, so a write racing with the delete can not end up missing
+    // from an index
+    private static void deleteScripted(RedbitPipeline pipeline, RedbitStructInfo structInfo, String idValue, @Nullable RedbitJournal journal) {
+        List<byte[]> keys = new ArrayList<>();
+        List<byte[]> args = new ArrayList<>();
+        keys.add(SafeEncoder.encode(structInfo.getKey(idValue)));
+        args.add(SafeEncoder.encode(idValue));
+        for (RedbitIndex index : structInfo.getIndexes()) {
+            index.addScriptArguments(keys, args, null);
+        }
+        RedbitJournal.addScriptArguments(journal, structInfo, idValue, true, keys, args);
+
+        DELETE_SCRIPT.eval(pipeline, keys, args);
+    }
+
     @Override
     public boolean deleteAll() {
         return deleteAll(true);
     }
 
+    @NotNull
+    public CompletableFuture<Boolean> deleteByIdAsync(boolean synchronize) {
+        return runAsync(() -> deleteById(synchronize));
+    }
+
     public boolean deleteAll(boolean synchronize) {
+        return deleteAll(synchronize, null);
+    }
+
+    // The progress is called with the amount of keys unlinked so far after every scan page
+    public boolean deleteAll(boolean synchronize, @Nullable LongConsumer progress) {
         try {
             RedbitStructInfo structInfo = Redbit.getStructRegistry().getStructInfo(getClass());
             if (structInfo == null)
@@ -118,26 +848,72 @@ public class RedbitVolatileStruct extends RedbitStruct {
             if (synchronize && Redbit.getSynchronizer().isShuttingDown())
                 throw new IllegalStateException("Synchronized operation ran while synchronizer is shutting down");
 
-            JedisPooled jedis = Redbit.getJedis();
-            Objects.requireNonNull(jedis, "Jedis was not initialized yet! Redbit#init(RedbitConfig) should do it");
+            long start = System.nanoTime();
+            RedbitJournal journal = synchronize ? Redbit.getJournal() : null;
+            if (journal != null) {
+                try (RedbitPipeline pipeline = Redbit.pipelined()) {
+                    journal.mark(pipeline, structInfo, null, true);
+                }
+            }
+
+            // Indexes are cleared before the rows, a row written meanwhile is then at worst left as a stale entry that reads filter out
+            if (!structInfo.getIndexes().isEmpty()) {
+                try (RedbitPipeline pipeline = Redbit.pipelined()) {
+                    for (RedbitIndex index : structInfo.getIndexes()) {
+                        index.clear(pipeline);
+                    }
+                }
+            }
+
+            ScanParams scanParams = new ScanParams().match(structInfo.getKeyPattern()).count(Redbit.getConfig().getScanCount());
+            RedbitRedisScanner scanner = new RedbitRedisScanner(scanParams, structInfo);
 
-            ScanParams scanParams = new ScanParams().match(structInfo.getName() + ":*").count(10);
-            RedbitRedisScanner scanner = new RedbitRedisScanner(scanParams);
+            // Every scan page is unlinked right away, so neither redis nor the heap ever holds the whole struct at once
+            long unlinked = 0;
+            List<String> page;
+            while ((page = scanner.nextPage()) != null) {
+                if (page.isEmpty()) continue;
 
-            String nextKey;
-            List<String> keys = new ArrayList<>();
-            while ((nextKey = scanner.next()) != null) {
-                keys.add(nextKey);
+                // A cluster refuses an UNLINK whose keys live in different slots
+                Map<Integer, List<String>> keysBySlot = new HashMap<>();
+                for (String key : page) {
+                    int slot = Redbit.isCluster() ? JedisClusterCRC16.getSlot(key) : 0;
+                    keysBySlot.computeIfAbsent(slot, ignored -> new ArrayList<>()).add(key);
+                }
+
+                try (RedbitPipeline pipeline = Redbit.pipelined()) {
+                    for (List<String> keys : keysBySlot.values()) {
+                        for (int from = 0; from < keys.size(); from += UNLINK_CHUNK_SIZE) {
+                            pipeline.unlink(keys.subList(from, Math.min(from + UNLINK_CHUNK_SIZE, keys.size())).toArray(new String[0]));
+                        }
+                    }
+                }
+
+                unlinked += page.size();
+                if (progress != null)
+                    progress.accept(unlinked);
             }
 
-            jedis.del(keys.toArray(new String[0]));
+            Redbit.getMetrics().redisCall(structInfo, "deleteAll", System.nanoTime() - start);
+
+            snapshot = null;
+            clearUnsynchronizedColumns();
+
+            RedbitNearCache nearCache = structInfo.getNearCache();
+            if (nearCache != null) {
+                try (RedbitPipeline pipeline = Redbit.pipelined()) {
+                    publishInvalidation(pipeline, structInfo, null);
+                }
+
+                nearCache.invalidateAll();
+            }
 
             if (synchronize)
                 Redbit.getSynchronizer().addModifiedKey(structInfo, null, Operation.DELETE_ALL);
 
             return true;
         } catch (Exception exception) {
-            Redbit.getLogger().log(Level.SEVERE, exception.getMessage(), exception);
+            failed("deleteAll", exception);
 
             return false;
         }
@@ -154,35 +930,672 @@ public class RedbitVolatileStruct extends RedbitStruct {
             if (RedbitUtils.isNullString(idValue))
                 throw new IllegalArgumentException("Invalid id value for struct " + structInfo.getName());
 
-            String key = String.format(Redbit.KEY_FORMAT, structInfo.getName(), idValue);
-            try (RedbitSingleRedisFetch fetch = new RedbitSingleRedisFetch(this, key)) {
-                RedbitFetch.Result result = fetch.next();
+            if (fetchFromNearCache(structInfo, idValue)) {
+                Redbit.getMetrics().fetched(structInfo, FetchSource.NEAR_CACHE);
+                return RedbitFetch.Result.FOUND;
+            }
+
+            long stamp = nearCacheStamp(structInfo, idValue);
+
+            UnifiedJedis jedis = Redbit.getJedis();
+            Objects.requireNonNull(jedis, "Jedis was not initialized yet! Redbit#init(RedbitConfig) should do it");
+
+            long start = System.nanoTime();
+            String key = structInfo.getKey(idValue);
+            if (structInfo.isCompact()) {
+                Map<byte[], byte[]> binaryValueMap = jedis.hgetAll(SafeEncoder.encode(key));
+                Redbit.getMetrics().redisCall(structInfo, "fetchById", System.nanoTime() - start);
+
+                return completeBinaryFetch(structInfo, idValue, binaryValueMap, stamp);
+            }
+
+            Map<String, String> valueMap = jedis.hgetAll(key);
+            Redbit.getMetrics().redisCall(structInfo, "fetchById", System.nanoTime() - start);
+
+            return completeFetch(structInfo, idValue, valueMap, stamp);
+        } catch (Exception exception) {
+            failed("fetchById", exception);
+
+            return RedbitFetch.Result.ERROR;
+        }
+    }
+
+    @Override
+    @NotNull
+    public CompletableFuture<RedbitFetch.Result> fetchByIdAsync() {
+        try {
+            RedbitStructInfo structInfo = Redbit.getStructRegistry().getStructInfo(getClass());
+            Objects.requireNonNull(structInfo, "Struct " + getClass().getSimpleName() + " was not registered!");
+
+            String idValue = getIdFieldValue(structInfo);
+            if (RedbitUtils.isNullString(idValue))
+                throw new IllegalArgumentException("Invalid id value for struct " + structInfo.getName());
+
+            if (fetchFromNearCache(structInfo, idValue)) {
+                Redbit.getMetrics().fetched(structInfo, FetchSource.NEAR_CACHE);
+                return CompletableFuture.completedFuture(RedbitFetch.Result.FOUND);
+            }
+
+            long stamp = nearCacheStamp(structInfo, idValue);
+
+            // Reads issued concurrently are sent together in a single pipeline, so the latency includes the wait for the batch
+            long start = System.nanoTime();
+            String key = structInfo.getKey(idValue);
+            CompletableFuture<RedbitFetch.Result> result;
+            if (structInfo.isCompact()) {
+                result = Redbit.getRedisBatcher().hgetAll(SafeEncoder.encode(key))
+                        .thenApplyAsync(binaryValueMap -> {
+                            Redbit.getMetrics().redisCall(structInfo, "fetchByIdAsync", System.nanoTime() - start);
+                            return completeBinaryFetch(structInfo, idValue, binaryValueMap, stamp);
+                        }, Redbit.getAsyncExecutor());
+            } else {
+                result = Redbit.getRedisBatcher().hgetAll(key)
+                        .thenApplyAsync(valueMap -> {
+                            Redbit.getMetrics().redisCall(structInfo, "fetchByIdAsync", System.nanoTime() - start);
+                            return completeFetch(structInfo, idValue, valueMap, stamp);
+                        }, Redbit.getAsyncExecutor());
+            }
+
+            return result.exceptionally(exception -> {
+                failed("fetchByIdAsync", exception);
+
+                return RedbitFetch.Result.ERROR;
+            });
+        } catch (Exception exception) {
+            failed("fetchByIdAsync", exception);
+
+            return CompletableFuture.completedFuture(RedbitFetch.Result.ERROR);
+        }
+    }
+
+    @NotNull
+    public RedbitFetch.Result fetchFields(String... columnNames) {
+        try {
+            RedbitStructInfo structInfo = Redbit.getStructRegistry().getStructInfo(getClass());
+            Objects.requireNonNull(structInfo, "Struct " + getClass().getSimpleName() + " was not registered!");
+
+            String idValue = getIdFieldValue(structInfo);
+            if (RedbitUtils.isNullString(idValue))
+                throw new IllegalArgumentException("Invalid id value for struct " + structInfo.getName());
+
+            if (fetchFromNearCache(structInfo, idValue))
+                return RedbitFetch.Result.FOUND;
+
+            RedbitStructCodec codec = structInfo.getCodec();
+            int[] columnIndexes = Arrays.stream(codec.columnIndexes(columnNames))
+                    .filter(index -> index != 0)
+                    .distinct()
+                    .toArray();
+            if (columnIndexes.length == 0)
+                throw new IllegalArgumentException("No column other than the id was requested for struct " + structInfo.getName());
+
+            UnifiedJedis jedis = Redbit.getJedis();
+            Objects.requireNonNull(jedis, "Jedis was not initialized yet! Redbit#init(RedbitConfig) should do it");
+
+            String key = structInfo.getKey(idValue);
+            if (structInfo.isCompact()) {
+                byte[][] fieldIds = new byte[columnIndexes.length][];
+                for (int i = 0; i < columnIndexes.length; i++) {
+                    fieldIds[i] = codec.getFieldId(columnIndexes[i]);
+                }
+
+                long start = System.nanoTime();
+                List<byte[]> values = jedis.hmget(SafeEncoder.encode(key), fieldIds);
+                Redbit.getMetrics().redisCall(structInfo, "fetchFields", System.nanoTime() - start);
+
+                // Without any field the key is not in redis, so the whole struct is loaded like fetchById does
+                if (values.stream().allMatch(Objects::isNull))
+                    return fetchById();
 
-                switch (result) {
-                    case FOUND:
-                    case ERROR:
-                        return result;
+                for (int i = 0; i < columnIndexes.length; i++) {
+                    codec.decodeBinaryColumn(this, columnIndexes[i], values.get(i));
+                }
+            } else {
+                String[] fields = new String[columnIndexes.length];
+                for (int i = 0; i < columnIndexes.length; i++) {
+                    fields[i] = codec.getCodecs()[columnIndexes[i]].getColumnInfo().getName();
+                }
+
+                long start = System.nanoTime();
+                List<String> values = jedis.hmget(key, fields);
+                Redbit.getMetrics().redisCall(structInfo, "fetchFields", System.nanoTime() - start);
+                if (values.stream().allMatch(Objects::isNull))
+                    return fetchById();
+
+                for (int i = 0; i < columnIndexes.length; i++) {
+                    codec.decodeColumn(this, columnIndexes[i], values.get(i));
                 }
             }
 
-            String strQuery = RedbitQueryBuilders.buildSelectByIdQuery(structInfo, idValue);
-            RedbitQuery query = Redbit.sqlQuery(strQuery);
-            try (RedbitDatabaseFetch fetch = new RedbitDatabaseFetch(this, query)) {
-                RedbitFetch.Result result = fetch.next();
+            codec.decodeColumn(this, 0, idValue);
+
+            if (structInfo.getExpiry() != null)
+                structInfo.getExpiry().touch(key);
+
+            return RedbitFetch.Result.FOUND;
+        } catch (Exception exception) {
+            failed("fetchFields", exception);
+
+            return RedbitFetch.Result.ERROR;
+        }
+    }
+
+    @NotNull
+    public CompletableFuture<RedbitFetch.Result> fetchFieldsAsync(String... columnNames) {
+        return runAsync(() -> fetchFields(columnNames));
+    }
+
+    private boolean fetchFromNearCache(RedbitStructInfo structInfo, String idValue) {
+        RedbitNearCache nearCache = structInfo.getNearCache();
+        if (nearCache == null) return false;
+
+        Map<String, String> cachedValues = nearCache.get(idValue);
+        if (cachedValues == null) return false;
+
+        structInfo.getCodec().decode(this, cachedValues);
+        return true;
+    }
+
+    private long nearCacheStamp(RedbitStructInfo structInfo, String idValue) {
+        RedbitNearCache nearCache = structInfo.getNearCache();
+        return nearCache != null ? nearCache.stamp(idValue) : 0;
+    }
+
+    @NotNull
+    private RedbitFetch.Result completeFetch(RedbitStructInfo structInfo, String idValue, Map<String, String> valueMap, long stamp) {
+        try {
+            RedbitStructCodec codec = structInfo.getCodec();
+            RedbitNearCache nearCache = structInfo.getNearCache();
 
-                if (result == RedbitFetch.Result.FOUND) {
-                    upsert(false, false);
+            if (valueMap.isEmpty()) {
+                if (structInfo.getNegativeCache().contains(idValue)) {
+                    Redbit.getMetrics().fetched(structInfo, FetchSource.NEGATIVE_CACHE);
+                    return RedbitFetch.Result.COMPLETE;
                 }
 
-                return result;
+                // Concurrent misses for the same id share a single database load
+                valueMap = structInfo.getDatabaseLoads().execute(idValue, () -> loadFromDatabase(structInfo, idValue));
+                Redbit.getMetrics().fetched(structInfo, valueMap != null ? FetchSource.DATABASE : FetchSource.MISSING);
+                if (valueMap == null)
+                    return RedbitFetch.Result.COMPLETE;
+            } else {
+                Redbit.getMetrics().fetched(structInfo, FetchSource.REDIS);
+                valueMap.put(structInfo.getIdColumn().getName(), idValue);
+
+                if (structInfo.getExpiry() != null)
+                    structInfo.getExpiry().touch(structInfo.getKey(idValue));
             }
+
+            codec.decode(this, valueMap);
+
+            if (nearCache != null)
+                nearCache.put(idValue, valueMap, stamp);
+
+            return RedbitFetch.Result.FOUND;
+        } catch (Exception exception) {
+            failed("fetchById", exception);
+
+            return RedbitFetch.Result.ERROR;
+        }
+    }
+
+    @NotNull
+    private RedbitFetch.Result completeBinaryFetch(RedbitStructInfo structInfo, String idValue, Map<byte[], byte[]> binaryValueMap, long stamp) {
+        if (binaryValueMap.isEmpty())
+            return completeFetch(structInfo, idValue, new HashMap<>(), stamp);
+
+        try {
+            Redbit.getMetrics().fetched(structInfo, FetchSource.REDIS);
+            if (structInfo.getExpiry() != null)
+                structInfo.getExpiry().touch(structInfo.getKey(idValue));
+
+            RedbitStructCodec codec = structInfo.getCodec();
+            codec.decodeBinary(this, idValue, binaryValueMap);
+
+            RedbitNearCache nearCache = structInfo.getNearCache();
+            if (nearCache != null)
+                nearCache.put(idValue, codec.encode(this, false), stamp);
+
+            return RedbitFetch.Result.FOUND;
         } catch (Exception exception) {
-            Redbit.getLogger().log(Level.SEVERE, exception.getMessage(), exception);
+            failed("fetchById", exception);
 
             return RedbitFetch.Result.ERROR;
         }
     }
 
+    @Nullable
+    private Map<String, String> loadFromDatabase(RedbitStructInfo structInfo, String idValue) throws SQLException {
+        long start = System.nanoTime();
+        RedbitQuery query = Redbit.sqlReadQuery(structInfo.getQueries().getSelectByIdQuery(), structInfo, idValue);
+        try (RedbitDatabaseFetch fetch = new RedbitDatabaseFetch(this, query)) {
+            structInfo.getCodec().getIdCodec().bindString(query.getStatement(), 1, idValue);
+            query.executeQuery();
+
+            RedbitFetch.Result result = fetch.next();
+            Redbit.getMetrics().sqlCall(structInfo, "fetchById", System.nanoTime() - start);
+            switch (result) {
+                case FOUND:
+                    upsert(false, false, true);
+                    return structInfo.getCodec().encode(this, false);
+                case COMPLETE:
+                    structInfo.getNegativeCache().add(idValue);
+                    return null;
+                default:
+                    throw new IllegalStateException("Could not load id " + idValue + " of struct " + structInfo.getName() + " from the database");
+            }
+        }
+    }
+
+    @Nullable
+    public static <T extends RedbitVolatileStruct, I> Map<I, T> fetchByIds(Class<T> structClass, Collection<I> ids) {
+        try {
+            RedbitStructInfo structInfo = Redbit.getStructRegistry().getStructInfo(structClass);
+            Objects.requireNonNull(structInfo, "Struct " + structClass.getSimpleName() + " was not registered!");
+
+            RedbitStructCodec codec = structInfo.getCodec();
+            RedbitNearCache nearCache = structInfo.getNearCache();
+            String idColumnName = structInfo.getIdColumn().getName();
+
+            Map<String, I> requestedIds = new LinkedHashMap<>();
+            for (I id : ids) {
+                if (id == null)
+                    throw new IllegalArgumentException("Invalid id value for struct " + structInfo.getName());
+
+                requestedIds.put(codec.getIdCodec().getType().toString(id), id);
+            }
+
+            Map<String, Map<String, String>> foundValues = new HashMap<>();
+            Map<String, Map<byte[], byte[]>> foundBinaryValues = new HashMap<>();
+            Map<String, Long> stamps = new HashMap<>();
+            List<String> redisIds = new ArrayList<>();
+            for (String idValue : requestedIds.keySet()) {
+                Map<String, String> cachedValues = nearCache != null ? nearCache.get(idValue) : null;
+                if (cachedValues != null) {
+                    foundValues.put(idValue, cachedValues);
+                    continue;
+                }
+
+                if (nearCache != null)
+                    stamps.put(idValue, nearCache.stamp(idValue));
+                redisIds.add(idValue);
+            }
+
+            List<String> missingIds = new ArrayList<>();
+            if (!redisIds.isEmpty()) {
+                List<Response<Map<String, String>>> responses = new ArrayList<>(redisIds.size());
+                List<Response<Map<byte[], byte[]>>> binaryResponses = new ArrayList<>(redisIds.size());
+                long start = System.nanoTime();
+                try (RedbitPipeline pipeline = Redbit.pipelined()) {
+                    for (String idValue : redisIds) {
+                        String key = structInfo.getKey(idValue);
+                        if (structInfo.isCompact())
+                            binaryResponses.add(pipeline.hgetAll(SafeEncoder.encode(key)));
+                        else
+                            responses.add(pipeline.hgetAll(key));
+                    }
+                }
+                Redbit.getMetrics().redisCall(structInfo, "fetchByIds", System.nanoTime() - start);
+
+                for (int i = 0; i < redisIds.size(); i++) {
+                    String idValue = redisIds.get(i);
+
+                    if (structInfo.isCompact()) {
+                        Map<byte[], byte[]> binaryValueMap = binaryResponses.get(i).get();
+                        if (!binaryValueMap.isEmpty()) {
+                            foundBinaryValues.put(idValue, binaryValueMap);
+                            if (structInfo.getExpiry() != null)
+                                structInfo.getExpiry().touch(structInfo.getKey(idValue));
+                            continue;
+                        }
+                    } else {
+                        Map<String, String> valueMap = responses.get(i).get();
+                        if (!valueMap.isEmpty()) {
+                            valueMap.put(idColumnName, idValue);
+                            foundValues.put(idValue, valueMap);
+                            if (structInfo.getExpiry() != null)
+                                structInfo.getExpiry().touch(structInfo.getKey(idValue));
+                            continue;
+                        }
+                    }
+
+                    if (!structInfo.getNegativeCache().contains(idValue))
+                        missingIds.add(idValue);
+                }
+            }
+
+            if (!missingIds.isEmpty())
+                foundValues.putAll(loadAllFromDatabase(structInfo, missingIds));
+
+            Map<I, T> structs = new LinkedHashMap<>();
+            for (Map.Entry<String, I> requestedId : requestedIds.entrySet()) {
+                String idValue = requestedId.getKey();
+                Map<String, String> valueMap = foundValues.get(idValue);
+                Map<byte[], byte[]> binaryValueMap = foundBinaryValues.get(idValue);
+                if (valueMap == null && binaryValueMap == null) continue;
+
+                T struct = structClass.cast(codec.newInstance());
+                if (binaryValueMap != null)
+                    codec.decodeBinary(struct, idValue, binaryValueMap);
+                else
+                    codec.decode(struct, valueMap);
+                structs.put(requestedId.getValue(), struct);
+
+                Long stamp = stamps.get(idValue);
+                if (nearCache != null && stamp != null)
+                    nearCache.put(idValue, valueMap != null ? valueMap : codec.encode(struct, false), stamp);
+            }
+
+            return structs;
+        } catch (Exception exception) {
+            failed(Redbit.getStructRegistry().getStructInfo(structClass), "fetchByIds", exception);
+
+            return null;
+        }
+    }
+
+    @Nullable
+    public static <T extends RedbitVolatileStruct> List<T> fetchByIndex(Class<T> structClass, String columnName, Object value) {
+        try {
+            RedbitStructInfo structInfo = Redbit.getStructRegistry().getStructInfo(structClass);
+            Objects.requireNonNull(structInfo, "Struct " + structClass.getSimpleName() + " was not registered!");
+
+            RedbitIndex index = getIndex(structInfo, columnName);
+            if (value == null)
+                throw new IllegalArgumentException("Invalid value for indexed column " + columnName + " of struct " + structInfo.getName());
+
+            UnifiedJedis jedis = Redbit.getJedis();
+            Objects.requireNonNull(jedis, "Jedis was not initialized yet! Redbit#init(RedbitConfig) should do it");
+
+            RedbitColumnCodec columnCodec = structInfo.getCodec().getCodecs()[index.getColumnIndex()];
+            String valueString = columnCodec.getType().toString(value);
+
+            long start = System.nanoTime();
+            List<String> idValues = index.find(jedis, valueString);
+            Redbit.getMetrics().redisCall(structInfo, "fetchByIndex", System.nanoTime() - start);
+
+            return fetchIndexed(structClass, structInfo, idValues, struct -> valueString.equals(columnCodec.encode(struct)));
+        } catch (Exception exception) {
+            failed(Redbit.getStructRegistry().getStructInfo(structClass), "fetchByIndex", exception);
+
+            return null;
+        }
+    }
+
+    @Nullable
+    public static <T extends RedbitVolatileStruct> List<T> fetchByIndexRange(Class<T> structClass, String columnName, double min, double max) {
+        return fetchByIndexRange(structClass, columnName, min, max, 0, -1, false);
+    }
+
+    // Offset and count apply to the index, so entries left behind by rows changed outside of Redbit can make a page come back short
+    @Nullable
+    public static <T extends RedbitVolatileStruct> List<T> fetchByIndexRange(Class<T> structClass, String columnName, double min, double max, int offset, int count, boolean descending) {
+        try {
+            RedbitStructInfo structInfo = Redbit.getStructRegistry().getStructInfo(structClass);
+            Objects.requireNonNull(structInfo, "Struct " + structClass.getSimpleName() + " was not registered!");
+
+            RedbitIndex index = getIndex(structInfo, columnName);
+
+            UnifiedJedis jedis = Redbit.getJedis();
+            Objects.requireNonNull(jedis, "Jedis was not initialized yet! Redbit#init(RedbitConfig) should do it");
+
+            long start = System.nanoTime();
+            List<String> idValues = index.range(jedis, min, max, offset, count, descending);
+            Redbit.getMetrics().redisCall(structInfo, "fetchByIndexRange", System.nanoTime() - start);
+
+            RedbitColumnCodec columnCodec = structInfo.getCodec().getCodecs()[index.getColumnIndex()];
+            return fetchIndexed(structClass, structInfo, idValues, struct -> {
+                Object value = columnCodec.get(struct);
+                return value instanceof Number && ((Number) value).doubleValue() >= min && ((Number) value).doubleValue() <= max;
+            });
+        } catch (Exception exception) {
+            failed(Redbit.getStructRegistry().getStructInfo(structClass), "fetchByIndexRange", exception);
+
+            return null;
+        }
+    }
+
+    // Criteria on a single indexed column are answered by its redis index, the others find their ids in the database
+    @Nullable
+    public static <T extends RedbitVolatileStruct> List<T> fetchMatching(Class<T> structClass, RedbitCriteria criteria) {
+        try {
+            RedbitStructInfo structInfo = Redbit.getStructRegistry().getStructInfo(structClass);
+            Objects.requireNonNull(structInfo, "Struct " + structClass.getSimpleName() + " was not registered!");
+
+            RedbitStructCodec codec = structInfo.getCodec();
+            List<String> requestedIds = getCriteriaIds(structInfo, criteria);
+            if (requestedIds != null)
+                return fetchIndexed(structClass, structInfo, requestedIds, struct -> true);
+
+            RedbitIndex index = getCriteriaIndex(structInfo, criteria);
+            if (index == null)
+                return fetchUnindexed(structClass, structInfo, criteria);
+
+            UnifiedJedis jedis = Redbit.getJedis();
+            Objects.requireNonNull(jedis, "Jedis was not initialized yet! Redbit#init(RedbitConfig) should do it");
+
+            RedbitCriteria.Condition condition = criteria.getConditions().get(0);
+            RedbitColumnCodec columnCodec = codec.getCodecs()[index.getColumnIndex()];
+            Object[] values = condition.getValues();
+
+            long start = System.nanoTime();
+            List<String> idValues;
+            if (condition.getKind() == RedbitCriteria.Kind.RANGE) {
+                double min = values[0] != null ? ((Number) RedbitCriteria.normalize(columnCodec, values[0])).doubleValue() : Double.NEGATIVE_INFINITY;
+                double max = values[1] != null ? ((Number) RedbitCriteria.normalize(columnCodec, values[1])).doubleValue() : Double.POSITIVE_INFINITY;
+                idValues = index.range(jedis, min, max, criteria.getOffset(), criteria.getLimit(), criteria.isDescending());
+            } else {
+                idValues = new ArrayList<>();
+                for (Object value : values) {
+                    idValues.addAll(index.find(jedis, columnCodec.getType().toString(value)));
+                }
+            }
+            Redbit.getMetrics().redisCall(structInfo, "fetchMatching", System.nanoTime() - start);
+
+            List<T> structs = fetchIndexed(structClass, structInfo, idValues, struct -> criteria.matches(codec, struct));
+            if (condition.getKind() == RedbitCriteria.Kind.RANGE || (criteria.getOffset() == 0 && criteria.getLimit() < 0))
+                return structs;
+
+            int from = Math.min(criteria.getOffset(), structs.size());
+            int to = criteria.getLimit() >= 0 ? Math.min(from + criteria.getLimit(), structs.size()) : structs.size();
+            return new ArrayList<>(structs.subList(from, to));
+        } catch (Exception exception) {
+            failed(Redbit.getStructRegistry().getStructInfo(structClass), "fetchMatching", exception);
+
+            return null;
+        }
+    }
+
+    // Lookups by id alone go straight to fetchByIds
+    @Nullable
+    private static List<String> getCriteriaIds(RedbitStructInfo structInfo, RedbitCriteria criteria) {
+        if (criteria.getConditions().size() != 1 || criteria.getOrderColumn() != null || criteria.getLimit() >= 0) return null;
+
+        RedbitCriteria.Condition condition = criteria.getConditions().get(0);
+        if (!condition.getColumnName().equals(structInfo.getIdColumn().getName()) || condition.getKind() == RedbitCriteria.Kind.RANGE || condition.getValues()[0] == null) return null;
+
+        RedbitColumnCodec idCodec = structInfo.getCodec().getIdCodec();
+        List<String> idValues = new ArrayList<>(condition.getValues().length);
+        for (Object value : condition.getValues()) {
+            idValues.add(idCodec.getType().toString(RedbitCriteria.normalize(idCodec, value)));
+        }
+
+        return idValues;
+    }
+
+    @Nullable
+    private static RedbitIndex getCriteriaIndex(RedbitStructInfo structInfo, RedbitCriteria criteria) {
+        if (criteria.getConditions().size() != 1) return null;
+
+        RedbitCriteria.Condition condition = criteria.getConditions().get(0);
+        RedbitIndex index = structInfo.getIndex(condition.getColumnName());
+        if (index == null) return null;
+
+        // Results come back in index order, so only ordering by the indexed column itself can be kept
+        if (criteria.getOrderColumn() != null && !criteria.getOrderColumn().equals(condition.getColumnName())) return null;
+
+        switch (condition.getKind()) {
+            case EQ:
+                return condition.getValues()[0] != null ? index : null;
+            case IN:
+                return criteria.getOrderColumn() == null ? index : null;
+            case RANGE:
+                return index.isScored() ? index : null;
+            default:
+                return null;
+        }
+    }
+
+    // The database has the previous values of rows that were not synchronized yet, so pending ids are loaded too and every row is checked once loaded
+    @SuppressWarnings("unchecked")
+    private static <T extends RedbitVolatileStruct> List<T> fetchUnindexed(Class<T> structClass, RedbitStructInfo structInfo, RedbitCriteria criteria) throws SQLException {
+        RedbitStructCodec codec = structInfo.getCodec();
+        Map<String, Operation> pendingKeys = Redbit.getSynchronizer().getPendingKeys(structInfo);
+
+        // Only pending rows can be out of place in the database's order, so reading that many more rows from the start keeps the page complete
+        int offset = criteria.getOffset();
+        int limit = criteria.getLimit();
+        int readLimit = limit >= 0 ? (int) Math.min(Integer.MAX_VALUE, (long) offset + limit + pendingKeys.size()) : -1;
+        Set<String> idValues = new LinkedHashSet<>(findInDatabase(structInfo, criteria, readLimit));
+        for (Map.Entry<String, Operation> pendingKey : pendingKeys.entrySet()) {
+            if (pendingKey.getValue() == Operation.DELETE)
+                idValues.remove(pendingKey.getKey());
+            else
+                idValues.add(pendingKey.getKey());
+        }
+
+        List<T> structs = fetchIndexed(structClass, structInfo, new ArrayList<>(idValues), struct -> criteria.matches(codec, struct));
+        if (criteria.getOrderColumn() != null && !pendingKeys.isEmpty()) {
+            RedbitColumnCodec orderCodec = codec.getCodecs()[codec.columnIndexes(criteria.getOrderColumn())[0]];
+            Comparator<T> comparator = Comparator.comparing(struct -> (Comparable<Object>) orderCodec.get(struct), Comparator.nullsFirst(Comparator.naturalOrder()));
+            structs.sort(criteria.isDescending() ? comparator.reversed() : comparator);
+        }
+        if (limit < 0)
+            return structs;
+
+        int from = Math.min(offset, structs.size());
+        return new ArrayList<>(structs.subList(from, Math.min(from + limit, structs.size())));
+    }
+
+    private static List<String> findInDatabase(RedbitStructInfo structInfo, RedbitCriteria criteria, int limit) throws SQLException {
+        RedbitColumnCodec idCodec = structInfo.getCodec().getIdCodec();
+        List<String> idValues = new ArrayList<>();
+
+        long start = System.nanoTime();
+        try (RedbitQuery query = Redbit.sqlReadQuery(structInfo.getQueries().getSelectIdsByCriteriaQuery(criteria))) {
+            criteria.bind(query.getStatement(), structInfo.getCodec(), 0, limit);
+
+            ResultSet resultSet = query.executeQuery();
+            while (resultSet.next()) {
+                idValues.add(idCodec.getType().toString(idCodec.read(resultSet, 1)));
+            }
+        }
+        Redbit.getMetrics().sqlCall(structInfo, "fetchMatching", System.nanoTime() - start);
+
+        return idValues;
+    }
+
+    private static RedbitIndex getIndex(RedbitStructInfo structInfo, String columnName) {
+        RedbitIndex index = structInfo.getIndex(columnName);
+        if (index == null)
+            throw new IllegalArgumentException("Column " + columnName + " is not indexed in struct " + structInfo.getName());
+
+        return index;
+    }
+
+    // Rows are loaded in index order through fetchByIds, and the ones whose current value no longer matches are left out
+    private static <T extends RedbitVolatileStruct> List<T> fetchIndexed(Class<T> structClass, RedbitStructInfo structInfo, List<String> idValues, Predicate<T> matches) {
+        if (idValues.isEmpty())
+            return new ArrayList<>();
+
+        RedbitColumnCodec idCodec = structInfo.getCodec().getIdCodec();
+        List<Object> ids = new ArrayList<>(idValues.size());
+        for (String idValue : idValues) {
+            ids.add(idCodec.decode(idValue));
+        }
+
+        Map<Object, T> found = fetchByIds(structClass, ids);
+        if (found == null)
+            throw new IllegalStateException("Could not load the indexed rows of struct " + structInfo.getName());
+
+        List<T> structs = new ArrayList<>(found.size());
+        for (T struct : found.values()) {
+            if (matches.test(struct))
+                structs.add(struct);
+        }
+
+        return structs;
+    }
+
+    private static Map<String, Map<String, String>> loadAllFromDatabase(RedbitStructInfo structInfo, List<String> idValues) throws SQLException {
+        RedbitStructCodec codec = structInfo.getCodec();
+        String idColumnName = structInfo.getIdColumn().getName();
+        int batchSize = Math.max(1, Redbit.getConfig().getSyncBatchSize());
+
+        long start = System.nanoTime();
+        Map<String, Map<String, String>> loadedValues = new HashMap<>();
+        try (Connection connection = Redbit.sqlReadConnection(structInfo, idValues)) {
+            for (int from = 0; from < idValues.size(); from += batchSize) {
+                List<String> chunk = idValues.subList(from, Math.min(from + batchSize, idValues.size()));
+
+                try (PreparedStatement statement = Redbit.prepareStatement(connection, structInfo.getQueries().getSelectByIdsQuery(chunk.size()))) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        codec.getIdCodec().bindString(statement, i + 1, chunk.get(i));
+                    }
+
+                    try (ResultSet set = statement.executeQuery()) {
+                        int[] columnIndexes = codec.resolveColumns(set);
+
+                        while (set.next()) {
+                            RedbitStruct struct = codec.newInstance();
+                            codec.decode(struct, set, columnIndexes, true);
+
+                            Map<String, String> valueMap = codec.encode(struct, false);
+                            loadedValues.put(valueMap.get(idColumnName), valueMap);
+                        }
+                    }
+                }
+            }
+        }
+        Redbit.getMetrics().sqlCall(structInfo, "fetchByIds", System.nanoTime() - start);
+
+        // Loaded rows are cached back in redis without being marked for synchronization, the database already has them
+        if (!loadedValues.isEmpty()) {
+            try (RedbitPipeline pipeline = Redbit.pipelined()) {
+                for (Map.Entry<String, Map<String, String>> loaded : loadedValues.entrySet()) {
+                    Map<String, String> valueMap = new HashMap<>(loaded.getValue());
+                    valueMap.remove(idColumnName);
+
+                    Map<byte[], byte[]> hash = structInfo.isCompact() ? codec.toBinary(valueMap) : encodeHash(valueMap);
+                    writeHash(pipeline, structInfo, loaded.getKey(), hash, valueMap, false, WriteMode.MISSING, null);
+                }
+            }
+        }
+
+        for (String idValue : idValues) {
+            if (!loadedValues.containsKey(idValue))
+                structInfo.getNegativeCache().add(idValue);
+        }
+
+        return loadedValues;
+    }
+
+    private static void publishInvalidation(RedbitPipeline pipeline, RedbitStructInfo structInfo, @Nullable String idValue) {
+        RedbitNearCacheInvalidator invalidator = Redbit.getNearCacheInvalidator();
+        if (invalidator != null)
+            invalidator.publish(pipeline, structInfo, idValue);
+    }
+
+    @NotNull
+    public CompletableFuture<Boolean> deleteAllAsync(boolean synchronize) {
+        return runAsync(() -> deleteAll(synchronize));
+    }
+
+    @NotNull
+    public CompletableFuture<Boolean> deleteAllAsync(boolean synchronize, @Nullable LongConsumer progress) {
+        return runAsync(() -> deleteAll(synchronize, progress));
+    }
+
     @Override
     @Nullable
     public RedbitRedisFetch fetchAll() {
@@ -190,18 +1603,53 @@ public class RedbitVolatileStruct extends RedbitStruct {
             RedbitStructInfo structInfo = Redbit.getStructRegistry().getStructInfo(getClass());
             Objects.requireNonNull(structInfo, "Struct " + getClass().getSimpleName() + " was not registered!");
 
-            ScanParams scanParams = new ScanParams().match(structInfo.getName() + ":*").count(10);
+            ScanParams scanParams = new ScanParams().match(structInfo.getKeyPattern()).count(Redbit.getConfig().getScanCount());
             return new RedbitRedisFetch(this, scanParams);
         } catch (Exception exception) {
-            Redbit.getLogger().log(Level.SEVERE, exception.getMessage(), exception);
+            failed("fetchAll", exception);
 
             return null;
         }
     }
 
+    @NotNull
+    public static <T extends RedbitVolatileStruct> Stream<T> streamAll(Class<T> structClass) {
+        return streamAll(structClass, Redbit.getConfig().getScanCount());
+    }
+
+    @NotNull
+    public static <T extends RedbitVolatileStruct> Stream<T> streamAll(Class<T> structClass, int scanCount) {
+        try {
+            RedbitStructInfo structInfo = Redbit.getStructRegistry().getStructInfo(structClass);
+            Objects.requireNonNull(structInfo, "Struct " + structClass.getSimpleName() + " was not registered!");
+
+            ScanParams scanParams = new ScanParams().match(structInfo.getKeyPattern()).count(scanCount);
+            RedbitRedisSpliterator<T> spliterator = new RedbitRedisSpliterator<>(structClass, structInfo, scanParams);
+
+            return StreamSupport.stream(spliterator, false).onClose(spliterator::cancel);
+        } catch (Exception exception) {
+            failed(Redbit.getStructRegistry().getStructInfo(structClass), "streamAll", exception);
+
+            return Stream.empty();
+        }
+    }
+
     @Nullable
     public RedbitDatabaseFetch fetchAllFromDatabase() {
-        return ((RedbitDatabaseFetch) fetchWhere(null));
+        return ((RedbitDatabaseFetch) fetchMatching(RedbitCriteria.where()));
+    }
+
+    // Updates only write hashes that are still in redis, and database loads only the ones that are not
+    public enum WriteMode {
+
+        ANY(""), EXISTING("x"), MISSING("n");
+
+        private final byte[] argument;
+
+        WriteMode(String argument) {
+            this.argument = SafeEncoder.encode(argument);
+        }
+
     }
 
 }
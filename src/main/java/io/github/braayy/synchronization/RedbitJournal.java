@@ -0,0 +1,312 @@
+package io.github.braayy.synchronization;
+
+import io.github.braayy.Redbit;
+import io.github.braayy.struct.RedbitStructInfo;
+import io.github.braayy.synchronization.RedbitSynchronizationEntry.Operation;
+import io.github.braayy.utils.RedbitPipeline;
+import io.github.braayy.utils.RedbitScript;
+import org.jetbrains.annotations.Nullable;
+import redis.clients.jedis.UnifiedJedis;
+import redis.clients.jedis.util.JedisClusterCRC16;
+import redis.clients.jedis.util.SafeEncoder;
+
+import java.util.*;
+import java.util.logging.Level;
+
+// Ids waiting for a synchronization are also kept in redis, scored by redis time, so a crashed node's writes are replayed by the next init
+public class RedbitJournal {
+
+    private static final String JOURNAL_KEY_FORMAT = "redbit:journal:{%s}";
+    private static final String SHARD_KEY_FORMAT = "redbit:journal:{%s:%d}";
+    private static final String DELETED_SUFFIX = ":deleted";
+    private static final String FENCE_SUFFIX = ":fence";
+    // A DELETE_ALL is journaled as a deleted empty id, which no struct can have
+    private static final String DELETE_ALL_ID = "";
+    private static final int READ_CHUNK_SIZE = 1000;
+
+    // Included before RedbitIndex#WRITTEN_LUA by every script that writes a row, so the id is journaled atomically with its write. A journaled
+    // write passes the set its id goes to and the one it leaves as its last two keys and 'j' as its last argument, the others an empty one
+    public static final String WRITTEN_LUA =
+            "local journaled = ARGV[#ARGV] == 'j'\n" +
+            "local lastIndexKey = journaled and #KEYS - 2 or #KEYS\n" +
+            "local function journalWritten(id)\n" +
+            "  if not journaled then return end\n" +
+            "  local now = redis.call('TIME')\n" +
+            "  redis.call('ZREM', KEYS[#KEYS], id)\n" +
+            "  redis.call('ZADD', KEYS[#KEYS - 1], string.format('%.0f', now[1] * 1000000 + now[2]), id)\n" +
+            "end\n";
+    private static final byte[] JOURNALED = SafeEncoder.encode("j");
+    private static final byte[] NOT_JOURNALED = new byte[0];
+
+    // Formatted since lua would print big numbers in scientific notation
+    private static final String NOW = "local now = redis.call('TIME')\nlocal score = now[1] * 1000000 + now[2]\n";
+    private static final RedbitScript MARK_SCRIPT = new RedbitScript(
+            NOW +
+            "redis.call('ZREM', KEYS[2], ARGV[1])\n" +
+            "return redis.call('ZADD', KEYS[1], string.format('%.0f', score), ARGV[1])"
+    );
+    private static final RedbitScript CUTOFF_SCRIPT = new RedbitScript(
+            NOW +
+            "return string.format('%.0f', score)"
+    );
+    // Sharded journals pass the shard's fence, a node whose lease was taken over leaves the entries to the new owner
+    private static final RedbitScript UNMARK_SCRIPT = new RedbitScript(
+            "if #KEYS > 1 and redis.call('GET', KEYS[2]) ~= ARGV[1] then return {} end\n" +
+            "local cutoff = tonumber(ARGV[2])\n" +
+            "local removed = {}\n" +
+            "for i = 3, #ARGV do\n" +
+            "  local score = redis.call('ZSCORE', KEYS[1], ARGV[i])\n" +
+            "  if not score or tonumber(score) <= cutoff then\n" +
+            "    redis.call('ZREM', KEYS[1], ARGV[i])\n" +
+            "    removed[#removed + 1] = ARGV[i]\n" +
+            "  end\n" +
+            "end\n" +
+            "return removed"
+    );
+    // Everything journaled before the DELETE_ALL was wiped with it
+    private static final RedbitScript UNMARK_DELETE_ALL_SCRIPT = new RedbitScript(
+            "if #KEYS > 2 and redis.call('GET', KEYS[3]) ~= ARGV[2] then return 0 end\n" +
+            "local score = redis.call('ZSCORE', KEYS[2], '')\n" +
+            "if not score or tonumber(score) > tonumber(ARGV[1]) then return 0 end\n" +
+            "redis.call('ZREMRANGEBYSCORE', KEYS[1], '-inf', '(' .. score)\n" +
+            "redis.call('ZREMRANGEBYSCORE', KEYS[2], '-inf', '(' .. score)\n" +
+            "return redis.call('ZREM', KEYS[2], '')"
+    );
+    // Fences only move forward, so once a new owner pulled a shard the previous one can no longer take entries out of it
+    private static final RedbitScript FENCE_SCRIPT = new RedbitScript(
+            "if tonumber(redis.call('GET', KEYS[1]) or '0') > tonumber(ARGV[1]) then return 0 end\n" +
+            "redis.call('SET', KEYS[1], ARGV[1])\n" +
+            "return 1"
+    );
+
+    private final int shards;
+
+    public RedbitJournal(int shards) {
+        this.shards = shards;
+    }
+
+    // On a cluster a script can only write the journal when it lives in the slot of the row, which takes a colocated struct and no shards
+    public boolean isScripted(RedbitStructInfo structInfo, String idValue) {
+        return !Redbit.isCluster() || JedisClusterCRC16.getSlot(getKey(structInfo, getShard(idValue), false)) == JedisClusterCRC16.getSlot(structInfo.getKey(idValue));
+    }
+
+    // Goes after every other key and argument of the write script, a null journal leaves the write out of it
+    public static void addScriptArguments(@Nullable RedbitJournal journal, RedbitStructInfo structInfo, String idValue, boolean deleted, List<byte[]> keys, List<byte[]> args) {
+        if (journal == null) {
+            args.add(NOT_JOURNALED);
+            return;
+        }
+
+        String journalKey = journal.getKey(structInfo, journal.getShard(idValue), false);
+        String deletedKey = journal.getKey(structInfo, journal.getShard(idValue), true);
+        keys.add(SafeEncoder.encode(deleted ? deletedKey : journalKey));
+        keys.add(SafeEncoder.encode(deleted ? journalKey : deletedKey));
+        args.add(JOURNALED);
+    }
+
+    // For writes their script can not journal: marked before the write so a crash never loses it, and again after it, so a synchronization
+    // that read the key before the write landed can not take the id out of the journal for good
+    public void markOutside(RedbitStructInfo structInfo, Collection<String> idValues, boolean deleted) {
+        if (idValues.isEmpty()) return;
+
+        try (RedbitPipeline pipeline = Redbit.pipelined()) {
+            for (String idValue : idValues) {
+                mark(pipeline, structInfo, idValue, deleted);
+            }
+        }
+    }
+
+    public void mark(RedbitPipeline pipeline, RedbitStructInfo structInfo, @Nullable String idValue, boolean deleted) {
+        String idOrDeleteAll = idValue != null ? idValue : DELETE_ALL_ID;
+        String journalKey = getKey(structInfo, getShard(idOrDeleteAll), false);
+        String deletedKey = getKey(structInfo, getShard(idOrDeleteAll), true);
+
+        List<String> keys = deleted ? Arrays.asList(deletedKey, journalKey) : Arrays.asList(journalKey, deletedKey);
+        MARK_SCRIPT.eval(pipeline, encode(keys), encode(Collections.singletonList(idOrDeleteAll)));
+    }
+
+    // Journal entries scored up to the returned redis time were written before the modified keys were flushed. Scripts journal a write with
+    // it and writes journaled outside of them are marked again once they landed, so every entry up to it can be read from redis right away
+    @Nullable
+    String cutoff(RedbitStructInfo structInfo, int shard) {
+        try {
+            Object result = CUTOFF_SCRIPT.eval(getJedis(), encode(Collections.singletonList(getKey(structInfo, shard, false))), Collections.emptyList());
+            String cutoff = SafeEncoder.encode((byte[]) result);
+
+            // Shards are not ordered with each other, so ids journaled after a pending DELETE_ALL wait until its shard synchronized it
+            int deleteAllShard = getShard(DELETE_ALL_ID);
+            if (shard != deleteAllShard) {
+                Double deleteAllScore = getJedis().zscore(getKey(structInfo, deleteAllShard, true), DELETE_ALL_ID);
+                if (deleteAllScore != null && deleteAllScore.longValue() - 1 < Long.parseLong(cutoff))
+                    cutoff = Long.toString(deleteAllScore.longValue() - 1);
+            }
+
+            return cutoff;
+        } catch (Exception exception) {
+            Redbit.getLogger().log(Level.SEVERE, "Something went wrong while reading the journal time of struct " + structInfo.getName() + ", its entries will be synchronized again", exception);
+
+            return null;
+        }
+    }
+
+    // Claims the shard for the given fencing token, false when a node with a newer lease already pulled it
+    boolean fence(RedbitStructInfo structInfo, int shard, long token) {
+        Object result = FENCE_SCRIPT.eval(getJedis(), encode(Collections.singletonList(getFenceKey(structInfo, shard))), encode(Collections.singletonList(Long.toString(token))));
+        return ((Long) result) == 1;
+    }
+
+    // Checked right before a task commits, a node that lost one of the task's shards meanwhile leaves it to the new owner
+    boolean isFenced(RedbitSynchronizationTask task, Map<Integer, Long> tokens) {
+        Set<Integer> taskShards = new HashSet<>();
+        if (task.getOperation() == Operation.DELETE_ALL) {
+            taskShards.add(getShard(DELETE_ALL_ID));
+        } else {
+            for (String idValue : task.getIdValues()) {
+                taskShards.add(getShard(idValue));
+            }
+        }
+
+        UnifiedJedis jedis = getJedis();
+        for (int shard : taskShards) {
+            Long token = tokens.get(shard);
+            if (token == null || !token.toString().equals(jedis.get(getFenceKey(task.getStructInfo(), shard)))) return false;
+        }
+
+        return true;
+    }
+
+    // Returns the ids that left the journal, the others were journaled again after the cutoff
+    List<String> unmark(RedbitSynchronizationTask task, Map<Integer, String> cutoffs, @Nullable Map<Integer, Long> tokens) {
+        RedbitStructInfo structInfo = task.getStructInfo();
+        UnifiedJedis jedis = getJedis();
+
+        if (task.getOperation() == Operation.DELETE_ALL) {
+            int shard = getShard(DELETE_ALL_ID);
+            String cutoff = cutoffs.get(shard);
+            if (cutoff != null) {
+                List<String> keys = new ArrayList<>(Arrays.asList(getKey(structInfo, shard, false), getKey(structInfo, shard, true)));
+                List<String> args = new ArrayList<>(Collections.singletonList(cutoff));
+                if (tokens != null) {
+                    keys.add(getFenceKey(structInfo, shard));
+                    args.add(String.valueOf(tokens.get(shard)));
+                }
+
+                UNMARK_DELETE_ALL_SCRIPT.eval(jedis, encode(keys), encode(args));
+            }
+
+            return Collections.emptyList();
+        }
+
+        Map<Integer, List<String>> argsByShard = new HashMap<>();
+        for (String idValue : task.getIdValues()) {
+            int shard = getShard(idValue);
+            String cutoff = cutoffs.get(shard);
+
+            // Modified again after the flush, the next synchronization takes it out of the journal
+            if (cutoff == null || Redbit.getSynchronizer().isModified(structInfo, idValue)) continue;
+
+            String token = tokens != null ? String.valueOf(tokens.get(shard)) : "";
+            argsByShard.computeIfAbsent(shard, key -> new ArrayList<>(Arrays.asList(token, cutoff))).add(idValue);
+        }
+
+        List<String> removed = new ArrayList<>(task.getIdValues().size());
+        boolean deleted = task.getOperation() == Operation.DELETE;
+        for (Map.Entry<Integer, List<String>> args : argsByShard.entrySet()) {
+            List<String> keys = new ArrayList<>(Collections.singletonList(getKey(structInfo, args.getKey(), deleted)));
+            if (tokens != null)
+                keys.add(getFenceKey(structInfo, args.getKey()));
+
+            Object result = UNMARK_SCRIPT.eval(jedis, encode(keys), encode(args.getValue()));
+            for (Object idValue : (List<?>) result) {
+                removed.add(SafeEncoder.encode((byte[]) idValue));
+            }
+        }
+
+        return removed;
+    }
+
+    // Marks every id journaled in the shard up to the cutoff, the synchronization reads their current state from redis
+    void pull(RedbitModifiedStruct modifiedStruct, int shard, String cutoff) {
+        RedbitStructInfo structInfo = modifiedStruct.getStructInfo();
+
+        for (String idValue : readAll(getKey(structInfo, shard, true), cutoff)) {
+            modifiedStruct.mark(idValue, idValue.equals(DELETE_ALL_ID) ? Operation.DELETE_ALL : Operation.DELETE, null);
+        }
+        for (String idValue : readAll(getKey(structInfo, shard, false), cutoff)) {
+            modifiedStruct.mark(idValue, Operation.UPSERT, null);
+        }
+    }
+
+    // Every journaled id of the struct, whichever node wrote it
+    void collect(RedbitStructInfo structInfo, Map<String, Operation> pendingKeys) {
+        for (int shard = 0; shard < Math.max(1, shards); shard++) {
+            for (String idValue : readAll(getKey(structInfo, shard, true), "+inf")) {
+                if (!idValue.equals(DELETE_ALL_ID))
+                    pendingKeys.put(idValue, Operation.DELETE);
+            }
+            for (String idValue : readAll(getKey(structInfo, shard, false), "+inf")) {
+                pendingKeys.put(idValue, Operation.UPSERT);
+            }
+        }
+    }
+
+    // Journaled ids are marked again, the synchronization reads their current state from redis like any other modified key
+    public void replay(RedbitSynchronizer synchronizer) {
+        for (RedbitStructInfo structInfo : Redbit.getStructRegistry().getStructs()) {
+            try {
+                List<String> deletedIds = readAll(getKey(structInfo, 0, true), "+inf");
+                List<String> writtenIds = readAll(getKey(structInfo, 0, false), "+inf");
+                if (deletedIds.isEmpty() && writtenIds.isEmpty()) continue;
+
+                if (deletedIds.remove(DELETE_ALL_ID))
+                    synchronizer.addModifiedKey(structInfo, null, Operation.DELETE_ALL);
+                synchronizer.addModifiedKeys(structInfo, deletedIds, Operation.DELETE);
+                synchronizer.addModifiedKeys(structInfo, writtenIds, Operation.UPSERT);
+
+                Redbit.getLogger().warning("Replaying " + (deletedIds.size() + writtenIds.size()) + " journaled keys of struct " + structInfo.getName() + " that were never synchronized");
+            } catch (Exception exception) {
+                Redbit.getLogger().log(Level.SEVERE, "Something went wrong while replaying the journal of struct " + structInfo.getName(), exception);
+            }
+        }
+    }
+
+    private List<String> readAll(String key, String maxScore) {
+        UnifiedJedis jedis = getJedis();
+
+        List<String> idValues = new ArrayList<>();
+        for (int offset = 0; ; offset += READ_CHUNK_SIZE) {
+            List<String> chunk = jedis.zrangeByScore(key, "-inf", maxScore, offset, READ_CHUNK_SIZE);
+            idValues.addAll(chunk);
+
+            if (chunk.size() < READ_CHUNK_SIZE) return idValues;
+        }
+    }
+
+    private static List<byte[]> encode(List<String> values) {
+        return Arrays.asList(SafeEncoder.encodeMany(values.toArray(new String[0])));
+    }
+
+    private UnifiedJedis getJedis() {
+        UnifiedJedis jedis = Redbit.getJedis();
+        return Objects.requireNonNull(jedis, "Jedis was not initialized yet! Redbit#init(RedbitConfig) should do it");
+    }
+
+    // Java's string hash is specified, so every node agrees on the shard of an id
+    public int getShard(String idValue) {
+        return shards > 0 ? Math.floorMod(idValue.hashCode(), shards) : 0;
+    }
+
+    public int getShards() {
+        return shards;
+    }
+
+    public String getKey(RedbitStructInfo structInfo, int shard, boolean deleted) {
+        String key = shards > 0 ? String.format(SHARD_KEY_FORMAT, structInfo.getName(), shard) : String.format(JOURNAL_KEY_FORMAT, structInfo.getName());
+        return deleted ? key + DELETED_SUFFIX : key;
+    }
+
+    private String getFenceKey(RedbitStructInfo structInfo, int shard) {
+        return getKey(structInfo, shard, false) + FENCE_SUFFIX;
+    }
+
+}
@@ -0,0 +1,43 @@
+package io.github.braayy.synchronization;
+
+import io.github.braayy.synchronization.RedbitSynchronizationEntry.Operation;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.BitSet;
+
+public class RedbitModifiedKey {
+
+    private final Operation operation;
+    private final BitSet columns;
+
+    public RedbitModifiedKey(Operation operation, @Nullable BitSet columns) {
+        this.operation = operation;
+        this.columns = columns;
+    }
+
+    static RedbitModifiedKey merge(RedbitModifiedKey previous, RedbitModifiedKey next) {
+        if (next.operation != Operation.UPDATE) return next;
+
+        switch (previous.operation) {
+            case UPDATE:
+                BitSet columns = (BitSet) previous.columns.clone();
+                columns.or(next.columns);
+                return new RedbitModifiedKey(Operation.UPDATE, columns);
+            case UPSERT:
+                return previous;
+            default:
+                // The hash was recreated by a partial write after a delete, only a full upsert restores the row
+                return new RedbitModifiedKey(Operation.UPSERT, null);
+        }
+    }
+
+    public Operation getOperation() {
+        return operation;
+    }
+
+    @Nullable
+    public BitSet getColumns() {
+        return columns;
+    }
+
+}
@@ -0,0 +1,88 @@
+package io.github.braayy.synchronization;
+
+import io.github.braayy.struct.RedbitStructInfo;
+import io.github.braayy.synchronization.RedbitSynchronizationEntry.Operation;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class RedbitModifiedStruct {
+
+    private final RedbitStructInfo structInfo;
+    private final Map<String, RedbitModifiedKey> modifiedKeys = new ConcurrentHashMap<>();
+    private final AtomicBoolean deleteAll = new AtomicBoolean();
+
+    public RedbitModifiedStruct(RedbitStructInfo structInfo) {
+        this.structInfo = structInfo;
+    }
+
+    // Returns how much the amount of pending entries changed
+    int mark(String idValue, Operation operation, @Nullable BitSet columns) {
+        if (operation == Operation.DELETE_ALL) {
+            // Other keys are marked concurrently, so only the removals that actually happened are counted
+            int removed = 0;
+            for (String modifiedId : modifiedKeys.keySet()) {
+                if (modifiedKeys.remove(modifiedId) != null) removed++;
+            }
+
+            return (deleteAll.compareAndSet(false, true) ? 1 : 0) - removed;
+        }
+
+        // Apart from partial updates, the last operation for an id is the only one that matters, the data in redis already reflects it
+        RedbitModifiedKey modifiedKey = new RedbitModifiedKey(operation, columns);
+        boolean[] added = new boolean[1];
+        modifiedKeys.compute(idValue, (key, previous) -> {
+            added[0] = previous == null;
+            return previous == null ? modifiedKey : RedbitModifiedKey.merge(previous, modifiedKey);
+        });
+
+        return added[0] ? 1 : 0;
+    }
+
+    void unmark(Operation operation, Collection<String> idValues) {
+        if (operation == Operation.DELETE_ALL) {
+            deleteAll.set(false);
+            return;
+        }
+
+        for (String idValue : idValues) {
+            modifiedKeys.remove(idValue);
+        }
+    }
+
+    void collect(Map<String, Operation> pendingKeys) {
+        for (Map.Entry<String, RedbitModifiedKey> modifiedKey : modifiedKeys.entrySet()) {
+            pendingKeys.put(modifiedKey.getKey(), modifiedKey.getValue().getOperation());
+        }
+    }
+
+    boolean contains(String idValue) {
+        return deleteAll.get() || modifiedKeys.containsKey(idValue);
+    }
+
+    boolean isEmpty() {
+        return !deleteAll.get() && modifiedKeys.isEmpty();
+    }
+
+    // Same amount mark() added up, a pending DELETE_ALL counts as one entry
+    int size() {
+        return modifiedKeys.size() + (deleteAll.get() ? 1 : 0);
+    }
+
+    public RedbitStructInfo getStructInfo() {
+        return structInfo;
+    }
+
+    public Map<String, RedbitModifiedKey> getModifiedKeys() {
+        return modifiedKeys;
+    }
+
+    public boolean isDeleteAll() {
+        return deleteAll.get();
+    }
+
+}
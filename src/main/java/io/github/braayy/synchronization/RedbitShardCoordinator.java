@@ -0,0 +1,145 @@
+package io.github.braayy.synchronization;
+
+import io.github.braayy.Redbit;
+import io.github.braayy.utils.RedbitScript;
+import redis.clients.jedis.UnifiedJedis;
+import redis.clients.jedis.util.SafeEncoder;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+
+// Splits the journal shards between the nodes sharing a redis, a node only synchronizes the shards it holds a lease on
+public class RedbitShardCoordinator {
+
+    private static final String NODES_KEY = "redbit:sync:nodes";
+    private static final String LEASE_KEY_FORMAT = "redbit:sync:lease:{%d}";
+    private static final String TOKEN_KEY_FORMAT = "redbit:sync:lease:{%d}:token";
+
+    // Nodes stay registered for a lease time after their last heartbeat
+    private static final RedbitScript HEARTBEAT_SCRIPT = new RedbitScript(
+            "local now = redis.call('TIME')\n" +
+            "local millis = now[1] * 1000 + math.floor(now[2] / 1000)\n" +
+            "redis.call('ZREMRANGEBYSCORE', KEYS[1], '-inf', string.format('%.0f', millis))\n" +
+            "redis.call('ZADD', KEYS[1], string.format('%.0f', millis + tonumber(ARGV[2])), ARGV[1])\n" +
+            "return redis.call('ZCARD', KEYS[1])"
+    );
+    // A lease holds the fencing token it was taken with, every new owner of a shard gets a higher token than the previous one
+    private static final RedbitScript ACQUIRE_SCRIPT = new RedbitScript(
+            "local lease = redis.call('GET', KEYS[1])\n" +
+            "local token, owner\n" +
+            "if lease then token, owner = string.match(lease, '^(%d+):(.*)$') end\n" +
+            "if lease and owner ~= ARGV[1] then return 0 end\n" +
+            "token = token or redis.call('INCR', KEYS[2])\n" +
+            "redis.call('SET', KEYS[1], token .. ':' .. ARGV[1], 'PX', ARGV[2])\n" +
+            "return tonumber(token)"
+    );
+    private static final RedbitScript RELEASE_SCRIPT = new RedbitScript(
+            "local lease = redis.call('GET', KEYS[1])\n" +
+            "if lease and string.match(lease, '^%d+:(.*)$') == ARGV[1] then return redis.call('DEL', KEYS[1]) end\n" +
+            "return 0"
+    );
+
+    private final String nodeId;
+    private final int shards;
+    private final long leaseTime;
+    // Fencing token of every shard this node holds
+    private final Map<Integer, Long> ownedShards = new ConcurrentHashMap<>();
+
+    public RedbitShardCoordinator(String nodeId, int shards, long leaseTime) {
+        this.nodeId = nodeId;
+        this.shards = shards;
+        this.leaseTime = leaseTime;
+    }
+
+    // Renews the held leases and claims free shards until this node has its fair share
+    public void renew() {
+        try {
+            UnifiedJedis jedis = getJedis();
+            byte[] leaseTimeArg = SafeEncoder.encode(Long.toString(leaseTime));
+
+            long nodes = (Long) HEARTBEAT_SCRIPT.eval(jedis, SafeEncoder.encode(NODES_KEY), SafeEncoder.encode(nodeId), leaseTimeArg);
+            long fairShare = (shards + Math.max(1, nodes) - 1) / Math.max(1, nodes);
+
+            // Every node walks the shards from a different offset, so they do not all race for the same ones
+            int offset = Math.floorMod(nodeId.hashCode(), shards);
+            List<Integer> freeShards = new ArrayList<>();
+            for (int i = 0; i < shards; i++) {
+                int shard = (offset + i) % shards;
+
+                if (!ownedShards.containsKey(shard)) {
+                    freeShards.add(shard);
+                } else if (ownedShards.size() > fairShare) {
+                    release(jedis, shard);
+                } else {
+                    long token = acquire(jedis, shard, leaseTimeArg);
+                    if (token != 0) {
+                        ownedShards.put(shard, token);
+                    } else {
+                        ownedShards.remove(shard);
+                        Redbit.getLogger().warning("Synchronization lease of shard " + shard + " was lost, another node took it over");
+                    }
+                }
+            }
+
+            for (int shard : freeShards) {
+                if (ownedShards.size() >= fairShare) break;
+
+                long token = acquire(jedis, shard, leaseTimeArg);
+                if (token != 0)
+                    ownedShards.put(shard, token);
+            }
+        } catch (Exception exception) {
+            Redbit.getLogger().log(Level.SEVERE, "Something went wrong while renewing the synchronization leases", exception);
+        }
+    }
+
+    // Leases are handed back on shutdown, so other nodes take the shards over without waiting for them to expire
+    public void releaseAll() {
+        try {
+            UnifiedJedis jedis = getJedis();
+            for (int shard : new ArrayList<>(ownedShards.keySet())) {
+                release(jedis, shard);
+            }
+
+            jedis.zrem(NODES_KEY, nodeId);
+        } catch (Exception exception) {
+            Redbit.getLogger().log(Level.SEVERE, "Something went wrong while releasing the synchronization leases", exception);
+        }
+    }
+
+    // Returns the fencing token of the lease, or 0 when another node holds it
+    private long acquire(UnifiedJedis jedis, int shard, byte[] leaseTimeArg) {
+        List<byte[]> keys = Arrays.asList(SafeEncoder.encode(getLeaseKey(shard)), SafeEncoder.encode(String.format(TOKEN_KEY_FORMAT, shard)));
+        Object result = ACQUIRE_SCRIPT.eval(jedis, keys, Arrays.asList(SafeEncoder.encode(nodeId), leaseTimeArg));
+        return (Long) result;
+    }
+
+    private void release(UnifiedJedis jedis, int shard) {
+        ownedShards.remove(shard);
+        RELEASE_SCRIPT.eval(jedis, SafeEncoder.encode(getLeaseKey(shard)), SafeEncoder.encode(nodeId));
+    }
+
+    private UnifiedJedis getJedis() {
+        UnifiedJedis jedis = Redbit.getJedis();
+        return Objects.requireNonNull(jedis, "Jedis was not initialized yet! Redbit#init(RedbitConfig) should do it");
+    }
+
+    private String getLeaseKey(int shard) {
+        return String.format(LEASE_KEY_FORMAT, shard);
+    }
+
+    public Set<Integer> getOwnedShards() {
+        return Collections.unmodifiableSet(ownedShards.keySet());
+    }
+
+    // 0 when the shard is not held by this node
+    public long getToken(int shard) {
+        return ownedShards.getOrDefault(shard, 0L);
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+}
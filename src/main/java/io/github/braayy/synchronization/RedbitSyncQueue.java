@@ -0,0 +1,174 @@
+package io.github.braayy.synchronization;
+
+import io.github.braayy.RedbitConfig;
+import io.github.braayy.struct.RedbitStructInfo;
+import io.github.braayy.struct.RedbitSyncPolicy;
+import io.github.braayy.synchronization.RedbitSynchronizationEntry.Operation;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+// Modified keys and synchronization tasks of a single struct, flushed on the struct's own schedule
+public class RedbitSyncQueue {
+
+    static final long NOT_MODIFIED = Long.MIN_VALUE;
+
+    private final RedbitStructInfo structInfo;
+    private final long interval;
+    private final long maxDirtyAge;
+    private final int batchSize;
+    private final int priority;
+    private final int concurrency;
+
+    private final ReadWriteLock modifiedLock = new ReentrantReadWriteLock();
+    private volatile RedbitModifiedStruct modifiedStruct;
+    private final LongAdder pendingCount = new LongAdder();
+    // Nano time of the oldest modification that was not flushed yet
+    private final AtomicLong firstModifiedAt = new AtomicLong(NOT_MODIFIED);
+    final AtomicBoolean dirtyFlushScheduled = new AtomicBoolean();
+
+    // Guarded by the synchronizer's remaining lock
+    final Deque<RedbitSynchronizationTask> tasks = new ArrayDeque<>();
+    private int running;
+    private boolean exclusive;
+    private RedbitModifiedStruct runningFlush;
+    long lastDispatch;
+
+    public RedbitSyncQueue(RedbitStructInfo structInfo, RedbitConfig config) {
+        RedbitSyncPolicy policy = structInfo.getSyncPolicy();
+
+        this.structInfo = structInfo;
+        this.interval = policy != null && policy.interval() > 0 ? policy.interval() : config.getSyncDelay();
+        this.maxDirtyAge = policy != null ? policy.maxDirtyAge() : 0;
+        this.batchSize = Math.max(1, policy != null && policy.batchSize() > 0 ? policy.batchSize() : config.getSyncTransactionSize());
+        this.priority = policy != null ? policy.priority() : 0;
+        this.concurrency = policy != null && policy.concurrency() > 0 ? policy.concurrency() : config.getParallelTasks();
+        this.modifiedStruct = new RedbitModifiedStruct(structInfo);
+    }
+
+    // Returns how much the amount of pending entries changed
+    int mark(String idValue, Operation operation, @Nullable BitSet columns) {
+        modifiedLock.readLock().lock();
+        try {
+            int delta = modifiedStruct.mark(idValue, operation, columns);
+            pendingCount.add(delta);
+            markFirstModification();
+            return delta;
+        } finally {
+            modifiedLock.readLock().unlock();
+        }
+    }
+
+    int mark(Map<String, BitSet> modifiedColumns, Operation operation) {
+        modifiedLock.readLock().lock();
+        try {
+            int delta = 0;
+            for (Map.Entry<String, BitSet> modifiedKey : modifiedColumns.entrySet()) {
+                delta += modifiedStruct.mark(modifiedKey.getKey(), operation, modifiedKey.getValue());
+            }
+            pendingCount.add(delta);
+            markFirstModification();
+            return delta;
+        } finally {
+            modifiedLock.readLock().unlock();
+        }
+    }
+
+    private void markFirstModification() {
+        if (firstModifiedAt.get() == NOT_MODIFIED)
+            firstModifiedAt.compareAndSet(NOT_MODIFIED, System.nanoTime());
+    }
+
+    // The flushed struct is handed to beforeSwap while no key can be marked, so it is never invisible to readers
+    @Nullable
+    RedbitModifiedStruct flush(Consumer<RedbitModifiedStruct> beforeSwap) {
+        modifiedLock.writeLock().lock();
+        try {
+            RedbitModifiedStruct flushed = modifiedStruct;
+            if (flushed.isEmpty()) return null;
+
+            beforeSwap.accept(flushed);
+            modifiedStruct = new RedbitModifiedStruct(structInfo);
+            pendingCount.reset();
+            firstModifiedAt.set(NOT_MODIFIED);
+
+            return flushed;
+        } finally {
+            modifiedLock.writeLock().unlock();
+        }
+    }
+
+    // Tasks of a flush only start once every task of the previous flush did, and DELETE_ALL runs alone
+    boolean isRunnable(RedbitSynchronizationTask task) {
+        if (running == 0) return true;
+
+        return !exclusive && task.getOperation() != Operation.DELETE_ALL && task.getModifiedStruct() == runningFlush && running < concurrency;
+    }
+
+    void started(RedbitSynchronizationTask task, long dispatch) {
+        running++;
+        runningFlush = task.getModifiedStruct();
+        exclusive = task.getOperation() == Operation.DELETE_ALL;
+        lastDispatch = dispatch;
+    }
+
+    void finished(RedbitSynchronizationTask task) {
+        running--;
+        if (task.getOperation() == Operation.DELETE_ALL)
+            exclusive = false;
+    }
+
+    boolean isDrained() {
+        return running == 0 && tasks.isEmpty();
+    }
+
+    boolean isModified(String idValue) {
+        return modifiedStruct.contains(idValue);
+    }
+
+    void collectModified(Map<String, Operation> pendingKeys) {
+        modifiedStruct.collect(pendingKeys);
+    }
+
+    long getPendingCount() {
+        return pendingCount.sum();
+    }
+
+    long getFirstModifiedAt() {
+        return firstModifiedAt.get();
+    }
+
+    public RedbitStructInfo getStructInfo() {
+        return structInfo;
+    }
+
+    public long getInterval() {
+        return interval;
+    }
+
+    public long getMaxDirtyAge() {
+        return maxDirtyAge;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+}
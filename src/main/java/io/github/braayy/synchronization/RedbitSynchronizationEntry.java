@@ -27,7 +27,7 @@ public class RedbitSynchronizationEntry {
     }
 
     public enum Operation {
-        UPSERT, DELETE, DELETE_ALL
+        UPSERT, UPDATE, DELETE, DELETE_ALL
     }
 
 }
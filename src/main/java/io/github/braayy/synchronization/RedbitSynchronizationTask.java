@@ -1,57 +1,345 @@
 package io.github.braayy.synchronization;
 
 import io.github.braayy.Redbit;
-import io.github.braayy.RedbitQuery;
-import io.github.braayy.column.RedbitColumnInfo;
-import io.github.braayy.utils.RedbitQueryBuilders;
-import redis.clients.jedis.JedisPooled;
+import io.github.braayy.cache.RedbitExpiry;
+import io.github.braayy.column.RedbitColumnCodec;
+import io.github.braayy.struct.RedbitStructCodec;
+import io.github.braayy.struct.RedbitStructInfo;
+import io.github.braayy.synchronization.RedbitSynchronizationEntry.Operation;
+import io.github.braayy.utils.RedbitPipeline;
+import org.jetbrains.annotations.Nullable;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.util.SafeEncoder;
 
-import java.util.Map;
-import java.util.Objects;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.*;
 import java.util.logging.Level;
 
 public class RedbitSynchronizationTask implements Runnable {
 
-    private final RedbitSynchronizationEntry entry;
+    private final RedbitStructInfo structInfo;
+    private final Operation operation;
+    private final List<String> idValues;
+    private final List<BitSet> columns;
+    private RedbitModifiedStruct modifiedStruct;
+    private Map<Integer, String> journalCutoffs;
+    private Map<Integer, Long> fencingTokens;
+    // Versions of the expiring keys as they were read, null when the key was never written by a synchronized write
+    private final Map<String, String> versions = new HashMap<>();
 
-    public RedbitSynchronizationTask(RedbitSynchronizationEntry entry) {
-        this.entry = entry;
+    public RedbitSynchronizationTask(RedbitStructInfo structInfo, Operation operation, List<String> idValues) {
+        this.structInfo = structInfo;
+        this.operation = operation;
+        this.idValues = idValues;
+        this.columns = Collections.emptyList();
+    }
+
+    public RedbitSynchronizationTask(RedbitStructInfo structInfo, List<String> idValues, List<BitSet> columns) {
+        this.structInfo = structInfo;
+        this.operation = Operation.UPDATE;
+        this.idValues = idValues;
+        this.columns = columns;
+    }
+
+    // The flushed struct this task came from, it orders the tasks of a struct and stays visible to the read replica guard until the task finishes
+    RedbitSynchronizationTask from(@Nullable RedbitModifiedStruct modifiedStruct) {
+        this.modifiedStruct = modifiedStruct;
+        return this;
+    }
+
+    // Journal entries up to the redis time of their shard are covered by the task once it commits, sharded journals also pass the fencing token of each pulled shard
+    RedbitSynchronizationTask journaled(@Nullable Map<Integer, String> journalCutoffs, @Nullable Map<Integer, Long> fencingTokens) {
+        this.journalCutoffs = journalCutoffs;
+        this.fencingTokens = fencingTokens;
+        return this;
+    }
+
+    @Nullable
+    RedbitModifiedStruct getModifiedStruct() {
+        return modifiedStruct;
+    }
+
+    public RedbitStructInfo getStructInfo() {
+        return structInfo;
+    }
+
+    public Operation getOperation() {
+        return operation;
+    }
+
+    public List<String> getIdValues() {
+        return idValues;
     }
 
     @Override
     public void run() {
+        long start = System.nanoTime();
+        try (Connection connection = Redbit.sqlConnection()) {
+            connection.setAutoCommit(false);
+
+            try {
+                switch (operation) {
+                    case UPSERT:
+                        upsert(connection, idValues);
+                        break;
+                    case UPDATE:
+                        update(connection);
+                        break;
+                    case DELETE:
+                        delete(connection);
+                        break;
+                    case DELETE_ALL:
+                        deleteAll(connection);
+                        break;
+                    default:
+                        throw new IllegalArgumentException(operation + " is not a valid synchronization operation");
+                }
+
+                checkFence();
+                connection.commit();
+                expireSynchronized(unjournal());
+            } catch (Exception exception) {
+                connection.rollback();
+                throw exception;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (Exception exception) {
+            Redbit.getLogger().log(Level.SEVERE, "Something went wrong while synchronizing " + idValues.size() + " " + operation + " entries of struct " + structInfo.getName(), exception);
+            Redbit.getMetrics().error(structInfo, "synchronize");
+        }
+
+        Redbit.getMetrics().synchronization(structInfo, operation, idValues.size(), System.nanoTime() - start);
+    }
+
+    // Dirty keys are persisted until the database has them, unless they were modified again meanwhile
+    private void expireSynchronized(List<String> idValues) {
+        RedbitExpiry expiry = structInfo.getExpiry();
+        if (expiry == null || (operation != Operation.UPSERT && operation != Operation.UPDATE)) return;
+
+        // A write that is not marked yet already changed the version in redis, so the key stays persisted for its own synchronization
+        try (RedbitPipeline pipeline = Redbit.pipelined()) {
+            for (String idValue : idValues) {
+                if (!Redbit.getSynchronizer().isModified(structInfo, idValue) && versions.containsKey(idValue))
+                    expiry.synchronizedWrite(pipeline, structInfo.getKey(idValue), versions.get(idValue));
+            }
+        } catch (Exception exception) {
+            Redbit.getLogger().log(Level.SEVERE, "Something went wrong while restoring the ttl of " + idValues.size() + " keys of struct " + structInfo.getName(), exception);
+        }
+    }
+
+    private void checkFence() {
+        RedbitJournal journal = Redbit.getJournal();
+        if (journal != null && fencingTokens != null && !journal.isFenced(this, fencingTokens))
+            throw new IllegalStateException("Synchronization lease of struct " + structInfo.getName() + " was taken over by another node, its entries are left to it");
+    }
+
+    // Returns the ids that are not waiting for another synchronization, those of other nodes are only known through the journal
+    private List<String> unjournal() {
+        RedbitJournal journal = Redbit.getJournal();
+        if (journal == null || journalCutoffs == null) return idValues;
+
         try {
-            String stringQuery = null;
+            return journal.unmark(this, journalCutoffs, fencingTokens);
+        } catch (Exception exception) {
+            Redbit.getLogger().log(Level.SEVERE, "Something went wrong while removing " + idValues.size() + " synchronized keys of struct " + structInfo.getName() + " from the journal", exception);
 
-            switch (entry.getOperation()) {
-                case UPSERT:
-                    JedisPooled jedis = Redbit.getJedis();
-                    Objects.requireNonNull(jedis, "Jedis was not initialized yet! Redbit#init(RedbitConfig) should do it");
+            return Collections.emptyList();
+        }
+    }
 
-                    String key = String.format(Redbit.KEY_FORMAT, entry.getStructInfo().getName(), entry.getIdValue());
-                    Map<String, String> valueMap = jedis.hgetAll(key);
-                    valueMap.put(entry.getStructInfo().getIdColumn().getName(), entry.getIdValue());
+    private void upsert(Connection connection, List<String> idValues) throws SQLException {
+        String idColumnName = structInfo.getIdColumn().getName();
+        int batchSize = getBatchSize();
 
-                    stringQuery = RedbitQueryBuilders.buildUpsertQuery(entry.getStructInfo(), valueMap, false);
-                    break;
-                case DELETE:
-                    RedbitColumnInfo idColumn = entry.getStructInfo().getIdColumn();
-                    String whereClause = '`' + idColumn.getName() + "`='" + entry.getIdValue() + '\'';
-                    stringQuery = RedbitQueryBuilders.buildDeleteQuery(entry.getStructInfo(), whereClause);
-                    break;
-                case DELETE_ALL:
-                    stringQuery = RedbitQueryBuilders.buildDeleteQuery(entry.getStructInfo(), null);
+        for (int from = 0; from < idValues.size(); from += batchSize) {
+            List<String> batchIds = idValues.subList(from, Math.min(from + batchSize, idValues.size()));
+
+            // Cluster pipelines can only be synced once, so every batch gets its own pipeline
+            List<Response<Map<String, String>>> responses = new ArrayList<>(batchIds.size());
+            List<Response<Map<byte[], byte[]>>> binaryResponses = new ArrayList<>(batchIds.size());
+            try (RedbitPipeline pipeline = Redbit.pipelined()) {
+                for (String idValue : batchIds) {
+                    String key = structInfo.getKey(idValue);
+                    if (structInfo.isCompact())
+                        binaryResponses.add(pipeline.hgetAll(SafeEncoder.encode(key)));
+                    else
+                        responses.add(pipeline.hgetAll(key));
+                }
             }
 
-            if (stringQuery == null)
-                throw new IllegalArgumentException(entry.getOperation() + " is not a valid synchronization operation");
+            List<Map<String, String>> batch = new ArrayList<>(batchIds.size());
+            for (int i = 0; i < batchIds.size(); i++) {
+                Map<String, String> valueMap;
+                String version;
+                if (structInfo.isCompact()) {
+                    valueMap = structInfo.getCodec().fromBinary(binaryResponses.get(i).get());
+                    version = RedbitExpiry.getVersion(binaryResponses.get(i).get());
+                } else {
+                    valueMap = responses.get(i).get();
+                    version = valueMap.remove(RedbitExpiry.VERSION_FIELD);
+                }
+
+                // The key was removed after being marked, a pending delete takes care of it
+                if (valueMap.isEmpty()) continue;
 
-            try (RedbitQuery query = Redbit.sqlQuery(stringQuery)) {
-                query.executeUpdate();
+                valueMap.put(idColumnName, batchIds.get(i));
+                batch.add(valueMap);
+                versions.put(batchIds.get(i), version);
             }
-        } catch (Exception exception) {
-            Redbit.getLogger().log(Level.SEVERE, "Something went wrong while synchronizing key " + entry.getIdValue(), exception);
+
+            if (!batch.isEmpty())
+                writeUpsertBatch(connection, batch);
+        }
+    }
+
+    private void update(Connection connection) throws SQLException {
+        Map<BitSet, List<String>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < idValues.size(); i++) {
+            groups.computeIfAbsent(columns.get(i), key -> new ArrayList<>()).add(idValues.get(i));
         }
+
+        RedbitStructCodec codec = structInfo.getCodec();
+        int batchSize = getBatchSize();
+        List<String> missingIds = new ArrayList<>();
+
+        // The version of expiring keys is read along with the columns, as the last field
+        boolean versioned = structInfo.getExpiry() != null;
+        for (Map.Entry<BitSet, List<String>> group : groups.entrySet()) {
+            int[] columnIndexes = group.getKey().stream().toArray();
+            int fieldCount = columnIndexes.length + (versioned ? 1 : 0);
+            String[] fieldNames = new String[fieldCount];
+            byte[][] fieldIds = new byte[fieldCount][];
+            for (int i = 0; i < columnIndexes.length; i++) {
+                fieldNames[i] = codec.getCodecs()[columnIndexes[i]].getColumnInfo().getName();
+                fieldIds[i] = codec.getFieldId(columnIndexes[i]);
+            }
+            if (versioned) {
+                fieldNames[columnIndexes.length] = RedbitExpiry.VERSION_FIELD;
+                fieldIds[columnIndexes.length] = SafeEncoder.encode(RedbitExpiry.VERSION_FIELD);
+            }
+
+            List<String> groupIds = group.getValue();
+            for (int from = 0; from < groupIds.size(); from += batchSize) {
+                List<String> batchIds = groupIds.subList(from, Math.min(from + batchSize, groupIds.size()));
+
+                // Only the modified columns are read back from redis
+                List<Response<List<String>>> responses = new ArrayList<>(batchIds.size());
+                List<Response<List<byte[]>>> binaryResponses = new ArrayList<>(batchIds.size());
+                try (RedbitPipeline pipeline = Redbit.pipelined()) {
+                    for (String idValue : batchIds) {
+                        String key = structInfo.getKey(idValue);
+                        if (structInfo.isCompact())
+                            binaryResponses.add(pipeline.hmget(SafeEncoder.encode(key), fieldIds));
+                        else
+                            responses.add(pipeline.hmget(key, fieldNames));
+                    }
+                }
+
+                List<String> updatedIds = new ArrayList<>(batchIds.size());
+                List<String[]> batch = new ArrayList<>(batchIds.size());
+                for (int i = 0; i < batchIds.size(); i++) {
+                    String[] values = new String[columnIndexes.length];
+                    boolean exists = false;
+
+                    for (int j = 0; j < columnIndexes.length; j++) {
+                        if (structInfo.isCompact()) {
+                            byte[] value = binaryResponses.get(i).get().get(j);
+                            values[j] = value != null ? codec.binaryToString(columnIndexes[j], value) : null;
+                        } else {
+                            values[j] = responses.get(i).get().get(j);
+                        }
+
+                        exists |= values[j] != null;
+                    }
+
+                    // The key was removed after being marked, a pending delete takes care of it
+                    if (!exists) continue;
+
+                    updatedIds.add(batchIds.get(i));
+                    batch.add(values);
+                    if (versioned) {
+                        Object version = structInfo.isCompact() ? binaryResponses.get(i).get().get(columnIndexes.length) : responses.get(i).get().get(columnIndexes.length);
+                        versions.put(batchIds.get(i), version instanceof byte[] ? SafeEncoder.encode((byte[]) version) : (String) version);
+                    }
+                }
+
+                if (!batch.isEmpty())
+                    missingIds.addAll(writeUpdateBatch(connection, group.getKey(), columnIndexes, updatedIds, batch));
+            }
+        }
+
+        // Rows that were never inserted in the database need the whole struct
+        if (!missingIds.isEmpty())
+            upsert(connection, missingIds);
+    }
+
+    private List<String> writeUpdateBatch(Connection connection, BitSet columns, int[] columnIndexes, List<String> batchIds, List<String[]> batch) throws SQLException {
+        RedbitStructCodec codec = structInfo.getCodec();
+        String query = structInfo.getQueries().getUpdateQuery(columns);
+
+        try (PreparedStatement statement = Redbit.prepareStatement(connection, query)) {
+            for (int i = 0; i < batch.size(); i++) {
+                String[] values = batch.get(i);
+                for (int j = 0; j < columnIndexes.length; j++) {
+                    codec.getCodecs()[columnIndexes[j]].bindString(statement, j + 1, values[j]);
+                }
+
+                codec.getIdCodec().bindString(statement, columnIndexes.length + 1, batchIds.get(i));
+                statement.addBatch();
+            }
+
+            int[] updateCounts = statement.executeBatch();
+
+            List<String> missingIds = new ArrayList<>();
+            for (int i = 0; i < updateCounts.length; i++) {
+                if (updateCounts[i] == 0) missingIds.add(batchIds.get(i));
+            }
+
+            return missingIds;
+        }
+    }
+
+    private void writeUpsertBatch(Connection connection, List<Map<String, String>> batch) throws SQLException {
+        String query = structInfo.getQueries().getBatchUpsertQuery(batch.size());
+        try (PreparedStatement statement = Redbit.prepareStatement(connection, query)) {
+            RedbitStructCodec codec = structInfo.getCodec();
+            int columnCount = codec.getCodecs().length;
+            for (int i = 0; i < batch.size(); i++) {
+                codec.bind(statement, 1 + i * columnCount, batch.get(i));
+            }
+
+            statement.executeUpdate();
+        }
+    }
+
+    private void delete(Connection connection) throws SQLException {
+        RedbitColumnCodec idCodec = structInfo.getCodec().getIdCodec();
+        int batchSize = getBatchSize();
+        for (int from = 0; from < idValues.size(); from += batchSize) {
+            List<String> batch = idValues.subList(from, Math.min(from + batchSize, idValues.size()));
+
+            String query = structInfo.getQueries().getBatchDeleteQuery(batch.size());
+            try (PreparedStatement statement = Redbit.prepareStatement(connection, query)) {
+                for (int i = 0; i < batch.size(); i++) {
+                    idCodec.bindString(statement, i + 1, batch.get(i));
+                }
+
+                statement.executeUpdate();
+            }
+        }
+    }
+
+    private void deleteAll(Connection connection) throws SQLException {
+        try (PreparedStatement statement = Redbit.prepareStatement(connection, structInfo.getQueries().getDeleteAllQuery())) {
+            statement.executeUpdate();
+        }
+    }
+
+    private int getBatchSize() {
+        return Math.max(1, Redbit.getConfig().getSyncBatchSize());
     }
 
 }
@@ -1,67 +1,198 @@
 package io.github.braayy.synchronization;
 
 import io.github.braayy.Redbit;
+import io.github.braayy.RedbitConfig;
 import io.github.braayy.synchronization.RedbitSynchronizationEntry.Operation;
 import io.github.braayy.struct.RedbitStructInfo;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
 
-public class RedbitSynchronizer extends Thread {
+public class RedbitSynchronizer {
 
-    private final List<RedbitSynchronizationEntry> modifiedEntries = new ArrayList<>();
-    private final Lock modifiedLock = new ReentrantLock();
+    // Every struct is flushed on its own schedule, a slow table only delays its own queue
+    private final Map<RedbitStructInfo, RedbitSyncQueue> queues = new ConcurrentHashMap<>();
     private final Lock remainingLock = new ReentrantLock();
-    private final Queue<RedbitSynchronizationEntry> remainingEntries = new ArrayDeque<>();
-    private final ExecutorService executorService = Executors.newFixedThreadPool(Redbit.getConfig().getParallelTasks() + 1);
+    private final Condition drainedCondition = remainingLock.newCondition();
+    private int runningTasks;
+    private long dispatchCount;
+    // Flushed structs until their tasks finish, then with read replicas the nano time each id is considered replicated at
+    private final List<RedbitModifiedStruct> syncingStructs = new CopyOnWriteArrayList<>();
+    private final Map<RedbitStructInfo, Map<String, Long>> replicatingKeys = new ConcurrentHashMap<>();
+    private final Map<RedbitStructInfo, Long> replicatingStructs = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Redbit Synchronization Timer Thread");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ExecutorService executorService = Executors.newFixedThreadPool(Redbit.getConfig().getParallelTasks());
 
-    private final AtomicBoolean synchronizing = new AtomicBoolean(false);
+    private final AtomicBoolean flushRequested = new AtomicBoolean(false);
     private final AtomicBoolean shutdown = new AtomicBoolean(false);
+    // Only with sharded journals: modified keys are not tracked in memory, every node pulls the shards it holds from the journal
+    private RedbitShardCoordinator coordinator;
 
-    public RedbitSynchronizer() {
-        super("Redbit Synchronizer Thread");
+    public void start() {
+        RedbitConfig config = Redbit.getConfig();
+        if (config.getSyncShards() > 0) {
+            coordinator = new RedbitShardCoordinator(config.getSyncNodeId(), config.getSyncShards(), config.getSyncLeaseTime());
+            coordinator.renew();
+
+            long renewDelay = Math.max(1, config.getSyncLeaseTime() / 3);
+            scheduler.scheduleWithFixedDelay(coordinator::renew, renewDelay, renewDelay, TimeUnit.MILLISECONDS);
+        }
+
+        for (RedbitStructInfo structInfo : Redbit.getStructRegistry().getStructs()) {
+            getQueue(structInfo);
+        }
+    }
+
+    private RedbitSyncQueue getQueue(RedbitStructInfo structInfo) {
+        return queues.computeIfAbsent(structInfo, key -> {
+            RedbitSyncQueue queue = new RedbitSyncQueue(key, Redbit.getConfig());
+
+            try {
+                scheduler.scheduleWithFixedDelay(() -> synchronize(queue), queue.getInterval(), queue.getInterval(), TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException ignored) {
+                // Shutting down, the final synchronization flushes every queue
+            }
+
+            return queue;
+        });
     }
 
-    @Override
-    public void run() {
-        while (true) {
-            if (!shutdown.get()) continue;
+    void synchronize() {
+        flushRequested.set(false);
+
+        for (RedbitSyncQueue queue : queues.values()) {
+            synchronize(queue);
+        }
+    }
+
+    private void synchronize(RedbitSyncQueue queue) {
+        if (coordinator != null) {
+            pull(queue);
+            return;
+        }
+
+        try {
+            queue.dirtyFlushScheduled.set(false);
+
+            RedbitModifiedStruct flushed = queue.flush(syncingStructs::add);
+            if (flushed == null) return;
+
+            RedbitJournal journal = Redbit.getJournal();
+            String journalCutoff = journal != null ? journal.cutoff(queue.getStructInfo(), 0) : null;
+
+            if (Redbit.hasReadReplicas())
+                expireReplicatedKeys();
+
+            List<RedbitSynchronizationTask> tasks = buildTasks(queue, flushed, journalCutoff != null ? Collections.singletonMap(0, journalCutoff) : null, null);
 
             remainingLock.lock();
             try {
-                if (remainingEntries.size() == 0)
-                    return;
+                queue.tasks.addAll(tasks);
+                dispatch();
             } finally {
                 remainingLock.unlock();
             }
+        } catch (Exception exception) {
+            Redbit.getLogger().log(Level.SEVERE, "Something went wrong while starting a synchronization of struct " + queue.getStructInfo().getName(), exception);
         }
     }
 
-    void synchronize() {
-        modifiedLock.lock();
-        remainingLock.lock();
+    private void pull(RedbitSyncQueue queue) {
+        RedbitStructInfo structInfo = queue.getStructInfo();
+        RedbitJournal journal = Objects.requireNonNull(Redbit.getJournal(), "Sharded synchronization needs the journal");
+
         try {
-            if (modifiedEntries.size() == 0) return;
+            // Pulled ids stay in the journal until their tasks commit, so they are only pulled again once the queue drained
+            remainingLock.lock();
+            try {
+                if (!queue.isDrained()) return;
+            } finally {
+                remainingLock.unlock();
+            }
+
+            RedbitModifiedStruct pulled = new RedbitModifiedStruct(structInfo);
+            Map<Integer, String> cutoffs = new HashMap<>();
+            Map<Integer, Long> tokens = new HashMap<>();
+            for (int shard : coordinator.getOwnedShards()) {
+                // The fence is moved before reading, so a previous owner still running tasks of this shard can no longer commit them
+                long token = coordinator.getToken(shard);
+                if (token == 0 || !journal.fence(structInfo, shard, token)) continue;
 
-            remainingEntries.addAll(modifiedEntries);
-            modifiedEntries.clear();
+                String cutoff = journal.cutoff(structInfo, shard);
+                if (cutoff == null) continue;
 
-            if (synchronizing.compareAndSet(false, true)) {
-                nextBatch();
+                journal.pull(pulled, shard, cutoff);
+                cutoffs.put(shard, cutoff);
+                tokens.put(shard, token);
             }
-        } finally {
-            modifiedLock.unlock();
-            remainingLock.unlock();
+
+            if (pulled.isEmpty()) return;
+
+            syncingStructs.add(pulled);
+            if (Redbit.hasReadReplicas())
+                expireReplicatedKeys();
+
+            List<RedbitSynchronizationTask> tasks = buildTasks(queue, pulled, cutoffs, tokens);
+
+            remainingLock.lock();
+            try {
+                queue.tasks.addAll(tasks);
+                dispatch();
+            } finally {
+                remainingLock.unlock();
+            }
+        } catch (Exception exception) {
+            Redbit.getLogger().log(Level.SEVERE, "Something went wrong while pulling the journal of struct " + structInfo.getName(), exception);
         }
     }
 
     public void shutdown() {
-        shutdown.set(true);
-        CompletableFuture.runAsync(this::synchronize, executorService);
+        if (!shutdown.compareAndSet(false, true)) return;
+
+        scheduler.shutdown();
+        synchronize();
+
+        long timeout = Redbit.getConfig().getSyncShutdownTimeout();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+
+        remainingLock.lock();
+        try {
+            long remaining = deadline - System.nanoTime();
+            while (!isDrained()) {
+                if (remaining <= 0) {
+                    Redbit.getLogger().warning("Synchronizer did not drain in " + timeout + "ms, " + countRemainingTasks() + " synchronization tasks were left behind");
+                    break;
+                }
+
+                remaining = drainedCondition.awaitNanos(remaining);
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        } finally {
+            remainingLock.unlock();
+        }
+
+        if (coordinator != null)
+            coordinator.releaseAll();
+
         executorService.shutdown();
+        try {
+            if (!executorService.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS))
+                executorService.shutdownNow();
+        } catch (InterruptedException exception) {
+            executorService.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
     }
 
     public boolean isShuttingDown() {
@@ -69,38 +200,280 @@ public class RedbitSynchronizer extends Thread {
     }
 
     public void addModifiedKey(RedbitStructInfo structInfo, String idValue, Operation operation) {
-        modifiedLock.lock();
+        addModifiedKey(structInfo, idValue, operation, null);
+    }
+
+    public void addModifiedKey(RedbitStructInfo structInfo, String idValue, Operation operation, @Nullable BitSet columns) {
+        if (operation == Operation.UPDATE && columns == null)
+            throw new IllegalArgumentException("Partial updates need the modified columns");
+
+        // Sharded synchronizations pull every operation from the journal, a DELETE_ALL included
+        if (coordinator != null) return;
+
+        RedbitSyncQueue queue = getQueue(structInfo);
+        queue.mark(idValue, operation, columns);
+
+        modified(queue);
+    }
+
+    public void addModifiedKeys(RedbitStructInfo structInfo, Collection<String> idValues, Operation operation) {
+        Map<String, BitSet> modifiedKeys = new HashMap<>(idValues.size() * 2);
+        for (String idValue : idValues) {
+            modifiedKeys.put(idValue, null);
+        }
+
+        addModifiedKeys(structInfo, modifiedKeys, operation);
+    }
+
+    public void addModifiedKeys(RedbitStructInfo structInfo, Map<String, BitSet> modifiedColumns, Operation operation) {
+        if (modifiedColumns.isEmpty() || coordinator != null) return;
+
+        RedbitSyncQueue queue = getQueue(structInfo);
+        queue.mark(modifiedColumns, operation);
+
+        modified(queue);
+    }
+
+    private void modified(RedbitSyncQueue queue) {
+        long maxDirtyAge = queue.getMaxDirtyAge();
+        if (maxDirtyAge > 0 && !shutdown.get() && queue.dirtyFlushScheduled.compareAndSet(false, true)) {
+            try {
+                scheduler.schedule(() -> synchronize(queue), maxDirtyAge, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException exception) {
+                queue.dirtyFlushScheduled.set(false);
+            }
+        }
+
+        int highWaterMark = Redbit.getConfig().getSyncHighWaterMark();
+        if (highWaterMark > 0 && getPendingCount() >= highWaterMark)
+            requestFlush();
+    }
+
+    public long getPendingCount() {
+        long pendingCount = 0;
+        for (RedbitSyncQueue queue : queues.values()) {
+            pendingCount += queue.getPendingCount();
+        }
+
+        return pendingCount;
+    }
+
+    // Milliseconds the oldest pending modification has been waiting for a synchronization
+    public long getPendingAge() {
+        long now = System.nanoTime();
+        long pendingAge = 0;
+        for (RedbitSyncQueue queue : queues.values()) {
+            long modifiedAt = queue.getFirstModifiedAt();
+            if (modifiedAt != RedbitSyncQueue.NOT_MODIFIED)
+                pendingAge = Math.max(pendingAge, now - modifiedAt);
+        }
+
+        return TimeUnit.NANOSECONDS.toMillis(pendingAge);
+    }
+
+    public int getRemainingTasks() {
+        remainingLock.lock();
         try {
-            this.modifiedEntries.removeIf(entry -> entry.getIdValue().equals(idValue) && entry.getOperation() == operation);
-            this.modifiedEntries.add(new RedbitSynchronizationEntry(structInfo, idValue, operation));
+            return countRemainingTasks();
         } finally {
-            modifiedLock.unlock();
+            remainingLock.unlock();
         }
     }
 
-    @SuppressWarnings("rawtypes")
-    private void nextBatch() {
-        remainingLock.lock();
+    private int countRemainingTasks() {
+        int remainingTasks = 0;
+        for (RedbitSyncQueue queue : queues.values()) {
+            remainingTasks += queue.tasks.size();
+        }
+
+        return remainingTasks;
+    }
+
+    private boolean isDrained() {
+        if (runningTasks > 0) return false;
+
+        for (RedbitSyncQueue queue : queues.values()) {
+            if (!queue.isDrained()) return false;
+        }
+
+        return true;
+    }
+
+    public boolean isModified(RedbitStructInfo structInfo, String idValue) {
+        RedbitSyncQueue queue = queues.get(structInfo);
+        return queue != null && queue.isModified(idValue);
+    }
+
+    public boolean isPending(RedbitStructInfo structInfo, String idValue) {
+        if (isModified(structInfo, idValue)) return true;
+
+        for (RedbitModifiedStruct syncingStruct : syncingStructs) {
+            if (syncingStruct.getStructInfo() == structInfo && syncingStruct.contains(idValue)) return true;
+        }
+
+        long now = System.nanoTime();
+        Long replicatedAt = replicatingStructs.get(structInfo);
+        if (replicatedAt != null && replicatedAt - now > 0) return true;
+
+        Map<String, Long> keys = replicatingKeys.get(structInfo);
+        replicatedAt = keys != null ? keys.get(idValue) : null;
+        return replicatedAt != null && replicatedAt - now > 0;
+    }
+
+    // Ids whose database row may still be outdated, with the operation they wait for, the journal also has the other nodes' ones
+    public Map<String, Operation> getPendingKeys(RedbitStructInfo structInfo) {
+        Map<String, Operation> pendingKeys = new HashMap<>();
+        for (RedbitModifiedStruct syncingStruct : syncingStructs) {
+            if (syncingStruct.getStructInfo() == structInfo)
+                syncingStruct.collect(pendingKeys);
+        }
+
+        // Collected last, so keys modified again after the flush keep their newest operation
+        RedbitSyncQueue queue = queues.get(structInfo);
+        if (queue != null)
+            queue.collectModified(pendingKeys);
+
+        RedbitJournal journal = Redbit.getJournal();
+        if (journal != null)
+            journal.collect(structInfo, pendingKeys);
+
+        return pendingKeys;
+    }
+
+    private void taskFinished(RedbitSynchronizationTask task) {
+        RedbitModifiedStruct modifiedStruct = task.getModifiedStruct();
+        if (modifiedStruct == null) return;
+
+        // The ids are marked as replicating before leaving the flushed struct, so isPending never misses them in between
+        if (Redbit.hasReadReplicas()) {
+            long replicatedAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Redbit.getConfig().getReplicaLagTolerance());
+            if (task.getOperation() == Operation.DELETE_ALL) {
+                replicatingStructs.put(task.getStructInfo(), replicatedAt);
+            } else {
+                Map<String, Long> keys = replicatingKeys.computeIfAbsent(task.getStructInfo(), key -> new ConcurrentHashMap<>());
+                for (String idValue : task.getIdValues()) {
+                    keys.put(idValue, replicatedAt);
+                }
+            }
+        }
+
+        modifiedStruct.unmark(task.getOperation(), task.getIdValues());
+        if (modifiedStruct.isEmpty())
+            syncingStructs.remove(modifiedStruct);
+    }
+
+    private void expireReplicatedKeys() {
+        long now = System.nanoTime();
+
+        replicatingStructs.values().removeIf(replicatedAt -> replicatedAt - now <= 0);
+        for (Map<String, Long> keys : replicatingKeys.values()) {
+            keys.values().removeIf(replicatedAt -> replicatedAt - now <= 0);
+        }
+    }
+
+    private void requestFlush() {
+        if (shutdown.get() || !flushRequested.compareAndSet(false, true)) return;
 
         try {
-            int parallelTasks = Math.min(Redbit.getConfig().getParallelTasks(), remainingEntries.size());
+            scheduler.execute(this::synchronize);
+        } catch (RejectedExecutionException exception) {
+            flushRequested.set(false);
+        }
+    }
 
-            if (parallelTasks <= 0) {
-                synchronizing.set(false);
-                return;
+    private List<RedbitSynchronizationTask> buildTasks(RedbitSyncQueue queue, RedbitModifiedStruct modifiedStruct, @Nullable Map<Integer, String> journalCutoffs, @Nullable Map<Integer, Long> fencingTokens) {
+        RedbitStructInfo structInfo = modifiedStruct.getStructInfo();
+        int batchSize = queue.getBatchSize();
+
+        // The DELETE_ALL task is queued first, so it never runs alongside the other operations of a synchronization
+        List<RedbitSynchronizationTask> tasks = new ArrayList<>();
+        if (modifiedStruct.isDeleteAll())
+            tasks.add(new RedbitSynchronizationTask(structInfo, Operation.DELETE_ALL, Collections.emptyList()).from(modifiedStruct).journaled(journalCutoffs, fencingTokens));
+
+        Map<Operation, List<String>> groups = new EnumMap<>(Operation.class);
+        Map<String, BitSet> updatedColumns = new HashMap<>();
+        for (Map.Entry<String, RedbitModifiedKey> modifiedKey : modifiedStruct.getModifiedKeys().entrySet()) {
+            Operation operation = modifiedKey.getValue().getOperation();
+            groups.computeIfAbsent(operation, key -> new ArrayList<>()).add(modifiedKey.getKey());
+
+            if (operation == Operation.UPDATE)
+                updatedColumns.put(modifiedKey.getKey(), modifiedKey.getValue().getColumns());
+        }
+
+        for (Map.Entry<Operation, List<String>> group : groups.entrySet()) {
+            Operation operation = group.getKey();
+            List<String> idValues = group.getValue();
+
+            for (int from = 0; from < idValues.size(); from += batchSize) {
+                List<String> chunk = new ArrayList<>(idValues.subList(from, Math.min(from + batchSize, idValues.size())));
+
+                if (operation == Operation.UPDATE) {
+                    List<BitSet> columns = new ArrayList<>(chunk.size());
+                    for (String idValue : chunk) {
+                        columns.add(updatedColumns.get(idValue));
+                    }
+
+                    tasks.add(new RedbitSynchronizationTask(structInfo, chunk, columns).from(modifiedStruct).journaled(journalCutoffs, fencingTokens));
+                } else {
+                    tasks.add(new RedbitSynchronizationTask(structInfo, operation, chunk).from(modifiedStruct).journaled(journalCutoffs, fencingTokens));
+                }
             }
+        }
 
-            CompletableFuture[] tasks = new CompletableFuture[parallelTasks];
-            for (int i = 0; i < parallelTasks; i++) {
-                RedbitSynchronizationEntry currentEntry = remainingEntries.poll();
+        return tasks;
+    }
+
+    // Starts tasks while workers are free, the highest priority queue goes first and equal priorities take turns
+    private void dispatch() {
+        remainingLock.lock();
+
+        try {
+            int parallelTasks = Redbit.getConfig().getParallelTasks();
+
+            while (runningTasks < parallelTasks) {
+                RedbitSyncQueue next = null;
+                for (RedbitSyncQueue queue : queues.values()) {
+                    RedbitSynchronizationTask task = queue.tasks.peek();
+                    if (task == null || !queue.isRunnable(task)) continue;
+
+                    if (next == null || queue.getPriority() > next.getPriority() || (queue.getPriority() == next.getPriority() && queue.lastDispatch < next.lastDispatch))
+                        next = queue;
+                }
+
+                if (next == null) break;
+
+                RedbitSyncQueue queue = next;
+                RedbitSynchronizationTask task = queue.tasks.poll();
 
-                tasks[i] = CompletableFuture
-                        .runAsync(new RedbitSynchronizationTask(currentEntry), executorService);
+                // Counted before submitting, a task that finishes before whenComplete is attached completes on this thread
+                queue.started(task, ++dispatchCount);
+                runningTasks++;
+                try {
+                    CompletableFuture.runAsync(task, executorService).whenComplete((ignored, exception) -> completed(queue, task));
+                } catch (RejectedExecutionException exception) {
+                    queue.finished(task);
+                    runningTasks--;
+                    queue.tasks.addFirst(task);
+                    break;
+                }
             }
 
-            CompletableFuture
-                    .allOf(tasks)
-                    .thenRun(this::nextBatch);
+            if (isDrained())
+                drainedCondition.signalAll();
+        } finally {
+            remainingLock.unlock();
+        }
+    }
+
+    private void completed(RedbitSyncQueue queue, RedbitSynchronizationTask task) {
+        taskFinished(task);
+
+        remainingLock.lock();
+        try {
+            queue.finished(task);
+            runningTasks--;
+
+            dispatch();
         } finally {
             remainingLock.unlock();
         }
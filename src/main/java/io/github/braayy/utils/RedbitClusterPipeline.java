@@ -0,0 +1,13 @@
+package io.github.braayy.utils;
+
+import redis.clients.jedis.ClusterPipeline;
+import redis.clients.jedis.providers.ClusterConnectionProvider;
+
+// Commands are grouped by the node owning their slot, and each node gets its own pipeline
+public class RedbitClusterPipeline extends ClusterPipeline implements RedbitPipeline {
+
+    public RedbitClusterPipeline(ClusterConnectionProvider provider) {
+        super(provider);
+    }
+
+}
@@ -0,0 +1,24 @@
+package io.github.braayy.utils;
+
+import redis.clients.jedis.Connection;
+import redis.clients.jedis.Pipeline;
+
+public class RedbitNodePipeline extends Pipeline implements RedbitPipeline {
+
+    private final Connection connection;
+
+    public RedbitNodePipeline(Connection connection) {
+        super(connection);
+        this.connection = connection;
+    }
+
+    @Override
+    public void close() {
+        try {
+            super.close();
+        } finally {
+            connection.close();
+        }
+    }
+
+}
@@ -0,0 +1,20 @@
+package io.github.braayy.utils;
+
+import redis.clients.jedis.Response;
+import redis.clients.jedis.commands.PipelineBinaryCommands;
+import redis.clients.jedis.commands.PipelineCommands;
+
+import java.io.Closeable;
+
+public interface RedbitPipeline extends PipelineCommands, PipelineBinaryCommands, Closeable {
+
+    Response<Long> publish(String channel, String message);
+
+    Response<Long> publish(byte[] channel, byte[] message);
+
+    void sync();
+
+    @Override
+    void close();
+
+}
@@ -1,56 +1,80 @@
 package io.github.braayy.utils;
 
-import io.github.braayy.Redbit;
+import io.github.braayy.column.RedbitColumnCodec;
 import io.github.braayy.column.RedbitColumnInfo;
+import io.github.braayy.query.RedbitCriteria;
+import io.github.braayy.struct.RedbitStructCodec;
 import io.github.braayy.struct.RedbitStructInfo;
 
-import java.util.Map;
+import java.util.BitSet;
 
 public class RedbitQueryBuilders {
 
-    public static String buildUpsertQuery(RedbitStructInfo structInfo, Map<String, String> valueMap, boolean ignoreNullColumns) {
+    public static String buildUpsertQuery(RedbitStructInfo structInfo) {
+        return buildBatchUpsertQuery(structInfo, 1);
+    }
+
+    public static String buildBatchUpsertQuery(RedbitStructInfo structInfo, int rowCount) {
         StringBuilder builder = new StringBuilder("INSERT INTO `").append(structInfo.getName()).append("`(");
+        StringBuilder row = new StringBuilder("(");
         boolean first = true;
         for (RedbitColumnInfo columnInfo : structInfo.getAllColumns()) {
-            String value = valueMap.get(columnInfo.getName());
-            if (RedbitUtils.isNullString(value) && ignoreNullColumns) continue;
-
             builder.append(!first ? ", " : "").append('`').append(columnInfo.getName()).append('`');
+            row.append(!first ? ", " : "").append('?');
 
             first = false;
         }
-        builder.append(") VALUES (");
+        builder.append(") VALUES ");
+        row.append(')');
+
+        for (int i = 0; i < rowCount; i++) {
+            builder.append(i > 0 ? ", " : "").append(row);
+        }
+        builder.append(" ON DUPLICATE KEY UPDATE ");
 
         first = true;
-        for (RedbitColumnInfo columnInfo : structInfo.getAllColumns()) {
-            String value = valueMap.get(columnInfo.getName());
-            if (RedbitUtils.isNullString(value) && ignoreNullColumns) continue;
+        for (RedbitColumnInfo columnInfo : structInfo.getColumns()) {
+            builder.append(!first ? ", " : "").append('`').append(columnInfo.getName()).append("`=VALUES(`").append(columnInfo.getName()).append("`)");
 
-            builder.append(!first ? ", " : "");
+            first = false;
+        }
 
-            if (RedbitUtils.isNullString(value))
-                builder.append("DEFAULT");
-            else
-                builder.append('\'').append(RedbitUtils.escapeToSql(value)).append('\'');
+        if (first) {
+            RedbitColumnInfo idColumn = structInfo.getIdColumn();
+            builder.append('`').append(idColumn.getName()).append("`=`").append(idColumn.getName()).append('`');
+        }
 
-            first = false;
+        String query = builder.toString();
+
+        return query;
+    }
+
+    public static String buildUpdateQuery(RedbitStructInfo structInfo, BitSet columns) {
+        RedbitColumnCodec[] codecs = structInfo.getCodec().getCodecs();
+        RedbitColumnInfo idColumn = structInfo.getIdColumn();
+
+        StringBuilder builder = new StringBuilder("UPDATE `").append(structInfo.getName()).append("` SET ");
+        for (int i = columns.nextSetBit(0); i >= 0; i = columns.nextSetBit(i + 1)) {
+            if (i != columns.nextSetBit(0))
+                builder.append(", ");
+
+            builder.append('`').append(codecs[i].getColumnInfo().getName()).append("`=?");
         }
-        builder.append(") ON DUPLICATE KEY UPDATE ");
+        builder.append(" WHERE `").append(idColumn.getName()).append("`=?");
 
-        first = true;
-        for (RedbitColumnInfo columnInfo : structInfo.getColumns()) {
-            String value = valueMap.get(columnInfo.getName());
-            if (RedbitUtils.isNullString(value) && ignoreNullColumns) continue;
+        String query = builder.toString();
 
-            builder.append(!first ? ", " : "").append('`').append(columnInfo.getName()).append("`=");
+        return query;
+    }
 
-            if (RedbitUtils.isNullString(value))
-                builder.append("DEFAULT");
-            else
-                builder.append('\'').append(RedbitUtils.escapeToSql(value)).append('\'');
+    public static String buildBatchDeleteQuery(RedbitStructInfo structInfo, int idCount) {
+        RedbitColumnInfo idColumn = structInfo.getIdColumn();
 
-            first = false;
+        StringBuilder builder = new StringBuilder("DELETE FROM `").append(structInfo.getName()).append("` WHERE `").append(idColumn.getName()).append("` IN (");
+        for (int i = 0; i < idCount; i++) {
+            builder.append(i > 0 ? ", " : "").append('?');
         }
+        builder.append(')');
 
         String query = builder.toString();
 
@@ -68,6 +92,49 @@ public class RedbitQueryBuilders {
         return query;
     }
 
+    public static String buildSelectByCriteria(RedbitStructInfo structInfo, RedbitCriteria criteria, boolean idOnly) {
+        RedbitStructCodec codec = structInfo.getCodec();
+
+        StringBuilder builder = new StringBuilder("SELECT ");
+        String[] projection = idOnly ? new String[0] : criteria.getProjection();
+        if (projection == null) {
+            builder.append('*');
+        } else {
+            builder.append('`').append(structInfo.getIdColumn().getName()).append('`');
+            for (int index : codec.columnIndexes(projection)) {
+                if (index == 0) continue;
+
+                builder.append(", `").append(codec.getCodecs()[index].getColumnInfo().getName()).append('`');
+            }
+        }
+        builder.append(" FROM `").append(structInfo.getName()).append('`');
+
+        String whereClause = criteria.buildWhere(codec);
+        if (!whereClause.isEmpty())
+            builder.append(" WHERE ").append(whereClause);
+
+        if (criteria.getOrderColumn() != null) {
+            RedbitColumnInfo orderColumn = codec.getCodecs()[codec.columnIndexes(criteria.getOrderColumn())[0]].getColumnInfo();
+            builder.append(" ORDER BY `").append(orderColumn.getName()).append(criteria.isDescending() ? "` DESC" : "` ASC");
+        }
+
+        if (criteria.getLimit() >= 0)
+            builder.append(" LIMIT ? OFFSET ?");
+
+        String query = builder.toString();
+
+        return query;
+    }
+
+    public static String buildDeleteByCriteria(RedbitStructInfo structInfo, RedbitCriteria criteria) {
+        if (criteria.getOrderColumn() != null || criteria.getLimit() >= 0 || criteria.getProjection() != null)
+            throw new IllegalArgumentException("Only conditions can be used to delete from struct " + structInfo.getName());
+
+        String whereClause = criteria.buildWhere(structInfo.getCodec());
+
+        return buildDeleteQuery(structInfo, !whereClause.isEmpty() ? whereClause : null);
+    }
+
     public static String buildCreateTableQuery(RedbitStructInfo structInfo) {
         StringBuilder builder = new StringBuilder("CREATE TABLE IF NOT EXISTS `").append(structInfo.getName()).append("`(");
 
@@ -88,14 +155,34 @@ public class RedbitQueryBuilders {
         return query;
     }
 
-    public static String buildSelectByIdQuery(RedbitStructInfo structInfo, String idValue) {
+    public static String buildSelectByIdQuery(RedbitStructInfo structInfo) {
+        RedbitColumnInfo idColumn = structInfo.getIdColumn();
+
+        String query = "SELECT * FROM `" + structInfo.getName() + "` WHERE `" + idColumn.getName() + "`=? LIMIT 1";
+
+        return query;
+    }
+
+    public static String buildSelectByIdsQuery(RedbitStructInfo structInfo, int idCount) {
         RedbitColumnInfo idColumn = structInfo.getIdColumn();
 
-        String query = "SELECT * FROM `" + structInfo.getName() + "` WHERE `" + idColumn.getName() + "`='" + RedbitUtils.escapeToSql(idValue) + "' LIMIT 1";
+        StringBuilder builder = new StringBuilder("SELECT * FROM `").append(structInfo.getName()).append("` WHERE `").append(idColumn.getName()).append("` IN (");
+        for (int i = 0; i < idCount; i++) {
+            builder.append(i > 0 ? ", " : "").append('?');
+        }
+        builder.append(')');
+
+        String query = builder.toString();
 
         return query;
     }
 
+    public static String buildDeleteByIdQuery(RedbitStructInfo structInfo) {
+        RedbitColumnInfo idColumn = structInfo.getIdColumn();
+
+        return buildDeleteQuery(structInfo, '`' + idColumn.getName() + "`=?");
+    }
+
     public static String buildSelectByCustomWhere(RedbitStructInfo structInfo, String whereClause) {
         String query;
 
@@ -0,0 +1,147 @@
+package io.github.braayy.utils;
+
+import io.github.braayy.Redbit;
+import redis.clients.jedis.Response;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.logging.Level;
+
+public class RedbitRedisBatcher implements Runnable {
+
+    private static final int MAX_BATCH_SIZE = 1000;
+    private static final long STOP_TIMEOUT_MILLIS = 5000;
+
+    private final BlockingQueue<Request<?>> requests = new LinkedBlockingQueue<>();
+    private final Thread thread;
+    private volatile boolean running;
+
+    public RedbitRedisBatcher() {
+        this.thread = new Thread(this, "Redbit Redis Batcher Thread");
+        this.thread.setDaemon(true);
+    }
+
+    public void start() {
+        running = true;
+        thread.start();
+    }
+
+    public void stop() {
+        running = false;
+        thread.interrupt();
+
+        try {
+            thread.join(STOP_TIMEOUT_MILLIS);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+
+        // Whatever the worker did not get to would otherwise never complete
+        Request<?> request;
+        while ((request = requests.poll()) != null) {
+            request.future.completeExceptionally(new IllegalStateException("Redis batcher was stopped before the request was sent"));
+        }
+    }
+
+    public CompletableFuture<Map<String, String>> hgetAll(String key) {
+        return submit(pipeline -> pipeline.hgetAll(key));
+    }
+
+    public CompletableFuture<Map<byte[], byte[]>> hgetAll(byte[] key) {
+        return submit(pipeline -> pipeline.hgetAll(key));
+    }
+
+    public <T> CompletableFuture<T> submit(Function<RedbitPipeline, Response<T>> command) {
+        Request<T> request = new Request<>(command);
+        if (!running) {
+            request.future.completeExceptionally(new IllegalStateException("Redis batcher is not running! Redbit#init(RedbitConfig) should start it"));
+            return request.future;
+        }
+
+        requests.add(request);
+
+        // A stop racing with the add may have already drained the queue for the last time
+        if (!running && requests.remove(request))
+            request.future.completeExceptionally(new IllegalStateException("Redis batcher is not running! Redbit#init(RedbitConfig) should start it"));
+
+        return request.future;
+    }
+
+    @Override
+    public void run() {
+        List<Request<?>> batch = new ArrayList<>();
+
+        while (running || !requests.isEmpty()) {
+            try {
+                Request<?> first = requests.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+
+                batch.add(first);
+                requests.drainTo(batch, MAX_BATCH_SIZE - 1);
+
+                flush(batch);
+            } catch (InterruptedException exception) {
+                if (running) continue;
+
+                requests.drainTo(batch);
+                flush(batch);
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<Request<?>> batch) {
+        if (batch.isEmpty()) return;
+
+        try {
+            try (RedbitPipeline pipeline = Redbit.pipelined()) {
+                for (Request<?> request : batch) {
+                    request.send(pipeline);
+                }
+            }
+
+            for (Request<?> request : batch) {
+                request.complete();
+            }
+        } catch (Exception exception) {
+            Redbit.getLogger().log(Level.SEVERE, "Something went wrong while executing a batched redis read", exception);
+
+            for (Request<?> request : batch) {
+                request.future.completeExceptionally(exception);
+            }
+        }
+    }
+
+    private static class Request<T> {
+
+        private final Function<RedbitPipeline, Response<T>> command;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private Response<T> response;
+
+        private Request(Function<RedbitPipeline, Response<T>> command) {
+            this.command = command;
+        }
+
+        private void send(RedbitPipeline pipeline) {
+            response = command.apply(pipeline);
+        }
+
+        private void complete() {
+            try {
+                future.complete(response.get());
+            } catch (Exception exception) {
+                future.completeExceptionally(exception);
+            }
+        }
+
+    }
+
+}
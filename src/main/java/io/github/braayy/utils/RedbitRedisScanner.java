@@ -1,42 +1,106 @@
 package io.github.braayy.utils;
 
 import io.github.braayy.Redbit;
-import io.github.braayy.fetch.RedbitFetch;
-import redis.clients.jedis.JedisPooled;
+import io.github.braayy.struct.RedbitStructInfo;
+import org.jetbrains.annotations.Nullable;
+import redis.clients.jedis.Connection;
+import redis.clients.jedis.Jedis;
 import redis.clients.jedis.params.ScanParams;
 import redis.clients.jedis.resps.ScanResult;
+import redis.clients.jedis.util.Pool;
 
-import java.util.ArrayDeque;
-import java.util.Objects;
-import java.util.Queue;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class RedbitRedisScanner {
 
+    private static final ExecutorService SCAN_EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "Redbit Scan Thread");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     private final Queue<String> remainingKeys = new ArrayDeque<>();
     private final ScanParams scanParams;
-    private String nextCursor;
+    private final List<Pool<Connection>> nodes;
+    // Cursor of each node, null once the node was fully scanned
+    private final String[] cursors;
 
     public RedbitRedisScanner(ScanParams scanParams) {
+        this(scanParams, Redbit.getRedisPrimaries());
+    }
+
+    public RedbitRedisScanner(ScanParams scanParams, RedbitStructInfo structInfo) {
+        // Every key of a colocated struct lives on the node owning its hash tag
+        this(scanParams, structInfo.isColocated() ? Collections.singletonList(Redbit.getRedisPrimary(structInfo.getKey(""))) : Redbit.getRedisPrimaries());
+    }
+
+    public RedbitRedisScanner(ScanParams scanParams, List<Pool<Connection>> nodes) {
         this.scanParams = scanParams;
+        this.nodes = nodes;
+        this.cursors = new String[nodes.size()];
+        Arrays.fill(this.cursors, ScanParams.SCAN_POINTER_START);
     }
 
+    @Nullable
     public String next() {
-        String nextKey = this.remainingKeys.poll();
+        while (this.remainingKeys.isEmpty()) {
+            List<String> page = nextPage();
+            if (page == null) return null;
+
+            this.remainingKeys.addAll(page);
+        }
+
+        return this.remainingKeys.poll();
+    }
 
-        if (nextKey == null) {
-            if (this.nextCursor != null && this.nextCursor.equals("0")) return null;
+    // Runs one SCAN on every node that still has keys left, all of them at the same time
+    @Nullable
+    public List<String> nextPage() {
+        if (!this.remainingKeys.isEmpty()) {
+            List<String> page = new ArrayList<>(this.remainingKeys);
+            this.remainingKeys.clear();
+            return page;
+        }
+
+        List<Integer> pendingNodes = new ArrayList<>(this.nodes.size());
+        for (int i = 0; i < this.cursors.length; i++) {
+            if (this.cursors[i] != null) pendingNodes.add(i);
+        }
 
-            JedisPooled jedis = Redbit.getJedis();
-            Objects.requireNonNull(jedis, "Jedis was not initialized yet! Redbit#init(RedbitConfig) should do it");
+        if (pendingNodes.isEmpty()) return null;
 
-            ScanResult<String> scan = jedis.scan(Objects.toString(this.nextCursor, "0"), this.scanParams);
-            this.remainingKeys.addAll(scan.getResult());
-            this.nextCursor = scan.getCursor();
+        List<ScanResult<String>> results = new ArrayList<>(pendingNodes.size());
+        if (pendingNodes.size() == 1) {
+            results.add(scan(pendingNodes.get(0)));
+        } else {
+            List<CompletableFuture<ScanResult<String>>> futures = new ArrayList<>(pendingNodes.size());
+            for (int node : pendingNodes) {
+                futures.add(CompletableFuture.supplyAsync(() -> scan(node), SCAN_EXECUTOR));
+            }
 
-            nextKey = this.remainingKeys.poll();
+            for (CompletableFuture<ScanResult<String>> future : futures) {
+                results.add(future.join());
+            }
         }
 
-        return nextKey;
+        List<String> page = new ArrayList<>();
+        for (int i = 0; i < pendingNodes.size(); i++) {
+            ScanResult<String> result = results.get(i);
+
+            this.cursors[pendingNodes.get(i)] = result.isCompleteIteration() ? null : result.getCursor();
+            page.addAll(result.getResult());
+        }
+
+        return page;
+    }
+
+    private ScanResult<String> scan(int node) {
+        try (Jedis jedis = new Jedis(this.nodes.get(node).getResource())) {
+            return jedis.scan(this.cursors[node], this.scanParams);
+        }
     }
 
 }
@@ -0,0 +1,47 @@
+package io.github.braayy.utils;
+
+import redis.clients.jedis.Response;
+import redis.clients.jedis.UnifiedJedis;
+import redis.clients.jedis.exceptions.JedisNoScriptException;
+import redis.clients.jedis.util.SafeEncoder;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class RedbitScript {
+
+    private final byte[] source;
+    private volatile byte[] sha;
+
+    public RedbitScript(String source) {
+        this.source = SafeEncoder.encode(source);
+    }
+
+    public Object eval(UnifiedJedis jedis, byte[] key, byte[]... args) {
+        return eval(jedis, Collections.singletonList(key), Arrays.asList(args));
+    }
+
+    // On a cluster every key must hash to the same slot, the script is loaded on the node of the first one
+    public Object eval(UnifiedJedis jedis, List<byte[]> keys, List<byte[]> args) {
+        byte[] sha = this.sha;
+        if (sha != null) {
+            try {
+                return jedis.evalsha(sha, keys, args);
+            } catch (JedisNoScriptException ignored) {
+                // Redis restarted or its script cache was flushed, so the script is loaded again
+            }
+        }
+
+        sha = jedis.scriptLoad(source, keys.get(0));
+        this.sha = sha;
+
+        return jedis.evalsha(sha, keys, args);
+    }
+
+    // A pipeline can not retry on NOSCRIPT, so the whole script is sent with it
+    public Response<Object> eval(RedbitPipeline pipeline, List<byte[]> keys, List<byte[]> args) {
+        return pipeline.eval(source, keys, args);
+    }
+
+}
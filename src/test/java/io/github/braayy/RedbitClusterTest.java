@@ -0,0 +1,214 @@
+package io.github.braayy;
+
+import io.github.braayy.column.RedbitColumn;
+import io.github.braayy.fetch.RedbitFetch;
+import io.github.braayy.struct.RedbitColocated;
+import io.github.braayy.struct.RedbitStruct;
+import io.github.braayy.struct.RedbitVolatileStruct;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import redis.clients.jedis.Connection;
+import redis.clients.jedis.JedisCluster;
+import redis.clients.jedis.util.JedisClusterCRC16;
+import redis.clients.jedis.util.Pool;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static io.github.braayy.RedbitTestEnvironment.await;
+import static io.github.braayy.RedbitTestEnvironment.queryString;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RedbitClusterTest {
+
+    private static final List<Integer> PORTS = Arrays.asList(46415, 46416, 46417);
+    private static final int ROWS = 300;
+
+    private static JedisCluster jedis;
+
+    @BeforeAll
+    static void start() throws IOException {
+        Map<String, Class<? extends RedbitStruct>> structs = new LinkedHashMap<>();
+        structs.put("cluster_player", ClusterPlayer.class);
+        structs.put("colocated_player", ColocatedPlayer.class);
+
+        jedis = RedbitTestEnvironment.startCluster(PORTS, structs, config -> config.setScanCount(16));
+    }
+
+    @AfterAll
+    static void stop() throws IOException {
+        RedbitTestEnvironment.stop();
+    }
+
+    private static int databaseCount(String table, int from, int to) {
+        return Integer.parseInt(queryString("SELECT COUNT(*) FROM " + table + " WHERE id BETWEEN " + from + " AND " + to));
+    }
+
+    private static List<ClusterPlayer> players(int from, int to) {
+        List<ClusterPlayer> players = new ArrayList<>();
+        for (int id = from; id < to; id++) {
+            players.add(new ClusterPlayer(id));
+        }
+
+        return players;
+    }
+
+    // Keys each primary holds, to tell that a batch really was spread over the cluster
+    private static List<Long> keysPerPrimary() {
+        List<Long> sizes = new ArrayList<>();
+        for (Pool<Connection> primary : Redbit.getRedisPrimaries()) {
+            try (Connection connection = primary.getResource()) {
+                connection.sendCommand(redis.clients.jedis.Protocol.Command.DBSIZE);
+                sizes.add(connection.getIntegerReply());
+            }
+        }
+
+        return sizes;
+    }
+
+    @Test
+    void everyPrimaryIsKnown() {
+        assertTrue(Redbit.isCluster());
+        assertEquals(PORTS.size(), Redbit.getRedisPrimaries().size());
+    }
+
+    @Test
+    void bulkWritesAndReadsSpanEveryNode() {
+        assertTrue(ClusterPlayer.insertAll(players(1, 100)));
+        for (long keys : keysPerPrimary()) {
+            assertTrue(keys > 0);
+        }
+
+        List<Integer> ids = new ArrayList<>();
+        for (int id = 1; id < 110; id++) {
+            ids.add(id);
+        }
+        Map<Integer, ClusterPlayer> fetched = ClusterPlayer.fetchByIds(ClusterPlayer.class, ids);
+        assertNotNull(fetched);
+        assertEquals(99, fetched.size());
+        assertEquals("p42", fetched.get(42).name);
+
+        List<ClusterPlayer> updated = new ArrayList<>(fetched.values());
+        for (ClusterPlayer player : updated) {
+            player.coins += 1;
+        }
+        assertTrue(ClusterPlayer.updateAll(updated));
+        assertEquals("421", jedis.hget("cluster_player:42", "coins"));
+
+        await("bulk writes synchronized", () -> "421".equals(queryString("SELECT coins FROM cluster_player WHERE id=42")) && databaseCount("cluster_player", 1, 99) == 99);
+    }
+
+    @Test
+    void scriptedWritesRunOnTheKeysNode() {
+        ClusterPlayer player = new ClusterPlayer(200);
+        assertTrue(player.insert());
+        assertEquals(2005L, player.increment("coins", 5));
+        assertTrue(player.compareAndSet("name", "p200", "renamed"));
+
+        ClusterPlayer fetched = new ClusterPlayer();
+        fetched.id = 200;
+        assertEquals(RedbitFetch.Result.FOUND, fetched.fetchById());
+        assertEquals("renamed", fetched.name);
+        assertEquals(2005L, fetched.coins);
+
+        assertTrue(fetched.deleteById());
+        assertFalse(jedis.exists("cluster_player:200"));
+    }
+
+    @Test
+    void scansFanOutToEveryPrimary() {
+        assertTrue(ColocatedPlayer.insertAll(colocatedPlayers(), false));
+        assertTrue(ClusterPlayer.insertAll(players(1000, 1000 + ROWS), false));
+
+        Set<Integer> streamed;
+        try (Stream<ClusterPlayer> stream = ClusterPlayer.streamAll(ClusterPlayer.class)) {
+            streamed = stream.filter(player -> player.id >= 1000).map(player -> player.id).collect(Collectors.toSet());
+        }
+        assertEquals(ROWS, streamed.size());
+
+        try (Stream<ClusterPlayer> stream = ClusterPlayer.streamAll(ClusterPlayer.class, 8).parallel()) {
+            assertEquals(ROWS, stream.filter(player -> player.id >= 1000).count());
+        }
+
+        Set<Integer> colocated;
+        try (Stream<ColocatedPlayer> stream = ColocatedPlayer.streamAll(ColocatedPlayer.class)) {
+            colocated = stream.map(player -> player.id).collect(Collectors.toSet());
+        }
+        assertEquals(50, colocated.size());
+    }
+
+    @Test
+    void colocatedKeysShareOneSlot() {
+        assertTrue(ColocatedPlayer.insertAll(colocatedPlayers(), false));
+
+        Set<Integer> slots = new HashSet<>();
+        for (ColocatedPlayer player : colocatedPlayers()) {
+            String key = Redbit.getStructRegistry().getStructInfo(ColocatedPlayer.class).getKey(player.id.toString());
+            assertEquals("{colocated_player}:" + player.id, key);
+            assertTrue(jedis.exists(key));
+            slots.add(JedisClusterCRC16.getSlot(key));
+        }
+        assertEquals(1, slots.size());
+    }
+
+    @Test
+    void deleteAllClearsEveryNode() {
+        assertTrue(ClusterPlayer.insertAll(players(2000, 2100)));
+        await("rows synchronized", () -> databaseCount("cluster_player", 2000, 2099) == 100);
+
+        assertTrue(new ClusterPlayer().deleteAll(true));
+        for (int id = 2000; id < 2100; id++) {
+            assertFalse(jedis.exists("cluster_player:" + id));
+        }
+        try (Stream<ClusterPlayer> stream = ClusterPlayer.streamAll(ClusterPlayer.class)) {
+            assertEquals(0, stream.count());
+        }
+        await("rows deleted", () -> databaseCount("cluster_player", 0, Integer.MAX_VALUE) == 0);
+    }
+
+    private static List<ColocatedPlayer> colocatedPlayers() {
+        List<ColocatedPlayer> players = new ArrayList<>();
+        for (int id = 1; id <= 50; id++) {
+            ColocatedPlayer player = new ColocatedPlayer();
+            player.id = id;
+            player.coins = (long) id;
+            players.add(player);
+        }
+
+        return players;
+    }
+
+    public static class ClusterPlayer extends RedbitVolatileStruct {
+
+        @RedbitColumn(sqlType = "INT", idColumn = true)
+        Integer id;
+        @RedbitColumn(sqlType = "VARCHAR", length = 16)
+        String name;
+        @RedbitColumn(sqlType = "BIGINT", defaultValue = "0")
+        Long coins;
+
+        public ClusterPlayer() {
+        }
+
+        ClusterPlayer(int id) {
+            this.id = id;
+            this.name = "p" + id;
+            this.coins = id * 10L;
+        }
+
+    }
+
+    @RedbitColocated
+    public static class ColocatedPlayer extends RedbitVolatileStruct {
+
+        @RedbitColumn(sqlType = "INT", idColumn = true)
+        Integer id;
+        @RedbitColumn(sqlType = "BIGINT", indexed = true)
+        Long coins;
+
+    }
+
+}
@@ -0,0 +1,91 @@
+package io.github.braayy;
+
+import io.github.braayy.column.RedbitColumn;
+import io.github.braayy.struct.RedbitStruct;
+import io.github.braayy.struct.RedbitStructInfo;
+import io.github.braayy.struct.RedbitSyncPolicy;
+import io.github.braayy.struct.RedbitVolatileStruct;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RedbitReplicaTest {
+
+    private static final String DOWN_REPLICA = "jdbc:h2:tcp://localhost:1/down";
+    private static final String REPLICA = "jdbc:h2:mem:replica46407;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+    @BeforeAll
+    static void start() throws IOException {
+        Map<String, Class<? extends RedbitStruct>> structs = new LinkedHashMap<>();
+        structs.put("replicated_player", ReplicatedPlayer.class);
+
+        RedbitTestEnvironment.start(46407, structs, config -> {
+            config.setReplicaJdbcUrls(Arrays.asList(DOWN_REPLICA, REPLICA));
+            config.setReplicaConnectionTimeout(250);
+            config.setReplicaCooldown(60000);
+        });
+    }
+
+    @AfterAll
+    static void stop() throws IOException {
+        RedbitTestEnvironment.stop();
+    }
+
+    private static String readUrl() throws SQLException {
+        try (Connection connection = Redbit.sqlReadConnection()) {
+            return connection.getMetaData().getURL();
+        }
+    }
+
+    @Test
+    void downReplicaIsSkippedDuringItsCooldown() throws SQLException {
+        for (int i = 0; i < 2; i++) {
+            assertTrue(readUrl().startsWith("jdbc:h2:mem:replica46407"));
+        }
+
+        // Each read would wait for the replica connection timeout again if the down replica was still tried
+        long start = System.nanoTime();
+        for (int i = 0; i < 20; i++) {
+            assertTrue(readUrl().startsWith("jdbc:h2:mem:replica46407"));
+        }
+        assertTrue(System.nanoTime() - start < 1_000_000_000L);
+    }
+
+    @Test
+    void pendingIdsAreReadFromThePrimary() throws SQLException {
+        ReplicatedPlayer player = new ReplicatedPlayer();
+        player.id = 1;
+        player.coins = 10L;
+        assertTrue(player.insert());
+
+        RedbitStructInfo structInfo = Redbit.getStructRegistry().getStructInfo(ReplicatedPlayer.class);
+        try (Connection connection = Redbit.sqlReadConnection(structInfo, Collections.singletonList("1"))) {
+            assertTrue(connection.getMetaData().getURL().startsWith("jdbc:h2:mem:redbit46407"));
+        }
+        try (Connection connection = Redbit.sqlReadConnection(structInfo, Collections.singletonList("2"))) {
+            assertTrue(connection.getMetaData().getURL().startsWith("jdbc:h2:mem:replica46407"));
+        }
+    }
+
+    // Never synchronized while the tests run, so its rows stay pending
+    @RedbitSyncPolicy(interval = 3600000)
+    public static class ReplicatedPlayer extends RedbitVolatileStruct {
+
+        @RedbitColumn(sqlType = "INT", idColumn = true)
+        Integer id;
+        @RedbitColumn(sqlType = "BIGINT")
+        Long coins;
+
+    }
+
+}
@@ -0,0 +1,132 @@
+package io.github.braayy;
+
+import io.github.braayy.struct.RedbitStruct;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisCluster;
+import redis.embedded.Redis;
+import redis.embedded.RedisServer;
+import redis.embedded.RedisShardedCluster;
+import redis.embedded.core.RedisShardedClusterBuilder;
+
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+// Every test class runs in its own fork, with an embedded redis and an in memory H2 database in MySQL mode
+public final class RedbitTestEnvironment {
+
+    private static final long AWAIT_TIMEOUT = 5000;
+
+    private static Redis redis;
+    private static Jedis jedis;
+    private static JedisCluster jedisCluster;
+
+    private RedbitTestEnvironment() {
+    }
+
+    public static Jedis start(int port, Map<String, Class<? extends RedbitStruct>> structs, Consumer<RedbitConfig> configurer) throws IOException {
+        redis = new RedisServer(port);
+        redis.start();
+
+        jedis = new Jedis("localhost", port);
+        jedis.flushAll();
+
+        init(port, structs, configurer);
+        return jedis;
+    }
+
+    // One primary per port, every one of them owning a share of the slots
+    public static JedisCluster startCluster(List<Integer> ports, Map<String, Class<? extends RedbitStruct>> structs, Consumer<RedbitConfig> configurer) throws IOException {
+        RedisShardedClusterBuilder builder = RedisShardedCluster.newRedisCluster().serverPorts(ports);
+        List<String> nodes = new ArrayList<>();
+        for (int port : ports) {
+            builder.shard("shard" + port, 0);
+            nodes.add("localhost:" + port);
+        }
+
+        redis = builder.build();
+        redis.start();
+
+        // Nodes answer with CLUSTERDOWN until every one of them learned the whole slot map
+        for (int port : ports) {
+            try (Jedis node = new Jedis("localhost", port)) {
+                await("cluster node " + port + " ready", () -> node.clusterInfo().contains("cluster_state:ok"));
+            }
+        }
+
+        jedisCluster = new JedisCluster(new HostAndPort("localhost", ports.get(0)));
+
+        init(ports.get(0), structs, config -> {
+            config.setRedisClusterNodes(nodes);
+            configurer.accept(config);
+        });
+        return jedisCluster;
+    }
+
+    private static void init(int port, Map<String, Class<? extends RedbitStruct>> structs, Consumer<RedbitConfig> configurer) {
+        for (Map.Entry<String, Class<? extends RedbitStruct>> struct : structs.entrySet()) {
+            Redbit.getStructRegistry().registerStruct(struct.getKey(), struct.getValue());
+        }
+
+        RedbitConfig config = new RedbitConfig();
+        config.setRedisHost("localhost");
+        config.setRedisPort(port);
+        // H2 can hand a polling query the cached result it read right before a synchronization committed, so nothing is cached
+        config.setJdbcUrl("jdbc:h2:mem:redbit" + port + ";MODE=MySQL;DB_CLOSE_DELAY=-1;QUERY_CACHE_SIZE=0");
+        config.setSyncDelay(100);
+        config.setParallelTasks(2);
+        configurer.accept(config);
+
+        Redbit.init(config);
+    }
+
+    public static void stop() throws IOException {
+        try {
+            Redbit.stop();
+        } finally {
+            if (jedis != null)
+                jedis.close();
+            if (jedisCluster != null)
+                jedisCluster.close();
+            redis.stop();
+        }
+    }
+
+    public static void await(String message, BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + AWAIT_TIMEOUT;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline)
+                fail(message);
+
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                fail(message);
+            }
+        }
+    }
+
+    // First column of the first row, null when the query found no row
+    public static String queryString(String query) {
+        try (RedbitQuery redbitQuery = Redbit.sqlQuery(query)) {
+            ResultSet resultSet = redbitQuery.executeQuery();
+            return resultSet.next() ? resultSet.getString(1) : null;
+        } catch (SQLException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    public static int count(String table) {
+        return Integer.parseInt(queryString("SELECT COUNT(*) FROM `" + table + "`"));
+    }
+
+}
@@ -0,0 +1,188 @@
+package io.github.braayy.cache;
+
+import io.github.braayy.Redbit;
+import io.github.braayy.RedbitTestEnvironment;
+import io.github.braayy.column.RedbitColumn;
+import io.github.braayy.fetch.RedbitFetch;
+import io.github.braayy.struct.RedbitNearCached;
+import io.github.braayy.struct.RedbitStruct;
+import io.github.braayy.struct.RedbitStructInfo;
+import io.github.braayy.struct.RedbitVolatileStruct;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import redis.clients.jedis.Jedis;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static io.github.braayy.RedbitTestEnvironment.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RedbitNearCacheTest {
+
+    private static final String CHANNEL = "redbit:test-invalidation";
+    // Published the way another node sharing the redis would
+    private static final String OTHER_NODE = "other-node";
+
+    private static Jedis jedis;
+
+    @BeforeAll
+    static void start() throws IOException {
+        Map<String, Class<? extends RedbitStruct>> structs = new LinkedHashMap<>();
+        structs.put("near_player", NearPlayer.class);
+        structs.put("short_near_player", ShortNearPlayer.class);
+
+        jedis = RedbitTestEnvironment.start(46409, structs, config -> config.setNearCacheChannel(CHANNEL));
+
+        // Subscribing clears the cache, so nothing is cached before it happened
+        await("invalidator subscribed", () -> jedis.pubsubNumSub(CHANNEL).getOrDefault(CHANNEL, 0L) > 0);
+    }
+
+    @AfterAll
+    static void stop() throws IOException {
+        RedbitTestEnvironment.stop();
+    }
+
+    private static RedbitNearCache nearCache(Class<? extends RedbitStruct> structClass) {
+        RedbitStructInfo structInfo = Redbit.getStructRegistry().getStructInfo(structClass);
+        assertNotNull(structInfo);
+
+        RedbitNearCache nearCache = structInfo.getNearCache();
+        assertNotNull(nearCache);
+        return nearCache;
+    }
+
+    private static String name(int id) {
+        NearPlayer player = new NearPlayer();
+        player.id = id;
+        assertEquals(RedbitFetch.Result.FOUND, player.fetchById());
+
+        return player.name;
+    }
+
+    // Changed behind the node's back, so only an invalidation makes it visible
+    private static void cacheThenChangeInRedis(int id) {
+        assertTrue(new NearPlayer(id).insert(false));
+        assertEquals("p" + id, name(id));
+
+        jedis.hset("near_player:" + id, "name", "changed");
+        assertEquals("p" + id, name(id));
+    }
+
+    @Test
+    void fetchesAreServedFromTheNearCache() {
+        long hits = nearCache(NearPlayer.class).getHitCount();
+        cacheThenChangeInRedis(1);
+
+        assertTrue(nearCache(NearPlayer.class).getHitCount() > hits);
+    }
+
+    @Test
+    void otherNodesInvalidateSingleEntries() {
+        cacheThenChangeInRedis(2);
+        cacheThenChangeInRedis(3);
+
+        jedis.publish(CHANNEL, OTHER_NODE + " near_player 2");
+
+        await("entry invalidated", () -> "changed".equals(name(2)));
+        assertEquals("p3", name(3));
+    }
+
+    @Test
+    void otherNodesInvalidateWholeStructs() {
+        cacheThenChangeInRedis(4);
+        cacheThenChangeInRedis(5);
+
+        jedis.publish(CHANNEL, OTHER_NODE + " near_player *");
+
+        await("struct invalidated", () -> "changed".equals(name(4)));
+        assertEquals("changed", name(5));
+    }
+
+    @Test
+    void invalidationsOfOtherStructsAreIgnored() throws InterruptedException {
+        cacheThenChangeInRedis(6);
+
+        jedis.publish(CHANNEL, OTHER_NODE + " short_near_player 6");
+        jedis.publish(CHANNEL, OTHER_NODE + " unknown_player *");
+        jedis.publish(CHANNEL, "malformed");
+        Thread.sleep(200);
+
+        assertEquals("p6", name(6));
+    }
+
+    @Test
+    void localWritesInvalidateTheirEntry() {
+        cacheThenChangeInRedis(7);
+
+        NearPlayer player = new NearPlayer();
+        player.id = 7;
+        player.name = "written";
+        assertTrue(player.update(false));
+
+        assertEquals("written", name(7));
+    }
+
+    @Test
+    void entriesExpireAfterWrite() {
+        ShortNearPlayer player = new ShortNearPlayer();
+        player.id = 8;
+        player.name = "p8";
+        assertTrue(player.insert(false));
+        assertEquals(RedbitFetch.Result.FOUND, player.fetchById());
+        assertEquals(1, nearCache(ShortNearPlayer.class).size());
+
+        jedis.hset("short_near_player:8", "name", "changed");
+        await("entry expired", () -> {
+            ShortNearPlayer fetched = new ShortNearPlayer();
+            fetched.id = 8;
+            fetched.fetchById();
+            return "changed".equals(fetched.name);
+        });
+    }
+
+    @Test
+    void putsRacingAnInvalidationAreDropped() {
+        RedbitNearCache nearCache = new RedbitNearCache(100, 60000);
+
+        long stamp = nearCache.stamp("1");
+        nearCache.invalidate("1");
+        nearCache.put("1", Collections.singletonMap("name", "stale"), stamp);
+        assertNull(nearCache.get("1"));
+
+        nearCache.put("1", Collections.singletonMap("name", "fresh"), nearCache.stamp("1"));
+        assertEquals("fresh", nearCache.get("1").get("name"));
+    }
+
+    @RedbitNearCached
+    public static class NearPlayer extends RedbitVolatileStruct {
+
+        @RedbitColumn(sqlType = "INT", idColumn = true)
+        Integer id;
+        @RedbitColumn(sqlType = "VARCHAR", length = 16)
+        String name;
+
+        public NearPlayer() {
+        }
+
+        NearPlayer(int id) {
+            this.id = id;
+            this.name = "p" + id;
+        }
+
+    }
+
+    @RedbitNearCached(expireAfterWrite = 100)
+    public static class ShortNearPlayer extends RedbitVolatileStruct {
+
+        @RedbitColumn(sqlType = "INT", idColumn = true)
+        Integer id;
+        @RedbitColumn(sqlType = "VARCHAR", length = 16)
+        String name;
+
+    }
+
+}
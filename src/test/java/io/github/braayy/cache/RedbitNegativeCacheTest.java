@@ -0,0 +1,165 @@
+package io.github.braayy.cache;
+
+import io.github.braayy.Redbit;
+import io.github.braayy.RedbitQuery;
+import io.github.braayy.RedbitTestEnvironment;
+import io.github.braayy.column.RedbitColumn;
+import io.github.braayy.fetch.RedbitFetch;
+import io.github.braayy.metrics.RedbitMetrics;
+import io.github.braayy.struct.RedbitStruct;
+import io.github.braayy.struct.RedbitStructInfo;
+import io.github.braayy.struct.RedbitVolatileStruct;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import redis.clients.jedis.Jedis;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.github.braayy.RedbitTestEnvironment.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RedbitNegativeCacheTest {
+
+    private static final long NEGATIVE_CACHE_TTL = 500;
+
+    private static final Map<RedbitMetrics.FetchSource, AtomicInteger> fetches = new ConcurrentHashMap<>();
+    private static final AtomicInteger databaseLoads = new AtomicInteger();
+    private static Jedis jedis;
+
+    @BeforeAll
+    static void start() throws IOException {
+        Map<String, Class<? extends RedbitStruct>> structs = new LinkedHashMap<>();
+        structs.put("missing_player", MissingPlayer.class);
+
+        jedis = RedbitTestEnvironment.start(46410, structs, config -> {
+            config.setNegativeCacheTtl(NEGATIVE_CACHE_TTL);
+            config.setMetrics(new RedbitMetrics() {
+                @Override
+                public void fetched(RedbitStructInfo structInfo, FetchSource source) {
+                    fetches.computeIfAbsent(source, key -> new AtomicInteger()).incrementAndGet();
+                }
+
+                @Override
+                public void sqlCall(RedbitStructInfo structInfo, String operation, long nanos) {
+                    if (operation.startsWith("fetchById"))
+                        databaseLoads.incrementAndGet();
+                }
+            });
+        });
+    }
+
+    @AfterAll
+    static void stop() throws IOException {
+        RedbitTestEnvironment.stop();
+    }
+
+    private static int fetched(RedbitMetrics.FetchSource source) {
+        AtomicInteger count = fetches.get(source);
+        return count != null ? count.get() : 0;
+    }
+
+    private static RedbitFetch.Result fetch(int id) {
+        MissingPlayer player = new MissingPlayer();
+        player.id = id;
+        return player.fetchById();
+    }
+
+    // Only in the database, the way another node or an earlier run would have left it
+    private static void insertIntoDatabase(int id, String name) {
+        try (RedbitQuery query = Redbit.sqlQuery("INSERT INTO missing_player (id, name) VALUES (" + id + ", '" + name + "')")) {
+            query.executeUpdate();
+        } catch (SQLException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    @Test
+    void missingIdsOnlyQueryTheDatabaseOnce() {
+        int loads = databaseLoads.get();
+        int negativeHits = fetched(RedbitMetrics.FetchSource.NEGATIVE_CACHE);
+
+        assertEquals(RedbitFetch.Result.COMPLETE, fetch(1));
+        assertEquals(RedbitFetch.Result.COMPLETE, fetch(1));
+        assertEquals(RedbitFetch.Result.COMPLETE, fetch(1));
+
+        assertEquals(loads + 1, databaseLoads.get());
+        assertEquals(negativeHits + 2, fetched(RedbitMetrics.FetchSource.NEGATIVE_CACHE));
+
+        Map<Integer, MissingPlayer> players = MissingPlayer.fetchByIds(MissingPlayer.class, Collections.singletonList(1));
+        assertNotNull(players);
+        assertTrue(players.isEmpty());
+        assertEquals(loads + 1, databaseLoads.get());
+    }
+
+    @Test
+    void writesClearTheirTombstone() {
+        assertEquals(RedbitFetch.Result.COMPLETE, fetch(2));
+
+        assertTrue(new MissingPlayer(2).insert(false));
+        assertEquals(RedbitFetch.Result.FOUND, fetch(2));
+    }
+
+    @Test
+    void tombstonesExpire() {
+        assertEquals(RedbitFetch.Result.COMPLETE, fetch(3));
+
+        insertIntoDatabase(3, "late");
+        assertEquals(RedbitFetch.Result.COMPLETE, fetch(3));
+
+        await("tombstone expired", () -> fetch(3) == RedbitFetch.Result.FOUND);
+        assertEquals("late", jedis.hget("missing_player:3", "name"));
+    }
+
+    @Test
+    void concurrentMissesAllSeeTheDatabaseRow() throws Exception {
+        insertIntoDatabase(4, "shared");
+
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<String>> names = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                names.add(executor.submit(() -> {
+                    start.await();
+
+                    MissingPlayer player = new MissingPlayer();
+                    player.id = 4;
+                    return player.fetchById() == RedbitFetch.Result.FOUND ? player.name : null;
+                }));
+            }
+            start.countDown();
+
+            for (Future<String> name : names) {
+                assertEquals("shared", name.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals("shared", jedis.hget("missing_player:4", "name"));
+    }
+
+    public static class MissingPlayer extends RedbitVolatileStruct {
+
+        @RedbitColumn(sqlType = "INT", idColumn = true)
+        Integer id;
+        @RedbitColumn(sqlType = "VARCHAR", length = 16)
+        String name;
+
+        public MissingPlayer() {
+        }
+
+        MissingPlayer(int id) {
+            this.id = id;
+            this.name = "p" + id;
+        }
+
+    }
+
+}
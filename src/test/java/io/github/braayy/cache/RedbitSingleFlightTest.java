@@ -0,0 +1,128 @@
+package io.github.braayy.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RedbitSingleFlightTest {
+
+    private static final int FOLLOWERS = 8;
+
+    // Waits until every follower is blocked on the leader's call, so none of them can start a load of its own
+    private static void awaitWaiting(List<Thread> threads) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        for (Thread thread : threads) {
+            while (thread.getState() != Thread.State.WAITING) {
+                if (System.currentTimeMillis() > deadline)
+                    fail("follower never waited for the leader");
+
+                Thread.sleep(5);
+            }
+        }
+    }
+
+    @Test
+    void concurrentCallsShareOneLoad() throws Exception {
+        RedbitSingleFlight<String, String> singleFlight = new RedbitSingleFlight<>();
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            Future<String> leader = executor.submit(() -> singleFlight.execute("1", () -> {
+                loads.incrementAndGet();
+                loading.countDown();
+                release.await();
+                return "loaded";
+            }));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+            List<Thread> followers = new ArrayList<>();
+            List<String> results = new CopyOnWriteArrayList<>();
+            for (int i = 0; i < FOLLOWERS; i++) {
+                Thread follower = new Thread(() -> {
+                    try {
+                        results.add(singleFlight.execute("1", () -> {
+                            loads.incrementAndGet();
+                            return "own load";
+                        }));
+                    } catch (Exception exception) {
+                        results.add(exception.toString());
+                    }
+                });
+                follower.start();
+                followers.add(follower);
+            }
+            awaitWaiting(followers);
+
+            // Other keys are never held up by a running load
+            assertEquals("other", singleFlight.execute("2", () -> "other"));
+
+            release.countDown();
+            assertEquals("loaded", leader.get(5, TimeUnit.SECONDS));
+            for (Thread follower : followers) {
+                follower.join(5000);
+            }
+
+            assertEquals(FOLLOWERS, results.size());
+            for (String result : results) {
+                assertEquals("loaded", result);
+            }
+            assertEquals(1, loads.get());
+
+            // Finished calls are forgotten, the next one loads again
+            assertEquals("again", singleFlight.execute("1", () -> "again"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void failuresReachEveryWaitingCall() throws Exception {
+        RedbitSingleFlight<String, String> singleFlight = new RedbitSingleFlight<>();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            Future<String> leader = executor.submit(() -> singleFlight.execute("1", () -> {
+                loading.countDown();
+                release.await();
+                throw new IOException("database is down");
+            }));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+            List<Exception> failures = new CopyOnWriteArrayList<>();
+            Thread follower = new Thread(() -> {
+                try {
+                    singleFlight.execute("1", () -> "own load");
+                } catch (Exception exception) {
+                    failures.add(exception);
+                }
+            });
+            follower.start();
+            awaitWaiting(Collections.singletonList(follower));
+
+            release.countDown();
+            ExecutionException exception = assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IOException.class, exception.getCause());
+
+            follower.join(5000);
+            assertEquals(1, failures.size());
+            assertInstanceOf(IOException.class, failures.get(0));
+
+            assertEquals("recovered", singleFlight.execute("1", () -> "recovered"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+}
@@ -0,0 +1,152 @@
+package io.github.braayy.column;
+
+import io.github.braayy.struct.RedbitVolatileStruct;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.sql.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RedbitColumnCodecTest {
+
+    // Edge values of every type, a type added without samples fails samplesCoverEveryType
+    private static final Map<RedbitColumnType, List<Object>> SAMPLES = new EnumMap<>(RedbitColumnType.class);
+
+    static {
+        SAMPLES.put(RedbitColumnType.BYTE, Arrays.asList(Byte.MIN_VALUE, (byte) 0, (byte) 7, Byte.MAX_VALUE));
+        SAMPLES.put(RedbitColumnType.CHARACTER, Arrays.asList('a', 'Z', '0', '\u00e7', '\u2603'));
+        SAMPLES.put(RedbitColumnType.SHORT, Arrays.asList(Short.MIN_VALUE, (short) -1, (short) 0, Short.MAX_VALUE));
+        SAMPLES.put(RedbitColumnType.INTEGER, Arrays.asList(Integer.MIN_VALUE, -42, 0, Integer.MAX_VALUE));
+        SAMPLES.put(RedbitColumnType.LONG, Arrays.asList(Long.MIN_VALUE, -42L, 0L, Long.MAX_VALUE));
+        SAMPLES.put(RedbitColumnType.STRING, Arrays.asList("", "plain", "it's \"quoted\"", "a\u00e7\u00e3o \u2603", "a,b:c"));
+    }
+
+    private static final Map<RedbitColumnType, String> FIELDS = new EnumMap<>(RedbitColumnType.class);
+
+    static {
+        FIELDS.put(RedbitColumnType.BYTE, "byteValue");
+        FIELDS.put(RedbitColumnType.CHARACTER, "charValue");
+        FIELDS.put(RedbitColumnType.SHORT, "shortValue");
+        FIELDS.put(RedbitColumnType.INTEGER, "intValue");
+        FIELDS.put(RedbitColumnType.LONG, "longValue");
+        FIELDS.put(RedbitColumnType.STRING, "stringValue");
+    }
+
+    private static RedbitColumnCodec codec(RedbitColumnType type) throws Exception {
+        Field field = AllTypes.class.getDeclaredField(FIELDS.get(type));
+        RedbitColumnInfo columnInfo = new RedbitColumnInfo(field.getName(), field.getName(), "", "", false, false, true);
+
+        return RedbitColumnCodec.of(field, columnInfo);
+    }
+
+    @Test
+    void samplesCoverEveryType() {
+        assertEquals(EnumSet.allOf(RedbitColumnType.class), SAMPLES.keySet());
+        assertEquals(EnumSet.allOf(RedbitColumnType.class), FIELDS.keySet());
+    }
+
+    @Test
+    void fieldsResolveToTheirType() throws Exception {
+        for (RedbitColumnType type : RedbitColumnType.values()) {
+            assertEquals(type, codec(type).getType());
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> RedbitColumnType.fromClass(Double.class));
+    }
+
+    @Test
+    void stringEncodingRoundTrips() throws Exception {
+        for (RedbitColumnType type : RedbitColumnType.values()) {
+            RedbitColumnCodec codec = codec(type);
+            AllTypes struct = new AllTypes();
+
+            for (Object value : SAMPLES.get(type)) {
+                codec.set(struct, value);
+                assertEquals(value, codec.get(struct), type.name());
+                assertEquals(value, codec.decode(codec.encode(struct)), type.name());
+            }
+
+            codec.set(struct, null);
+            assertNull(codec.encode(struct), type.name());
+        }
+    }
+
+    @Test
+    void binaryEncodingRoundTrips() throws Exception {
+        for (RedbitColumnType type : RedbitColumnType.values()) {
+            RedbitColumnCodec codec = codec(type);
+
+            for (Object value : SAMPLES.get(type)) {
+                assertEquals(value, codec.decodeBinary(codec.encodeBinary(value)), type.name());
+            }
+
+            assertSame(RedbitColumnCodec.NULL_BINARY, codec.encodeBinary(null));
+        }
+
+        // Fixed width, so a stored value can be compared and incremented without decoding
+        assertEquals(Long.BYTES, codec(RedbitColumnType.LONG).encodeBinary(1L).length);
+        assertEquals(Integer.BYTES, codec(RedbitColumnType.INTEGER).encodeBinary(1).length);
+    }
+
+    @Test
+    void databaseBindingRoundTrips() throws Exception {
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:codec;MODE=MySQL")) {
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate("CREATE TABLE all_types (byteValue TINYINT, charValue CHAR(1), shortValue SMALLINT, intValue INT, longValue BIGINT, stringValue VARCHAR(64))");
+            }
+
+            RedbitColumnType[] types = RedbitColumnType.values();
+            for (int row = 0; row < 5; row++) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.executeUpdate("DELETE FROM all_types");
+                }
+
+                List<Object> values = new ArrayList<>();
+                try (PreparedStatement statement = connection.prepareStatement("INSERT INTO all_types VALUES (?, ?, ?, ?, ?, ?)")) {
+                    for (int i = 0; i < types.length; i++) {
+                        List<Object> samples = SAMPLES.get(types[i]);
+                        Object value = samples.get(row % samples.size());
+                        values.add(value);
+
+                        codec(types[i]).bind(statement, i + 1, value);
+                    }
+                    statement.executeUpdate();
+                }
+
+                try (Statement statement = connection.createStatement(); ResultSet set = statement.executeQuery("SELECT * FROM all_types")) {
+                    assertTrue(set.next());
+                    for (int i = 0; i < types.length; i++) {
+                        assertEquals(values.get(i), codec(types[i]).read(set, i + 1), types[i].name());
+                    }
+                }
+            }
+
+            try (PreparedStatement statement = connection.prepareStatement("UPDATE all_types SET intValue=?, stringValue=?")) {
+                codec(RedbitColumnType.INTEGER).bind(statement, 1, null);
+                codec(RedbitColumnType.STRING).bind(statement, 2, null);
+                statement.executeUpdate();
+            }
+
+            try (Statement statement = connection.createStatement(); ResultSet set = statement.executeQuery("SELECT intValue, stringValue FROM all_types")) {
+                assertTrue(set.next());
+                set.getInt(1);
+                assertTrue(set.wasNull());
+                assertNull(set.getString(2));
+            }
+        }
+    }
+
+    public static class AllTypes extends RedbitVolatileStruct {
+
+        Byte byteValue;
+        Character charValue;
+        Short shortValue;
+        Integer intValue;
+        Long longValue;
+        String stringValue;
+
+    }
+
+}
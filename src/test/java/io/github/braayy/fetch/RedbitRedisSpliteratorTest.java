@@ -0,0 +1,189 @@
+package io.github.braayy.fetch;
+
+import io.github.braayy.RedbitTestEnvironment;
+import io.github.braayy.column.RedbitColumn;
+import io.github.braayy.struct.RedbitCompact;
+import io.github.braayy.struct.RedbitStruct;
+import io.github.braayy.struct.RedbitVolatileStruct;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import redis.clients.jedis.Jedis;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RedbitRedisSpliteratorTest {
+
+    private static final int ROWS = 500;
+    // Far below the amount of rows, so every stream goes through many prefetched pages
+    private static final int SCAN_COUNT = 16;
+
+    private static Jedis jedis;
+
+    @BeforeAll
+    static void start() throws IOException {
+        Map<String, Class<? extends RedbitStruct>> structs = new LinkedHashMap<>();
+        structs.put("streamed_player", StreamedPlayer.class);
+        structs.put("streamed_compact_player", StreamedCompactPlayer.class);
+
+        jedis = RedbitTestEnvironment.start(46412, structs, config -> config.setScanCount(SCAN_COUNT));
+
+        List<StreamedPlayer> players = new ArrayList<>();
+        List<StreamedCompactPlayer> compactPlayers = new ArrayList<>();
+        for (int id = 1; id <= ROWS; id++) {
+            players.add(new StreamedPlayer(id));
+            compactPlayers.add(new StreamedCompactPlayer(id));
+        }
+        assertTrue(StreamedPlayer.insertAll(players, false));
+        assertTrue(StreamedCompactPlayer.insertAll(compactPlayers, false));
+
+        // Shares the prefix of a struct key but belongs to no struct
+        jedis.hset("streamed_player_other:1", "name", "other");
+    }
+
+    @AfterAll
+    static void stop() throws IOException {
+        RedbitTestEnvironment.stop();
+    }
+
+    private static void assertStreamsEveryRowOnce(Stream<? extends Player> stream) {
+        List<? extends Player> players;
+        try (Stream<? extends Player> closing = stream) {
+            players = closing.collect(Collectors.toList());
+        }
+
+        Set<Integer> ids = new HashSet<>();
+        for (Player player : players) {
+            assertTrue(ids.add(player.getId()), "streamed twice " + player.getId());
+            assertEquals("p" + player.getId(), player.getName());
+            assertEquals(player.getId() * 10L, player.getCoins());
+        }
+        assertEquals(ROWS, ids.size());
+    }
+
+    @Test
+    void streamsEveryRowOnce() {
+        assertStreamsEveryRowOnce(StreamedPlayer.streamAll(StreamedPlayer.class));
+        assertStreamsEveryRowOnce(StreamedCompactPlayer.streamAll(StreamedCompactPlayer.class));
+    }
+
+    @Test
+    void parallelStreamsSplitByPage() {
+        assertStreamsEveryRowOnce(StreamedPlayer.streamAll(StreamedPlayer.class, 8).parallel());
+        assertStreamsEveryRowOnce(StreamedCompactPlayer.streamAll(StreamedCompactPlayer.class, 8).parallel());
+    }
+
+    @Test
+    void streamsClosedEarlyLeaveLaterStreamsIntact() {
+        try (Stream<StreamedPlayer> stream = StreamedPlayer.streamAll(StreamedPlayer.class)) {
+            assertEquals(5, stream.limit(5).count());
+        }
+
+        assertStreamsEveryRowOnce(StreamedPlayer.streamAll(StreamedPlayer.class));
+    }
+
+    @Test
+    void fetchAllReadsEveryRow() {
+        StreamedCompactPlayer player = new StreamedCompactPlayer();
+        Set<Integer> ids = new HashSet<>();
+        try (RedbitRedisFetch fetch = player.fetchAll()) {
+            assertNotNull(fetch);
+
+            RedbitFetch.Result result;
+            while ((result = fetch.next()) != RedbitFetch.Result.COMPLETE) {
+                assertEquals(RedbitFetch.Result.FOUND, result);
+                assertEquals(player.id * 10L, player.coins);
+                ids.add(player.id);
+            }
+        }
+
+        assertEquals(ROWS, ids.size());
+    }
+
+    interface Player {
+
+        int getId();
+
+        String getName();
+
+        long getCoins();
+
+    }
+
+    public static class StreamedPlayer extends RedbitVolatileStruct implements Player {
+
+        @RedbitColumn(sqlType = "INT", idColumn = true)
+        Integer id;
+        @RedbitColumn(sqlType = "VARCHAR", length = 16)
+        String name;
+        @RedbitColumn(sqlType = "BIGINT")
+        Long coins;
+
+        public StreamedPlayer() {
+        }
+
+        StreamedPlayer(int id) {
+            this.id = id;
+            this.name = "p" + id;
+            this.coins = id * 10L;
+        }
+
+        @Override
+        public int getId() {
+            return id;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public long getCoins() {
+            return coins;
+        }
+
+    }
+
+    @RedbitCompact
+    public static class StreamedCompactPlayer extends RedbitVolatileStruct implements Player {
+
+        @RedbitColumn(sqlType = "INT", idColumn = true)
+        Integer id;
+        @RedbitColumn(sqlType = "VARCHAR", length = 16)
+        String name;
+        @RedbitColumn(sqlType = "BIGINT")
+        Long coins;
+
+        public StreamedCompactPlayer() {
+        }
+
+        StreamedCompactPlayer(int id) {
+            this.id = id;
+            this.name = "p" + id;
+            this.coins = id * 10L;
+        }
+
+        @Override
+        public int getId() {
+            return id;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public long getCoins() {
+            return coins;
+        }
+
+    }
+
+}
@@ -0,0 +1,170 @@
+package io.github.braayy.index;
+
+import io.github.braayy.RedbitTestEnvironment;
+import io.github.braayy.column.RedbitColumn;
+import io.github.braayy.struct.RedbitCompact;
+import io.github.braayy.struct.RedbitStruct;
+import io.github.braayy.struct.RedbitVolatileStruct;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import redis.clients.jedis.Jedis;
+
+import java.io.IOException;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RedbitIndexTest {
+
+    private static Jedis jedis;
+
+    @BeforeAll
+    static void start() throws IOException {
+        Map<String, Class<? extends RedbitStruct>> structs = new LinkedHashMap<>();
+        structs.put("indexed_player", IndexedPlayer.class);
+        structs.put("compact_indexed_player", CompactIndexedPlayer.class);
+
+        jedis = RedbitTestEnvironment.start(46402, structs, config -> {});
+    }
+
+    @AfterAll
+    static void stop() throws IOException {
+        RedbitTestEnvironment.stop();
+    }
+
+    private static Set<Integer> ids(List<? extends IndexedPlayer> players) {
+        Set<Integer> ids = new HashSet<>();
+        for (IndexedPlayer player : players) {
+            ids.add(player.id);
+        }
+
+        return ids;
+    }
+
+    @Test
+    void writesKeepEntriesInSync() {
+        List<IndexedPlayer> players = new ArrayList<>();
+        for (int id = 1; id <= 8; id++) {
+            players.add(new IndexedPlayer(id, "guild" + (id % 2)));
+        }
+        assertTrue(IndexedPlayer.insertAll(players));
+        assertEquals(new HashSet<>(Arrays.asList(1, 3, 5, 7)), ids(IndexedPlayer.fetchByIndex(IndexedPlayer.class, "guild", "guild1")));
+
+        IndexedPlayer player = players.get(0);
+        player.guild = "moved";
+        player.coins = 1000L;
+        assertTrue(player.update());
+        assertEquals(Collections.singleton(1), ids(IndexedPlayer.fetchByIndex(IndexedPlayer.class, "guild", "moved")));
+        assertFalse(ids(IndexedPlayer.fetchByIndex(IndexedPlayer.class, "guild", "guild1")).contains(1));
+
+        List<IndexedPlayer> top = IndexedPlayer.fetchByIndexRange(IndexedPlayer.class, "coins", 0, Double.POSITIVE_INFINITY, 0, 1, true);
+        assertEquals(1, top.get(0).id);
+
+        assertTrue(players.get(1).deleteById());
+        assertNull(jedis.zscore("redbit:index:{indexed_player}:coins", "2"));
+        assertFalse(ids(IndexedPlayer.fetchByIndex(IndexedPlayer.class, "guild", "guild0")).contains(2));
+    }
+
+    @Test
+    void concurrentIncrementsKeepScore() throws InterruptedException {
+        new IndexedPlayer(20, "g").insert();
+
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 25; j++) {
+                    IndexedPlayer player = new IndexedPlayer();
+                    player.id = 20;
+                    player.increment("coins", 1);
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(300.0, jedis.zscore("redbit:index:{indexed_player}:coins", "20"));
+        assertEquals("300", jedis.hget("indexed_player:20", "coins"));
+    }
+
+    @Test
+    void compareAndSetMovesEntries() {
+        IndexedPlayer player = new IndexedPlayer(30, null);
+        player.insert();
+
+        assertTrue(player.compareAndSet("guild", null, "cas"));
+        assertEquals(Collections.singleton(30), ids(IndexedPlayer.fetchByIndex(IndexedPlayer.class, "guild", "cas")));
+
+        assertTrue(player.compareAndSet("guild", "cas", null));
+        assertTrue(IndexedPlayer.fetchByIndex(IndexedPlayer.class, "guild", "cas").isEmpty());
+        assertNull(jedis.hget("redbit:index:{indexed_player}:guild:values", "30"));
+    }
+
+    @Test
+    void compactIncrementsScoreNegativeValues() {
+        CompactIndexedPlayer player = new CompactIndexedPlayer(1);
+        assertTrue(player.insert());
+        assertEquals(10.0, jedis.zscore("redbit:index:{compact_indexed_player}:coins", "1"));
+
+        assertEquals(-15L, player.increment("coins", -25));
+        assertEquals(-15.0, jedis.zscore("redbit:index:{compact_indexed_player}:coins", "1"));
+
+        List<CompactIndexedPlayer> found = CompactIndexedPlayer.fetchByIndex(CompactIndexedPlayer.class, "guild", "g1");
+        assertEquals(1, found.size());
+
+        assertTrue(player.deleteById());
+        assertNull(jedis.zscore("redbit:index:{compact_indexed_player}:coins", "1"));
+    }
+
+    @Test
+    void deleteAllClearsIndexes() {
+        new CompactIndexedPlayer(50).insert();
+        assertTrue(new CompactIndexedPlayer().deleteAll(false));
+
+        assertTrue(jedis.keys("redbit:index:{compact_indexed_player}:*").isEmpty());
+    }
+
+    public static class IndexedPlayer extends RedbitVolatileStruct {
+
+        @RedbitColumn(sqlType = "INT", idColumn = true)
+        Integer id;
+        @RedbitColumn(sqlType = "VARCHAR", length = 32, nullable = true, indexed = true)
+        String guild;
+        @RedbitColumn(sqlType = "BIGINT", indexed = true)
+        Long coins;
+
+        public IndexedPlayer() {
+        }
+
+        IndexedPlayer(int id, String guild) {
+            this.id = id;
+            this.guild = guild;
+            this.coins = id * 10L;
+        }
+
+    }
+
+    @RedbitCompact
+    public static class CompactIndexedPlayer extends RedbitVolatileStruct {
+
+        @RedbitColumn(sqlType = "INT", idColumn = true)
+        Integer id;
+        @RedbitColumn(sqlType = "VARCHAR", length = 32, nullable = true, indexed = true)
+        String guild;
+        @RedbitColumn(sqlType = "BIGINT", indexed = true)
+        Long coins;
+
+        public CompactIndexedPlayer() {
+        }
+
+        CompactIndexedPlayer(int id) {
+            this.id = id;
+            this.guild = "g" + (id % 2);
+            this.coins = id * 10L;
+        }
+
+    }
+
+}
@@ -0,0 +1,68 @@
+package io.github.braayy.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RedbitHistogramTest {
+
+    @Test
+    void emptyHistogramsReportZero() {
+        RedbitHistogram histogram = new RedbitHistogram();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMean());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getPercentile99());
+    }
+
+    @Test
+    void countMeanAndMaxAreExact() {
+        RedbitHistogram histogram = new RedbitHistogram();
+        for (int value = 1; value <= 100; value++) {
+            histogram.record(value);
+        }
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(50.5, histogram.getMean());
+        assertEquals(100, histogram.getMax());
+    }
+
+    @Test
+    void percentilesAreBucketUpperBounds() {
+        RedbitHistogram histogram = new RedbitHistogram();
+        for (int i = 0; i < 990; i++) {
+            histogram.record(10);
+        }
+        for (int i = 0; i < 10; i++) {
+            histogram.record(5000);
+        }
+
+        // 10 lands in [8, 16), 5000 in [4096, 8192)
+        assertEquals(15, histogram.getPercentile50());
+        assertEquals(15, histogram.getPercentile99());
+        assertEquals(5000, histogram.getPercentile999());
+        assertEquals(5000, histogram.percentile(1));
+    }
+
+    @Test
+    void negativeValuesCountAsZero() {
+        RedbitHistogram histogram = new RedbitHistogram();
+        histogram.record(-5);
+        histogram.record(0);
+
+        assertEquals(2, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getPercentile50());
+    }
+
+    @Test
+    void largeValuesAreRecorded() {
+        RedbitHistogram histogram = new RedbitHistogram();
+        histogram.record(Long.MAX_VALUE);
+
+        assertEquals(Long.MAX_VALUE, histogram.getMax());
+        assertEquals(Long.MAX_VALUE, histogram.getPercentile50());
+    }
+
+}
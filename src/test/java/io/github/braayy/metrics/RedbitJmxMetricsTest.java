@@ -0,0 +1,207 @@
+package io.github.braayy.metrics;
+
+import io.github.braayy.Redbit;
+import io.github.braayy.RedbitTestEnvironment;
+import io.github.braayy.column.RedbitColumn;
+import io.github.braayy.fetch.RedbitFetch;
+import io.github.braayy.struct.RedbitStruct;
+import io.github.braayy.struct.RedbitSyncPolicy;
+import io.github.braayy.struct.RedbitVolatileStruct;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import redis.clients.jedis.Jedis;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static io.github.braayy.RedbitTestEnvironment.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RedbitJmxMetricsTest {
+
+    private static final String DOMAIN = "io.github.braayy.redbit:";
+
+    // A server of its own, so nothing registered here leaks into other tests of the fork
+    private static final MBeanServer server = MBeanServerFactory.newMBeanServer();
+    private static RedbitJmxMetrics metrics;
+    private static Jedis jedis;
+
+    @BeforeAll
+    static void start() throws IOException {
+        Map<String, Class<? extends RedbitStruct>> structs = new LinkedHashMap<>();
+        structs.put("measured_player", MeasuredPlayer.class);
+        structs.put("pending_player", PendingPlayer.class);
+
+        metrics = new RedbitJmxMetrics(server);
+        jedis = RedbitTestEnvironment.start(46418, structs, config -> config.setMetrics(metrics));
+    }
+
+    @AfterAll
+    static void stop() throws IOException {
+        RedbitTestEnvironment.stop();
+        metrics.unregister();
+    }
+
+    private static Object attribute(String properties, String attribute) throws JMException {
+        return server.getAttribute(new ObjectName(DOMAIN + properties), attribute);
+    }
+
+    private static boolean registered(String properties) {
+        try {
+            return server.isRegistered(new ObjectName(DOMAIN + properties));
+        } catch (JMException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    private static long count(String properties) throws JMException {
+        return (Long) attribute(properties, "Count");
+    }
+
+    // MXBeans hand maps out as open data tables of key and value rows
+    private static long entry(String properties, String attribute, String key) throws JMException {
+        if (!registered(properties)) return 0;
+
+        TabularData table = (TabularData) attribute(properties, attribute);
+        CompositeData row = table.get(new Object[] { key });
+        return row != null ? (Long) row.get("value") : 0;
+    }
+
+    private static RedbitFetch.Result fetch(int id) {
+        MeasuredPlayer player = new MeasuredPlayer();
+        player.id = id;
+        return player.fetchById();
+    }
+
+    @Test
+    void fetchSourcesAreCounted() throws JMException {
+        String stats = "type=Struct,struct=measured_player";
+
+        assertTrue(new MeasuredPlayer(1).insert());
+        long redis = entry(stats, "Fetches", "REDIS");
+        assertEquals(RedbitFetch.Result.FOUND, fetch(1));
+        assertEquals(redis + 1, entry(stats, "Fetches", "REDIS"));
+
+        await("insert synchronized", () -> "p1".equals(RedbitTestEnvironment.queryString("SELECT name FROM measured_player WHERE id=1")));
+        jedis.del("measured_player:1");
+        long database = entry(stats, "Fetches", "DATABASE");
+        assertEquals(RedbitFetch.Result.FOUND, fetch(1));
+        assertEquals(database + 1, entry(stats, "Fetches", "DATABASE"));
+
+        long missing = entry(stats, "Fetches", "MISSING");
+        assertEquals(RedbitFetch.Result.COMPLETE, fetch(404));
+        assertEquals(missing + 1, entry(stats, "Fetches", "MISSING"));
+
+        double hitRatio = (Double) attribute(stats, "HitRatio");
+        assertTrue(hitRatio > 0 && hitRatio < 1);
+    }
+
+    @Test
+    void callLatenciesArePublishedPerOperation() throws JMException {
+        assertTrue(new MeasuredPlayer(2).insert(false));
+        assertEquals(RedbitFetch.Result.FOUND, fetch(2));
+        assertEquals(RedbitFetch.Result.COMPLETE, fetch(405));
+
+        String redisFetch = "type=Redis,struct=measured_player,operation=fetchById";
+        assertTrue(count(redisFetch) >= 2);
+        assertTrue((Long) attribute(redisFetch, "Max") >= (Long) attribute(redisFetch, "Percentile50"));
+
+        assertTrue(count("type=Sql,struct=measured_player,operation=fetchById") >= 1);
+        assertTrue(registered("type=PoolWait,pool=" + ObjectName.quote("Redbit Primary Pool")));
+    }
+
+    @Test
+    void synchronizationsArePublished() throws JMException {
+        String batchSize = "type=SyncBatchSize,struct=measured_player";
+        for (int id = 10; id < 15; id++) {
+            assertTrue(new MeasuredPlayer(id).insert());
+        }
+
+        await("synchronization recorded", () -> registered(batchSize));
+        assertTrue(count(batchSize) > 0);
+        assertTrue((Long) attribute(batchSize, "Max") >= 1);
+        assertTrue(count("type=SyncLatency,struct=measured_player") > 0);
+    }
+
+    @Test
+    void pendingChangesAreGauged() throws JMException {
+        PendingPlayer player = new PendingPlayer();
+        player.id = 1;
+        player.coins = 1L;
+        assertTrue(player.insert());
+
+        assertTrue((Long) attribute("type=Synchronizer", "PendingCount") >= 1);
+        await("pending age grows", () -> {
+            try {
+                return (Long) attribute("type=Synchronizer", "PendingAgeMillis") >= 50;
+            } catch (JMException exception) {
+                throw new IllegalStateException(exception);
+            }
+        });
+    }
+
+    @Test
+    void errorsAreCountedPerOperation() throws JMException {
+        String stats = "type=Struct,struct=measured_player";
+        long errors = entry(stats, "Errors", "insert");
+
+        MeasuredPlayer player = new MeasuredPlayer(3);
+        player.name = null;
+        assertFalse(player.insert());
+        assertFalse(player.insert());
+
+        assertEquals(errors + 2, entry(stats, "Errors", "insert"));
+    }
+
+    @Test
+    void unregisterRemovesEveryBean() throws JMException {
+        MBeanServer otherServer = MBeanServerFactory.newMBeanServer();
+        RedbitJmxMetrics other = new RedbitJmxMetrics(otherServer);
+        other.redisCall(null, "insertAll", 2000);
+        other.error(null, "insertAll");
+
+        // Calls covering several structs are published under a struct of their own
+        ObjectName mixed = new ObjectName(DOMAIN + "type=Redis,struct=mixed,operation=insertAll");
+        assertEquals(1L, otherServer.getAttribute(mixed, "Count"));
+        assertEquals(3, otherServer.queryNames(new ObjectName(DOMAIN + "*"), null).size());
+
+        other.unregister();
+        assertTrue(otherServer.queryNames(new ObjectName(DOMAIN + "*"), null).isEmpty());
+    }
+
+    public static class MeasuredPlayer extends RedbitVolatileStruct {
+
+        @RedbitColumn(sqlType = "INT", idColumn = true)
+        Integer id;
+        @RedbitColumn(sqlType = "VARCHAR", length = 16)
+        String name;
+
+        public MeasuredPlayer() {
+        }
+
+        MeasuredPlayer(int id) {
+            this.id = id;
+            this.name = "p" + id;
+        }
+
+    }
+
+    @RedbitSyncPolicy(interval = 3600000)
+    public static class PendingPlayer extends RedbitVolatileStruct {
+
+        @RedbitColumn(sqlType = "INT", idColumn = true)
+        Integer id;
+        @RedbitColumn(sqlType = "BIGINT")
+        Long coins;
+
+    }
+
+}
@@ -0,0 +1,161 @@
+package io.github.braayy.query;
+
+import io.github.braayy.Redbit;
+import io.github.braayy.RedbitQuery;
+import io.github.braayy.RedbitTestEnvironment;
+import io.github.braayy.column.RedbitColumn;
+import io.github.braayy.fetch.RedbitFetch;
+import io.github.braayy.struct.RedbitStruct;
+import io.github.braayy.struct.RedbitSyncPolicy;
+import io.github.braayy.struct.RedbitVolatileStruct;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.*;
+
+import static io.github.braayy.RedbitTestEnvironment.count;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RedbitCriteriaTest {
+
+    @BeforeAll
+    static void start() throws IOException {
+        Map<String, Class<? extends RedbitStruct>> structs = new LinkedHashMap<>();
+        structs.put("criteria_player", CriteriaPlayer.class);
+
+        RedbitTestEnvironment.start(46406, structs, config -> {});
+    }
+
+    @AfterAll
+    static void stop() throws IOException {
+        RedbitTestEnvironment.stop();
+    }
+
+    // Stands for a row some earlier synchronization wrote, redis does not have it yet
+    private static void insertRow(int id, String guild, int level, long coins) {
+        try (RedbitQuery query = Redbit.sqlQuery("INSERT INTO criteria_player VALUES (" + id + ", '" + guild + "', " + level + ", " + coins + ")")) {
+            query.executeUpdate();
+        } catch (SQLException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    private static CriteriaPlayer load(int id) {
+        CriteriaPlayer player = new CriteriaPlayer();
+        player.id = id;
+        assertEquals(RedbitFetch.Result.FOUND, player.fetchById());
+
+        return player;
+    }
+
+    private static List<Integer> ids(List<CriteriaPlayer> players) {
+        List<Integer> ids = new ArrayList<>();
+        for (CriteriaPlayer player : players) {
+            ids.add(player.id);
+        }
+
+        return ids;
+    }
+
+    @Test
+    void unindexedCriteriaSeeRowsThatWereNotSynchronized() {
+        for (int id = 1; id <= 4; id++) {
+            insertRow(id, "a", 1, id * 10L);
+        }
+        assertTrue(new CriteriaPlayer(5, "a", 1, 50).insert());
+
+        CriteriaPlayer moved = load(2);
+        moved.level = 2;
+        assertTrue(moved.update());
+        assertTrue(load(3).deleteById());
+
+        List<Integer> found = ids(CriteriaPlayer.fetchMatching(CriteriaPlayer.class, RedbitCriteria.where().eq("level", 1)));
+        assertEquals(new HashSet<>(Arrays.asList(1, 4, 5)), new HashSet<>(found));
+        assertEquals(Collections.singletonList(2), ids(CriteriaPlayer.fetchMatching(CriteriaPlayer.class, RedbitCriteria.where().eq("level", 2))));
+    }
+
+    @Test
+    void unindexedPagesKeepTheOrderOfPendingRows() {
+        for (int id = 10; id <= 14; id++) {
+            insertRow(id, "b", 7, id);
+        }
+
+        CriteriaPlayer richest = load(10);
+        richest.coins = 1000L;
+        assertTrue(richest.update());
+
+        RedbitCriteria criteria = RedbitCriteria.where().eq("level", 7).orderBy("coins", true);
+        assertEquals(Arrays.asList(10, 14), ids(CriteriaPlayer.fetchMatching(CriteriaPlayer.class, criteria.limit(2))));
+        assertEquals(Arrays.asList(14, 13), ids(CriteriaPlayer.fetchMatching(CriteriaPlayer.class, criteria.limit(1, 2))));
+    }
+
+    @Test
+    void indexedCriteriaUseTheIndex() {
+        assertTrue(new CriteriaPlayer(20, "c", 3, 200).insert());
+        assertTrue(new CriteriaPlayer(21, "c", 4, 210).insert());
+        assertTrue(new CriteriaPlayer(22, "d", 3, 220).insert());
+
+        List<Integer> found = ids(CriteriaPlayer.fetchMatching(CriteriaPlayer.class, RedbitCriteria.where().eq("guild", "c")));
+        assertEquals(new HashSet<>(Arrays.asList(20, 21)), new HashSet<>(found));
+
+        CriteriaPlayer moved = load(21);
+        moved.guild = "d";
+        assertTrue(moved.update());
+        assertEquals(Collections.singletonList(20), ids(CriteriaPlayer.fetchMatching(CriteriaPlayer.class, RedbitCriteria.where().eq("guild", "c"))));
+    }
+
+    @Test
+    void databaseCriteriaDeleteWithAndWithoutIndex() throws Exception {
+        for (int id = 30; id <= 35; id++) {
+            insertRow(id, id % 2 == 0 ? "e" : "f", 9, id);
+        }
+
+        assertTrue(new CriteriaPlayer().deleteMatching(RedbitCriteria.where().eq("guild", "e").eq("level", 9)));
+        assertTrue(new CriteriaPlayer().deleteMatching(RedbitCriteria.where().atLeast("coins", 35)));
+        assertFalse(new CriteriaPlayer().deleteMatching(RedbitCriteria.where().limit(1)));
+
+        int found = 0;
+        try (RedbitFetch fetch = new CriteriaPlayer().fetchMatching(RedbitCriteria.where().eq("level", 9).select("id"))) {
+            assertNotNull(fetch);
+            while (fetch.next() == RedbitFetch.Result.FOUND) found++;
+        }
+        assertEquals(2, found);
+
+        // The string overloads still take a null where clause
+        int all = 0;
+        try (RedbitFetch fetch = new CriteriaPlayer().fetchWhere(null)) {
+            assertNotNull(fetch);
+            while (fetch.next() == RedbitFetch.Result.FOUND) all++;
+        }
+        assertEquals(count("criteria_player"), all);
+    }
+
+    // Never synchronized while the tests run, so every write stays pending
+    @RedbitSyncPolicy(interval = 3600000)
+    public static class CriteriaPlayer extends RedbitVolatileStruct {
+
+        @RedbitColumn(sqlType = "INT", idColumn = true)
+        Integer id;
+        @RedbitColumn(sqlType = "VARCHAR", length = 16, indexed = true)
+        String guild;
+        @RedbitColumn(sqlType = "INT")
+        Integer level;
+        @RedbitColumn(sqlType = "BIGINT")
+        Long coins;
+
+        public CriteriaPlayer() {
+        }
+
+        CriteriaPlayer(int id, String guild, int level, long coins) {
+            this.id = id;
+            this.guild = guild;
+            this.level = level;
+            this.coins = coins;
+        }
+
+    }
+
+}
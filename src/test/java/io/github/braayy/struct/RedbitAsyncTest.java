@@ -0,0 +1,212 @@
+package io.github.braayy.struct;
+
+import io.github.braayy.Redbit;
+import io.github.braayy.RedbitTestEnvironment;
+import io.github.braayy.column.RedbitColumn;
+import io.github.braayy.fetch.RedbitFetch;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import redis.clients.jedis.Jedis;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static io.github.braayy.RedbitTestEnvironment.await;
+import static io.github.braayy.RedbitTestEnvironment.queryString;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RedbitAsyncTest {
+
+    private static Jedis jedis;
+
+    @BeforeAll
+    static void start() throws IOException {
+        Map<String, Class<? extends RedbitStruct>> structs = new LinkedHashMap<>();
+        structs.put("async_player", AsyncPlayer.class);
+        structs.put("async_plain_player", AsyncPlainPlayer.class);
+
+        // A small bounded pool, so the async calls below have to queue behind each other
+        jedis = RedbitTestEnvironment.start(46414, structs, config -> {
+            config.setAsyncVirtualThreads(false);
+            config.setAsyncThreads(2);
+        });
+    }
+
+    @AfterAll
+    static void stop() throws IOException {
+        RedbitTestEnvironment.stop();
+    }
+
+    private static <T> T join(CompletableFuture<T> future) throws Exception {
+        return future.get(5, TimeUnit.SECONDS);
+    }
+
+    private static int databaseCount(String table, int from, int to) {
+        return Integer.parseInt(queryString("SELECT COUNT(*) FROM " + table + " WHERE id BETWEEN " + from + " AND " + to));
+    }
+
+    @Test
+    void writesCompleteWithTheirResult() throws Exception {
+        AsyncPlayer player = new AsyncPlayer(1);
+        assertTrue(join(player.insertAsync(false)));
+        assertEquals("p1", jedis.hget("async_player:1", "name"));
+
+        player.name = "updated";
+        assertTrue(join(player.updateAsync(false)));
+        assertEquals("updated", jedis.hget("async_player:1", "name"));
+
+        assertEquals(15L, join(player.incrementAsync("coins", 5)));
+        assertTrue(join(player.compareAndSetAsync("coins", 15L, 20L)));
+        assertFalse(join(player.compareAndSetAsync("coins", 15L, 30L)));
+        assertEquals("20", jedis.hget("async_player:1", "coins"));
+
+        assertTrue(join(player.deleteByIdAsync(false)));
+        assertFalse(jedis.exists("async_player:1"));
+    }
+
+    @Test
+    void fetchesCompleteWithTheFetchedValues() throws Exception {
+        assertTrue(new AsyncPlayer(2).insert(false));
+
+        AsyncPlayer player = new AsyncPlayer();
+        player.id = 2;
+        assertEquals(RedbitFetch.Result.FOUND, join(player.fetchByIdAsync()));
+        assertEquals("p2", player.name);
+        assertEquals(10L, player.coins);
+
+        AsyncPlayer fields = new AsyncPlayer();
+        fields.id = 2;
+        assertEquals(RedbitFetch.Result.FOUND, join(fields.fetchFieldsAsync("coins")));
+        assertEquals(10L, fields.coins);
+        assertNull(fields.name);
+
+        AsyncPlayer missing = new AsyncPlayer();
+        missing.id = 3;
+        assertEquals(RedbitFetch.Result.COMPLETE, join(missing.fetchByIdAsync()));
+    }
+
+    @Test
+    void concurrentFetchesAreAllAnswered() throws Exception {
+        List<AsyncPlayer> inserted = new ArrayList<>();
+        for (int id = 100; id < 300; id++) {
+            inserted.add(new AsyncPlayer(id));
+        }
+        assertTrue(AsyncPlayer.insertAll(inserted, false));
+
+        // Far more reads than async threads, they only get through by sharing pipelines
+        List<AsyncPlayer> players = new ArrayList<>();
+        List<CompletableFuture<RedbitFetch.Result>> results = new ArrayList<>();
+        for (int id = 100; id < 300; id++) {
+            AsyncPlayer player = new AsyncPlayer();
+            player.id = id;
+            players.add(player);
+            results.add(player.fetchByIdAsync());
+        }
+
+        for (int i = 0; i < players.size(); i++) {
+            assertEquals(RedbitFetch.Result.FOUND, join(results.get(i)));
+            assertEquals("p" + players.get(i).id, players.get(i).name);
+        }
+    }
+
+    @Test
+    void databaseStructsRunAsync() throws Exception {
+        AsyncPlainPlayer player = new AsyncPlainPlayer(1);
+        assertTrue(join(player.insertAsync()));
+        assertTrue(join(new AsyncPlainPlayer(2).insertAsync()));
+
+        AsyncPlainPlayer fetched = new AsyncPlainPlayer();
+        fetched.id = 1;
+        assertEquals(RedbitFetch.Result.FOUND, join(fetched.fetchByIdAsync()));
+        assertEquals("p1", fetched.name);
+
+        AsyncPlainPlayer matched = new AsyncPlainPlayer();
+        Set<Integer> ids = new HashSet<>();
+        try (RedbitFetch fetch = join(matched.fetchWhereAsync("coins >= 10"))) {
+            assertNotNull(fetch);
+            while (fetch.next() == RedbitFetch.Result.FOUND) {
+                ids.add(matched.id);
+            }
+        }
+        assertEquals(new HashSet<>(Arrays.asList(1, 2)), ids);
+
+        assertTrue(join(player.deleteByIdAsync()));
+        assertEquals(RedbitFetch.Result.COMPLETE, join(fetched.fetchByIdAsync()));
+    }
+
+    @Test
+    void stopWaitsForPendingAsyncWrites() throws Exception {
+        List<CompletableFuture<Boolean>> writes = new ArrayList<>();
+        for (int id = 1000; id < 1100; id++) {
+            writes.add(new AsyncPlayer(id).insertAsync(true));
+        }
+
+        Redbit.stop();
+        for (CompletableFuture<Boolean> write : writes) {
+            assertTrue(write.isDone());
+            assertTrue(join(write));
+        }
+
+        Redbit.init(Redbit.getConfig());
+        assertEquals(100, databaseCount("async_player", 1000, 1099));
+        assertEquals("p1099", jedis.hget("async_player:1099", "name"));
+    }
+
+    @Test
+    void deleteAllAsyncClearsEveryRow() throws Exception {
+        List<AsyncPlayer> inserted = new ArrayList<>();
+        for (int id = 2000; id < 2010; id++) {
+            inserted.add(new AsyncPlayer(id));
+        }
+        assertTrue(AsyncPlayer.insertAll(inserted, true));
+        await("rows synchronized", () -> databaseCount("async_player", 2000, 2009) == 10);
+
+        assertTrue(join(new AsyncPlayer().deleteAllAsync(true)));
+        assertFalse(jedis.exists("async_player:2000"));
+        await("rows deleted", () -> databaseCount("async_player", 0, Integer.MAX_VALUE) == 0);
+    }
+
+    public static class AsyncPlayer extends RedbitVolatileStruct {
+
+        @RedbitColumn(sqlType = "INT", idColumn = true)
+        Integer id;
+        @RedbitColumn(sqlType = "VARCHAR", length = 16)
+        String name;
+        @RedbitColumn(sqlType = "BIGINT", defaultValue = "0")
+        Long coins;
+
+        public AsyncPlayer() {
+        }
+
+        AsyncPlayer(int id) {
+            this.id = id;
+            this.name = "p" + id;
+            this.coins = 10L;
+        }
+
+    }
+
+    public static class AsyncPlainPlayer extends RedbitStruct {
+
+        @RedbitColumn(sqlType = "INT", idColumn = true)
+        Integer id;
+        @RedbitColumn(sqlType = "VARCHAR", length = 16)
+        String name;
+        @RedbitColumn(sqlType = "BIGINT", defaultValue = "0")
+        Long coins;
+
+        public AsyncPlainPlayer() {
+        }
+
+        AsyncPlainPlayer(int id) {
+            this.id = id;
+            this.name = "p" + id;
+            this.coins = id * 10L;
+        }
+
+    }
+
+}
@@ -0,0 +1,179 @@
+package io.github.braayy.struct;
+
+import io.github.braayy.Redbit;
+import io.github.braayy.RedbitTestEnvironment;
+import io.github.braayy.column.RedbitColumn;
+import io.github.braayy.fetch.RedbitFetch;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.util.SafeEncoder;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static io.github.braayy.RedbitTestEnvironment.await;
+import static io.github.braayy.RedbitTestEnvironment.queryString;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RedbitCompactTest {
+
+    // Fields are laid out by name, whatever order they are declared in
+    private static final String SCHEMA = "coins:LONG,level:INTEGER,name:STRING,title:STRING";
+    private static final String SCHEMA_KEY = String.format(Redbit.SCHEMA_KEY_FORMAT, "compact_player");
+
+    private static Jedis jedis;
+
+    @BeforeAll
+    static void start() throws IOException {
+        Map<String, Class<? extends RedbitStruct>> structs = new LinkedHashMap<>();
+        structs.put("compact_player", CompactPlayer.class);
+
+        // Hashes written before title and name were appended are still readable
+        jedis = RedbitTestEnvironment.start(46408, structs, config -> {
+            try (Jedis seed = new Jedis(config.getRedisHost(), config.getRedisPort())) {
+                seed.set(SCHEMA_KEY, "coins:LONG,level:INTEGER");
+            }
+        });
+    }
+
+    @AfterAll
+    static void stop() throws IOException {
+        RedbitTestEnvironment.stop();
+    }
+
+    private static CompactPlayer fetch(int id) {
+        CompactPlayer player = new CompactPlayer();
+        player.id = id;
+        assertEquals(RedbitFetch.Result.FOUND, player.fetchById());
+
+        return player;
+    }
+
+    private static byte[] key(int id) {
+        return SafeEncoder.encode("compact_player:" + id);
+    }
+
+    @Test
+    void schemaIsStoredOnInit() {
+        assertEquals(SCHEMA, Redbit.getStructRegistry().getStructInfo(CompactPlayer.class).getCodec().getBinarySchema());
+        assertEquals(SCHEMA, jedis.get(SCHEMA_KEY));
+    }
+
+    @Test
+    void fieldsAreStoredUnderTheirColumnPosition() {
+        assertTrue(new CompactPlayer(1).insert(false));
+
+        Map<byte[], byte[]> hash = jedis.hgetAll(key(1));
+        assertEquals(4, hash.size());
+
+        Map<Integer, byte[]> fields = new LinkedHashMap<>();
+        for (Map.Entry<byte[], byte[]> field : hash.entrySet()) {
+            assertEquals(1, field.getKey().length);
+            fields.put((int) field.getKey()[0], field.getValue());
+        }
+        assertEquals("p1", SafeEncoder.encode(fields.get(3)));
+        assertEquals("t1", SafeEncoder.encode(fields.get(4)));
+        assertNull(jedis.hget("compact_player:1", "name"));
+
+        CompactPlayer player = fetch(1);
+        assertEquals("p1", player.name);
+        assertEquals(10L, player.coins);
+        assertEquals(7, player.level);
+        assertEquals("t1", player.title);
+    }
+
+    @Test
+    void valuesRoundTrip() {
+        CompactPlayer player = new CompactPlayer(2);
+        player.name = "\u00e7\u00e3o \u2603";
+        player.coins = Long.MIN_VALUE;
+        player.level = -1;
+        player.title = null;
+        assertTrue(player.insert(false));
+
+        CompactPlayer fetched = fetch(2);
+        assertEquals(player.name, fetched.name);
+        assertEquals(Long.MIN_VALUE, fetched.coins);
+        assertEquals(-1, fetched.level);
+        assertNull(fetched.title);
+
+        fetched.title = "later";
+        assertTrue(fetched.update(false));
+        assertEquals("later", fetch(2).title);
+        assertEquals(Long.MIN_VALUE, fetch(2).coins);
+    }
+
+    @Test
+    void unknownFieldsAreIgnored() {
+        assertTrue(new CompactPlayer(3).insert(false));
+        jedis.hset(key(3), new byte[] { 9 }, new byte[] { 1, 2, 3 });
+        jedis.hset(key(3), SafeEncoder.encode("name"), SafeEncoder.encode("by name"));
+
+        assertEquals("p3", fetch(3).name);
+    }
+
+    @Test
+    void compactRowsAreSynchronized() {
+        CompactPlayer player = new CompactPlayer(4);
+        player.title = null;
+        assertTrue(player.insert());
+        await("insert synchronized", () -> "p4,40,7,null".equals(queryString("SELECT CONCAT(name, ',', coins, ',', level, ',', COALESCE(title, 'null')) FROM compact_player WHERE id=4")));
+
+        assertEquals(50L, player.increment("coins", 10));
+        await("increment synchronized", () -> "50".equals(queryString("SELECT coins FROM compact_player WHERE id=4")));
+    }
+
+    @Test
+    void incompatibleLayoutsFailInit() {
+        Redbit.stop();
+
+        // Existing hashes would be read with their columns shifted
+        jedis.set(SCHEMA_KEY, "coins:LONG,name:STRING");
+        assertThrows(IllegalStateException.class, () -> Redbit.init(Redbit.getConfig()));
+        assertEquals("coins:LONG,name:STRING", jedis.get(SCHEMA_KEY));
+
+        jedis.set(SCHEMA_KEY, "coins:LONG,level:STRING");
+        assertThrows(IllegalStateException.class, () -> Redbit.init(Redbit.getConfig()));
+
+        jedis.set(SCHEMA_KEY, SCHEMA + ",rank:INTEGER");
+        assertThrows(IllegalStateException.class, () -> Redbit.init(Redbit.getConfig()));
+
+        // Flushing the layout is how a changed struct is deployed
+        jedis.del(SCHEMA_KEY);
+        Redbit.init(Redbit.getConfig());
+        assertEquals(SCHEMA, jedis.get(SCHEMA_KEY));
+        assertTrue(new CompactPlayer(5).insert(false));
+        assertEquals("p5", fetch(5).name);
+    }
+
+    @RedbitCompact
+    public static class CompactPlayer extends RedbitVolatileStruct {
+
+        @RedbitColumn(sqlType = "INT", idColumn = true)
+        Integer id;
+        @RedbitColumn(sqlType = "VARCHAR", length = 16)
+        String name;
+        @RedbitColumn(sqlType = "VARCHAR", length = 16, nullable = true)
+        String title;
+        @RedbitColumn(sqlType = "INT")
+        Integer level;
+        @RedbitColumn(sqlType = "BIGINT")
+        Long coins;
+
+        public CompactPlayer() {
+        }
+
+        CompactPlayer(int id) {
+            this.id = id;
+            this.name = "p" + id;
+            this.title = "t" + id;
+            this.level = 7;
+            this.coins = id * 10L;
+        }
+
+    }
+
+}
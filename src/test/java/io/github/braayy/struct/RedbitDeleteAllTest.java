@@ -0,0 +1,170 @@
+package io.github.braayy.struct;
+
+import io.github.braayy.Redbit;
+import io.github.braayy.RedbitQuery;
+import io.github.braayy.RedbitTestEnvironment;
+import io.github.braayy.column.RedbitColumn;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import redis.clients.jedis.Jedis;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static io.github.braayy.RedbitTestEnvironment.await;
+import static io.github.braayy.RedbitTestEnvironment.count;
+import static io.github.braayy.RedbitTestEnvironment.queryString;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RedbitDeleteAllTest {
+
+    private static final int ROWS = 500;
+    // Far below the amount of rows, so the keys are unlinked over many scan pages
+    private static final int SCAN_COUNT = 16;
+
+    private static Jedis jedis;
+
+    @BeforeAll
+    static void start() throws IOException {
+        Map<String, Class<? extends RedbitStruct>> structs = new LinkedHashMap<>();
+        structs.put("wiped_player", WipedPlayer.class);
+        structs.put("wiped_indexed_player", WipedIndexedPlayer.class);
+
+        jedis = RedbitTestEnvironment.start(46419, structs, config -> config.setScanCount(SCAN_COUNT));
+    }
+
+    @AfterAll
+    static void stop() throws IOException {
+        RedbitTestEnvironment.stop();
+    }
+
+    private static List<WipedPlayer> players(int from, int to) {
+        List<WipedPlayer> players = new ArrayList<>();
+        for (int id = from; id < to; id++) {
+            players.add(new WipedPlayer(id));
+        }
+
+        return players;
+    }
+
+    private static Set<String> keys() {
+        return jedis.keys("wiped_player:*");
+    }
+
+    @Test
+    void everyKeyIsUnlinkedPageByPage() {
+        assertTrue(WipedPlayer.insertAll(players(1, ROWS + 1), false));
+        // Share the prefix of the struct keys without belonging to it
+        jedis.set("wiped_player_other:1", "kept");
+        jedis.hset("wiped_indexed_player:1", "coins", "1");
+
+        List<Long> progress = new ArrayList<>();
+        assertTrue(new WipedPlayer().deleteAll(false, progress::add));
+
+        assertTrue(keys().isEmpty());
+        assertEquals("kept", jedis.get("wiped_player_other:1"));
+        assertTrue(jedis.exists("wiped_indexed_player:1"));
+
+        assertTrue(progress.size() > 1);
+        for (int i = 1; i < progress.size(); i++) {
+            assertTrue(progress.get(i) > progress.get(i - 1));
+        }
+        assertTrue(progress.get(progress.size() - 1) >= ROWS);
+
+        jedis.del("wiped_player_other:1", "wiped_indexed_player:1");
+    }
+
+    @Test
+    void synchronizedDeleteAllEmptiesTheTable() throws SQLException {
+        assertTrue(WipedPlayer.insertAll(players(1000, 1050)));
+        await("rows synchronized", () -> count("wiped_player") >= 50);
+
+        // Rows that were never cached are part of the struct too
+        try (RedbitQuery query = Redbit.sqlQuery("INSERT INTO wiped_player (id, name) VALUES (5000, 'cold')")) {
+            query.executeUpdate();
+        }
+
+        assertTrue(new WipedPlayer().deleteAll(true));
+        assertTrue(keys().isEmpty());
+        await("table emptied", () -> count("wiped_player") == 0);
+    }
+
+    @Test
+    void writesAfterDeleteAllSurvive() {
+        assertTrue(WipedPlayer.insertAll(players(2000, 2020)));
+        await("rows synchronized", () -> Integer.parseInt(queryString("SELECT COUNT(*) FROM wiped_player WHERE id >= 2000")) == 20);
+
+        assertTrue(new WipedPlayer().deleteAll(true));
+        assertTrue(WipedPlayer.insertAll(players(2000, 2003)));
+        WipedPlayer updated = new WipedPlayer(2001);
+        updated.name = "after";
+        assertTrue(updated.update());
+
+        await("only later rows left", () -> count("wiped_player") == 3);
+        assertEquals("after", queryString("SELECT name FROM wiped_player WHERE id=2001"));
+        assertEquals(3, keys().size());
+
+        assertTrue(new WipedPlayer().deleteAll(true));
+        await("table emptied", () -> count("wiped_player") == 0);
+    }
+
+    @Test
+    void asyncDeleteAllReportsProgress() throws Exception {
+        assertTrue(WipedPlayer.insertAll(players(3000, 3100), false));
+
+        List<Long> progress = Collections.synchronizedList(new ArrayList<>());
+        assertTrue(new WipedPlayer().deleteAllAsync(false, progress::add).get(5, TimeUnit.SECONDS));
+
+        assertTrue(keys().isEmpty());
+        assertFalse(progress.isEmpty());
+        assertTrue(progress.get(progress.size() - 1) >= 100);
+    }
+
+    @Test
+    void indexesAreClearedWithTheRows() {
+        List<WipedIndexedPlayer> players = new ArrayList<>();
+        for (int id = 1; id <= 20; id++) {
+            WipedIndexedPlayer player = new WipedIndexedPlayer();
+            player.id = id;
+            player.coins = (long) id;
+            players.add(player);
+        }
+        assertTrue(WipedIndexedPlayer.insertAll(players, false));
+        assertEquals(20, WipedIndexedPlayer.fetchByIndexRange(WipedIndexedPlayer.class, "coins", 0, 100).size());
+
+        assertTrue(new WipedIndexedPlayer().deleteAll(false));
+
+        assertTrue(WipedIndexedPlayer.fetchByIndexRange(WipedIndexedPlayer.class, "coins", 0, 100).isEmpty());
+        assertTrue(jedis.keys("*wiped_indexed_player*").isEmpty());
+    }
+
+    public static class WipedPlayer extends RedbitVolatileStruct {
+
+        @RedbitColumn(sqlType = "INT", idColumn = true)
+        Integer id;
+        @RedbitColumn(sqlType = "VARCHAR", length = 16)
+        String name;
+
+        public WipedPlayer() {
+        }
+
+        WipedPlayer(int id) {
+            this.id = id;
+            this.name = "p" + id;
+        }
+
+    }
+
+    public static class WipedIndexedPlayer extends RedbitVolatileStruct {
+
+        @RedbitColumn(sqlType = "INT", idColumn = true)
+        Integer id;
+        @RedbitColumn(sqlType = "BIGINT", indexed = true)
+        Long coins;
+
+    }
+
+}
@@ -0,0 +1,146 @@
+package io.github.braayy.struct;
+
+import io.github.braayy.Redbit;
+import io.github.braayy.RedbitTestEnvironment;
+import io.github.braayy.column.RedbitColumn;
+import io.github.braayy.fetch.RedbitFetch;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static io.github.braayy.RedbitTestEnvironment.count;
+import static io.github.braayy.RedbitTestEnvironment.queryString;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RedbitStructTest {
+
+    @BeforeAll
+    static void start() throws IOException {
+        Map<String, Class<? extends RedbitStruct>> structs = new LinkedHashMap<>();
+        structs.put("plain_player", PlainPlayer.class);
+
+        RedbitTestEnvironment.start(46413, structs, config -> {});
+    }
+
+    @AfterAll
+    static void stop() throws IOException {
+        RedbitTestEnvironment.stop();
+    }
+
+    private static PlainPlayer fetch(int id) {
+        PlainPlayer player = new PlainPlayer();
+        player.id = id;
+        assertEquals(RedbitFetch.Result.FOUND, player.fetchById());
+
+        return player;
+    }
+
+    @Test
+    void valuesAreBoundInsteadOfConcatenated() {
+        String[] names = { "it's", "\"quoted\"", "back\\slash", "x'); DROP TABLE plain_player; --", "?" };
+        for (int i = 0; i < names.length; i++) {
+            PlainPlayer player = new PlainPlayer(i + 1);
+            player.name = names[i];
+            assertTrue(player.insert());
+        }
+
+        for (int i = 0; i < names.length; i++) {
+            assertEquals(names[i], fetch(i + 1).name);
+        }
+        assertEquals(Integer.toString(names.length), queryString("SELECT COUNT(*) FROM plain_player WHERE id <= " + names.length));
+    }
+
+    @Test
+    void insertReplacesExistingRows() {
+        PlainPlayer player = new PlainPlayer(10);
+        assertTrue(player.insert());
+
+        player.name = "replaced";
+        player.coins = 99L;
+        assertTrue(player.insert());
+
+        PlainPlayer fetched = fetch(10);
+        assertEquals("replaced", fetched.name);
+        assertEquals(99L, fetched.coins);
+        assertEquals("1", queryString("SELECT COUNT(*) FROM plain_player WHERE id=10"));
+    }
+
+    @Test
+    void nullColumnsAreBoundAsDefaultsOrNull() {
+        PlainPlayer player = new PlainPlayer(20);
+        player.coins = null;
+        player.title = null;
+        assertTrue(player.insert());
+
+        PlainPlayer fetched = fetch(20);
+        assertEquals(5L, fetched.coins);
+        assertNull(fetched.title);
+
+        player.name = null;
+        assertFalse(player.insert());
+    }
+
+    @Test
+    void deleteByIdOnlyRemovesItsRow() {
+        assertTrue(new PlainPlayer(30).insert());
+        assertTrue(new PlainPlayer(31).insert());
+
+        PlainPlayer player = new PlainPlayer();
+        player.id = 30;
+        assertTrue(player.deleteById());
+
+        assertEquals(RedbitFetch.Result.COMPLETE, player.fetchById());
+        assertEquals("p31", fetch(31).name);
+        assertTrue(count("plain_player") > 0);
+    }
+
+    @Test
+    void queryTemplatesAreCachedPerShape() {
+        RedbitStructInfo structInfo = Redbit.getStructRegistry().getStructInfo(PlainPlayer.class);
+        assertNotNull(structInfo);
+        RedbitStructQueries queries = structInfo.getQueries();
+
+        assertSame(queries.getBatchUpsertQuery(3), queries.getBatchUpsertQuery(3));
+        assertEquals("DELETE FROM `plain_player` WHERE `id` IN (?, ?)", queries.getBatchDeleteQuery(2));
+
+        BitSet columns = new BitSet();
+        columns.set(2);
+        String updateQuery = queries.getUpdateQuery(columns);
+        assertEquals("UPDATE `plain_player` SET `coins`=? WHERE `id`=?", updateQuery);
+
+        // The caller's bit set may change later, the cached shape must not
+        columns.set(1);
+        assertEquals("UPDATE `plain_player` SET `name`=?, `coins`=? WHERE `id`=?", queries.getUpdateQuery(columns));
+        columns.clear(1);
+        assertSame(updateQuery, queries.getUpdateQuery(columns));
+    }
+
+    public static class PlainPlayer extends RedbitStruct {
+
+        @RedbitColumn(sqlType = "INT", idColumn = true)
+        Integer id;
+        @RedbitColumn(sqlType = "VARCHAR", length = 64)
+        String name;
+        @RedbitColumn(sqlType = "BIGINT", defaultValue = "5")
+        Long coins;
+        @RedbitColumn(sqlType = "VARCHAR", length = 16, nullable = true)
+        String title;
+
+        public PlainPlayer() {
+        }
+
+        PlainPlayer(int id) {
+            this.id = id;
+            this.name = "p" + id;
+            this.coins = (long) id;
+            this.title = "t" + id;
+        }
+
+    }
+
+}
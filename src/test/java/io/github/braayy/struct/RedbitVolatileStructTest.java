@@ -0,0 +1,297 @@
+package io.github.braayy.struct;
+
+import io.github.braayy.Redbit;
+import io.github.braayy.RedbitTestEnvironment;
+import io.github.braayy.cache.RedbitExpiry;
+import io.github.braayy.column.RedbitColumn;
+import io.github.braayy.utils.RedbitPipeline;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import redis.clients.jedis.Jedis;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static io.github.braayy.RedbitTestEnvironment.await;
+import static io.github.braayy.RedbitTestEnvironment.queryString;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RedbitVolatileStructTest {
+
+    private static Jedis jedis;
+
+    @BeforeAll
+    static void start() throws IOException {
+        Map<String, Class<? extends RedbitStruct>> structs = new LinkedHashMap<>();
+        structs.put("test_player", TestPlayer.class);
+        structs.put("expiring_player", ExpiringPlayer.class);
+
+        jedis = RedbitTestEnvironment.start(46401, structs, config -> {});
+    }
+
+    @AfterAll
+    static void stop() throws IOException {
+        RedbitTestEnvironment.stop();
+    }
+
+    private static String row(int id) {
+        return queryString("SELECT CONCAT(name, ',', coins, ',', level) FROM test_player WHERE id=" + id);
+    }
+
+    @Test
+    void updateOfEvictedKeyWritesWholeHash() {
+        TestPlayer player = new TestPlayer(1);
+        assertTrue(player.insert());
+        await("insert synchronized", () -> "p1,1,5".equals(row(1)));
+
+        jedis.del("test_player:1");
+        player.coins = 50L;
+        assertTrue(player.update());
+
+        assertEquals(3, jedis.hlen("test_player:1"));
+        await("update synchronized", () -> "p1,50,5".equals(row(1)));
+    }
+
+    @Test
+    void updateWithoutLoadedColumnsKeepsOtherColumns() {
+        new TestPlayer(2).insert();
+        await("insert synchronized", () -> row(2) != null);
+        jedis.del("test_player:2");
+
+        TestPlayer player = new TestPlayer();
+        player.id = 2;
+        player.level = 9;
+        assertTrue(player.update());
+
+        assertEquals("p2", jedis.hget("test_player:2", "name"));
+        await("update synchronized", () -> "p2,2,9".equals(row(2)));
+    }
+
+    @Test
+    void updateOfUnknownRowFails() {
+        TestPlayer player = new TestPlayer();
+        player.id = 5000;
+        player.level = 9;
+        assertFalse(player.update());
+        assertFalse(jedis.exists("test_player:5000"));
+
+        List<TestPlayer> players = new ArrayList<>();
+        players.add(new TestPlayer(5001));
+        players.add(player);
+        assertFalse(TestPlayer.updateAll(players));
+        assertFalse(jedis.exists("test_player:5000"));
+    }
+
+    @Test
+    void unsynchronizedWritesReachDatabaseWithNextUpdate() {
+        TestPlayer player = new TestPlayer(3);
+        assertTrue(player.insert(false));
+        player.coins = 33L;
+        assertTrue(player.update(false));
+        assertEquals(35L, player.increment("coins", 2, false));
+        assertNull(row(3));
+
+        assertTrue(player.update());
+        await("unsynchronized columns synchronized", () -> "p3,35,5".equals(row(3)));
+    }
+
+    @Test
+    void markDirtyWritesColumnsAnotherWriterChanged() {
+        TestPlayer player = new TestPlayer(4);
+        player.insert();
+
+        TestPlayer other = new TestPlayer();
+        other.id = 4;
+        other.fetchById();
+        other.coins = 100L;
+        other.update();
+
+        player.markDirty("coins");
+        assertTrue(player.update());
+        assertEquals("4", jedis.hget("test_player:4", "coins"));
+    }
+
+    @Test
+    void updateAllRewritesMissingKeys() {
+        List<TestPlayer> players = new ArrayList<>();
+        for (int id = 10; id < 14; id++) {
+            players.add(new TestPlayer(id));
+        }
+        assertTrue(TestPlayer.insertAll(players));
+        jedis.del("test_player:11");
+
+        for (TestPlayer player : players) {
+            player.coins = 999L;
+        }
+        assertTrue(TestPlayer.updateAll(players));
+
+        assertEquals(3, jedis.hlen("test_player:11"));
+        await("updateAll synchronized", () -> "p11,999,5".equals(row(11)) && "p12,999,5".equals(row(12)));
+    }
+
+    @Test
+    void fetchByIdsCombinesRedisAndDatabase() {
+        List<TestPlayer> players = new ArrayList<>();
+        for (int id = 30; id < 34; id++) {
+            players.add(new TestPlayer(id));
+        }
+        assertTrue(TestPlayer.insertAll(players));
+        await("insertAll synchronized", () -> row(30) != null && row(33) != null);
+
+        // 32 and 33 are only left in the database, 38 and 39 are nowhere
+        jedis.hset("test_player:30", "coins", "300");
+        jedis.del("test_player:32", "test_player:33");
+
+        Map<Integer, TestPlayer> fetched = TestPlayer.fetchByIds(TestPlayer.class, Arrays.asList(39, 30, 31, 32, 38, 33, 30));
+        assertNotNull(fetched);
+        assertEquals(Arrays.asList(30, 31, 32, 33), new ArrayList<>(fetched.keySet()));
+        assertEquals(300L, fetched.get(30).coins);
+        assertEquals("p31", fetched.get(31).name);
+        assertEquals(32L, fetched.get(32).coins);
+        assertEquals(5, fetched.get(33).level);
+
+        // Rows loaded from the database are cached back, the ones found nowhere are not created
+        assertEquals("p32", jedis.hget("test_player:32", "name"));
+        assertEquals("p33", jedis.hget("test_player:33", "name"));
+        assertFalse(jedis.exists("test_player:38"));
+        assertFalse(jedis.exists("test_player:39"));
+
+        assertTrue(TestPlayer.fetchByIds(TestPlayer.class, Collections.<Integer>emptyList()).isEmpty());
+        assertNull(TestPlayer.fetchByIds(TestPlayer.class, Collections.singletonList(null)));
+    }
+
+    @Test
+    void insertAllWritesNothingWhenOneStructIsInvalid() {
+        List<TestPlayer> players = new ArrayList<>();
+        players.add(new TestPlayer(35));
+        players.add(new TestPlayer());
+        players.add(new TestPlayer(36));
+        assertFalse(TestPlayer.insertAll(players));
+        assertFalse(jedis.exists("test_player:35"));
+        assertFalse(jedis.exists("test_player:36"));
+
+        players.remove(1);
+        assertTrue(TestPlayer.insertAll(players));
+        assertEquals("p36", jedis.hget("test_player:36", "name"));
+        await("insertAll synchronized", () -> "p35,35,5".equals(row(35)) && "p36,36,5".equals(row(36)));
+    }
+
+    @Test
+    void compareAndSetOnlyWritesExpectedValue() {
+        TestPlayer player = new TestPlayer(20);
+        player.insert();
+
+        assertFalse(player.compareAndSet("name", "other", "changed"));
+        assertEquals("p20", jedis.hget("test_player:20", "name"));
+
+        assertTrue(player.compareAndSet("name", "p20", "changed"));
+        assertEquals("changed", jedis.hget("test_player:20", "name"));
+        await("compareAndSet synchronized", () -> "changed,20,5".equals(row(20)));
+    }
+
+    @Test
+    void concurrentIncrementsAreAllApplied() throws InterruptedException {
+        new TestPlayer(21).insert();
+
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 25; j++) {
+                    TestPlayer player = new TestPlayer();
+                    player.id = 21;
+                    player.increment("coins", 1);
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals("121", jedis.hget("test_player:21", "coins"));
+        await("increments synchronized", () -> "p21,121,5".equals(row(21)));
+    }
+
+    @Test
+    void synchronizedWritesStayPersistedUntilSynchronized() {
+        ExpiringPlayer player = new ExpiringPlayer(1);
+        player.insert();
+        assertEquals(-1, jedis.pttl("expiring_player:1"));
+        assertEquals("1", jedis.hget("expiring_player:1", RedbitExpiry.VERSION_FIELD));
+
+        player.coins = 10L;
+        player.update(false);
+        assertEquals(-1, jedis.pttl("expiring_player:1"));
+
+        await("ttl restored after synchronization", () -> jedis.pttl("expiring_player:1") > 0);
+    }
+
+    @Test
+    void ttlIsOnlyRestoredForSynchronizedVersion() {
+        ExpiringPlayer player = new ExpiringPlayer(2);
+        player.insert(false);
+        jedis.persist("expiring_player:2");
+        jedis.hset("expiring_player:2", RedbitExpiry.VERSION_FIELD, "2");
+
+        RedbitExpiry expiry = Redbit.getStructRegistry().getStructInfo(ExpiringPlayer.class).getExpiry();
+        try (RedbitPipeline pipeline = Redbit.pipelined()) {
+            expiry.synchronizedWrite(pipeline, "expiring_player:2", "1");
+        }
+        assertEquals(-1, jedis.pttl("expiring_player:2"));
+
+        try (RedbitPipeline pipeline = Redbit.pipelined()) {
+            expiry.synchronizedWrite(pipeline, "expiring_player:2", "2");
+        }
+        assertTrue(jedis.pttl("expiring_player:2") > 0);
+    }
+
+    public static class TestPlayer extends RedbitVolatileStruct {
+
+        @RedbitColumn(sqlType = "INT", idColumn = true)
+        Integer id;
+        @RedbitColumn(sqlType = "VARCHAR", length = 16)
+        String name;
+        @RedbitColumn(sqlType = "BIGINT", defaultValue = "0")
+        Long coins;
+        @RedbitColumn(sqlType = "INT", defaultValue = "1")
+        Integer level;
+
+        public TestPlayer() {
+        }
+
+        TestPlayer(int id) {
+            this.id = id;
+            this.name = "p" + id;
+            this.coins = (long) id;
+            this.level = 5;
+        }
+
+    }
+
+    // Only synchronized a second after its first write, so the tests see the key before its ttl is restored
+    @RedbitExpiring(ttl = 60000)
+    @RedbitSyncPolicy(interval = 3600000, maxDirtyAge = 1000)
+    public static class ExpiringPlayer extends RedbitVolatileStruct {
+
+        @RedbitColumn(sqlType = "INT", idColumn = true)
+        Integer id;
+        @RedbitColumn(sqlType = "BIGINT")
+        Long coins;
+
+        public ExpiringPlayer() {
+        }
+
+        ExpiringPlayer(int id) {
+            this.id = id;
+            this.coins = (long) id;
+        }
+
+    }
+
+}
@@ -0,0 +1,163 @@
+package io.github.braayy.synchronization;
+
+import io.github.braayy.RedbitTestEnvironment;
+import io.github.braayy.column.RedbitColumn;
+import io.github.braayy.struct.RedbitStruct;
+import io.github.braayy.struct.RedbitVolatileStruct;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import redis.clients.jedis.Jedis;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static io.github.braayy.RedbitTestEnvironment.await;
+import static io.github.braayy.RedbitTestEnvironment.queryString;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RedbitJournalTest {
+
+    private static final int PORT = 46403;
+    private static final String JOURNAL_KEY = "redbit:journal:{journal_player}";
+    private static final String DELETED_KEY = JOURNAL_KEY + ":deleted";
+
+    private static Jedis jedis;
+
+    @BeforeAll
+    static void start() throws IOException {
+        Map<String, Class<? extends RedbitStruct>> structs = new LinkedHashMap<>();
+        structs.put("journal_player", JournalPlayer.class);
+        structs.put("wiped_player", WipedPlayer.class);
+
+        jedis = RedbitTestEnvironment.start(PORT, structs, config -> {
+            config.setJournal(true);
+            config.setSyncDelay(500);
+
+            // Left behind by a node that crashed before synchronizing it
+            try (Jedis crashed = new Jedis("localhost", PORT)) {
+                crashed.hset("journal_player:100", "name", "replayed");
+                crashed.hset("journal_player:100", "coins", "7");
+                crashed.zadd(JOURNAL_KEY, 1, "100");
+            }
+        });
+    }
+
+    @AfterAll
+    static void stop() throws IOException {
+        RedbitTestEnvironment.stop();
+    }
+
+    private static String name(String table, int id) {
+        return queryString("SELECT name FROM " + table + " WHERE id=" + id);
+    }
+
+    @Test
+    void journaledKeysAreReplayedOnInit() {
+        await("replayed key synchronized", () -> "replayed".equals(name("journal_player", 100)));
+        await("replayed key left the journal", () -> jedis.zscore(JOURNAL_KEY, "100") == null);
+    }
+
+    @Test
+    void writesStayJournaledUntilSynchronized() {
+        assertTrue(new JournalPlayer(1).insert());
+        assertNotNull(jedis.zscore(JOURNAL_KEY, "1"));
+
+        await("write synchronized", () -> "p1".equals(name("journal_player", 1)));
+        await("write left the journal", () -> jedis.zscore(JOURNAL_KEY, "1") == null);
+    }
+
+    @Test
+    void incrementsAreJournaled() {
+        JournalPlayer player = new JournalPlayer(2);
+        player.insert(false);
+
+        assertEquals(12L, player.increment("coins", 10));
+        assertNotNull(jedis.zscore(JOURNAL_KEY, "2"));
+        await("increment synchronized", () -> "12".equals(queryString("SELECT coins FROM journal_player WHERE id=2")));
+    }
+
+    @Test
+    void onlyWritesThatHappenedAreJournaled() {
+        JournalPlayer player = new JournalPlayer(4);
+        player.insert(false);
+        assertNull(jedis.zscore(JOURNAL_KEY, "4"));
+
+        assertFalse(player.compareAndSet("name", "other", "changed"));
+        assertNull(jedis.zscore(JOURNAL_KEY, "4"));
+
+        JournalPlayer unknown = new JournalPlayer();
+        unknown.id = 5;
+        unknown.coins = 1L;
+        assertFalse(unknown.update());
+        assertNull(jedis.zscore(JOURNAL_KEY, "5"));
+
+        assertTrue(player.compareAndSet("name", "p4", "changed"));
+        assertNotNull(jedis.zscore(JOURNAL_KEY, "4"));
+    }
+
+    @Test
+    void deletesAreJournaledSeparately() {
+        JournalPlayer player = new JournalPlayer(3);
+        player.insert();
+        await("insert synchronized", () -> name("journal_player", 3) != null);
+
+        assertTrue(player.deleteById());
+        assertNotNull(jedis.zscore(DELETED_KEY, "3"));
+
+        await("delete synchronized", () -> name("journal_player", 3) == null);
+        await("delete left the journal", () -> jedis.zscore(DELETED_KEY, "3") == null);
+    }
+
+    @Test
+    void deleteAllKeepsLaterWrites() {
+        new WipedPlayer(1).insert();
+        await("insert synchronized", () -> name("wiped_player", 1) != null);
+
+        assertTrue(new WipedPlayer().deleteAll());
+        assertNotNull(jedis.zscore("redbit:journal:{wiped_player}:deleted", ""));
+        new WipedPlayer(2).insert();
+
+        await("delete all synchronized before the later write", () -> name("wiped_player", 1) == null && name("wiped_player", 2) != null);
+        await("delete all left the journal", () -> jedis.zcard("redbit:journal:{wiped_player}:deleted") == 0);
+    }
+
+    public static class JournalPlayer extends RedbitVolatileStruct {
+
+        @RedbitColumn(sqlType = "INT", idColumn = true)
+        Integer id;
+        @RedbitColumn(sqlType = "VARCHAR", length = 16)
+        String name;
+        @RedbitColumn(sqlType = "BIGINT")
+        Long coins;
+
+        public JournalPlayer() {
+        }
+
+        JournalPlayer(int id) {
+            this.id = id;
+            this.name = "p" + id;
+            this.coins = (long) id;
+        }
+
+    }
+
+    public static class WipedPlayer extends RedbitVolatileStruct {
+
+        @RedbitColumn(sqlType = "INT", idColumn = true)
+        Integer id;
+        @RedbitColumn(sqlType = "VARCHAR", length = 16)
+        String name;
+
+        public WipedPlayer() {
+        }
+
+        WipedPlayer(int id) {
+            this.id = id;
+            this.name = "p" + id;
+        }
+
+    }
+
+}
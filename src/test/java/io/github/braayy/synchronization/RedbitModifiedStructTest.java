@@ -0,0 +1,62 @@
+package io.github.braayy.synchronization;
+
+import io.github.braayy.synchronization.RedbitSynchronizationEntry.Operation;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RedbitModifiedStructTest {
+
+    @Test
+    void deltasAddUpToSizeWhileDeleteAllRaces() throws InterruptedException {
+        RedbitModifiedStruct modifiedStruct = new RedbitModifiedStruct(null);
+        AtomicInteger pending = new AtomicInteger();
+
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            int thread = i;
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 20000; j++) {
+                    if (thread == 0 && j % 100 == 0) {
+                        pending.addAndGet(modifiedStruct.mark(null, Operation.DELETE_ALL, null));
+                    } else {
+                        BitSet columns = new BitSet();
+                        columns.set(j % 3);
+                        pending.addAndGet(modifiedStruct.mark(Integer.toString(j % 500), j % 2 == 0 ? Operation.UPSERT : Operation.UPDATE, columns));
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(modifiedStruct.size(), pending.get());
+    }
+
+    @Test
+    void updatesMergeTheirColumns() {
+        RedbitModifiedStruct modifiedStruct = new RedbitModifiedStruct(null);
+        BitSet first = new BitSet();
+        first.set(1);
+        BitSet second = new BitSet();
+        second.set(2);
+
+        assertEquals(1, modifiedStruct.mark("1", Operation.UPDATE, first));
+        assertEquals(0, modifiedStruct.mark("1", Operation.UPDATE, second));
+
+        BitSet columns = modifiedStruct.getModifiedKeys().get("1").getColumns();
+        assertNotNull(columns);
+        assertTrue(columns.get(1) && columns.get(2));
+
+        assertEquals(0, modifiedStruct.mark(null, Operation.DELETE_ALL, null));
+        assertEquals(0, modifiedStruct.mark(null, Operation.DELETE_ALL, null));
+        assertTrue(modifiedStruct.isDeleteAll());
+        assertTrue(modifiedStruct.getModifiedKeys().isEmpty());
+    }
+
+}
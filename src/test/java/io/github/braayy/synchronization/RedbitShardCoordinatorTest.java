@@ -0,0 +1,91 @@
+package io.github.braayy.synchronization;
+
+import io.github.braayy.Redbit;
+import io.github.braayy.RedbitTestEnvironment;
+import io.github.braayy.column.RedbitColumn;
+import io.github.braayy.struct.RedbitStruct;
+import io.github.braayy.struct.RedbitStructInfo;
+import io.github.braayy.struct.RedbitVolatileStruct;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import redis.clients.jedis.Jedis;
+
+import java.io.IOException;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RedbitShardCoordinatorTest {
+
+    private static final int SHARDS = 4;
+
+    private static Jedis jedis;
+
+    @BeforeAll
+    static void start() throws IOException {
+        Map<String, Class<? extends RedbitStruct>> structs = new LinkedHashMap<>();
+        structs.put("fenced_player", FencedPlayer.class);
+
+        // Not sharded itself, so the coordinators of the tests are the only nodes holding leases
+        jedis = RedbitTestEnvironment.start(46404, structs, config -> {});
+    }
+
+    @AfterAll
+    static void stop() throws IOException {
+        RedbitTestEnvironment.stop();
+    }
+
+    @Test
+    void newOwnersGetHigherTokens() {
+        RedbitShardCoordinator first = new RedbitShardCoordinator("first", 2, 60000);
+        first.renew();
+        assertEquals(new HashSet<>(Arrays.asList(0, 1)), first.getOwnedShards());
+
+        RedbitShardCoordinator second = new RedbitShardCoordinator("second", 2, 60000);
+        second.renew();
+        assertTrue(second.getOwnedShards().isEmpty());
+
+        // The first node gives a shard back once it sees the second one
+        Map<Integer, Long> firstTokens = new HashMap<>();
+        for (int shard : first.getOwnedShards()) {
+            firstTokens.put(shard, first.getToken(shard));
+        }
+        first.renew();
+        second.renew();
+
+        assertEquals(1, first.getOwnedShards().size());
+        assertEquals(1, second.getOwnedShards().size());
+        int handedOver = second.getOwnedShards().iterator().next();
+        assertTrue(second.getToken(handedOver) > firstTokens.get(handedOver));
+        assertEquals(0, first.getToken(handedOver));
+
+        first.releaseAll();
+        second.releaseAll();
+        assertNull(jedis.get("redbit:sync:lease:{0}"));
+        assertNull(jedis.get("redbit:sync:lease:{1}"));
+    }
+
+    @Test
+    void fencesOnlyMoveForward() {
+        RedbitJournal journal = new RedbitJournal(SHARDS);
+        RedbitStructInfo structInfo = Redbit.getStructRegistry().getStructInfo(FencedPlayer.class);
+        jedis.del(journal.getKey(structInfo, 3, false) + ":fence");
+
+        assertTrue(journal.fence(structInfo, 3, 5));
+        assertFalse(journal.fence(structInfo, 3, 4));
+        assertTrue(journal.fence(structInfo, 3, 5));
+        assertTrue(journal.fence(structInfo, 3, 6));
+    }
+
+    public static class FencedPlayer extends RedbitVolatileStruct {
+
+        @RedbitColumn(sqlType = "INT", idColumn = true)
+        Integer id;
+
+        public FencedPlayer() {
+        }
+
+    }
+
+}
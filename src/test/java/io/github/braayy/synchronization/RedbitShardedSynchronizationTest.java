@@ -0,0 +1,139 @@
+package io.github.braayy.synchronization;
+
+import io.github.braayy.RedbitTestEnvironment;
+import io.github.braayy.column.RedbitColumn;
+import io.github.braayy.struct.RedbitStruct;
+import io.github.braayy.struct.RedbitVolatileStruct;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import redis.clients.jedis.Jedis;
+
+import java.io.IOException;
+import java.util.*;
+
+import static io.github.braayy.RedbitTestEnvironment.await;
+import static io.github.braayy.RedbitTestEnvironment.queryString;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RedbitShardedSynchronizationTest {
+
+    private static final int SHARDS = 4;
+
+    private static Jedis jedis;
+
+    @BeforeAll
+    static void start() throws IOException {
+        Map<String, Class<? extends RedbitStruct>> structs = new LinkedHashMap<>();
+        structs.put("sharded_player", ShardedPlayer.class);
+        structs.put("sharded_wiped_player", ShardedWipedPlayer.class);
+
+        jedis = RedbitTestEnvironment.start(46405, structs, config -> {
+            config.setSyncShards(SHARDS);
+            config.setSyncLeaseTime(1000);
+            config.setSyncNodeId("test-node");
+        });
+    }
+
+    @AfterAll
+    static void stop() throws IOException {
+        RedbitTestEnvironment.stop();
+    }
+
+    private static long journaled(String structName) {
+        long journaled = 0;
+        for (int shard = 0; shard < SHARDS; shard++) {
+            journaled += jedis.zcard("redbit:journal:{" + structName + ":" + shard + "}");
+        }
+
+        return journaled;
+    }
+
+    private static int count(String where) {
+        return Integer.parseInt(queryString("SELECT COUNT(*) FROM sharded_player WHERE " + where));
+    }
+
+    @Test
+    void shardedWritesReachDatabase() {
+        List<ShardedPlayer> players = new ArrayList<>();
+        for (int id = 1; id <= 20; id++) {
+            players.add(new ShardedPlayer(id));
+        }
+        assertTrue(ShardedPlayer.insertAll(players));
+
+        await("sharded writes synchronized", () -> count("id <= 20") == 20);
+        await("sharded journal emptied", () -> journaled("sharded_player") == 0);
+    }
+
+    @Test
+    void fencedShardsAreLeftToTheirNewOwner() throws InterruptedException {
+        for (int shard = 0; shard < SHARDS; shard++) {
+            jedis.set("redbit:journal:{sharded_player:" + shard + "}:fence", Long.toString(Long.MAX_VALUE / 2));
+        }
+
+        List<ShardedPlayer> players = new ArrayList<>();
+        for (int id = 100; id < 110; id++) {
+            players.add(new ShardedPlayer(id));
+        }
+        assertTrue(ShardedPlayer.insertAll(players));
+
+        Thread.sleep(1000);
+        assertEquals(0, count("id >= 100"));
+        assertEquals(10, journaled("sharded_player"));
+
+        for (int shard = 0; shard < SHARDS; shard++) {
+            jedis.del("redbit:journal:{sharded_player:" + shard + "}:fence");
+        }
+        await("entries synchronized once the fence is back", () -> count("id >= 100") == 10);
+    }
+
+    @Test
+    void deleteAllIsPulledFromTheJournal() {
+        new ShardedWipedPlayer(1).insert();
+        await("insert synchronized", () -> queryString("SELECT id FROM sharded_wiped_player WHERE id=1") != null);
+
+        assertTrue(new ShardedWipedPlayer().deleteAll());
+        for (int id = 2; id < 6; id++) {
+            new ShardedWipedPlayer(id).insert();
+        }
+
+        await("delete all synchronized before the later writes", () -> "4".equals(queryString("SELECT COUNT(*) FROM sharded_wiped_player"))
+                && queryString("SELECT id FROM sharded_wiped_player WHERE id=1") == null);
+        await("delete all left the journal", () -> jedis.zcard("redbit:journal:{sharded_wiped_player:0}:deleted") == 0);
+    }
+
+    public static class ShardedPlayer extends RedbitVolatileStruct {
+
+        @RedbitColumn(sqlType = "INT", idColumn = true)
+        Integer id;
+        @RedbitColumn(sqlType = "BIGINT")
+        Long coins;
+
+        public ShardedPlayer() {
+        }
+
+        ShardedPlayer(int id) {
+            this.id = id;
+            this.coins = (long) id;
+        }
+
+    }
+
+    public static class ShardedWipedPlayer extends RedbitVolatileStruct {
+
+        @RedbitColumn(sqlType = "INT", idColumn = true)
+        Integer id;
+        @RedbitColumn(sqlType = "VARCHAR", length = 16)
+        String name;
+
+        public ShardedWipedPlayer() {
+        }
+
+        ShardedWipedPlayer(int id) {
+            this.id = id;
+            this.name = "p" + id;
+        }
+
+    }
+
+}
@@ -0,0 +1,192 @@
+package io.github.braayy.synchronization;
+
+import io.github.braayy.Redbit;
+import io.github.braayy.RedbitConfig;
+import io.github.braayy.column.RedbitColumn;
+import io.github.braayy.struct.RedbitStructInfo;
+import io.github.braayy.struct.RedbitSyncPolicy;
+import io.github.braayy.struct.RedbitVolatileStruct;
+import io.github.braayy.synchronization.RedbitSynchronizationEntry.Operation;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RedbitSyncQueueTest {
+
+    private static RedbitStructInfo queuedInfo;
+    private static RedbitStructInfo defaultInfo;
+
+    @BeforeAll
+    static void register() {
+        Redbit.getStructRegistry().registerStruct("queued_player", QueuedPlayer.class);
+        Redbit.getStructRegistry().registerStruct("default_player", DefaultPlayer.class);
+
+        queuedInfo = Redbit.getStructRegistry().getStructInfo(QueuedPlayer.class);
+        defaultInfo = Redbit.getStructRegistry().getStructInfo(DefaultPlayer.class);
+    }
+
+    private static RedbitSyncQueue queue() {
+        return new RedbitSyncQueue(queuedInfo, new RedbitConfig());
+    }
+
+    // Flushes a single modification, so every task below can tell which flush it came from
+    private static RedbitModifiedStruct flush(RedbitSyncQueue queue, String idValue) {
+        queue.mark(idValue, Operation.UPSERT, null);
+
+        RedbitModifiedStruct flushed = queue.flush(modifiedStruct -> {});
+        assertNotNull(flushed);
+        return flushed;
+    }
+
+    private static RedbitSynchronizationTask task(RedbitModifiedStruct flushed, Operation operation) {
+        return new RedbitSynchronizationTask(queuedInfo, operation, Collections.singletonList("1")).from(flushed);
+    }
+
+    private static void start(RedbitSyncQueue queue, RedbitSynchronizationTask task) {
+        assertTrue(queue.isRunnable(task));
+        queue.started(task, 0);
+    }
+
+    @Test
+    void policiesOverrideTheConfig() {
+        RedbitSyncQueue queue = queue();
+        assertEquals(3600000, queue.getInterval());
+        assertEquals(250, queue.getMaxDirtyAge());
+        assertEquals(64, queue.getBatchSize());
+        assertEquals(7, queue.getPriority());
+        assertEquals(2, queue.getConcurrency());
+
+        RedbitConfig config = new RedbitConfig();
+        config.setSyncDelay(1234);
+        config.setParallelTasks(5);
+        config.setSyncTransactionSize(99);
+        RedbitSyncQueue defaults = new RedbitSyncQueue(defaultInfo, config);
+        assertEquals(1234, defaults.getInterval());
+        assertEquals(0, defaults.getMaxDirtyAge());
+        assertEquals(99, defaults.getBatchSize());
+        assertEquals(0, defaults.getPriority());
+        assertEquals(5, defaults.getConcurrency());
+    }
+
+    @Test
+    void flushesHandOverEveryMarkedKey() {
+        RedbitSyncQueue queue = queue();
+        assertNull(queue.flush(modifiedStruct -> fail("empty queues are not flushed")));
+        assertEquals(RedbitSyncQueue.NOT_MODIFIED, queue.getFirstModifiedAt());
+
+        assertEquals(1, queue.mark("1", Operation.UPSERT, null));
+        assertEquals(0, queue.mark("1", Operation.UPSERT, null));
+        assertEquals(1, queue.mark("2", Operation.DELETE, null));
+        assertEquals(2, queue.getPendingCount());
+        assertTrue(queue.isModified("1"));
+        assertNotEquals(RedbitSyncQueue.NOT_MODIFIED, queue.getFirstModifiedAt());
+
+        List<RedbitModifiedStruct> swapped = new ArrayList<>();
+        RedbitModifiedStruct flushed = queue.flush(swapped::add);
+        assertNotNull(flushed);
+        assertEquals(Collections.singletonList(flushed), swapped);
+        assertEquals(2, flushed.size());
+
+        // Keys marked after the flush belong to the next one
+        assertFalse(queue.isModified("1"));
+        assertEquals(0, queue.getPendingCount());
+        assertEquals(RedbitSyncQueue.NOT_MODIFIED, queue.getFirstModifiedAt());
+        assertEquals(1, queue.mark("1", Operation.UPSERT, null));
+        assertNotSame(flushed, queue.flush(modifiedStruct -> {}));
+    }
+
+    @Test
+    void tasksOfOneFlushRunUpToTheConcurrency() {
+        RedbitSyncQueue queue = queue();
+        RedbitModifiedStruct flushed = flush(queue, "1");
+        RedbitSynchronizationTask first = task(flushed, Operation.UPSERT);
+        RedbitSynchronizationTask second = task(flushed, Operation.DELETE);
+        RedbitSynchronizationTask third = task(flushed, Operation.UPDATE);
+
+        start(queue, first);
+        start(queue, second);
+        assertFalse(queue.isRunnable(third));
+
+        queue.finished(first);
+        start(queue, third);
+        queue.finished(second);
+        queue.finished(third);
+        assertTrue(queue.isDrained());
+    }
+
+    @Test
+    void flushesRunInOrder() {
+        RedbitSyncQueue queue = queue();
+        RedbitSynchronizationTask older = task(flush(queue, "1"), Operation.DELETE);
+        RedbitSynchronizationTask newer = task(flush(queue, "1"), Operation.UPSERT);
+
+        // An upsert overtaking the delete that was flushed before it would be lost
+        start(queue, older);
+        assertFalse(queue.isRunnable(newer));
+
+        queue.finished(older);
+        start(queue, newer);
+        queue.finished(newer);
+    }
+
+    @Test
+    void deleteAllRunsAlone() {
+        RedbitSyncQueue queue = queue();
+        RedbitModifiedStruct flushed = flush(queue, "1");
+        RedbitSynchronizationTask upsert = task(flushed, Operation.UPSERT);
+        RedbitSynchronizationTask deleteAll = task(flushed, Operation.DELETE_ALL);
+        RedbitSynchronizationTask later = task(flushed, Operation.UPSERT);
+
+        start(queue, upsert);
+        assertFalse(queue.isRunnable(deleteAll));
+
+        queue.finished(upsert);
+        start(queue, deleteAll);
+        assertFalse(queue.isRunnable(later));
+
+        queue.finished(deleteAll);
+        start(queue, later);
+        assertTrue(queue.isRunnable(task(flushed, Operation.UPSERT)));
+        queue.finished(later);
+    }
+
+    @Test
+    void pendingDeleteAllCountsOnce() {
+        RedbitSyncQueue queue = queue();
+        queue.mark("1", Operation.UPSERT, null);
+        queue.mark(null, Operation.DELETE_ALL, null);
+        queue.mark(null, Operation.DELETE_ALL, null);
+        queue.mark("2", Operation.UPSERT, null);
+        long pending = queue.getPendingCount();
+
+        RedbitModifiedStruct flushed = queue.flush(modifiedStruct -> {});
+        assertNotNull(flushed);
+        assertEquals(flushed.size(), pending);
+        assertFalse(flushed.isEmpty());
+    }
+
+    @RedbitSyncPolicy(interval = 3600000, maxDirtyAge = 250, batchSize = 64, priority = 7, concurrency = 2)
+    public static class QueuedPlayer extends RedbitVolatileStruct {
+
+        @RedbitColumn(sqlType = "INT", idColumn = true)
+        Integer id;
+        @RedbitColumn(sqlType = "BIGINT")
+        Long coins;
+
+    }
+
+    public static class DefaultPlayer extends RedbitVolatileStruct {
+
+        @RedbitColumn(sqlType = "INT", idColumn = true)
+        Integer id;
+        @RedbitColumn(sqlType = "BIGINT")
+        Long coins;
+
+    }
+
+}
@@ -0,0 +1,340 @@
+package io.github.braayy.synchronization;
+
+import io.github.braayy.Redbit;
+import io.github.braayy.RedbitTestEnvironment;
+import io.github.braayy.column.RedbitColumn;
+import io.github.braayy.struct.RedbitCompact;
+import io.github.braayy.struct.RedbitStruct;
+import io.github.braayy.struct.RedbitStructInfo;
+import io.github.braayy.struct.RedbitSyncPolicy;
+import io.github.braayy.struct.RedbitVolatileStruct;
+import io.github.braayy.synchronization.RedbitSynchronizationEntry.Operation;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import redis.clients.jedis.Jedis;
+
+import java.io.IOException;
+import java.util.*;
+
+import static io.github.braayy.RedbitTestEnvironment.await;
+import static io.github.braayy.RedbitTestEnvironment.queryString;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RedbitSynchronizerTest {
+
+    // Small enough that every synchronization below spans several multi-row statements
+    private static final int BATCH_SIZE = 7;
+    private static final int HIGH_WATER_MARK = 40;
+
+    private static Jedis jedis;
+
+    @BeforeAll
+    static void start() throws IOException {
+        Map<String, Class<? extends RedbitStruct>> structs = new LinkedHashMap<>();
+        structs.put("synced_player", SyncedPlayer.class);
+        structs.put("synced_compact_player", SyncedCompactPlayer.class);
+        structs.put("dirty_age_player", DirtyAgePlayer.class);
+        structs.put("buffered_player", BufferedPlayer.class);
+
+        jedis = RedbitTestEnvironment.start(46411, structs, config -> {
+            config.setSyncBatchSize(BATCH_SIZE);
+            config.setSyncHighWaterMark(HIGH_WATER_MARK);
+        });
+    }
+
+    @AfterAll
+    static void stop() throws IOException {
+        RedbitTestEnvironment.stop();
+    }
+
+    private static String row(int id) {
+        return row("synced_player", id);
+    }
+
+    private static String row(String table, int id) {
+        return queryString("SELECT CONCAT(name, ',', coins, ',', COALESCE(title, 'null')) FROM " + table + " WHERE id=" + id);
+    }
+
+    private static int count(int fromId, int toId) {
+        return count("synced_player", fromId, toId);
+    }
+
+    private static int count(String table, int fromId, int toId) {
+        return Integer.parseInt(queryString("SELECT COUNT(*) FROM " + table + " WHERE id BETWEEN " + fromId + " AND " + toId));
+    }
+
+    @Test
+    void upsertsAreWrittenInMultiRowBatches() {
+        List<SyncedPlayer> players = new ArrayList<>();
+        for (int id = 1; id <= 50; id++) {
+            SyncedPlayer player = new SyncedPlayer(id);
+            if (id % 3 == 0) player.title = null;
+            if (id == 25) player.name = "it's";
+            players.add(player);
+        }
+        assertTrue(SyncedPlayer.insertAll(players));
+
+        await("every batch synchronized", () -> count(1, 50) == 50);
+        assertEquals("p1,1,t1", row(1));
+        assertEquals("p3,3,null", row(3));
+        assertEquals("it's,25,t25", row(25));
+        assertEquals("p50,50,t50", row(50));
+    }
+
+    @Test
+    void upsertsReplaceExistingRows() {
+        List<SyncedPlayer> players = new ArrayList<>();
+        for (int id = 100; id < 110; id++) {
+            players.add(new SyncedPlayer(id));
+        }
+        assertTrue(SyncedPlayer.insertAll(players));
+        await("first insert synchronized", () -> count(100, 109) == 10);
+
+        for (SyncedPlayer player : players) {
+            player.coins = 1000L;
+            player.title = null;
+        }
+        assertTrue(SyncedPlayer.insertAll(players));
+
+        await("second insert synchronized", () -> "p109,1000,null".equals(row(109)));
+        assertEquals("p100,1000,null", row(100));
+        assertEquals(10, count(100, 109));
+    }
+
+    @Test
+    void deletesAreGroupedByBatch() {
+        List<SyncedPlayer> players = new ArrayList<>();
+        for (int id = 200; id < 230; id++) {
+            players.add(new SyncedPlayer(id));
+        }
+        assertTrue(SyncedPlayer.insertAll(players));
+        await("insert synchronized", () -> count(200, 229) == 30);
+
+        for (int id = 200; id < 220; id++) {
+            assertTrue(players.get(id - 200).deleteById());
+        }
+
+        await("deletes synchronized", () -> count(200, 229) == 10);
+        assertNull(row(219));
+        assertEquals("p220,220,t220", row(220));
+    }
+
+    @Test
+    void updatesOfDifferentColumnsAreWrittenTogether() {
+        List<SyncedPlayer> players = new ArrayList<>();
+        for (int id = 300; id < 320; id++) {
+            players.add(new SyncedPlayer(id));
+        }
+        assertTrue(SyncedPlayer.insertAll(players));
+        await("insert synchronized", () -> count(300, 319) == 20);
+
+        for (SyncedPlayer player : players) {
+            if (player.id % 2 == 0)
+                player.coins = 7L;
+            else
+                player.name = "odd";
+        }
+        assertTrue(SyncedPlayer.updateAll(players));
+
+        await("updates synchronized", () -> "odd,319,t319".equals(row(319)) && "p318,7,t318".equals(row(318)));
+        assertEquals("p300,7,t300", row(300));
+        assertEquals("odd,301,t301", row(301));
+    }
+
+    @Test
+    void updatesOfRowsMissingFromDatabaseWriteTheWholeRow() {
+        SyncedPlayer player = new SyncedPlayer(400);
+        assertTrue(player.insert(false));
+        player.coins = 40L;
+        assertTrue(player.update());
+
+        await("missing row inserted", () -> "p400,40,t400".equals(row(400)));
+        assertEquals("40", jedis.hget("synced_player:400", "coins"));
+    }
+
+    @Test
+    void keysGoneFromRedisAreSkipped() {
+        for (String table : Arrays.asList("synced_player", "synced_compact_player")) {
+            RedbitStructInfo structInfo = Redbit.getStructRegistry().getStructInfo(table);
+            assertNotNull(structInfo);
+
+            List<String> idValues = new ArrayList<>();
+            for (int id = 500; id < 510; id++) {
+                RedbitVolatileStruct player = table.equals("synced_player") ? new SyncedPlayer(id) : new SyncedCompactPlayer(id);
+                assertTrue(player.insert(false));
+                idValues.add(Integer.toString(id));
+            }
+            idValues.add("510");
+            Redbit.getSynchronizer().addModifiedKeys(structInfo, idValues, Operation.UPSERT);
+
+            BitSet columns = new BitSet();
+            columns.set(1);
+            Redbit.getSynchronizer().addModifiedKey(structInfo, "511", Operation.UPDATE, columns);
+
+            await(table + " read back from redis", () -> "p509,509,t509".equals(row(table, 509)));
+            assertEquals("p500,500,t500", row(table, 500));
+            assertNull(row(table, 510));
+            assertNull(row(table, 511));
+        }
+    }
+
+    @Test
+    void updatesOnlyReadTheModifiedColumns() {
+        SyncedPlayer player = new SyncedPlayer(600);
+        assertTrue(player.insert());
+        await("insert synchronized", () -> row(600) != null);
+
+        // Not marked, so the next synchronization must not pick it up
+        jedis.hset("synced_player:600", "name", "unmarked");
+        player.coins = 60L;
+        assertTrue(player.update());
+
+        await("update synchronized", () -> "p600,60,t600".equals(row(600)));
+    }
+
+    @Test
+    void compactUpdatesAreDecodedFromTheirBinaryFields() {
+        SyncedCompactPlayer player = new SyncedCompactPlayer(700);
+        assertTrue(player.insert());
+        await("insert synchronized", () -> row("synced_compact_player", 700) != null);
+
+        player.coins = -70L;
+        player.title = null;
+        assertTrue(player.update());
+        player.name = "renamed";
+        assertTrue(player.update());
+
+        await("update synchronized", () -> "renamed,-70,t700".equals(row("synced_compact_player", 700)));
+    }
+
+    @Test
+    void maxDirtyAgeFlushesBeforeTheInterval() {
+        assertTrue(new DirtyAgePlayer(1).insert());
+
+        await("dirty struct synchronized", () -> count("dirty_age_player", 1, 1) == 1);
+        await("nothing left pending", () -> Redbit.getSynchronizer().getPendingCount() == 0 && Redbit.getSynchronizer().getRemainingTasks() == 0);
+    }
+
+    @Test
+    void structsFlushOnTheirOwnSchedule() throws InterruptedException {
+        assertTrue(new BufferedPlayer(50).insert());
+        assertTrue(new SyncedPlayer(800).insert());
+
+        await("synced struct synchronized", () -> count(800, 800) == 1);
+        Thread.sleep(200);
+        assertEquals(0, count("buffered_player", 50, 50));
+        assertTrue(Redbit.getSynchronizer().getPendingCount() >= 1);
+    }
+
+    @Test
+    void highWaterMarkFlushesBeforeTheInterval() {
+        List<BufferedPlayer> players = new ArrayList<>();
+        for (int id = 100; id < 100 + HIGH_WATER_MARK; id++) {
+            players.add(new BufferedPlayer(id));
+        }
+        assertTrue(BufferedPlayer.insertAll(players));
+
+        await("buffered struct synchronized", () -> count("buffered_player", 100, 100 + HIGH_WATER_MARK) == HIGH_WATER_MARK);
+    }
+
+    @Test
+    void shutdownFlushesPendingWrites() throws InterruptedException {
+        assertTrue(new BufferedPlayer(1).insert());
+        Thread.sleep(300);
+        assertEquals(0, count("buffered_player", 1, 1));
+
+        Redbit.stop();
+        Redbit.init(Redbit.getConfig());
+
+        assertEquals(1, count("buffered_player", 1, 1));
+        assertTrue(new BufferedPlayer(2).insert(false));
+        assertEquals(1, count("buffered_player", 1, 2));
+    }
+
+    public static class SyncedPlayer extends RedbitVolatileStruct {
+
+        @RedbitColumn(sqlType = "INT", idColumn = true)
+        Integer id;
+        @RedbitColumn(sqlType = "VARCHAR", length = 16)
+        String name;
+        @RedbitColumn(sqlType = "BIGINT", defaultValue = "0")
+        Long coins;
+        @RedbitColumn(sqlType = "VARCHAR", length = 16, nullable = true)
+        String title;
+
+        public SyncedPlayer() {
+        }
+
+        SyncedPlayer(int id) {
+            this.id = id;
+            this.name = "p" + id;
+            this.coins = (long) id;
+            this.title = "t" + id;
+        }
+
+    }
+
+    @RedbitCompact
+    public static class SyncedCompactPlayer extends RedbitVolatileStruct {
+
+        @RedbitColumn(sqlType = "INT", idColumn = true)
+        Integer id;
+        @RedbitColumn(sqlType = "VARCHAR", length = 16)
+        String name;
+        @RedbitColumn(sqlType = "BIGINT", defaultValue = "0")
+        Long coins;
+        @RedbitColumn(sqlType = "VARCHAR", length = 16, nullable = true)
+        String title;
+
+        public SyncedCompactPlayer() {
+        }
+
+        SyncedCompactPlayer(int id) {
+            this.id = id;
+            this.name = "p" + id;
+            this.coins = (long) id;
+            this.title = "t" + id;
+        }
+
+    }
+
+    // Only synchronized when its dirty age runs out
+    @RedbitSyncPolicy(interval = 3600000, maxDirtyAge = 200)
+    public static class DirtyAgePlayer extends RedbitVolatileStruct {
+
+        @RedbitColumn(sqlType = "INT", idColumn = true)
+        Integer id;
+        @RedbitColumn(sqlType = "BIGINT")
+        Long coins;
+
+        public DirtyAgePlayer() {
+        }
+
+        DirtyAgePlayer(int id) {
+            this.id = id;
+            this.coins = (long) id;
+        }
+
+    }
+
+    // Only synchronized by the high water mark or on shutdown
+    @RedbitSyncPolicy(interval = 3600000)
+    public static class BufferedPlayer extends RedbitVolatileStruct {
+
+        @RedbitColumn(sqlType = "INT", idColumn = true)
+        Integer id;
+        @RedbitColumn(sqlType = "BIGINT")
+        Long coins;
+
+        public BufferedPlayer() {
+        }
+
+        BufferedPlayer(int id) {
+            this.id = id;
+            this.coins = (long) id;
+        }
+
+    }
+
+}